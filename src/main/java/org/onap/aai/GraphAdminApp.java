@@ -28,6 +28,7 @@ import org.onap.aai.logging.ErrorLogHelper;
 import org.onap.aai.nodes.NodeIngestor;
 import org.onap.aai.util.AAIConfig;
 import org.onap.aai.util.ExceptionTranslator;
+import org.onap.aai.util.ToolGraphPool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -104,6 +105,7 @@ public class GraphAdminApp {
 
     @PreDestroy
     public void cleanup(){
+        ToolGraphPool.getInstance().shutdown();
         AAIGraph.getInstance().graphShutdown();
     }
 
@@ -25,9 +25,9 @@ import com.google.gson.JsonParser;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.ParseException;
@@ -41,6 +41,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.javatuples.Triplet;
+import org.onap.aai.datasnapshot.BlockCompressedInputStream;
+import org.onap.aai.datasnapshot.CompactSnapshot;
+import org.onap.aai.datasnapshot.CompactSnapshotReader;
 import org.onap.aai.edges.EdgeIngestor;
 import org.onap.aai.edges.EdgeRule;
 import org.onap.aai.edges.exceptions.EdgeRuleNotFoundException;
@@ -422,33 +425,58 @@ public class AuditGraphson2Sql {
             	continue;
             }
             
-            try (BufferedReader reader = new BufferedReader(new FileReader(graphson))) {
+            // Compact snapshot files are read record by record instead of line by line
+            final boolean compact = CompactSnapshot.isCompactFile(graphson.getPath());
+            try (BufferedReader reader = compact ? null : new BufferedReader(new InputStreamReader(BlockCompressedInputStream.openSnapshotFile(graphson.getPath())));
+            		CompactSnapshotReader compactReader = compact ? new CompactSnapshotReader(graphson.getPath()) : null) {
                 String msg = "Processing snapshot file " + graphson.getName();
                 LOGGER.debug(msg);
                 System.out.println(msg);
-                String line;
+                String line = null;
+                CompactSnapshot.VertexRecord rec = null;
                     
-                while ((line = reader.readLine()) != null) {
-                    JsonObject vertex = jsonParser.parse(line).getAsJsonObject();
-                    long id = vertex.get("id").getAsLong();
+                while (compact ? (rec = compactReader.next()) != null : (line = reader.readLine()) != null) {
+                    JsonObject vertex = null;
+                    long id;
+                    String uri;
+                    String nodeType;
+                    String uuid;
+                    if (compact) {
+                        id = rec.id;
+                        uri = (String) rec.getFirstValue("aai-uri");
+                        nodeType = (String) rec.getFirstValue("aai-node-type");
+                        uuid = (String) rec.getFirstValue("aai-uuid");
+                        if (uri == null || nodeType == null || uuid == null) {
+                            msg = "DEBUG  --  Could not find keys for this vertex: [" +
+                            			id + "] ------";
+                            LOGGER.debug(msg);
+                            System.out.println(msg);
+                            skippedNodeCount++;
+                            continue;
+                        }
+                    }
+                    else {
+                        vertex = jsonParser.parse(line).getAsJsonObject();
+                        id = vertex.get("id").getAsLong();
 
-                    if ((vertex.get("properties") == null) ||
-                    		!vertex.get("properties").getAsJsonObject().has("aai-uri") ||
-                            !vertex.get("properties").getAsJsonObject().has("aai-node-type") ||
-                            !vertex.get("properties").getAsJsonObject().has("aai-uuid")) {
+                        if ((vertex.get("properties") == null) ||
+                        		!vertex.get("properties").getAsJsonObject().has("aai-uri") ||
+                                !vertex.get("properties").getAsJsonObject().has("aai-node-type") ||
+                                !vertex.get("properties").getAsJsonObject().has("aai-uuid")) {
                         	
-                        msg = "DEBUG  --  Could not find keys for this line: [" +
-                        			line + "] ------";
-                        LOGGER.debug(msg);
-                        System.out.println(msg);
-                        skippedNodeCount++;
-                        continue;
-                    }
+                            msg = "DEBUG  --  Could not find keys for this line: [" +
+                            			line + "] ------";
+                            LOGGER.debug(msg);
+                            System.out.println(msg);
+                            skippedNodeCount++;
+                            continue;
+                        }
 
-                    String uri = vertex.get("properties").getAsJsonObject().get("aai-uri").getAsJsonArray().get(0).getAsJsonObject().get("value").getAsString();
-                    String nodeType = vertex.get("properties").getAsJsonObject().get("aai-node-type").getAsJsonArray().get(0).getAsJsonObject().get("value").getAsString();
+                        uri = vertex.get("properties").getAsJsonObject().get("aai-uri").getAsJsonArray().get(0).getAsJsonObject().get("value").getAsString();
+                        nodeType = vertex.get("properties").getAsJsonObject().get("aai-node-type").getAsJsonArray().get(0).getAsJsonObject().get("value").getAsString();
+                        uuid = vertex.get("properties").getAsJsonObject().get("aai-uuid").getAsJsonArray().get(0).getAsJsonObject().get("value").getAsString();
+                    }
                     String nodeTypeKey = nodeType.replaceAll("-", "_");
-                    String uuid = vertex.get("properties").getAsJsonObject().get("aai-uuid").getAsJsonArray().get(0).getAsJsonObject().get("value").getAsString();
 
                     try {
                         loader.introspectorFromName(nodeType);
@@ -485,7 +513,12 @@ public class AuditGraphson2Sql {
                     idToUuid.put(id, uuid);
                       
                     // Collect Edge Info for this node
-                    if (vertex.has("inE")) {
+                    if (compact) {
+                        for (CompactSnapshot.EdgeRecord ed : rec.inE) {
+                            idIdLabelOfEdges.add(new Triplet<>(id, ed.otherVid, ed.label));
+                        }
+                    }
+                    else if (vertex.has("inE")) {
                         vertex.get("inE").getAsJsonObject().entrySet().forEach(es -> {
                             String label = es.getKey();
                             es.getValue().getAsJsonArray().forEach(e -> {
@@ -19,18 +19,18 @@
  */
 package org.onap.aai.datacleanup;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.nio.file.Files;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.List;
 
 import org.onap.aai.aailog.logs.AaiScheduledTaskAuditLog;
+import org.onap.aai.datasnapshot.ChunkStore;
+import org.onap.aai.datasnapshot.SnapshotChain;
 import org.onap.aai.logging.ErrorLogHelper;
 import org.onap.aai.logging.LogFormatTools;
 import org.onap.aai.exceptions.AAIException;
@@ -104,6 +104,7 @@ public class DataCleanupTasks {
 
 			//Iterate through the dataGroomingDir
 			File[] listFiles = path.listFiles();
+			List<File> filesToArchive = new ArrayList<>();
 			if(listFiles != null) {
 				for(File listFile : listFiles) {
 					if (listFile.toString().contains("ARCHIVE")){
@@ -114,11 +115,12 @@ public class DataCleanupTasks {
 						Date fileCreateDate = fileCreationMonthDate(listFile);
 						logger.debug("The fileCreateDate in dataGrooming is " + fileCreateDate);
 						if( fileCreateDate.compareTo(newAgeZip) < 0) {
-						archive(listFile,archiveDir,dataGroomingArcDir);
+							filesToArchive.add(listFile);
 						}
 					}
 				}
 			}
+			archive(filesToArchive,archiveDir,dataGroomingArcDir);
 
 			Date newAgeDelete = getZipDate(ageDelete);
 			//Iterate through the archive/dataGrooming dir
@@ -135,6 +137,7 @@ public class DataCleanupTasks {
 				}
 			}
 			}
+			removeUnreferencedChunks(dataGroomingPath);
 		}
 		catch (Exception e) {
 			ErrorLogHelper.logError("AAI_4000", "Exception running cron job for DataCleanup"+LogFormatTools.getStackTop(e));
@@ -184,15 +187,33 @@ public class DataCleanupTasks {
      * This method will zip the files and add it to the archive folder
      * Checks if the archive folder exists, if not then creates one
      * After adding the file to archive folder it deletes the file from the filepath
+     * Snapshot files that were written block-compressed are just moved, not zipped again
      * @throws Exception
      */
     public void archive(File file, String archiveDir, String afterArchiveDir) throws Exception {
 
     	logger.debug("Inside the archive folder");
-    	String filename = file.getName();
-    	logger.debug("file name is " +filename);
+    	logger.debug("file name is " +file.getName());
+    	createArchiveDir(archiveDir, afterArchiveDir);
+    	FileArchiver.fromConfig().archive(file, new File(afterArchiveDir));
+    }
+
+    /**
+     * Archives the files like archive(File, ...) does, several at a time (see FileArchiver
+     * for the aai.datacleanup.archive properties).  A file that fails is left for the next run.
+     * @throws Exception
+     */
+    public void archive(List<File> files, String archiveDir, String afterArchiveDir) throws Exception {
+
+    	if(files.isEmpty()) {
+    		return;
+    	}
+    	createArchiveDir(archiveDir, afterArchiveDir);
+    	int archived = FileArchiver.fromConfig().archiveAll(files, new File(afterArchiveDir));
+    	logger.debug("Archived " + archived + " of " + files.size() + " files at " + afterArchiveDir);
+    }
 
-		String zipFile = afterArchiveDir + AAIConstants.AAI_FILESEP + filename;
+    private void createArchiveDir(String archiveDir, String afterArchiveDir) {
 
 		File dataGroomingPath = new File(afterArchiveDir);
 
@@ -205,22 +226,19 @@ public class DataCleanupTasks {
 			if(!flag)
 				logger.debug("Failed to create ARCHIVE folder");
 		}
-		try(FileOutputStream outputstream = new FileOutputStream(zipFile + ".zip");
-				ZipOutputStream zoutputstream = new ZipOutputStream(outputstream);
-				FileInputStream inputstream = new FileInputStream(file)) {
-			ZipEntry ze = new ZipEntry(file.getName());
-			zoutputstream.putNextEntry(ze);
-			byte[] buffer = new byte[1024];
-			int len;
-			while ((len = inputstream.read(buffer)) > 0) {
-				zoutputstream.write(buffer,0,len);
-			}
-			//close all the sources
-			zoutputstream.closeEntry();
-			//Delete the file after been added to archive folder
-			delete(file);
-			logger.debug("The file archived is " + file + " at " + afterArchiveDir );
-		}
+    }
+
+    /**
+     * Deletes the chunks (see ChunkStore, aai.datacleanup.archive.codec=chunks) that are
+     * no longer part of any archived file, once the old files have been deleted
+     * @param afterArchiveDir the archive folder
+     */
+    public void removeUnreferencedChunks(File afterArchiveDir) throws Exception {
+
+    	int deleted = ChunkStore.removeUnreferencedChunks(afterArchiveDir);
+    	if(deleted > 0) {
+    		logger.debug("Deleted " + deleted + " chunks no longer used in " + afterArchiveDir);
+    	}
     }
 
     /**
@@ -276,23 +294,33 @@ public class DataCleanupTasks {
 
     		Date newAgeZip = getZipDate(ageZipSnapshot);
 
+    		// A DELTA_SNAPSHOT chain needs all of its files (however old its base is) until
+    		// a new base replaces it, or it can't be restored
+    		SnapshotChain chain = SnapshotChain.load(path);
+
     		//Iterate through the dataGroomingDir
     		File[] listFiles = path.listFiles();
+    		List<File> filesToArchive = new ArrayList<>();
     		if(listFiles != null) {
     			for(File listFile : listFiles) {
     				if (listFile.toString().contains("ARCHIVE")){
 					continue;
     				}
+    				if (chain != null && chain.holds(listFile.getName())) {
+    					logger.debug("Keeping " + listFile.getName() + ", the snapshot chain still uses it");
+    					continue;
+    				}
     				if(listFile.isFile()){
     					logger.debug("The file name in dataSnapshot: " +listFile.getName());
     					Date fileCreateDate = fileCreationMonthDate(listFile);
     					logger.debug("The fileCreateDate in dataSnapshot is " + fileCreateDate);
     					if( fileCreateDate.compareTo(newAgeZip) < 0) {
-    						archive(listFile,archiveDir,dataSnapshotArcDir);
+    						filesToArchive.add(listFile);
     					}
     				}
     			}
     		}
+    		archive(filesToArchive,archiveDir,dataSnapshotArcDir);
 
     		Date newAgeDelete = getZipDate(ageDeleteSnapshot);
     		//Iterate through the archive/dataSnapshots dir
@@ -309,6 +337,7 @@ public class DataCleanupTasks {
     				}
     			}
     		}
+    		removeUnreferencedChunks(dataSnapshotPath);
     		dmaapEventsDataCleanup(newAgeDelete);
     		dataMigrationCleanup();
 	}
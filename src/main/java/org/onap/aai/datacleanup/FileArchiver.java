@@ -0,0 +1,238 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datacleanup;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.onap.aai.datasnapshot.BlockCompressedInputStream;
+import org.onap.aai.datasnapshot.ChunkStore;
+import org.onap.aai.util.AAIConfig;
+import org.onap.aai.util.GraphAdminConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves the files the cleanup tasks age out into their ARCHIVE directory, compressing
+ * several of them at once.  One deflate stream keeps one core busy, so with a directory of
+ * multi-GB snapshot parts a single thread is CPU bound long before the disk is.
+ *
+ * The codec (zip, gzip, none or chunks), the deflate level (0-9, 1 is the fastest), the number of
+ * files compressed at once and the read/write buffer size come from aaiconfig:
+ * aai.datacleanup.archive.codec, .level, .threads and .buffer.kb.  Files that were written
+ * block-compressed (dataSnapshot with aai.datasnapshot.compress.block.size.kb) are moved
+ * as they are unless aai.datacleanup.archive.skip.compressed is false.
+ *
+ * With the chunks codec the files go into a deduplicating ChunkStore instead, which only
+ * writes the parts of a file it doesn't already have, and the file is replaced by a
+ * manifest of the same name that the snapshot reload reads like the original.
+ *
+ * An archive is written to a .tmp file and renamed when it is complete, and the original
+ * is only deleted after that, so a failed or interrupted run leaves the file to be
+ * archived again by the next one.
+ */
+public class FileArchiver {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileArchiver.class);
+
+	public enum Codec {
+		ZIP(".zip"), GZIP(".gz"), NONE(""), CHUNKS("");
+
+		private final String suffix;
+
+		Codec(String suffix) {
+			this.suffix = suffix;
+		}
+
+		public String getSuffix() {
+			return suffix;
+		}
+	}
+
+	private final Codec codec;
+	private final int level;
+	private final int threads;
+	private final int bufferSize;
+	private final boolean skipCompressed;
+
+	public FileArchiver(Codec codec, int level, int threads, int bufferSize, boolean skipCompressed) {
+		this.codec = codec;
+		this.level = level;
+		this.threads = Math.max(1, threads);
+		this.bufferSize = Math.max(8192, bufferSize);
+		this.skipCompressed = skipCompressed;
+	}
+
+	/**
+	 * @return an archiver set up from the aai.datacleanup.archive properties
+	 */
+	public static FileArchiver fromConfig() {
+		Codec codec;
+		String codecName = AAIConfig.get("aai.datacleanup.archive.codec",
+				GraphAdminConstants.AAI_DATACLEANUP_DEFAULT_ARCHIVE_CODEC);
+		try {
+			codec = Codec.valueOf(codecName.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Unknown aai.datacleanup.archive.codec " + codecName + ", zip will be used");
+			codec = Codec.ZIP;
+		}
+		int level = getConfigInt("aai.datacleanup.archive.level", GraphAdminConstants.AAI_DATACLEANUP_DEFAULT_ARCHIVE_LEVEL);
+		if( level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) ){
+			LOGGER.warn("aai.datacleanup.archive.level " + level + " is not between 0 and 9, the default level will be used");
+			level = Deflater.DEFAULT_COMPRESSION;
+		}
+		int threads = getConfigInt("aai.datacleanup.archive.threads", GraphAdminConstants.AAI_DATACLEANUP_DEFAULT_ARCHIVE_THREADS);
+		int bufferKb = getConfigInt("aai.datacleanup.archive.buffer.kb", GraphAdminConstants.AAI_DATACLEANUP_DEFAULT_ARCHIVE_BUFFER_KB);
+		boolean skipCompressed = !"false".equalsIgnoreCase(AAIConfig.get("aai.datacleanup.archive.skip.compressed", "true").trim());
+		return new FileArchiver(codec, level, threads, bufferKb * 1024, skipCompressed);
+	}
+
+	/**
+	 * Archives the files into the directory, at most the configured number at a time.  A
+	 * file that can't be archived is logged and left where it is; the others still are.
+	 *
+	 * @return the number of files archived
+	 */
+	public int archiveAll(List<File> files, File archiveDir) throws InterruptedException {
+		if( files.isEmpty() ){
+			return 0;
+		}
+		if( !archiveDir.isDirectory() && !archiveDir.mkdirs() ){
+			LOGGER.debug("Failed to create the archive folder " + archiveDir);
+		}
+		long startMillis = System.currentTimeMillis();
+		int poolSize = Math.min(threads, files.size());
+		ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+		int archived = 0;
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for( File file : files ){
+				futures.add(executor.submit(() -> {
+					archive(file, archiveDir);
+					return null;
+				}));
+			}
+			for( int i = 0; i < futures.size(); i++ ){
+				try {
+					futures.get(i).get();
+					archived++;
+				} catch (ExecutionException e) {
+					LOGGER.warn("Failed to archive " + files.get(i) + ", it will be tried again next time", e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		LOGGER.debug("Archived " + archived + " of " + files.size() + " files into " + archiveDir + " with "
+				+ poolSize + " threads in " + (System.currentTimeMillis() - startMillis) + " ms");
+		return archived;
+	}
+
+	/**
+	 * Archives one file into the directory on the calling thread.
+	 *
+	 * @return the archived file
+	 */
+	public File archive(File file, File archiveDir) throws IOException {
+		if( codec == Codec.CHUNKS ){
+			File manifest = new File(archiveDir, file.getName());
+			long startMillis = System.currentTimeMillis();
+			ChunkStore.Result result = new ChunkStore(archiveDir, level).store(file, manifest);
+			if( !file.delete() ){
+				LOGGER.debug("Failed to delete the file " + file + " after archiving it");
+			}
+			LOGGER.debug("The file archived is " + file + " at " + manifest + ", " + result.newChunks + " of its "
+					+ result.chunks + " chunks (" + result.newRawBytes + " of " + result.rawBytes
+					+ " bytes) were new and took " + result.bytesWritten + " bytes, in "
+					+ (System.currentTimeMillis() - startMillis) + " ms");
+			return manifest;
+		}
+		if( codec == Codec.NONE || (skipCompressed && BlockCompressedInputStream.isBlockCompressed(file.getPath())) ){
+			File target = new File(archiveDir, file.getName());
+			Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			LOGGER.debug("The file " + file + " was moved to " + archiveDir + " without compressing it");
+			return target;
+		}
+
+		File target = new File(archiveDir, file.getName() + codec.getSuffix());
+		File tmp = new File(archiveDir, target.getName() + ".tmp");
+		long startMillis = System.currentTimeMillis();
+		long length = file.length();
+		try (InputStream in = new FileInputStream(file);
+				OutputStream out = compress(new BufferedOutputStream(new FileOutputStream(tmp), bufferSize), file.getName())) {
+			byte[] buffer = new byte[bufferSize];
+			int len;
+			while( (len = in.read(buffer)) > 0 ){
+				out.write(buffer, 0, len);
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(tmp.toPath());
+			throw e;
+		}
+		Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		if( !file.delete() ){
+			LOGGER.debug("Failed to delete the file " + file + " after archiving it");
+		}
+		LOGGER.debug("The file archived is " + file + " at " + target + ", " + length + " bytes to "
+				+ target.length() + " in " + (System.currentTimeMillis() - startMillis) + " ms");
+		return target;
+	}
+
+	private OutputStream compress(OutputStream out, String entryName) throws IOException {
+		if( codec == Codec.GZIP ){
+			return new GZIPOutputStream(out, bufferSize) {
+				{
+					def.setLevel(level);
+				}
+			};
+		}
+		ZipOutputStream zip = new ZipOutputStream(out);
+		zip.setLevel(level);
+		zip.putNextEntry(new ZipEntry(entryName));
+		return zip;
+	}
+
+	private static int getConfigInt(String key, int defaultValue) {
+		try {
+			return Integer.parseInt(AAIConfig.get(key, Integer.toString(defaultValue)).trim());
+		} catch (Exception e) {
+			LOGGER.debug("Using " + defaultValue + " for " + key + ": " + e.getMessage());
+			return defaultValue;
+		}
+	}
+
+}
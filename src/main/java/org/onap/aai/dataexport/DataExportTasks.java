@@ -46,6 +46,8 @@ import org.onap.aai.logging.LogFormatTools;
 import org.onap.aai.setup.SchemaVersions;
 import org.onap.aai.util.AAIConfig;
 import org.onap.aai.util.AAIConstants;
+import org.onap.aai.util.GraphAdminConstants;
+import org.onap.aai.util.ToolJobGuard;
 import org.onap.logging.filter.base.ONAPComponents;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.PropertySource;
@@ -126,6 +128,26 @@ public class DataExportTasks {
 			LOGGER.debug("There is a dataExport process already running");
 			return;
 		}
+		ToolJobGuard.Job job = ToolJobGuard.getInstance().tryStart("dataExport");
+		if (job == null) {
+			LOGGER.debug("Data Export is already running in this graphadmin, or there is no room for it next to the jobs that are");
+			return;
+		}
+		try {
+			runExport();
+		}
+		finally {
+			job.close();
+		}
+		LOGGER.info("Ended exportTask: " + dateFormat.format(new Date()));
+		auditLog.logAfter();
+
+	}
+
+	/**
+	 * Loads the snapshot and writes out the payload files.
+	 */
+	private void runExport() throws AAIException, Exception {
 
 		LOGGER.debug("Started exportTask: " + dateFormat.format(new Date()));
 
@@ -135,6 +157,8 @@ public class DataExportTasks {
 		String nodeConfigurationLocation = AAIConstants.AAI_HOME_BUNDLECONFIG + AAIConfig.get("aai.dataexport.node.config.location");
 		String inputFilterConfigurationLocation = AAIConstants.AAI_HOME_BUNDLECONFIG + AAIConfig.get("aai.dataexport.input.filter.config.location");
 		String enablePartialGraph = AAIConfig.get("aai.dataexport.enable.partial.graph", "true");
+		String loadThreads = AAIConfig.get("aai.dataexport.load.threads",
+				Integer.toString(GraphAdminConstants.AAI_DATAEXPORT_DEFAULT_LOAD_THREADS));
 
 		// Check that the output location exist
 		File targetDirFile = new File(outputLocation);
@@ -176,6 +200,8 @@ public class DataExportTasks {
 		paramsList.add(inputFilterConfigurationLocation);
 		paramsList.add("-p");
 		paramsList.add(enablePartialGraph);
+		paramsList.add("-t");
+		paramsList.add(loadThreads);
 		paramsList.add("-d");
 		paramsList.add(snapshotFilePath);
 
@@ -196,9 +222,6 @@ public class DataExportTasks {
 		} finally {
 			LOGGER.debug("Ended exportTask: " + dateFormat.format(new Date()));
 		}
-		LOGGER.info("Ended exportTask: " + dateFormat.format(new Date()));
-		auditLog.logAfter();
-
 	}
 	/**
 	 * The isDataExportRunning method, checks if the data export task was started separately via command line
@@ -27,16 +27,32 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
@@ -46,7 +62,10 @@ import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Property;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.structure.util.detached.DetachedFactory;
 import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.JanusGraphVertex;
 import org.onap.aai.dbmap.AAIGraph;
 import org.onap.aai.edges.enums.AAIDirection;
 import org.onap.aai.edges.enums.EdgeProperty;
@@ -65,6 +84,7 @@ import org.onap.aai.util.AAISystemExitUtil;
 import org.onap.aai.util.ExceptionTranslator;
 import org.onap.aai.util.FormatDate;
 import org.onap.aai.util.GraphAdminConstants;
+import org.onap.aai.util.GraphStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
@@ -76,19 +96,22 @@ public class DataGrooming {
 	private static boolean historyEnabled;
 	private static final String FROMAPPID = "AAI-DB";
 	private static final String TRANSID = UUID.randomUUID().toString();
-	private int dupeGrpsDeleted = 0;
+	private final AtomicInteger dupeGrpsDeleted = new AtomicInteger();
 
 	private LoaderFactory loaderFactory;
 	private SchemaVersions schemaVersions;
 
 	private CommandLineArgs cArgs;
 
-	private Map<String, Vertex> orphanNodeHash ;
-	private Map<String, Vertex> missingAaiNtNodeHash ;
-	private Map<String, Vertex> badUriNodeHash ;
-	private Map<String, Vertex> badIndexNodeHash ;
-	private Map<String, Edge> oneArmedEdgeHash ;
-	private Map<String, Vertex> ghostNodeHash ;
+	// The results only hold the ids - the vertices and edges are read again when the
+	//   details are written out, so a dirty graph doesn't keep them all in memory
+	private Set<String> orphanNodeHash ;
+	private Set<String> missingAaiNtNodeHash ;
+	private Set<String> badUriNodeHash ;
+	private Set<String> badIndexNodeHash ;
+	private Set<String> oneArmedEdgeHash ;
+	private Map<String, String> emptyVertexHash ;
+	private Set<String> ghostNodeHash ;
 	private List<String> dupeGroups;
 	private Set<String> deleteCandidateList;
 	private int deleteCount = 0;
@@ -134,7 +157,7 @@ public class DataGrooming {
 
 		String prevFileName = "";
 		String singleNodeType = "";
-		dupeGrpsDeleted = 0;
+		dupeGrpsDeleted.set(0);
 		FormatDate fd = new FormatDate("yyyyMMddHHmm", "GMT");
 		String dteStr = fd.getDateTime();
 		cArgs = new CommandLineArgs();
@@ -147,6 +170,18 @@ public class DataGrooming {
 			if( sleepStr != null &&  !sleepStr.equals("") ){
 				cArgs.sleepMinutes = Integer.parseInt(sleepStr);
 			}
+			String threadsStr = AAIConfig.get("aai.grooming.default.threads", "");
+			if( !threadsStr.equals("") ){
+				cArgs.groomThreads = Integer.parseInt(threadsStr);
+			}
+			String sliceSizeStr = AAIConfig.get("aai.grooming.default.slice.size", "");
+			if( !sliceSizeStr.equals("") ){
+				cArgs.sliceSize = Integer.parseInt(sliceSizeStr);
+			}
+			String pageSizeStr = AAIConfig.get("aai.grooming.default.page.size", "");
+			if( !pageSizeStr.equals("") ){
+				cArgs.pageSize = Integer.parseInt(pageSizeStr);
+			}
 		}
 		catch ( Exception e ){
 			// Don't worry, we'll just use the defaults that we got from AAIConstants
@@ -171,6 +206,9 @@ public class DataGrooming {
 		LOGGER.debug("skipEdgeChecks is [" + cArgs.skipEdgeCheckFlag + "]");
 		LOGGER.debug("skipIndexUpdateFix is [" + cArgs.skipIndexUpdateFix + "]");
 		LOGGER.debug("maxFix is [" + cArgs.maxRecordsToFix + "]");
+		LOGGER.debug("threads is [" + cArgs.groomThreads + "]");
+		LOGGER.debug("sliceSize is [" + cArgs.sliceSize + "]");
+		LOGGER.debug("pageSize is [" + cArgs.pageSize + "]");
 
 
 		String windowTag = "FULL";
@@ -202,7 +240,8 @@ public class DataGrooming {
 						cArgs.dupeCheckOff, cArgs.dupeFixOn, cArgs.ghost2CheckOff, cArgs.ghost2FixOn,
 						finalShutdownFlag, cacheDbOkFlag,
 						cArgs.skipEdgeCheckFlag, cArgs.timeWindowMinutes,
-						cArgs.singleNodeType, cArgs.skipIndexUpdateFix );
+						cArgs.singleNodeType, cArgs.skipIndexUpdateFix,
+						cArgs.groomThreads, cArgs.sliceSize, cArgs.pageSize );
 			} else if (cArgs.doAutoFix) {
 				// They want us to run the processing twice -- first to look for
 				// delete candidates, then after
@@ -219,7 +258,8 @@ public class DataGrooming {
 						ver, cArgs.dupeCheckOff, cArgs.dupeFixOn, cArgs.ghost2CheckOff, cArgs.ghost2FixOn,
 						finalShutdownFlag, cacheDbOkFlag,
 						cArgs.skipEdgeCheckFlag, cArgs.timeWindowMinutes,
-						cArgs.singleNodeType, cArgs.skipIndexUpdateFix );
+						cArgs.singleNodeType, cArgs.skipIndexUpdateFix,
+						cArgs.groomThreads, cArgs.sliceSize, cArgs.pageSize );
 				if (fixCandCount == 0) {
 					LOGGER.debug(" No fix-Candidates were found by the first pass, so no second/fix-pass is needed. ");
 				} else {
@@ -248,7 +288,8 @@ public class DataGrooming {
 							cArgs.dupeCheckOff, cArgs.dupeFixOn, cArgs.ghost2CheckOff, cArgs.ghost2FixOn,
 							finalShutdownFlag, cacheDbOkFlag,
 							cArgs.skipEdgeCheckFlag, cArgs.timeWindowMinutes,
-							cArgs.singleNodeType, cArgs.skipIndexUpdateFix );
+							cArgs.singleNodeType, cArgs.skipIndexUpdateFix,
+							cArgs.groomThreads, cArgs.sliceSize, cArgs.pageSize );
 				}
 			} else {
 				// Do the grooming - plain vanilla (no fix-it-file, no
@@ -265,7 +306,8 @@ public class DataGrooming {
 						cArgs.dupeCheckOff, cArgs.dupeFixOn, cArgs.ghost2CheckOff, cArgs.ghost2FixOn,
 						finalShutdownFlag, cacheDbOkFlag,
 						cArgs.skipEdgeCheckFlag, cArgs.timeWindowMinutes,
-						cArgs.singleNodeType, cArgs.skipIndexUpdateFix );
+						cArgs.singleNodeType, cArgs.skipIndexUpdateFix,
+						cArgs.groomThreads, cArgs.sliceSize, cArgs.pageSize );
 			}
 
 			if(LOGGER.isInfoEnabled()){
@@ -334,6 +376,10 @@ public class DataGrooming {
 	 * @param ghost2FixOn the ghost 2 fix on
 	 * @param finalShutdownFlag the final shutdown flag
 	 * @param cacheDbOkFlag the cacheDbOk flag
+	 * @param groomThreads how many threads check the nodes, 1 to check them one node type after the other
+	 *   (always 1 when there are fixes to make)
+	 * @param sliceSize the most vertices one of those threads checks at a time
+	 * @param pageSize how many vertices are read (in one transaction) at a time
 	 * @return the int
 	 */
 	private int doTheGrooming( String fileNameForFixing,
@@ -343,7 +389,8 @@ public class DataGrooming {
 							   Boolean ghost2CheckOff, Boolean ghost2FixOn,
 							   Boolean finalShutdownFlag, Boolean cacheDbOkFlag,
 							   Boolean skipEdgeCheckFlag, int timeWindowMinutes,
-							   String singleNodeType, Boolean skipIndexUpdateFix ) {
+							   String singleNodeType, Boolean skipIndexUpdateFix,
+							   int groomThreads, int sliceSize, int pageSize ) {
 
 		LOGGER.debug(" Entering doTheGrooming ");
 
@@ -356,8 +403,8 @@ public class DataGrooming {
 		int dummyUpdCount = 0;
 		int indexUpdCount = 0;
 		boolean executeFinalCommit = false;
-		deleteCandidateList = new LinkedHashSet<>();
-		Set<String> processedVertices = new LinkedHashSet<>();
+		deleteCandidateList = new VertexIdSet();
+		Set<String> processedVertices = new VertexIdSet();
 		Set<String> postCommitRemoveList = new LinkedHashSet<>();
 
 		Graph g = null;
@@ -378,9 +425,9 @@ public class DataGrooming {
 			new File(targetDir).mkdirs();
 
 			if (!fileNameForFixing.equals("")) {
-				deleteCandidateList = getDeleteList(targetDir,
+				deleteCandidateList = new VertexIdSet(getDeleteList(targetDir,
 						fileNameForFixing, edgesOnlyFlag, dontFixOrphansFlag,
-						dupeFixOn);
+						dupeFixOn));
 			}
 
 			if (deleteCandidateList.size() > maxRecordsToFix) {
@@ -390,7 +437,22 @@ public class DataGrooming {
 						+ maxRecordsToFix
 						+ ".  No candidates will be deleted. ");
 				// Clear out the list so it won't be processed below.
-				deleteCandidateList = new LinkedHashSet<>();
+				deleteCandidateList = new VertexIdSet();
+			}
+
+			// When we are fixing things, the checks all work in the main transaction so the fixes
+			// are committed together at the end.  Otherwise each page of vertices is read in a fresh
+			// read transaction.
+			boolean fixing = !deleteCandidateList.isEmpty();
+			if( fixing && groomThreads > 1 ){
+				// Only one thread can work in the main transaction
+				LOGGER.warn(" >> WARNING >>  threads is " + groomThreads + ", but the fixes all have to be made in "
+						+ "one transaction, so the nodes will be checked on 1 thread. ");
+				groomThreads = 1;
+			}
+			else if( groomThreads > 1 && timeWindowMinutes == 0 ){
+				LOGGER.warn(" >> WARNING >>  threads is " + groomThreads + ", so this run cannot be resumed "
+						+ "if it dies (only a FULL run on 1 thread keeps a resume checkpoint). ");
 			}
 
 			String fullOutputFileName = targetDir + AAIConstants.AAI_FILESEP
@@ -437,17 +499,23 @@ public class DataGrooming {
 			}
 			GraphTraversalSource source1 = g.traversal();
 
-			ArrayList<String> errArr = new ArrayList<>();
+			List<String> errArr = new ArrayList<>();
 			int totalNodeCount = 0;
 			HashMap<String, String> misMatchedHash = new HashMap<>();
-			orphanNodeHash = new HashMap<>();
-			missingAaiNtNodeHash = new HashMap<>();
-			badUriNodeHash = new HashMap<>();
-			badIndexNodeHash = new HashMap<>();
-			oneArmedEdgeHash = new HashMap<>();
-			HashMap<String, String> emptyVertexHash = new HashMap<>();
-			ghostNodeHash = new HashMap<>();
+			// (a VertexIdSet can be filled from several threads at once)
+			orphanNodeHash = new VertexIdSet();
+			missingAaiNtNodeHash = new VertexIdSet();
+			badUriNodeHash = new VertexIdSet();
+			badIndexNodeHash = new VertexIdSet();
+			oneArmedEdgeHash = new LinkedHashSet<>();
+			emptyVertexHash = new HashMap<>();
+			ghostNodeHash = new VertexIdSet();
 			dupeGroups = new ArrayList<>();
+			if( groomThreads > 1 ){
+				// The node checks will fill these from several threads at once
+				errArr = Collections.synchronizedList(new ArrayList<>());
+				dupeGroups = new CopyOnWriteArrayList<>();
+			}
 
 			LOGGER.debug(" Using default schemaVersion = [" + schemaVersions.getDefaultVersion().toString() + "]" );
 			Loader loader = loaderFactory.createLoaderForVersion(ModelType.MOXY, schemaVersions.getDefaultVersion());
@@ -470,6 +538,39 @@ public class DataGrooming {
 
 
 
+			NodeChecks checks = new NodeChecks();
+			checks.loader = loader;
+			checks.version = version;
+			checks.windowStartTime = windowStartTime;
+			checks.dupeCheckOff = dupeCheckOff;
+			checks.dupeFixOn = dupeFixOn;
+			checks.skipIndexUpdateFix = skipIndexUpdateFix;
+			checks.processedVertices = processedVertices;
+			checks.errArr = errArr;
+			checks.pageSize = pageSize;
+
+			GroomingCheckpoint checkpoint = null;
+			if( timeWindowMinutes == 0 && !fixing && groomThreads <= 1 ){
+				// A FULL run can pick up where an earlier one that died left off
+				String runOptions = "edgesOnly=" + edgesOnlyFlag + ",skipEdgeChecks=" + skipEdgeCheckFlag
+						+ ",dupeCheckOff=" + dupeCheckOff + ",ghost2CheckOff=" + ghost2CheckOff
+						+ ",singleNodeType=" + singleNodeType;
+				checkpoint = GroomingCheckpoint.open(new File(targetDir, "dataGrooming.FULL.resume"),
+						runOptions, getResumeMaxAgeMillis());
+				if( checkpoint.isResumed() ){
+					restoreFromCheckpoint(checkpoint, checks);
+				}
+			}
+
+			// A time-window run gets the vertices changed in its window (and, for the edge checks,
+			// their neighbors) from the aai-last-mod-ts index, if it is there and ENABLED.  Without
+			// it, every vertex is read and the ones outside the window are passed over.
+			Map<String, VertexIdList> windowIds = null;
+			if( timeWindowMinutes > 0 && LastModTsIndex.isEnabled(graph, AAIConfig.get("aai.grooming.window.index.backend",
+					GraphAdminConstants.AAI_GROOMING_DEFAULT_WINDOW_INDEX_BACKEND)) ){
+				windowIds = getChangedVertexIds(graph, fixing ? g : null, windowStartTime);
+			}
+
 			Set<Entry<String, Introspector>> entrySet = loader.getAllObjects().entrySet();
 			String ntList = "";
 			LOGGER.debug("  Starting DataGrooming Processing ");
@@ -478,342 +579,66 @@ public class DataGrooming {
 				LOGGER.debug(" NOTE >> Skipping Node processing as requested.  Will only process Edges. << ");
 			}
 			else {
+				// Unless we only look at the window's vertices, every node of each type gets
+				// looked at, so the counts go to GraphStatistics
+				List<NodeTypeInfo> nodeTypesToCheck = new ArrayList<>();
 				for (Entry<String, Introspector> entry : entrySet) {
 					String nType = entry.getKey();
-					int thisNtCount = 0;
-					int thisNtDeleteCount = 0;
 
 					if( !singleNodeType.equals("") && !singleNodeType.equals(nType) ){
 						// We are only going to process this one node type and this isn't it
 						continue;
 					}
 
-					LOGGER.debug(" >  Look at : [" + nType + "] ...");
 					if(ntList.isEmpty())
 						ntList = nType;
 					else
 						ntList = ntList + "," + nType;
 
-					// Get a collection of the names of the key properties for this nodeType to use later
-					// Determine what the key fields are for this nodeType - use an arrayList so they
-					// can be gotten out in a consistent order.
-					Set <String> keyPropsSet = entry.getValue().getKeys();
-					ArrayList<String> keyProps = new ArrayList<>(keyPropsSet);
-
-					Set <String> indexedPropsSet = entry.getValue().getIndexedProperties();
-					ArrayList<String> indexedProps = new ArrayList<>(indexedPropsSet);
-
-					Iterator<String> indPropItr = indexedProps.iterator();
-					HashMap <String,String> propTypeHash = new HashMap<>();
-					while( indPropItr.hasNext() ){
-						String propName = indPropItr.next();
-						String propType = entry.getValue().getType(propName);
-						propTypeHash.put(propName, propType);
-					}
-
-					// Get the types of nodes that this nodetype depends on for uniqueness (if any)
-					Collection <String> depNodeTypes = loader.introspectorFromName(nType).getDependentOn();
-
-					// Loop through all the nodes of this Node type
-					int lastShownForNt = 0;
-					ArrayList <Vertex> tmpList = new ArrayList <> ();
-					Iterator <Vertex> iterv =  source1.V().has("aai-node-type",nType);
-					while (iterv.hasNext()) {
-						// We put the nodes into an ArrayList because the graph.query iterator can time out
-						tmpList.add(iterv.next());
-					}
-
-					Iterator <Vertex> iter = tmpList.iterator();
-					while (iter.hasNext()) {
-						try {
-							thisNtCount++;
-							if( thisNtCount == lastShownForNt + 1000 ){
-								lastShownForNt = thisNtCount;
-								LOGGER.debug("count for " + nType + " so far = " + thisNtCount );
-							}
-							Vertex thisVtx = iter.next();
-							if( windowStartTime > 0 ){
-								// They are using the time-window, so we only want nodes that are updated after a
-								// passed-in timestamp OR that have no last-modified-timestamp which means they are suspicious.
-								Object objModTimeStamp = thisVtx.property("aai-last-mod-ts").orElse(null);
-								if( objModTimeStamp != null ){
-									long thisNodeModTime = (long)objModTimeStamp;
-									if( thisNodeModTime < windowStartTime ){
-										// It has a last modified ts and is NOT in our window, so we can pass over it
-										continue;
-									}
-								}
-							}
-
-							String thisVid = thisVtx.id().toString();
-							if (processedVertices.contains(thisVid)) {
-								LOGGER.debug("skipping already processed vertex: " + thisVid);
-								continue;
-							}
-							totalNodeCount++;
-							// Note - the "secondGetList" is used one node at a time - it is populated
-							//   using either the node's defined unique key/keys (if it is not dependent on
-							//   a "parent" node, or is populated using the key/keys "under" it's parent node.
-							List <Vertex> secondGetList = new ArrayList <> ();
-
-							// -----------------------------------------------------------------------
-							// For each vertex of this nodeType, we want to:
-							//      a) make sure it can be retrieved using its "aai-uri"
-							//		b) make sure that it can be retrieved using it's AAI defined key(s)
-							//   	c) make sure that it is not a duplicate
-							// -----------------------------------------------------------------------
-
-							Boolean aaiUriOk = checkAaiUriOk(source1, thisVtx);
-
-							// For this instance of this nodeType, get the key properties
-							HashMap<String, Object> propHashWithKeys = new HashMap<>();
-							Iterator<String> keyPropI = keyProps.iterator();
-							while (keyPropI.hasNext()) {
-								String propName = keyPropI.next();
-								String propVal = "";
-								Object obj = thisVtx.property(propName).orElse(null);
-								if (obj != null) {
-									propVal = obj.toString();
-								}
-								propHashWithKeys.put(propName, propVal);
-							}
-							try {
-								// If this node is dependent on another for uniqueness, then do the query from that parent node
-								// Note - all of our nodes that are dependent on others for uniqueness are
-								// 		"children" of that node.
-								boolean depNodeOk = true;
-								if( depNodeTypes.isEmpty() ){
-									// This kind of node is not dependent on any other.
-									// Make sure we can get it back using it's key properties (that is the
-									//   phantom checking) and that we only get one.  Note - we also need
-									//   to collect data for a second type of dupe-checking which is done later.
-									secondGetList = getNodeJustUsingKeyParams( TRANSID, FROMAPPID, source1, nType,
-											propHashWithKeys, version );
-								}
-								else {
-									// This kind of node is dependent on another for uniqueness.
-									// Start at it's parent (the parent/containing vertex) and make sure we can get it
-									// back using it's key properties and that we only get one.
-									Iterator <Vertex> vertI2 = source1.V(thisVtx).union(__.inE().has(EdgeProperty.CONTAINS.toString(), AAIDirection.OUT.toString()).outV(), __.outE().has(EdgeProperty.CONTAINS.toString(), AAIDirection.IN.toString()).inV());
-									Vertex parentVtx = null;
-									// First we need to try to find the parent/containing vertex.
-									int pCount = 0;
-									while( vertI2 != null && vertI2.hasNext() ){
-										parentVtx = vertI2.next();
-										pCount++;
-									}
-									if( pCount <= 0 ){
-										// It's Missing it's dependent/parent/containing node - it's an orphan
-										depNodeOk = false;
-										if (deleteCandidateList.contains(thisVid)) {
-											boolean okFlag = true;
-											boolean updateOnlyFlag = false;
-											try {
-												processedVertices.add(thisVtx.id().toString());
-												Object ob = thisVtx.property("aai-node-type").orElse(null);
-												if( ob == null && !skipIndexUpdateFix ){
-													updateIndexedPropsForMissingNT(thisVtx, thisVid, nType, propTypeHash, indexedProps);
-													updateOnlyFlag = true;
-													dummyUpdCount++;
-													// Since we are updating this delete candidate, not deleting it, we
-													// want it to show up as a delete candidate for this run also.
-													missingAaiNtNodeHash.put(thisVid, thisVtx);
-												}
-												else {
-													// There was an aai-node-type parameter, so we'll do the remove
-													thisVtx.remove();
-													deleteCount++;
-													thisNtDeleteCount++;
-												}
-											} catch (Exception e) {
-												okFlag = false;
-												LOGGER.debug("ERROR trying to delete delete Candidate VID = " + thisVid + " " + LogFormatTools.getStackTop(e));
-											}
-											if (okFlag){
-												if( updateOnlyFlag ) {
-													LOGGER.debug(" Updated Indexes for Delete Candidate VID = " + thisVid);
-												}
-												else {
-													LOGGER.debug(" DELETED Delete Candidate VID = " + thisVid);
-												}
-											}
-										} else {
-											// NOTE - Only nodes that are missing their parent/containing node are ever considered "orphaned".
-											// That is, you could have a node with no edges... which sounds like an orphan, but not all
-											// nodes require edges.  For example, you could have a newly created "image" node which does not have
-											// any edges connected to it (using it) yet.
-											Object ob = thisVtx.property("aai-node-type").orElse(null);
-											if( ob == null ){
-												// Group this with missing-node-type guys - which
-												// we will delete more readily than orphans.
-												LOGGER.debug(" >> Encountered a missingAaiNodeType while looking for the parent of a [" + nType + "] node.");
-												missingAaiNtNodeHash.put(thisVid, thisVtx);
-											}
-											else {
-												Object ob2 = thisVtx.property("aai-uuid").orElse(null);
-												String auid = "";
-												if( ob2 != null ){
-													auid = ob2.toString();
-												}
-												String checkDummyUid = thisVid + "dummy";
-												if( auid.equals(checkDummyUid) ){
-													// Group this with missing-node-type guys.
-													LOGGER.debug(" >> Encountered a missingAaiNodeType mid-fix-node while looking for the parent of a [" + nType + "] node.");
-													missingAaiNtNodeHash.put(thisVid, thisVtx);
-												}
-												else {
-													// It's a regular old orphan
-													orphanNodeHash.put(thisVid, thisVtx);
-												}
-											}
-										}
-									}
-									else if ( pCount > 1 ){
-										// Not sure how this could happen?  Should we do something here?
-										depNodeOk = false;
-									}
-									else {
-										// We found the parent - so use it to do the second-look.
-										// NOTE --- We're just going to do the same check from the other direction - because
-										//  there could be duplicates or the pointer going the other way could be broken
-										ArrayList <Vertex> tmpListSec = new ArrayList <> ();
-
-										tmpListSec = getConnectedChildrenOfOneType( source1, parentVtx, nType ) ;
-										Iterator<Vertex> vIter = tmpListSec.iterator();
-										while (vIter.hasNext()) {
-											Vertex tmpV = vIter.next();
-											if( vertexHasTheseKeys(tmpV, propHashWithKeys) ){
-												secondGetList.add(tmpV);
-											}
-										}
-									}
-								}// end of -- else this is a dependent node  -- piece
-
-								Boolean aaiKeysOk = true;
-								if( (secondGetList == null || secondGetList.size() == 0)
-										&& depNodeOk){
-									aaiKeysOk = false;
-								}
-
-								boolean bothKeysAreBad = false;
-								if( !aaiKeysOk && !aaiUriOk ) {
-									bothKeysAreBad = true;
-								}
-								else if ( !aaiKeysOk ){
-									// Just the key-index is bad
-									// We will not be putting this on the Auto-Delete list, just logging it (AAI-16252)
-									badIndexNodeHash.put(thisVid, thisVtx);
-								}
-								else if ( !aaiUriOk ){
-									// Just the aai-uri is bad
-									// We will not be putting this on the Auto-Delete list, just logging it (AAI-16252)
-									badUriNodeHash.put(thisVid, thisVtx);
-								}
-
-								if( bothKeysAreBad ){
-									// Neither the aai-uri nor key info could retrieve this node - BOTH are bad.
-									// So, it's a PHANTOM
+					nodeTypesToCheck.add(new NodeTypeInfo(nType, entry.getValue(), loader));
+				}
 
-									if (deleteCandidateList.contains(thisVid)) {
-										boolean okFlag = true;
-										boolean updateOnlyFlag = false;
-										try {
-											Object ob = thisVtx.property("aai-node-type").orElse(null);
-											if( ob == null && !skipIndexUpdateFix ){
-												updateIndexedPropsForMissingNT(thisVtx, thisVid, nType, propTypeHash, indexedProps);
-												dummyUpdCount++;
-												updateOnlyFlag = true;
-												// Since we are updating this delete candidate, not deleting it, we
-												// want it to show up as a delete candidate for this run also.
-												missingAaiNtNodeHash.put(thisVid, thisVtx);
-											}
-											else {
-												// There was an aai-node-type parameter, so we'll do the remove
-												thisVtx.remove();
-												deleteCount++;
-												thisNtDeleteCount++;
-											}
-										} catch (Exception e) {
-											okFlag = false;
-											LOGGER.debug("ERROR trying to delete phantom VID = " + thisVid + " " + LogFormatTools.getStackTop(e));
-										}
-										if (okFlag){
-											if( updateOnlyFlag ) {
-												LOGGER.debug(" Updated Indexes for Delete Candidate VID = " + thisVid);
-											}
-											else {
-												LOGGER.debug(" DELETED VID = " + thisVid);
-											}
-										}
-									} else {
-										ghostNodeHash.put(thisVid, thisVtx);
-									}
-								}
-								else if( (secondGetList.size() > 1) && depNodeOk && !dupeCheckOff ){
-									// Found some DUPLICATES - need to process them
-									LOGGER.debug(" - now check Dupes for this guy - ");
-									List<String> tmpDupeGroups = checkAndProcessDupes(
-											TRANSID, FROMAPPID, g, source1, version,
-											nType, secondGetList, dupeFixOn,
-											deleteCandidateList, dupeGroups, loader);
-									Iterator<String> dIter = tmpDupeGroups.iterator();
-									while (dIter.hasNext()) {
-										// Add in any newly found dupes to our running list
-										String tmpGrp = dIter.next();
-										LOGGER.debug("Found set of dupes: [" + tmpGrp + "]");
-										dupeGroups.add(tmpGrp);
-									}
-								}
-							}
-							catch (AAIException e1) {
-								LOGGER.warn(" For nodeType = " + nType + " Caught exception", e1);
-								errArr.add(e1.getErrorObject().toString());
-							}
-							catch (Exception e2) {
-								LOGGER.warn(" For nodeType = " + nType
-										+ " Caught exception", e2);
-								errArr.add(e2.getMessage());
-							}
-						}// try block to enclose looping over each single vertex
-						catch (Exception exx) {
-							LOGGER.warn("WARNING from inside the while-verts-loop ", exx);
+				if( groomThreads > 1 ){
+					groomNodeTypesInParallel(nodeTypesToCheck, graph, groomThreads, sliceSize,
+							windowIds, checks);
+				}
+				else {
+					for (NodeTypeInfo ntInfo : nodeTypesToCheck) {
+						String nType = ntInfo.nType;
+						if( checkpoint != null && checkpoint.isNodeTypeDone(nType) ){
+							LOGGER.debug(" >  Skipping : [" + nType + "], the run we resumed already did it");
+							continue;
 						}
+						LOGGER.debug(" >  Look at : [" + nType + "] ...");
 
-					} // while loop for each record of a nodeType
-
-					if( depNodeTypes.isEmpty() && !dupeCheckOff ){
-						// For this nodeType, we haven't looked at the possibility of a
-						// non-dependent node where two verts have same key info
-						ArrayList<ArrayList<Vertex>> nonDependentDupeSets = new ArrayList<>();
-						nonDependentDupeSets = getDupeSets4NonDepNodes(
-								TRANSID, FROMAPPID, g,
-								version, nType, tmpList,
-								keyProps, loader );
-						// For each set found (each set is for a unique instance of key-values),
-						//  process the dupes found
-						Iterator<ArrayList<Vertex>> dsItr = nonDependentDupeSets.iterator();
-						while( dsItr.hasNext() ){
-							ArrayList<Vertex> dupeList =  dsItr.next();
-							LOGGER.debug(" - now check Dupes for some non-dependent guys - ");
-							List<String> tmpDupeGroups = checkAndProcessDupes(
-									TRANSID, FROMAPPID, g, source1, version,
-									nType, dupeList, dupeFixOn,
-									deleteCandidateList, dupeGroups, loader);
-							Iterator<String> dIter = tmpDupeGroups.iterator();
-							while (dIter.hasNext()) {
-								// Add in any newly found dupes to our running list
-								String tmpGrp = dIter.next();
-								LOGGER.debug("Found set of dupes: [" + tmpGrp + "]");
-								dupeGroups.add(tmpGrp);
-							}
+						// Loop through all the nodes of this Node type.  We only hold on to their ids and
+						// read the vertices a page at a time, because the graph.query iterator can time out.
+						VertexIdList ids;
+						if( windowIds != null ){
+							ids = windowIds.getOrDefault(nType, VertexIdList.EMPTY);
+						}
+						else {
+							ids = getVertexIds(graph, fixing ? g : null, nType,
+									GraphStatistics.getInstance().getNodeTypeCountEstimate(nType));
+							checks.nodeTypeCounts.put(nType, (long) ids.size());
+						}
+						Map<String, List<Object>> keyGroups = needsKeyGroups(ntInfo, checks) ? new HashMap<>() : null;
+						groomNodeTypePages(ids, 0, ids.size(), ntInfo, graph, fixing ? g : null,
+								checks, keyGroups, checkpoint);
+						if( keyGroups != null ){
+							checkNonDependentDupes(keyGroups, ntInfo, graph, fixing ? g : null, checks);
+						}
+						if( checkpoint != null && checkpoint.nodeTypeDone(nType) ){
+							saveCheckpoint(checkpoint, checks);
 						}
 
-					}// end of extra dupe check for non-dependent nodes
-
-					thisNtDeleteCount = 0;  // Reset for the next pass
-					LOGGER.debug( " Processed " + thisNtCount + " records for [" + nType + "], " + totalNodeCount + " total (in window) overall. " );
-
-				}// While-loop for each node type
+						LOGGER.debug( " Processed " + ids.size() + " records for [" + nType + "], " + checks.counts.nodes.get() + " total (in window) overall. " );
+					}// For-loop for each node type
+				}
+				totalNodeCount += checks.counts.nodes.get();
+				deleteCount += checks.counts.deleted.get();
+				dummyUpdCount += checks.counts.dummyUpdates.get();
+				GraphStatistics.getInstance().recordNodeTypeCounts("dataGrooming", checks.nodeTypeCounts, singleNodeType.equals(""));
 
 			}// end of check to make sure we weren't only supposed to do edges
 
@@ -847,292 +672,309 @@ public class DataGrooming {
 					throw new AAIException("AAI_6101", emsg);
 				}
 
-				ArrayList<Vertex> vertList = new ArrayList<>();
-				Iterator<Vertex> vItor3 = g.traversal().V();
-				// Gotta hold these in a List - or else the DB times out as you cycle
-				// through these
-				while (vItor3.hasNext()) {
-					Vertex v = vItor3.next();
-					vertList.add(v);
+				// Gotta read these a page at a time - or else the DB times out as you cycle
+				// through these.  Only the ids of all of them are held.
+				VertexIdList allIds;
+				if( windowIds != null ){
+					allIds = getWindowEdgeCheckIds(graph, fixing ? g : null, windowIds, pageSize);
+				}
+				else {
+					allIds = getVertexIds(graph, fixing ? g : null, null, GraphStatistics.getInstance().getVertexCountEstimate());
 				}
 				int counter = 0;
 				int lastShown = 0;
-				Iterator<Vertex> vItor2 = vertList.iterator();
 				LOGGER.debug(" Checking for bad edges  --- ");
 
-				while (vItor2.hasNext()) {
-					Vertex v = null;
+				int startIndex = 0;
+				if( checkpoint != null && checkpoint.getLastId(GroomingCheckpoint.EDGES) >= 0 ){
+					startIndex = allIds.indexAfter(checkpoint.getLastId(GroomingCheckpoint.EDGES));
+				}
+				for( int pageFrom = startIndex; pageFrom < allIds.size(); pageFrom += pageSize ){
+					int pageTo = Math.min(allIds.size(), pageFrom + pageSize);
+					Graph pageTx = fixing ? g : graph.newTransaction();
 					try {
-						try {
-							v = vItor2.next();
-						} catch (Exception vex) {
-							LOGGER.warn(">>> WARNING trying to get next vertex on the vItor2 ");
-							continue;
-						}
-
-						counter++;
-						String thisVertId = "";
-						try {
-							thisVertId = v.id().toString();
-						} catch (Exception ev) {
-							LOGGER.warn("WARNING when doing getId() on a vertex from our vertex list.  ");
-							continue;
-						}
-						if (ghostNodeHash.containsKey(thisVertId)) {
-							// We already know that this is a phantom node, so don't bother checking it
-							LOGGER.debug(" >> Skipping edge check for edges from vertexId = "
-									+ thisVertId
-									+ ", since that guy is a Phantom Node");
-							continue;
-						}
-
-						if( windowStartTime > 0 ){
-							// They are using the time-window, so we only want nodes that are updated after a
-							// passed-in timestamp OR that have no last-modified-timestamp which means they are suspicious.
-							Object objModTimeStamp = v.property("aai-last-mod-ts").orElse(null);
-							if( objModTimeStamp != null ){
-								long thisNodeModTime = (long)objModTimeStamp;
-								if( thisNodeModTime < windowStartTime ){
-									// It has a last modified ts and is NOT in our window, so we can pass over it
+						Iterator<Vertex> vItor2 = pageTx.traversal().V(allIds.page(pageFrom, pageTo));
+						while (vItor2.hasNext()) {
+							Vertex v = null;
+							try {
+								try {
+									v = vItor2.next();
+								} catch (Exception vex) {
+									LOGGER.warn(">>> WARNING trying to get next vertex on the vItor2 ");
 									continue;
 								}
-							}
-						}
-
-						if (counter == lastShown + 250) {
-							lastShown = counter;
-							LOGGER.debug("... Checking edges for vertex # "
-									+ counter);
-						}
-						Iterator<Edge> eItor = v.edges(Direction.BOTH);
-						while (eItor.hasNext()) {
-							Edge e = null;
-							Vertex vIn = null;
-							Vertex vOut = null;
-							try {
-								e = eItor.next();
-							} catch (Exception iex) {
-								LOGGER.warn(">>> WARNING trying to get next edge on the eItor ", iex);
-								continue;
-							}
 
-							try {
-								vIn = e.inVertex();
-							} catch (Exception err) {
-								LOGGER.warn(">>> WARNING trying to get edge's In-vertex ", err);
-							}
-							String vNtI = "";
-							String vIdI = "";
-							Vertex ghost2 = null;
-
-							Boolean keysMissing = true;
-							Boolean cantGetUsingVid = false;
-							if (vIn != null) {
+								counter++;
+								String thisVertId = "";
 								try {
-									Object ob = vIn.property("aai-node-type").orElse(null);
-									if (ob != null) {
-										vNtI = ob.toString();
-										keysMissing = anyKeyFieldsMissing(vNtI, vIn, loader);
-									}
-									ob = vIn.id();
-									long vIdLong = 0L;
-									if (ob != null) {
-										vIdI = ob.toString();
-										vIdLong = Long.parseLong(vIdI);
-									}
-
-									if( ! ghost2CheckOff ){
-										Vertex connectedVert = g2.traversal().V(vIdLong).next();
-										if( connectedVert == null ) {
-											LOGGER.warn( "GHOST2 -- got NULL when doing getVertex for vid = " + vIdLong);
-											cantGetUsingVid = true;
-
-											// If we can NOT get this ghost with the SECOND graph-object,
-											// it is still a ghost since even though we can get data about it using the FIRST graph
-											// object.
+									thisVertId = v.id().toString();
+								} catch (Exception ev) {
+									LOGGER.warn("WARNING when doing getId() on a vertex from our vertex list.  ");
+									continue;
+								}
+								if (ghostNodeHash.contains(thisVertId)) {
+									// We already know that this is a phantom node, so don't bother checking it
+									LOGGER.debug(" >> Skipping edge check for edges from vertexId = "
+											+ thisVertId
+											+ ", since that guy is a Phantom Node");
+									continue;
+								}
 
-											try {
-												ghost2 = g.traversal().V(vIdLong).next();
-											}
-											catch( Exception ex){
-												LOGGER.warn( "GHOST2 --  Could not get the ghost info for a bad edge for vtxId = " + vIdLong, ex);
-											}
-											if( ghost2 != null ){
-												ghostNodeHash.put(vIdI, ghost2);
-											}
+								if( windowStartTime > 0 && windowIds == null ){
+									// They are using the time-window, so we only want nodes that are updated after a
+									// passed-in timestamp OR that have no last-modified-timestamp which means they are suspicious.
+									// (With the index, allIds already only has the window's vertices and their neighbors.)
+									Object objModTimeStamp = v.property("aai-last-mod-ts").orElse(null);
+									if( objModTimeStamp != null ){
+										long thisNodeModTime = (long)objModTimeStamp;
+										if( thisNodeModTime < windowStartTime ){
+											// It has a last modified ts and is NOT in our window, so we can pass over it
+											continue;
 										}
-									}// end of the ghost2 checking
+									}
 								}
-								catch (Exception err) {
-									LOGGER.warn(">>> WARNING trying to get edge's In-vertex props ", err);
+
+								if (counter == lastShown + 250) {
+									lastShown = counter;
+									LOGGER.debug("... Checking edges for vertex # "
+											+ counter);
 								}
-							}
+								Iterator<Edge> eItor = v.edges(Direction.BOTH);
+								while (eItor.hasNext()) {
+									Edge e = null;
+									Vertex vIn = null;
+									Vertex vOut = null;
+									try {
+										e = eItor.next();
+									} catch (Exception iex) {
+										LOGGER.warn(">>> WARNING trying to get next edge on the eItor ", iex);
+										continue;
+									}
 
-							if (keysMissing || vIn == null || vNtI.equals("")
-									|| cantGetUsingVid) {
-								// this is a bad edge because it points to a vertex
-								// that isn't there anymore or is corrupted
-								String thisEid = e.id().toString();
-								if (deleteCandidateList.contains(thisEid) || deleteCandidateList.contains(vIdI)) {
-									boolean okFlag = true;
-									if (!vIdI.equals("")) {
-										// try to get rid of the corrupted vertex
+									try {
+										vIn = e.inVertex();
+									} catch (Exception err) {
+										LOGGER.warn(">>> WARNING trying to get edge's In-vertex ", err);
+									}
+									String vNtI = "";
+									String vIdI = "";
+									Vertex ghost2 = null;
+
+									Boolean keysMissing = true;
+									Boolean cantGetUsingVid = false;
+									if (vIn != null) {
 										try {
-											if( (ghost2 != null) && ghost2FixOn ){
-												ghost2.remove();
+											Object ob = vIn.property("aai-node-type").orElse(null);
+											if (ob != null) {
+												vNtI = ob.toString();
+												keysMissing = anyKeyFieldsMissing(vNtI, vIn, loader);
 											}
-											else {
-												vIn.remove();
+											ob = vIn.id();
+											long vIdLong = 0L;
+											if (ob != null) {
+												vIdI = ob.toString();
+												vIdLong = Long.parseLong(vIdI);
 											}
-											executeFinalCommit = true;
-											deleteCount++;
-										} catch (Exception e1) {
-											okFlag = false;
-											LOGGER.warn("WARNING when trying to delete bad-edge-connected VERTEX VID = "
-													+ vIdI, e1);
-										}
-										if (okFlag) {
-											LOGGER.debug(" DELETED vertex from bad edge = "
-													+ vIdI);
-										}
-									} else {
-										// remove the edge if we couldn't get the
-										// vertex
-										try {
-											e.remove();
-											executeFinalCommit = true;
-											deleteCount++;
-										} catch (Exception ex) {
-											// NOTE - often, the exception is just
-											// that this edge has already been
-											// removed
-											okFlag = false;
-											LOGGER.warn("WARNING when trying to delete edge = "
-													+ thisEid);
+
+											if( ! ghost2CheckOff ){
+												Vertex connectedVert = g2.traversal().V(vIdLong).next();
+												if( connectedVert == null ) {
+													LOGGER.warn( "GHOST2 -- got NULL when doing getVertex for vid = " + vIdLong);
+													cantGetUsingVid = true;
+
+													// If we can NOT get this ghost with the SECOND graph-object,
+													// it is still a ghost since even though we can get data about it using the FIRST graph
+													// object.
+
+													try {
+														ghost2 = pageTx.traversal().V(vIdLong).next();
+													}
+													catch( Exception ex){
+														LOGGER.warn( "GHOST2 --  Could not get the ghost info for a bad edge for vtxId = " + vIdLong, ex);
+													}
+													if( ghost2 != null ){
+														ghostNodeHash.add(vIdI);
+													}
+												}
+											}// end of the ghost2 checking
 										}
-										if (okFlag) {
-											LOGGER.debug(" DELETED edge = " + thisEid);
+										catch (Exception err) {
+											LOGGER.warn(">>> WARNING trying to get edge's In-vertex props ", err);
 										}
 									}
-								} else {
-									oneArmedEdgeHash.put(thisEid, e);
-									if ((vIn != null) && (vIn.id() != null)) {
-										emptyVertexHash.put(thisEid, vIn.id()
-												.toString());
-									}
-								}
-							}
 
-							try {
-								vOut = e.outVertex();
-							} catch (Exception err) {
-								LOGGER.warn(">>> WARNING trying to get edge's Out-vertex ");
-							}
-							String vNtO = "";
-							String vIdO = "";
-							ghost2 = null;
-							keysMissing = true;
-							cantGetUsingVid = false;
-							if (vOut != null) {
-								try {
-									Object ob = vOut.property("aai-node-type").orElse(null);
-									if (ob != null) {
-										vNtO = ob.toString();
-										keysMissing = anyKeyFieldsMissing(vNtO,
-												vOut, loader);
-									}
-									ob = vOut.id();
-									long vIdLong = 0L;
-									if (ob != null) {
-										vIdO = ob.toString();
-										vIdLong = Long.parseLong(vIdO);
+									if (keysMissing || vIn == null || vNtI.equals("")
+											|| cantGetUsingVid) {
+										// this is a bad edge because it points to a vertex
+										// that isn't there anymore or is corrupted
+										String thisEid = e.id().toString();
+										if (deleteCandidateList.contains(thisEid) || deleteCandidateList.contains(vIdI)) {
+											boolean okFlag = true;
+											if (!vIdI.equals("")) {
+												// try to get rid of the corrupted vertex
+												try {
+													if( (ghost2 != null) && ghost2FixOn ){
+														ghost2.remove();
+													}
+													else {
+														vIn.remove();
+													}
+													executeFinalCommit = true;
+													deleteCount++;
+												} catch (Exception e1) {
+													okFlag = false;
+													LOGGER.warn("WARNING when trying to delete bad-edge-connected VERTEX VID = "
+															+ vIdI, e1);
+												}
+												if (okFlag) {
+													LOGGER.debug(" DELETED vertex from bad edge = "
+															+ vIdI);
+												}
+											} else {
+												// remove the edge if we couldn't get the
+												// vertex
+												try {
+													e.remove();
+													executeFinalCommit = true;
+													deleteCount++;
+												} catch (Exception ex) {
+													// NOTE - often, the exception is just
+													// that this edge has already been
+													// removed
+													okFlag = false;
+													LOGGER.warn("WARNING when trying to delete edge = "
+															+ thisEid);
+												}
+												if (okFlag) {
+													LOGGER.debug(" DELETED edge = " + thisEid);
+												}
+											}
+										} else {
+											oneArmedEdgeHash.add(thisEid);
+											if ((vIn != null) && (vIn.id() != null)) {
+												emptyVertexHash.put(thisEid, vIn.id()
+														.toString());
+											}
+										}
 									}
 
-									if( ! ghost2CheckOff ){
-										Vertex connectedVert = g2.traversal().V(vIdLong).next();
-										if( connectedVert == null ) {
-											cantGetUsingVid = true;
-											LOGGER.debug( "GHOST2 -- got NULL when doing getVertex for vid = " + vIdLong);
-											// If we can get this ghost with the other graph-object, then get it -- it's still a ghost
-											try {
-												ghost2 = g.traversal().V(vIdLong).next();
+									try {
+										vOut = e.outVertex();
+									} catch (Exception err) {
+										LOGGER.warn(">>> WARNING trying to get edge's Out-vertex ");
+									}
+									String vNtO = "";
+									String vIdO = "";
+									ghost2 = null;
+									keysMissing = true;
+									cantGetUsingVid = false;
+									if (vOut != null) {
+										try {
+											Object ob = vOut.property("aai-node-type").orElse(null);
+											if (ob != null) {
+												vNtO = ob.toString();
+												keysMissing = anyKeyFieldsMissing(vNtO,
+														vOut, loader);
 											}
-											catch( Exception ex){
-												LOGGER.warn( "GHOST2 -- Could not get the ghost info for a bad edge for vtxId = " + vIdLong, ex);
+											ob = vOut.id();
+											long vIdLong = 0L;
+											if (ob != null) {
+												vIdO = ob.toString();
+												vIdLong = Long.parseLong(vIdO);
 											}
-											if( ghost2 != null ){
-												ghostNodeHash.put(vIdO, ghost2);
+
+											if( ! ghost2CheckOff ){
+												Vertex connectedVert = g2.traversal().V(vIdLong).next();
+												if( connectedVert == null ) {
+													cantGetUsingVid = true;
+													LOGGER.debug( "GHOST2 -- got NULL when doing getVertex for vid = " + vIdLong);
+													// If we can get this ghost with the other graph-object, then get it -- it's still a ghost
+													try {
+														ghost2 = pageTx.traversal().V(vIdLong).next();
+													}
+													catch( Exception ex){
+														LOGGER.warn( "GHOST2 -- Could not get the ghost info for a bad edge for vtxId = " + vIdLong, ex);
+													}
+													if( ghost2 != null ){
+														ghostNodeHash.add(vIdO);
+													}
+												}
 											}
+										} catch (Exception err) {
+											LOGGER.warn(">>> WARNING trying to get edge's Out-vertex props ", err);
 										}
 									}
-								} catch (Exception err) {
-									LOGGER.warn(">>> WARNING trying to get edge's Out-vertex props ", err);
-								}
-							}
-							if (keysMissing || vOut == null || vNtO.equals("")
-									|| cantGetUsingVid) {
-								// this is a bad edge because it points to a vertex
-								// that isn't there anymore
-								String thisEid = e.id().toString();
-								if (deleteCandidateList.contains(thisEid) || deleteCandidateList.contains(vIdO)) {
-									boolean okFlag = true;
-									if (!vIdO.equals("")) {
-										// try to get rid of the corrupted vertex
-										try {
-											if( (ghost2 != null) && ghost2FixOn ){
-												ghost2.remove();
+									if (keysMissing || vOut == null || vNtO.equals("")
+											|| cantGetUsingVid) {
+										// this is a bad edge because it points to a vertex
+										// that isn't there anymore
+										String thisEid = e.id().toString();
+										if (deleteCandidateList.contains(thisEid) || deleteCandidateList.contains(vIdO)) {
+											boolean okFlag = true;
+											if (!vIdO.equals("")) {
+												// try to get rid of the corrupted vertex
+												try {
+													if( (ghost2 != null) && ghost2FixOn ){
+														ghost2.remove();
+													}
+													else if (vOut != null) {
+														vOut.remove();
+													}
+													executeFinalCommit = true;
+													deleteCount++;
+												} catch (Exception e1) {
+													okFlag = false;
+													LOGGER.warn("WARNING when trying to delete bad-edge-connected VID = "
+															+ vIdO, e1);
+												}
+												if (okFlag) {
+													LOGGER.debug(" DELETED vertex from bad edge = "
+															+ vIdO);
+												}
+											} else {
+												// remove the edge if we couldn't get the
+												// vertex
+												try {
+													e.remove();
+													executeFinalCommit = true;
+													deleteCount++;
+												} catch (Exception ex) {
+													// NOTE - often, the exception is just
+													// that this edge has already been
+													// removed
+													okFlag = false;
+													LOGGER.warn("WARNING when trying to delete edge = "
+															+ thisEid, ex);
+												}
+												if (okFlag) {
+													LOGGER.debug(" DELETED edge = " + thisEid);
+												}
 											}
-											else if (vOut != null) {
-												vOut.remove();
+										} else {
+											oneArmedEdgeHash.add(thisEid);
+											if ((vOut != null) && (vOut.id() != null)) {
+												emptyVertexHash.put(thisEid, vOut.id()
+														.toString());
 											}
-											executeFinalCommit = true;
-											deleteCount++;
-										} catch (Exception e1) {
-											okFlag = false;
-											LOGGER.warn("WARNING when trying to delete bad-edge-connected VID = "
-													+ vIdO, e1);
-										}
-										if (okFlag) {
-											LOGGER.debug(" DELETED vertex from bad edge = "
-													+ vIdO);
-										}
-									} else {
-										// remove the edge if we couldn't get the
-										// vertex
-										try {
-											e.remove();
-											executeFinalCommit = true;
-											deleteCount++;
-										} catch (Exception ex) {
-											// NOTE - often, the exception is just
-											// that this edge has already been
-											// removed
-											okFlag = false;
-											LOGGER.warn("WARNING when trying to delete edge = "
-													+ thisEid, ex);
-										}
-										if (okFlag) {
-											LOGGER.debug(" DELETED edge = " + thisEid);
 										}
 									}
-								} else {
-									oneArmedEdgeHash.put(thisEid, e);
-									if ((vOut != null) && (vOut.id() != null)) {
-										emptyVertexHash.put(thisEid, vOut.id()
-												.toString());
-									}
-								}
+								}// End of while-edges-loop
+							} catch (Exception exx) {
+								LOGGER.warn("WARNING from in the while-verts-loop ", exx);
 							}
-						}// End of while-edges-loop
-					} catch (Exception exx) {
-						LOGGER.warn("WARNING from in the while-verts-loop ", exx);
+						}// End of while-vertices-loop (the edge-checking)
+					} finally {
+						closePageTransaction(pageTx, g);
+					}
+					if( checkpoint != null && checkpoint.pageDone(GroomingCheckpoint.EDGES, allIds.get(pageTo - 1)) ){
+						saveCheckpoint(checkpoint, checks);
 					}
-				}// End of while-vertices-loop (the edge-checking)
+				}// End of for-pages-loop (the edge-checking)
 				LOGGER.debug(" Done checking for bad edges  --- ");
 			}	// end of -- if we're not skipping the edge-checking
 
 
-			deleteCount = deleteCount + dupeGrpsDeleted;
+			deleteCount = deleteCount + dupeGrpsDeleted.get();
 			if (deleteCount > 0 || dummyUpdCount > 0 || indexUpdCount > 0){
 				executeFinalCommit = true;
 			}
@@ -1145,7 +987,7 @@ public class DataGrooming {
 			int badIndexNodeCount = badIndexNodeHash.size();
 			int dupeCount = dupeGroups.size();
 
-			deleteCount = deleteCount + dupeGrpsDeleted;
+			deleteCount = deleteCount + dupeGrpsDeleted.get();
 
 			bw.write("\n\n ============ Summary ==============\n");
 			if( timeWindowMinutes == 0 ){
@@ -1155,6 +997,11 @@ public class DataGrooming {
 				bw.write("Ran PARTIAL data grooming just looking at data added/updated in the last " + timeWindowMinutes + " minutes. \n");
 			}
 
+			if( checkpoint != null && checkpoint.isResumed() ){
+				bw.write("Resumed a run that did not finish, it was started at "
+						+ new Date(checkpoint.getState().startedTs) + " \n");
+			}
+
 			bw.write("\nRan these nodeTypes = " + ntList + "\n\n");
 			bw.write("There were this many delete candidates from previous run =  "
 					+ deleteCandidateList.size() + "\n");
@@ -1180,28 +1027,21 @@ public class DataGrooming {
 					+ misMatchedHash.size() + "\n");
 
 			bw.write("\n ------------- Delete Candidates ---------\n");
-			for (Map.Entry<String, Vertex> entry : ghostNodeHash
-					.entrySet()) {
-				String vid = entry.getKey();
+			for (String vid : ghostNodeHash) {
 				bw.write("DeleteCandidate: Phantom Vid = [" + vid + "]\n");
 				cleanupCandidateCount++;
 			}
-			for (Map.Entry<String, Vertex> entry : missingAaiNtNodeHash
-					.entrySet()) {
-				String vid = entry.getKey();
+			for (String vid : missingAaiNtNodeHash) {
 				bw.write("DeleteCandidate: Missing aai-node-type Vid = [" + vid + "]\n");
 				cleanupCandidateCount++;
 			}
-			for (Map.Entry<String, Vertex> entry : orphanNodeHash
-					.entrySet()) {
-				String vid = entry.getKey();
+			for (String vid : orphanNodeHash) {
 				bw.write("DeleteCandidate: OrphanDepNode Vid = [" + vid + "]\n");
 				if (!dontFixOrphansFlag) {
 					cleanupCandidateCount++;
 				}
 			}
-			for (Map.Entry<String, Edge> entry : oneArmedEdgeHash.entrySet()) {
-				String eid = entry.getKey();
+			for (String eid : oneArmedEdgeHash) {
 				bw.write("DeleteCandidate: Bad EDGE Edge-id = [" + eid + "]\n");
 				cleanupCandidateCount++;
 			}
@@ -1211,18 +1051,17 @@ public class DataGrooming {
 			bw.write("\n-- NOTE - To see DeleteCandidates for Duplicates, you need to look in the Duplicates Detail section below.\n");
 
 			bw.write("\n ------------- GHOST NODES - detail ");
-			for (Map.Entry<String, Vertex> entry : ghostNodeHash
-					.entrySet()) {
+			for (String vid : ghostNodeHash) {
 				try {
-					String vid = entry.getKey();
+					Vertex detailVtx = getVertexForDetail(g, vid);
 					bw.write("\n ==> Phantom Vid = " + vid + "\n");
 					ArrayList<String> retArr = showPropertiesForNode(
-							TRANSID, FROMAPPID, entry.getValue());
+							TRANSID, FROMAPPID, detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
 					retArr = showAllEdgesForNode(TRANSID, FROMAPPID,
-							entry.getValue());
+							detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
@@ -1232,19 +1071,18 @@ public class DataGrooming {
 			}
 
 			bw.write("\n ------------- Missing aai-node-type NODES - detail ");
-			for (Map.Entry<String, Vertex> entry : missingAaiNtNodeHash
-					.entrySet()) {
+			for (String vid : missingAaiNtNodeHash) {
 				try {
-					String vid = entry.getKey();
+					Vertex detailVtx = getVertexForDetail(g, vid);
 					bw.write("\n> Missing aai-node-type Node Vid = " + vid + "\n");
 					ArrayList<String> retArr = showPropertiesForNode(
-							TRANSID, FROMAPPID, entry.getValue());
+							TRANSID, FROMAPPID, detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
 
 					retArr = showAllEdgesForNode(TRANSID, FROMAPPID,
-							entry.getValue());
+							detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
@@ -1254,19 +1092,18 @@ public class DataGrooming {
 			}
 
 			bw.write("\n ------------- Nodes where aai-uri property is bad - detail ");
-			for (Map.Entry<String, Vertex> entry : badUriNodeHash
-					.entrySet()) {
+			for (String vid : badUriNodeHash) {
 				try {
-					String vid = entry.getKey();
+					Vertex detailVtx = getVertexForDetail(g, vid);
 					bw.write("\n> Has Bad aai-uri - Vid = " + vid + "\n");
 					ArrayList<String> retArr = showPropertiesForNode(
-							TRANSID, FROMAPPID, entry.getValue());
+							TRANSID, FROMAPPID, detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
 
 					retArr = showAllEdgesForNode(TRANSID, FROMAPPID,
-							entry.getValue());
+							detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
@@ -1276,19 +1113,18 @@ public class DataGrooming {
 			}
 
 			bw.write("\n ------------- Nodes where an indexed property is bad - detail: ");
-			for (Map.Entry<String, Vertex> entry : badIndexNodeHash
-					.entrySet()) {
+			for (String vid : badIndexNodeHash) {
 				try {
-					String vid = entry.getKey();
+					Vertex detailVtx = getVertexForDetail(g, vid);
 					bw.write("\n> Node with bad index - Vid = " + vid + "\n");
 					ArrayList<String> retArr = showPropertiesForNode(
-							TRANSID, FROMAPPID, entry.getValue());
+							TRANSID, FROMAPPID, detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
 
 					retArr = showAllEdgesForNode(TRANSID, FROMAPPID,
-							entry.getValue());
+							detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
@@ -1298,19 +1134,18 @@ public class DataGrooming {
 			}
 
 			bw.write("\n ------------- Missing Dependent Edge ORPHAN NODES - detail: ");
-			for (Map.Entry<String, Vertex> entry : orphanNodeHash
-					.entrySet()) {
+			for (String vid : orphanNodeHash) {
 				try {
-					String vid = entry.getKey();
+					Vertex detailVtx = getVertexForDetail(g, vid);
 					bw.write("\n> Orphan Node Vid = " + vid + "\n");
 					ArrayList<String> retArr = showPropertiesForNode(
-							TRANSID, FROMAPPID, entry.getValue());
+							TRANSID, FROMAPPID, detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
 
 					retArr = showAllEdgesForNode(TRANSID, FROMAPPID,
-							entry.getValue());
+							detailVtx);
 					for (String info : retArr) {
 						bw.write(info + "\n");
 					}
@@ -1320,13 +1155,16 @@ public class DataGrooming {
 			}
 
 			bw.write("\n ------------- EDGES pointing to empty/bad vertices: ");
-			for (Map.Entry<String, Edge> entry : oneArmedEdgeHash.entrySet()) {
+			for (String eid : oneArmedEdgeHash) {
 				try {
-					String eid = entry.getKey();
-					Edge thisE = entry.getValue();
+					Edge thisE = getEdgeForDetail(g, eid);
 					String badVid = emptyVertexHash.get(eid);
 					bw.write("\n>  Edge pointing to bad vertex (Vid = "
 							+ badVid + ") EdgeId = " + eid + "\n");
+					if( thisE == null ){
+						bw.write("(the edge is gone by now)\n");
+						continue;
+					}
 					bw.write("Label: [" + thisE.label() + "]\n");
 					Iterator<Property<Object>> pI = thisE.properties();
 					while (pI.hasNext()) {
@@ -1433,113 +1271,1076 @@ public class DataGrooming {
 			}
 
 			bw.close();
+			if( checkpoint != null ){
+				checkpoint.delete();
+			}
 
 			LOGGER.debug(" ------------- Done doing all the checks ------------ ");
 			LOGGER.debug("Output will be written to " + fullOutputFileName);
 
-			if (cleanupCandidateCount > 0 || badUriNodeCount > 0 || badIndexNodeCount > 0) {
-				// Technically, this is not an error -- but we're throwing this
-				// error so that hopefully a
-				// monitoring system will pick it up and do something with it.
-				throw new AAIException("AAI_6123", "See file: [" + fullOutputFileName
-						+ "] and investigate delete candidates. ");
+			if (cleanupCandidateCount > 0 || badUriNodeCount > 0 || badIndexNodeCount > 0) {
+				// Technically, this is not an error -- but we're throwing this
+				// error so that hopefully a
+				// monitoring system will pick it up and do something with it.
+				throw new AAIException("AAI_6123", "See file: [" + fullOutputFileName
+						+ "] and investigate delete candidates. ");
+			}
+		} catch (AAIException e) {
+			LOGGER.debug("Caught AAIException while grooming data");
+			ErrorLogHelper.logException(e);
+		} catch (Exception ex) {
+			LOGGER.debug("Caught exception while grooming data");
+			ErrorLogHelper.logError("AAI_6128", ex.getMessage() + ", resolve and rerun dataGrooming");
+		} finally {
+
+			if (bw != null) {
+				try {
+					bw.close();
+				} catch (IOException iox) {
+					LOGGER.warn("Got an IOException trying to close bufferedWriter() ", iox);
+				}
+			}
+
+			if (executeFinalCommit) {
+				// If we were holding off on commits till the end - then now is the time.
+				if( g == null ){
+					LOGGER.debug(" >>>> ERROR <<<<   Could not commit changes. graph was null when we wanted to commit.");
+				}
+				else if( !g.tx().isOpen() ){
+					LOGGER.debug(" >>>> ERROR <<<<   Could not commit changes. Transaction was not open when we wanted to commit.");
+				}
+				else {
+					try {
+						LOGGER.debug("About to do the commit for "
+								+ deleteCount + " removes. ");
+						g.tx().commit();
+						LOGGER.debug("Commit was successful ");
+					} catch (Exception excom) {
+						LOGGER.debug(" >>>> ERROR <<<<   Could not commit changes. " + LogFormatTools.getStackTop(excom));
+						deleteCount = 0;
+					}
+				}
+			}
+			else if (g != null && g.tx().isOpen()) {
+				try {
+					// We did not do any deletes that need to be committed.
+					// The rollback is to clear out the transaction used while doing those reads
+					g.tx().rollback();
+				} catch (Exception ex) {
+					// Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed
+					LOGGER.warn("WARNING from final graphTransaction.rollback()", ex);
+				}
+			}
+
+			if (g2 != null && g2.tx().isOpen()) {
+				try {
+					// We only read on g2.  The rollback is to clear out the transaction used while doing those reads
+					g2.tx().rollback();
+				} catch (Exception ex) {
+					// Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed
+					LOGGER.warn("WARNING from final graphTransaction2.rollback()", ex);
+				}
+			}
+
+			if( finalShutdownFlag ){
+				try {
+					if( graph != null && graph.isOpen() ){
+						graph.tx().close();
+						if( "true".equals(System.getProperty("org.onap.aai.graphadmin.started"))) {
+							// Since dataGrooming was called from a scheduled task - do not call graph.close()
+						}
+						else {
+							// DataGrooming must have been called manually - so we need to call close().
+							graph.close();
+						}
+					}
+				} catch (Exception ex) {
+					// Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed{
+					LOGGER.warn("WARNING from final graph.shutdown()", ex);
+				}
+
+				try {
+					if( graph2 != null && graph2.isOpen() ){
+						graph2.tx().close();
+						if( "true".equals(System.getProperty("org.onap.aai.graphadmin.started"))) {
+							// Since dataGrooming was called from a scheduled task - do not call graph2.close()
+						}
+						else {
+							// DataGrooming must have been called manually - so we need to call close().
+							graph2.close();
+						}
+					}
+				} catch (Exception ex) {
+					// Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed{
+					LOGGER.warn("WARNING from final graph2.shutdown()", ex);
+				}
+			}
+
+		}
+
+		return cleanupCandidateCount;
+
+	}// end of doTheGrooming()
+
+	/**
+	 * Runs the checks that are done for each vertex of a node type (aai-uri, key, orphan and
+	 * dupe checks) over a list of vertices of that type.
+	 *
+	 * @param vertList the vertices to check, all of them of ntInfo's node type
+	 * @param g the transaction the vertices were read in
+	 * @param fixing true if g is the transaction the fixes are made in
+	 */
+	private void groomNodeTypeVertices( List<Vertex> vertList, NodeTypeInfo ntInfo,
+										Graph g, GraphTraversalSource source1, NodeChecks checks,
+										boolean fixing ) {
+
+		Loader loader = checks.loader;
+		String version = checks.version;
+		long windowStartTime = checks.windowStartTime;
+		Boolean dupeCheckOff = checks.dupeCheckOff;
+		Boolean dupeFixOn = checks.dupeFixOn;
+		Boolean skipIndexUpdateFix = checks.skipIndexUpdateFix;
+		Set<String> processedVertices = checks.processedVertices;
+		List<String> errArr = checks.errArr;
+		GroomCounts counts = checks.counts;
+		String nType = ntInfo.nType;
+		ArrayList<String> keyProps = ntInfo.keyProps;
+		ArrayList<String> indexedProps = ntInfo.indexedProps;
+		HashMap <String,String> propTypeHash = ntInfo.propTypeHash;
+		Collection <String> depNodeTypes = ntInfo.depNodeTypes;
+		int thisNtCount = 0;
+		int lastShownForNt = 0;
+		// When fixing, the vertices removed along the way change what the lookups of the
+		//   vertices after them find, so each one is looked up when its turn comes
+		IndexVerdicts verdicts = fixing ? new IndexVerdicts() : verifyIndexLookups(vertList, ntInfo, g, source1);
+		Iterator <Vertex> iter = vertList.iterator();
+		while (iter.hasNext()) {
+			try {
+				thisNtCount++;
+				if( thisNtCount == lastShownForNt + 1000 ){
+					lastShownForNt = thisNtCount;
+					LOGGER.debug("count for " + nType + " so far = " + thisNtCount );
+				}
+				Vertex thisVtx = iter.next();
+				if( windowStartTime > 0 ){
+					// They are using the time-window, so we only want nodes that are updated after a
+					// passed-in timestamp OR that have no last-modified-timestamp which means they are suspicious.
+					Object objModTimeStamp = thisVtx.property("aai-last-mod-ts").orElse(null);
+					if( objModTimeStamp != null ){
+						long thisNodeModTime = (long)objModTimeStamp;
+						if( thisNodeModTime < windowStartTime ){
+							// It has a last modified ts and is NOT in our window, so we can pass over it
+							continue;
+						}
+					}
+				}
+
+				String thisVid = thisVtx.id().toString();
+				if (processedVertices.contains(thisVid)) {
+					LOGGER.debug("skipping already processed vertex: " + thisVid);
+					continue;
+				}
+				counts.nodes.incrementAndGet();
+				// Note - the "secondGetList" is used one node at a time - it is populated
+				//   using either the node's defined unique key/keys (if it is not dependent on
+				//   a "parent" node, or is populated using the key/keys "under" it's parent node.
+				List <Vertex> secondGetList = new ArrayList <> ();
+
+				// -----------------------------------------------------------------------
+				// For each vertex of this nodeType, we want to:
+				//      a) make sure it can be retrieved using its "aai-uri"
+				//		b) make sure that it can be retrieved using it's AAI defined key(s)
+				//   	c) make sure that it is not a duplicate
+				// -----------------------------------------------------------------------
+
+				Boolean aaiUriOk = verdicts.aaiUriOk.get(thisVtx.id());
+				if( aaiUriOk == null ){
+					aaiUriOk = checkAaiUriOk(source1, thisVtx);
+				}
+
+				// For this instance of this nodeType, get the key properties
+				HashMap<String, Object> propHashWithKeys = new HashMap<>();
+				Iterator<String> keyPropI = keyProps.iterator();
+				while (keyPropI.hasNext()) {
+					String propName = keyPropI.next();
+					String propVal = "";
+					Object obj = thisVtx.property(propName).orElse(null);
+					if (obj != null) {
+						propVal = obj.toString();
+					}
+					propHashWithKeys.put(propName, propVal);
+				}
+				try {
+					// If this node is dependent on another for uniqueness, then do the query from that parent node
+					// Note - all of our nodes that are dependent on others for uniqueness are
+					// 		"children" of that node.
+					boolean depNodeOk = true;
+					if( depNodeTypes.isEmpty() ){
+						// This kind of node is not dependent on any other.
+						// Make sure we can get it back using it's key properties (that is the
+						//   phantom checking) and that we only get one.  Note - we also need
+						//   to collect data for a second type of dupe-checking which is done later.
+						List<Vertex> keyMatches = verdicts.keyMatches.get(thisVtx.id());
+						if( keyMatches != null ){
+							secondGetList = new ArrayList<>(keyMatches);
+						}
+						else {
+							secondGetList = getNodeJustUsingKeyParams( TRANSID, FROMAPPID, source1, nType,
+									propHashWithKeys, version );
+						}
+					}
+					else {
+						// This kind of node is dependent on another for uniqueness.
+						// Start at it's parent (the parent/containing vertex) and make sure we can get it
+						// back using it's key properties and that we only get one.
+						Iterator <Vertex> vertI2 = source1.V(thisVtx).union(__.inE().has(EdgeProperty.CONTAINS.toString(), AAIDirection.OUT.toString()).outV(), __.outE().has(EdgeProperty.CONTAINS.toString(), AAIDirection.IN.toString()).inV());
+						Vertex parentVtx = null;
+						// First we need to try to find the parent/containing vertex.
+						int pCount = 0;
+						while( vertI2 != null && vertI2.hasNext() ){
+							parentVtx = vertI2.next();
+							pCount++;
+						}
+						if( pCount <= 0 ){
+							// It's Missing it's dependent/parent/containing node - it's an orphan
+							depNodeOk = false;
+							if (deleteCandidateList.contains(thisVid)) {
+								boolean okFlag = true;
+								boolean updateOnlyFlag = false;
+								try {
+									processedVertices.add(thisVtx.id().toString());
+									Object ob = thisVtx.property("aai-node-type").orElse(null);
+									if( ob == null && !skipIndexUpdateFix ){
+										updateIndexedPropsForMissingNT(thisVtx, thisVid, nType, propTypeHash, indexedProps);
+										updateOnlyFlag = true;
+										counts.dummyUpdates.incrementAndGet();
+										// Since we are updating this delete candidate, not deleting it, we
+										// want it to show up as a delete candidate for this run also.
+										missingAaiNtNodeHash.add(thisVid);
+									}
+									else {
+										// There was an aai-node-type parameter, so we'll do the remove
+										thisVtx.remove();
+										counts.deleted.incrementAndGet();
+									}
+								} catch (Exception e) {
+									okFlag = false;
+									LOGGER.debug("ERROR trying to delete delete Candidate VID = " + thisVid + " " + LogFormatTools.getStackTop(e));
+								}
+								if (okFlag){
+									if( updateOnlyFlag ) {
+										LOGGER.debug(" Updated Indexes for Delete Candidate VID = " + thisVid);
+									}
+									else {
+										LOGGER.debug(" DELETED Delete Candidate VID = " + thisVid);
+									}
+								}
+							} else {
+								// NOTE - Only nodes that are missing their parent/containing node are ever considered "orphaned".
+								// That is, you could have a node with no edges... which sounds like an orphan, but not all
+								// nodes require edges.  For example, you could have a newly created "image" node which does not have
+								// any edges connected to it (using it) yet.
+								Object ob = thisVtx.property("aai-node-type").orElse(null);
+								if( ob == null ){
+									// Group this with missing-node-type guys - which
+									// we will delete more readily than orphans.
+									LOGGER.debug(" >> Encountered a missingAaiNodeType while looking for the parent of a [" + nType + "] node.");
+									missingAaiNtNodeHash.add(thisVid);
+								}
+								else {
+									Object ob2 = thisVtx.property("aai-uuid").orElse(null);
+									String auid = "";
+									if( ob2 != null ){
+										auid = ob2.toString();
+									}
+									String checkDummyUid = thisVid + "dummy";
+									if( auid.equals(checkDummyUid) ){
+										// Group this with missing-node-type guys.
+										LOGGER.debug(" >> Encountered a missingAaiNodeType mid-fix-node while looking for the parent of a [" + nType + "] node.");
+										missingAaiNtNodeHash.add(thisVid);
+									}
+									else {
+										// It's a regular old orphan
+										orphanNodeHash.add(thisVid);
+									}
+								}
+							}
+						}
+						else if ( pCount > 1 ){
+							// Not sure how this could happen?  Should we do something here?
+							depNodeOk = false;
+						}
+						else {
+							// We found the parent - so use it to do the second-look.
+							// NOTE --- We're just going to do the same check from the other direction - because
+							//  there could be duplicates or the pointer going the other way could be broken
+							ArrayList <Vertex> tmpListSec = new ArrayList <> ();
+
+							tmpListSec = getConnectedChildrenOfOneType( source1, parentVtx, nType ) ;
+							Iterator<Vertex> vIter = tmpListSec.iterator();
+							while (vIter.hasNext()) {
+								Vertex tmpV = vIter.next();
+								if( vertexHasTheseKeys(tmpV, propHashWithKeys) ){
+									secondGetList.add(tmpV);
+								}
+							}
+						}
+					}// end of -- else this is a dependent node  -- piece
+
+					Boolean aaiKeysOk = true;
+					if( (secondGetList == null || secondGetList.size() == 0)
+							&& depNodeOk){
+						aaiKeysOk = false;
+					}
+
+					boolean bothKeysAreBad = false;
+					if( !aaiKeysOk && !aaiUriOk ) {
+						bothKeysAreBad = true;
+					}
+					else if ( !aaiKeysOk ){
+						// Just the key-index is bad
+						// We will not be putting this on the Auto-Delete list, just logging it (AAI-16252)
+						badIndexNodeHash.add(thisVid);
+					}
+					else if ( !aaiUriOk ){
+						// Just the aai-uri is bad
+						// We will not be putting this on the Auto-Delete list, just logging it (AAI-16252)
+						badUriNodeHash.add(thisVid);
+					}
+
+					if( bothKeysAreBad ){
+						// Neither the aai-uri nor key info could retrieve this node - BOTH are bad.
+						// So, it's a PHANTOM
+
+						if (deleteCandidateList.contains(thisVid)) {
+							boolean okFlag = true;
+							boolean updateOnlyFlag = false;
+							try {
+								Object ob = thisVtx.property("aai-node-type").orElse(null);
+								if( ob == null && !skipIndexUpdateFix ){
+									updateIndexedPropsForMissingNT(thisVtx, thisVid, nType, propTypeHash, indexedProps);
+									counts.dummyUpdates.incrementAndGet();
+									updateOnlyFlag = true;
+									// Since we are updating this delete candidate, not deleting it, we
+									// want it to show up as a delete candidate for this run also.
+									missingAaiNtNodeHash.add(thisVid);
+								}
+								else {
+									// There was an aai-node-type parameter, so we'll do the remove
+									thisVtx.remove();
+									counts.deleted.incrementAndGet();
+								}
+							} catch (Exception e) {
+								okFlag = false;
+								LOGGER.debug("ERROR trying to delete phantom VID = " + thisVid + " " + LogFormatTools.getStackTop(e));
+							}
+							if (okFlag){
+								if( updateOnlyFlag ) {
+									LOGGER.debug(" Updated Indexes for Delete Candidate VID = " + thisVid);
+								}
+								else {
+									LOGGER.debug(" DELETED VID = " + thisVid);
+								}
+							}
+						} else {
+							ghostNodeHash.add(thisVid);
+						}
+					}
+					else if( (secondGetList.size() > 1) && depNodeOk && !dupeCheckOff ){
+						// Found some DUPLICATES - need to process them
+						LOGGER.debug(" - now check Dupes for this guy - ");
+						List<String> tmpDupeGroups = checkAndProcessDupes(
+								TRANSID, FROMAPPID, g, source1, version,
+								nType, secondGetList, dupeFixOn,
+								deleteCandidateList, dupeGroups, loader);
+						Iterator<String> dIter = tmpDupeGroups.iterator();
+						while (dIter.hasNext()) {
+							// Add in any newly found dupes to our running list
+							String tmpGrp = dIter.next();
+							LOGGER.debug("Found set of dupes: [" + tmpGrp + "]");
+							dupeGroups.add(tmpGrp);
+						}
+					}
+				}
+				catch (AAIException e1) {
+					LOGGER.warn(" For nodeType = " + nType + " Caught exception", e1);
+					errArr.add(e1.getErrorObject().toString());
+				}
+				catch (Exception e2) {
+					LOGGER.warn(" For nodeType = " + nType
+							+ " Caught exception", e2);
+					errArr.add(e2.getMessage());
+				}
+			}// try block to enclose looping over each single vertex
+			catch (Exception exx) {
+				LOGGER.warn("WARNING from inside the while-verts-loop ", exx);
+			}
+
+		} // while loop for each record of a nodeType
+
+	}// end of groomNodeTypeVertices()
+
+	/**
+	 * The batched verification stage of groomNodeTypeVertices(): checks the aai-uri and (for
+	 * node types that are not dependent on a parent) the key index entries of a whole page of
+	 * vertices with one lookup each, instead of two or more lookups per vertex.  The
+	 * properties of the page are read in one multiQuery first.
+	 *
+	 * A vertex that has no verdict (e.g. because a batched lookup failed) is checked on its
+	 * own with checkAaiUriOk() / getNodeJustUsingKeyParams() like before.  The verdicts are
+	 * taken before any vertex of the page is checked, so they are not used when fixing.
+	 */
+	private IndexVerdicts verifyIndexLookups( List<Vertex> vertList, NodeTypeInfo ntInfo,
+											  Graph g, GraphTraversalSource source1 ) {
+
+		IndexVerdicts verdicts = new IndexVerdicts();
+		if( vertList.isEmpty() ){
+			return verdicts;
+		}
+		if( g instanceof JanusGraphTransaction ){
+			try {
+				List<JanusGraphVertex> jVerts = new ArrayList<>(vertList.size());
+				for( Vertex v : vertList ){
+					jVerts.add((JanusGraphVertex) v);
+				}
+				((JanusGraphTransaction) g).multiQuery(jVerts).properties();
+			} catch (Exception e) {
+				LOGGER.debug(" Could not prefetch the properties of a page of vertices " + LogFormatTools.getStackTop(e));
+			}
+		}
+
+		// a) the aai-uri of each vertex should bring back just that vertex
+		Map<String, List<Object>> vidsByUri = new HashMap<>();
+		Map<Object, String> uriByVid = new HashMap<>();
+		for( Vertex v : vertList ){
+			Object ob = v.property("aai-uri").orElse(null);
+			if( ob == null || ob.toString().equals("") ){
+				LOGGER.debug("DEBUG No [aai-uri] property found for vid = [" + v.id() + "] " );
+				verdicts.aaiUriOk.put(v.id(), false);
+			}
+			else {
+				uriByVid.put(v.id(), ob.toString());
+				vidsByUri.put(ob.toString(), new ArrayList<>());
+			}
+		}
+		try {
+			if( !vidsByUri.isEmpty() ){
+				Iterator<Vertex> verts = source1.V().has("aai-uri", P.within(vidsByUri.keySet()));
+				while( verts.hasNext() ){
+					Vertex foundV = verts.next();
+					Object ob = foundV.property("aai-uri").orElse(null);
+					if( ob != null && vidsByUri.containsKey(ob.toString()) ){
+						vidsByUri.get(ob.toString()).add(foundV.id());
+					}
+				}
+			}
+			for( Map.Entry<Object, String> entry : uriByVid.entrySet() ){
+				List<Object> found = vidsByUri.get(entry.getValue());
+				boolean ok = found.size() == 1 && found.get(0).equals(entry.getKey());
+				if( !ok ){
+					LOGGER.debug("DEBUG aai-uri key property [" + entry.getValue() + "] for vid = ["
+							+ entry.getKey() + "] brought back " + found.size() + " vertices: " + found );
+				}
+				verdicts.aaiUriOk.put(entry.getKey(), ok);
+			}
+		} catch (Exception ex) {
+			LOGGER.debug(" ERROR trying to get a page of nodes with their aai-uri, will check them one at a time " + LogFormatTools.getStackTop(ex));
+		}
+
+		// b) the key properties of each non-dependent vertex should bring it back
+		ArrayList<String> keyProps = ntInfo.keyProps;
+		if( !ntInfo.depNodeTypes.isEmpty() || keyProps.isEmpty() || keyProps.size() > 4 ){
+			// Those are done one at a time (and the last two are reported as errors there)
+			return verdicts;
+		}
+		Map<List<Object>, List<Vertex>> vertsByKeyVals = new HashMap<>();
+		Map<Object, List<Object>> keyValsByVid = new HashMap<>();
+		Map<String, Set<Object>> valsByKey = new LinkedHashMap<>();
+		for( String propName : keyProps ){
+			valsByKey.put(propName, new HashSet<>());
+		}
+		for( Vertex v : vertList ){
+			// Same as the propHashWithKeys that getNodeJustUsingKeyParams() would be passed.  The
+			// query itself uses the values as they are, so keys that are not Strings match too.
+			List<Object> keyVals = new ArrayList<>(keyProps.size());
+			for( String propName : keyProps ){
+				Object obj = v.property(propName).orElse(null);
+				keyVals.add(keyValString(obj));
+				if( obj != null ){
+					valsByKey.get(propName).add(obj);
+				}
+			}
+			keyValsByVid.put(v.id(), keyVals);
+			vertsByKeyVals.put(keyVals, new ArrayList<>());
+		}
+		try {
+			GraphTraversal<Vertex, Vertex> keyQuery = source1.V();
+			for( Map.Entry<String, Set<Object>> entry : valsByKey.entrySet() ){
+				keyQuery = keyQuery.has(entry.getKey(), P.within(entry.getValue()));
+			}
+			keyQuery = keyQuery.has("aai-node-type", ntInfo.nType);
+			while( keyQuery.hasNext() ){
+				// The query can bring back vertices that match each key value of a different
+				// vertex, so they are matched up by all their key values here
+				Vertex foundV = keyQuery.next();
+				List<Object> foundVals = new ArrayList<>(keyProps.size());
+				for( String propName : keyProps ){
+					foundVals.add(keyValString(foundV.property(propName).orElse(null)));
+				}
+				List<Vertex> matches = vertsByKeyVals.get(foundVals);
+				if( matches != null ){
+					matches.add(foundV);
+				}
+			}
+			for( Map.Entry<Object, List<Object>> entry : keyValsByVid.entrySet() ){
+				List<Vertex> matches = vertsByKeyVals.get(entry.getValue());
+				if( matches.isEmpty() ){
+					LOGGER.debug("DEBUG No node found for nodeType = [" + ntInfo.nType +
+							"], keys = " + keyProps + ", values = " + entry.getValue() );
+				}
+				verdicts.keyMatches.put(entry.getKey(), matches);
+			}
+		} catch (Exception ex) {
+			LOGGER.debug(" ERROR trying to get a page of [" + ntInfo.nType + "] nodes with their keys, will check them one at a time " + LogFormatTools.getStackTop(ex));
+			verdicts.keyMatches.clear();
+		}
+
+		return verdicts;
+
+	}// end of verifyIndexLookups()
+
+	// How the key values of a page are compared in verifyIndexLookups()
+	private static String keyValString( Object obj ) {
+		return obj == null ? "" : obj.toString();
+	}
+
+	/**
+	 * Checks the vertices of one node type from index from to index to of ids, a page of
+	 * checks.pageSize at a time.  Each page is read in a transaction of its own (or in fixTx
+	 * when we are fixing things), so only one page of vertices is held at a time.
+	 *
+	 * @param keyGroups if not null, the key values of the vertices are added to it (vertex ids
+	 *   by key values) for checkNonDependentDupes()
+	 * @param checkpoint if not null, the pages before the last id it has for the node type are
+	 *   not checked again, and it is saved now and then
+	 */
+	private void groomNodeTypePages( VertexIdList ids, int from, int to, NodeTypeInfo ntInfo,
+									 JanusGraph graph, Graph fixTx, NodeChecks checks,
+									 Map<String, List<Object>> keyGroups, GroomingCheckpoint checkpoint ) {
+
+		String nType = ntInfo.nType;
+		int resumeIndex = from;
+		if( checkpoint != null && checkpoint.getLastId(nType) >= 0 ){
+			resumeIndex = Math.max(from, Math.min(to, ids.indexAfter(checkpoint.getLastId(nType))));
+		}
+
+		if( keyGroups != null ){
+			// The run we resumed already checked these, but the dupe check still needs their keys
+			for( int pageFrom = from; pageFrom < resumeIndex; pageFrom += checks.pageSize ){
+				int pageTo = Math.min(resumeIndex, pageFrom + checks.pageSize);
+				Graph pageTx = fixTx != null ? fixTx : graph.newTransaction();
+				try {
+					collectKeyValues(pageTx.traversal().V(ids.page(pageFrom, pageTo)).toList(),
+							ntInfo.keyProps, keyGroups);
+				} finally {
+					closePageTransaction(pageTx, fixTx);
+				}
+			}
+		}
+
+		for( int pageFrom = resumeIndex; pageFrom < to; pageFrom += checks.pageSize ){
+			int pageTo = Math.min(to, pageFrom + checks.pageSize);
+			Graph pageTx = fixTx != null ? fixTx : graph.newTransaction();
+			try {
+				GraphTraversalSource source = pageTx.traversal();
+				List<Vertex> page = source.V(ids.page(pageFrom, pageTo)).toList();
+				groomNodeTypeVertices(page, ntInfo, pageTx, source, checks, fixTx != null);
+				if( keyGroups != null ){
+					collectKeyValues(page, ntInfo.keyProps, keyGroups);
+				}
+			} finally {
+				closePageTransaction(pageTx, fixTx);
+			}
+			if( checkpoint != null && checkpoint.pageDone(nType, ids.get(pageTo - 1)) ){
+				saveCheckpoint(checkpoint, checks);
+			}
+		}
+
+	}// end of groomNodeTypePages()
+
+	/**
+	 * Non-dependent nodes of a type are unique based on their key data alone, so they get
+	 * grouped by it to find the dupes.  Only the vertex ids are kept in the groups.
+	 */
+	private void collectKeyValues( List<Vertex> vertList, ArrayList<String> keyProps,
+								   Map<String, List<Object>> keyGroups ) {
+
+		for( Vertex tvx : vertList ){
+			try {
+				String hKey = getNodeKeyValString( tvx, keyProps );
+				if( hKey.equals("") ){
+					// When we have corrupted data, hKey comes back as an empty string
+					// We will just skip this entry since it is not a Dupe - it is
+					// corrupted data which should be picked up in other checks.
+					continue;
+				}
+				keyGroups.merge(hKey, Collections.singletonList(tvx.id()), (seen, added) -> {
+					List<Object> both = new ArrayList<>(seen);
+					both.addAll(added);
+					return both;
+				});
+			}
+			catch (Exception e) {
+				LOGGER.warn(" >>> Threw an error in collectKeyValues - just absorb this error and move on. ", e);
+			}
+		}
+
+	}// end of collectKeyValues()
+
+	/**
+	 * @return true if the node type needs the dupe check across all its vertices
+	 */
+	private boolean needsKeyGroups( NodeTypeInfo ntInfo, NodeChecks checks ) {
+		return ntInfo.depNodeTypes.isEmpty() && !checks.dupeCheckOff;
+	}
+
+	/**
+	 * Looks for dupes among non-dependent nodes of one type - ones where two vertices have
+	 * the same key info.  keyGroups has the vertex ids of all the vertices of the type by
+	 * their key values (see collectKeyValues()); each group with more than one of them is
+	 * read back and checked.
+	 */
+	private void checkNonDependentDupes( Map<String, List<Object>> keyGroups, NodeTypeInfo ntInfo,
+										 JanusGraph graph, Graph fixTx, NodeChecks checks ) {
+
+		String nType = ntInfo.nType;
+		for( List<Object> vidList : keyGroups.values() ){
+			if( vidList.size() < 2 ){
+				continue;
+			}
+			// There are more than one vertex id's using the same key info
+			Graph tx = fixTx != null ? fixTx : graph.newTransaction();
+			try {
+				GraphTraversalSource source = tx.traversal();
+				List<Vertex> dupeList = source.V(vidList.toArray()).toList();
+				LOGGER.debug(" - now check Dupes for some non-dependent guys - ");
+				List<String> tmpDupeGroups = checkAndProcessDupes(
+						TRANSID, FROMAPPID, tx, source, checks.version,
+						nType, dupeList, checks.dupeFixOn,
+						deleteCandidateList, dupeGroups, checks.loader);
+				Iterator<String> dIter = tmpDupeGroups.iterator();
+				while (dIter.hasNext()) {
+					// Add in any newly found dupes to our running list
+					String tmpGrp = dIter.next();
+					LOGGER.debug("Found set of dupes: [" + tmpGrp + "]");
+					dupeGroups.add(tmpGrp);
+				}
+			}
+			catch (Exception e) {
+				LOGGER.warn(" >>> Threw an error in checkNonDependentDupes - just absorb this error and move on. ", e);
+			}
+			finally {
+				closePageTransaction(tx, fixTx);
+			}
+		}
+
+	}// end of checkNonDependentDupes()
+
+	/**
+	 * Gets the ids of the vertices of one node type (or of all the vertices if nType is null).
+	 *
+	 * @param fixTx the transaction to read them in when we are fixing things, otherwise null
+	 *   and they are read in a fresh one
+	 * @param expectedCount about how many there are, if that is known
+	 */
+	private VertexIdList getVertexIds( JanusGraph graph, Graph fixTx, String nType, Long expectedCount ) {
+
+		Graph tx = fixTx != null ? fixTx : graph.newTransaction();
+		try {
+			GraphTraversal<Vertex, Vertex> verts = tx.traversal().V();
+			if( nType != null ){
+				verts = verts.has("aai-node-type", nType);
+			}
+			return VertexIdList.of(verts.id(), expectedCount == null ? 0 : expectedCount);
+		} finally {
+			closePageTransaction(tx, fixTx);
+		}
+	}
+
+	/**
+	 * Gets the ids of the vertices changed at or after windowStartTime with a range query on
+	 * the aai-last-mod-ts index, by their aai-node-type ("" for the ones that have none, those
+	 * only get their edges checked).
+	 *
+	 * @param fixTx the transaction to read them in when we are fixing things, otherwise null
+	 *   and they are read in a fresh one
+	 */
+	private Map<String, VertexIdList> getChangedVertexIds( JanusGraph graph, Graph fixTx, long windowStartTime ) {
+
+		Map<String, List<Object>> idsByType = new HashMap<>();
+		Graph tx = fixTx != null ? fixTx : graph.newTransaction();
+		try {
+			Iterator<Vertex> vItr = tx.traversal().V().has(LastModTsIndex.LAST_MOD_TS, P.gte(windowStartTime));
+			while( vItr.hasNext() ){
+				Vertex v = vItr.next();
+				Object ob = v.property("aai-node-type").orElse(null);
+				idsByType.computeIfAbsent(ob == null ? "" : ob.toString(), k -> new ArrayList<>()).add(v.id());
 			}
-		} catch (AAIException e) {
-			LOGGER.debug("Caught AAIException while grooming data");
-			ErrorLogHelper.logException(e);
-		} catch (Exception ex) {
-			LOGGER.debug("Caught exception while grooming data");
-			ErrorLogHelper.logError("AAI_6128", ex.getMessage() + ", resolve and rerun dataGrooming");
 		} finally {
+			closePageTransaction(tx, fixTx);
+		}
 
-			if (bw != null) {
+		Map<String, VertexIdList> changed = new HashMap<>();
+		int count = 0;
+		for( Map.Entry<String, List<Object>> entry : idsByType.entrySet() ){
+			changed.put(entry.getKey(), VertexIdList.of(entry.getValue().iterator(), entry.getValue().size()));
+			count += entry.getValue().size();
+		}
+		LOGGER.debug(" Found " + count + " vertices changed since " + windowStartTime + " using the "
+				+ LastModTsIndex.INDEX_NAME + " index ");
+		return changed;
+	}
+
+	/**
+	 * Gets the ids of the changed vertices and of the vertices they have edges to - the ones a
+	 * time-window run checks the edges of when it has the aai-last-mod-ts index.
+	 */
+	private VertexIdList getWindowEdgeCheckIds( JanusGraph graph, Graph fixTx,
+												Map<String, VertexIdList> windowIds, int pageSize ) {
+
+		List<Object> ids = new ArrayList<>();
+		for( VertexIdList changed : windowIds.values() ){
+			for( int from = 0; from < changed.size(); from += pageSize ){
+				Object[] page = changed.page(from, Math.min(changed.size(), from + pageSize));
+				Collections.addAll(ids, page);
+				Graph tx = fixTx != null ? fixTx : graph.newTransaction();
 				try {
-					bw.close();
-				} catch (IOException iox) {
-					LOGGER.warn("Got an IOException trying to close bufferedWriter() ", iox);
+					tx.traversal().V(page).both().id().forEachRemaining(ids::add);
+				} catch (Exception e) {
+					LOGGER.warn(" >>> Threw an error getting the neighbors of changed vertices - just absorb this error and move on. ", e);
+				} finally {
+					closePageTransaction(tx, fixTx);
 				}
 			}
+		}
+		return VertexIdList.of(ids.iterator(), ids.size());
+	}
 
-			if (executeFinalCommit) {
-				// If we were holding off on commits till the end - then now is the time.
-				if( g == null ){
-					LOGGER.debug(" >>>> ERROR <<<<   Could not commit changes. graph was null when we wanted to commit.");
+	/**
+	 * Closes a transaction we only read in.  Nothing is done if it is fixTx, which gets
+	 * committed (or rolled back) at the end of the run.
+	 */
+	private void closePageTransaction( Graph pageTx, Graph fixTx ) {
+		if( pageTx == fixTx ){
+			return;
+		}
+		try {
+			pageTx.tx().rollback();
+		} catch (Exception e) {
+			LOGGER.debug("Could not close a grooming read transaction " + LogFormatTools.getStackTop(e));
+		}
+	}
+
+	/**
+	 * Does what groomNodeTypePages() and checkNonDependentDupes() do for every node type,
+	 * on a pool of groomThreads worker threads.  Node types with more than sliceSize vertices
+	 * are cut into slices of that many, so one big node type doesn't keep a single worker
+	 * busy long after the others are done.  Every page is read in a read transaction of its
+	 * own, so this is only used when we are not fixing anything (the fixes all have to be made
+	 * in the main transaction).
+	 *
+	 * @param windowIds the ids of the vertices changed in the time window by node type, or null
+	 *   to check all of them
+	 */
+	private void groomNodeTypesInParallel( List<NodeTypeInfo> nodeTypesToCheck, JanusGraph graph,
+										   int groomThreads, int sliceSize,
+										   Map<String, VertexIdList> windowIds, NodeChecks checks )
+			throws InterruptedException {
+
+		LOGGER.debug(" Checking " + nodeTypesToCheck.size() + " nodeTypes using " + groomThreads
+				+ " threads, at most " + sliceSize + " vertices at a time ");
+		ExecutorService executor = Executors.newFixedThreadPool(groomThreads);
+		try {
+			// First get the ids of the vertices of each node type so they can be cut into slices
+			Map<NodeTypeInfo, Future<VertexIdList>> idFutures = new LinkedHashMap<>();
+			for (NodeTypeInfo ntInfo : nodeTypesToCheck) {
+				if( windowIds != null ){
+					idFutures.put(ntInfo, CompletableFuture.completedFuture(
+							windowIds.getOrDefault(ntInfo.nType, VertexIdList.EMPTY)));
+					continue;
 				}
-				else if( !g.tx().isOpen() ){
-					LOGGER.debug(" >>>> ERROR <<<<   Could not commit changes. Transaction was not open when we wanted to commit.");
+				idFutures.put(ntInfo, executor.submit(() ->
+						getVertexIds(graph, null, ntInfo.nType,
+								GraphStatistics.getInstance().getNodeTypeCountEstimate(ntInfo.nType))));
+			}
+
+			Map<Future<?>, String> sliceFutures = new LinkedHashMap<>();
+			Map<NodeTypeInfo, Map<String, List<Object>>> slicedNonDepTypes = new LinkedHashMap<>();
+			for (Map.Entry<NodeTypeInfo, Future<VertexIdList>> entry : idFutures.entrySet()) {
+				NodeTypeInfo ntInfo = entry.getKey();
+				VertexIdList ids = waitForGroomingTask(entry.getValue(), ntInfo.nType, checks.errArr);
+				if( ids == null ){
+					continue;
 				}
-				else {
-					try {
-						LOGGER.debug("About to do the commit for "
-								+ deleteCount + " removes. ");
-						g.tx().commit();
-						LOGGER.debug("Commit was successful ");
-					} catch (Exception excom) {
-						LOGGER.debug(" >>>> ERROR <<<<   Could not commit changes. " + LogFormatTools.getStackTop(excom));
-						deleteCount = 0;
-					}
+				LOGGER.debug(" >  Look at : [" + ntInfo.nType + "] ... " + ids.size() + " records");
+				if( windowIds == null ){
+					checks.nodeTypeCounts.put(ntInfo.nType, (long) ids.size());
 				}
-			}
-			else if (g != null && g.tx().isOpen()) {
-				try {
-					// We did not do any deletes that need to be committed.
-					// The rollback is to clear out the transaction used while doing those reads
-					g.tx().rollback();
-				} catch (Exception ex) {
-					// Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed
-					LOGGER.warn("WARNING from final graphTransaction.rollback()", ex);
+				boolean wholeType = ids.size() <= sliceSize;
+				// The slices of a node type all add their key values to the same groups
+				Map<String, List<Object>> keyGroups = needsKeyGroups(ntInfo, checks) ? new ConcurrentHashMap<>() : null;
+				for( int from = 0; from < ids.size(); from += sliceSize ){
+					int sliceFrom = from;
+					int sliceTo = Math.min(ids.size(), from + sliceSize);
+					sliceFutures.put(executor.submit(() -> {
+						groomNodeTypePages(ids, sliceFrom, sliceTo, ntInfo, graph, null, checks, keyGroups, null);
+						if( wholeType && keyGroups != null ){
+							checkNonDependentDupes(keyGroups, ntInfo, graph, null, checks);
+						}
+						LOGGER.debug( " Processed " + (sliceTo - sliceFrom) + " records for [" + ntInfo.nType + "], " + checks.counts.nodes.get() + " total (in window) overall. " );
+						return null;
+					}), ntInfo.nType);
 				}
+				if( !wholeType && keyGroups != null ){
+					slicedNonDepTypes.put(ntInfo, keyGroups);
+				}
+			}
+			for (Map.Entry<Future<?>, String> entry : sliceFutures.entrySet()) {
+				waitForGroomingTask(entry.getKey(), entry.getValue(), checks.errArr);
 			}
 
-			if (g2 != null && g2.tx().isOpen()) {
-				try {
-					// We only read on g2.  The rollback is to clear out the transaction used while doing those reads
-					g2.tx().rollback();
-				} catch (Exception ex) {
-					// Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed
-					LOGGER.warn("WARNING from final graphTransaction2.rollback()", ex);
-				}
+			// The sliced node types still need their dupe check across all their vertices
+			Map<Future<?>, String> dupeFutures = new LinkedHashMap<>();
+			for (Map.Entry<NodeTypeInfo, Map<String, List<Object>>> entry : slicedNonDepTypes.entrySet()) {
+				NodeTypeInfo ntInfo = entry.getKey();
+				Map<String, List<Object>> keyGroups = entry.getValue();
+				dupeFutures.put(executor.submit(() -> {
+					checkNonDependentDupes(keyGroups, ntInfo, graph, null, checks);
+					return null;
+				}), ntInfo.nType);
 			}
+			for (Map.Entry<Future<?>, String> entry : dupeFutures.entrySet()) {
+				waitForGroomingTask(entry.getKey(), entry.getValue(), checks.errArr);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
 
-			if( finalShutdownFlag ){
-				try {
-					if( graph != null && graph.isOpen() ){
-						graph.tx().close();
-						if( "true".equals(System.getProperty("org.onap.aai.graphadmin.started"))) {
-							// Since dataGrooming was called from a scheduled task - do not call graph.close()
-						}
-						else {
-							// DataGrooming must have been called manually - so we need to call close().
-							graph.close();
-						}
-					}
-				} catch (Exception ex) {
-					// Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed{
-					LOGGER.warn("WARNING from final graph.shutdown()", ex);
+	}// end of groomNodeTypesInParallel()
+
+	/**
+	 * The node results by the name they are saved under in a GroomingCheckpoint.
+	 */
+	private Map<String, Set<String>> nodeResultHashes() {
+		Map<String, Set<String>> hashes = new LinkedHashMap<>();
+		hashes.put(GroomingCheckpoint.GHOST, ghostNodeHash);
+		hashes.put(GroomingCheckpoint.ORPHAN, orphanNodeHash);
+		hashes.put(GroomingCheckpoint.MISSING_AAI_NT, missingAaiNtNodeHash);
+		hashes.put(GroomingCheckpoint.BAD_URI, badUriNodeHash);
+		hashes.put(GroomingCheckpoint.BAD_INDEX, badIndexNodeHash);
+		return hashes;
+	}
+
+	/**
+	 * Saves what the run found so far along with how far it got.
+	 */
+	private void saveCheckpoint( GroomingCheckpoint checkpoint, NodeChecks checks ) {
+		GroomingCheckpoint.State state = checkpoint.getState();
+		state.nodeResults.clear();
+		for( Map.Entry<String, Set<String>> entry : nodeResultHashes().entrySet() ){
+			state.nodeResults.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+		}
+		state.oneArmedEdges.clear();
+		for( String eid : oneArmedEdgeHash ){
+			String badVid = emptyVertexHash.get(eid);
+			state.oneArmedEdges.put(eid, badVid == null ? "" : badVid);
+		}
+		state.dupeGroups = new ArrayList<>(dupeGroups);
+		state.errors = new ArrayList<>(checks.errArr);
+		state.nodeTypeCounts.clear();
+		state.nodeTypeCounts.putAll(checks.nodeTypeCounts);
+		state.nodeCount = checks.counts.nodes.get();
+		checkpoint.save();
+	}
+
+	/**
+	 * Puts back what the run we are resuming had found.  The results are just ids, so ones
+	 * that are gone by now only show up without their details in the report.
+	 */
+	private void restoreFromCheckpoint( GroomingCheckpoint checkpoint, NodeChecks checks ) {
+		GroomingCheckpoint.State state = checkpoint.getState();
+		for( Map.Entry<String, Set<String>> entry : nodeResultHashes().entrySet() ){
+			List<String> vids = state.nodeResults.get(entry.getKey());
+			if( vids != null ){
+				entry.getValue().addAll(vids);
+			}
+		}
+		for( Map.Entry<String, String> entry : state.oneArmedEdges.entrySet() ){
+			String eid = entry.getKey();
+			oneArmedEdgeHash.add(eid);
+			if( !entry.getValue().isEmpty() ){
+				emptyVertexHash.put(eid, entry.getValue());
+			}
+		}
+		dupeGroups.addAll(state.dupeGroups);
+		checks.errArr.addAll(state.errors);
+		checks.nodeTypeCounts.putAll(state.nodeTypeCounts);
+		checks.counts.nodes.set(state.nodeCount);
+	}
+
+	/**
+	 * @return how old the resume token of a FULL run can be to be picked up
+	 *   (aai.grooming.resume.max.age.minutes)
+	 */
+	private static long getResumeMaxAgeMillis() {
+		long minutes;
+		try {
+			minutes = Long.parseLong(AAIConfig.get("aai.grooming.resume.max.age.minutes",
+					Long.toString(GraphAdminConstants.AAI_GROOMING_DEFAULT_RESUME_MAX_AGE_MINUTES)).trim());
+		} catch (Exception e) {
+			minutes = GraphAdminConstants.AAI_GROOMING_DEFAULT_RESUME_MAX_AGE_MINUTES;
+		}
+		return minutes * 60 * 1000;
+	}
+
+	/**
+	 * The results only hold vertex ids, so for the details the vertices are read again in g.
+	 *
+	 * @return the vertex, or null if it can't be read (anymore)
+	 */
+	private static Vertex getVertexForDetail( Graph g, String vid ) {
+		try {
+			Iterator<Vertex> vItr = g.vertices(Long.parseLong(vid));
+			if( vItr.hasNext() ){
+				return vItr.next();
+			}
+		} catch (Exception e) {
+			LOGGER.debug("Could not read vertex " + vid + " again " + LogFormatTools.getStackTop(e));
+		}
+		return null;
+	}
+
+	/**
+	 * Like getVertexForDetail(), for the one-armed edges (by their RelationIdentifier string).
+	 */
+	private static Edge getEdgeForDetail( Graph g, String eid ) {
+		try {
+			Iterator<Edge> eItr = g.edges(eid);
+			if( eItr.hasNext() ){
+				return eItr.next();
+			}
+		} catch (Exception e) {
+			LOGGER.debug("Could not read edge " + eid + " again " + LogFormatTools.getStackTop(e));
+		}
+		return null;
+	}
+
+	/**
+	 * Like getVertexForDetail(), but detached (with its properties) so that it can still be
+	 * used after the transaction it was read in is closed.
+	 */
+	private static Vertex getDetachedVertex( Graph g, String vid ) {
+		Vertex v = getVertexForDetail(g, vid);
+		return v == null ? null : DetachedFactory.detach(v, true);
+	}
+
+	/**
+	 * Like getDetachedVertex(), for the one-armed edges.
+	 */
+	private static Edge getDetachedEdge( Graph g, String eid ) {
+		Edge e = getEdgeForDetail(g, eid);
+		return e == null ? null : DetachedFactory.detach(e, true);
+	}
+
+	/**
+	 * A read-only Map view of the ids in a result, for the getters that have always handed
+	 * out the vertices (or edges) too.  Those are read from the graph only when asked for,
+	 * each in a transaction of its own that is rolled back right after (so the caller's
+	 * thread-bound transaction is not opened), and handed out detached.
+	 */
+	private static class ResultView<T> extends AbstractMap<String, T> {
+
+		private final Set<String> ids;
+		private final BiFunction<Graph, String, T> reader;
+
+		ResultView(Set<String> ids, BiFunction<Graph, String, T> reader) {
+			this.ids = ids;
+			this.reader = reader;
+		}
+
+		private T read(String id) {
+			JanusGraphTransaction tx = AAIGraph.getInstance().getGraph().newTransaction();
+			try {
+				return reader.apply(tx, id);
+			} finally {
+				tx.rollback();
+			}
+		}
+
+		@Override
+		public int size() {
+			return ids.size();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return ids.contains(key);
+		}
+
+		@Override
+		public T get(Object key) {
+			return ids.contains(key) ? read((String) key) : null;
+		}
+
+		@Override
+		public Set<String> keySet() {
+			return Collections.unmodifiableSet(ids);
+		}
+
+		@Override
+		public Set<Entry<String, T>> entrySet() {
+			return new AbstractSet<Entry<String, T>>() {
+				@Override
+				public int size() {
+					return ids.size();
 				}
 
-				try {
-					if( graph2 != null && graph2.isOpen() ){
-						graph2.tx().close();
-						if( "true".equals(System.getProperty("org.onap.aai.graphadmin.started"))) {
-							// Since dataGrooming was called from a scheduled task - do not call graph2.close()
+				@Override
+				public Iterator<Entry<String, T>> iterator() {
+					Iterator<String> idItr = ids.iterator();
+					return new Iterator<Entry<String, T>>() {
+						@Override
+						public boolean hasNext() {
+							return idItr.hasNext();
 						}
-						else {
-							// DataGrooming must have been called manually - so we need to call close().
-							graph2.close();
+
+						@Override
+						public Entry<String, T> next() {
+							String id = idItr.next();
+							return new SimpleImmutableEntry<>(id, read(id));
 						}
-					}
-				} catch (Exception ex) {
-					// Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed{
-					LOGGER.warn("WARNING from final graph2.shutdown()", ex);
+					};
 				}
-			}
-
+			};
 		}
+	}
 
-		return cleanupCandidateCount;
-
-	}// end of doTheGrooming()
+	/**
+	 * Waits for one task of groomNodeTypesInParallel().  If it failed, that is logged and
+	 * reported like the other errors we get while processing.
+	 *
+	 * @return what the task returned, or null if it failed
+	 */
+	private <T> T waitForGroomingTask( Future<T> future, String nType, List<String> errArr )
+			throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			LOGGER.warn(" For nodeType = " + nType + " Caught exception", e.getCause());
+			errArr.add(e.getCause().getMessage());
+			return null;
+		}
+	}
 
 
 	public void tryToReSetIndexedProps(Vertex thisVtx, String thisVidStr, List <String> indexedProps) {
@@ -2184,7 +2985,7 @@ public class DataGrooming {
 									deleteCandidateList);
 						}
 						if (didRemove) {
-							dupeGrpsDeleted++;
+							dupeGrpsDeleted.incrementAndGet();
 						} else {
 							// keep them on our list
 							returnList.add(dupesStr.toString());
@@ -2233,7 +3034,7 @@ public class DataGrooming {
 											deleteCandidateList );
 								}
 								if (didRemove) {
-									dupeGrpsDeleted++;
+									dupeGrpsDeleted.incrementAndGet();
 								} else {
 									// keep them on our list
 									returnList.add(dupesStr.toString());
@@ -2569,6 +3370,11 @@ public class DataGrooming {
 	private ArrayList <String> showAllEdgesForNode( String transId, String fromAppId, Vertex tVert ){
 
 		ArrayList <String> retArr = new ArrayList <> ();
+		if( tVert == null ){
+			// Results only hold ids, so the vertex may be gone by the time we show it
+			retArr.add("null Node object passed to showAllEdgesForNode()\n");
+			return retArr;
+		}
 		Iterator <Edge> eI = tVert.edges(Direction.IN);
 		if( ! eI.hasNext() ){
 			retArr.add("No IN edges were found for this vertex. ");
@@ -2732,95 +3538,6 @@ public class DataGrooming {
 	} // End of figureWindowStartTime()
 
 
-	/**
-	 * Collect Duplicate Sets for nodes that are NOT dependent on parent nodes.
-	 *
-	 * @param transId the trans id
-	 * @param fromAppId the from app id
-	 * @param g the g
-	 * @param version the version
-	 * @param nType the n type
-	 * @param passedVertList the passed vert list
-	 * @return the array list
-	 */
-	private ArrayList<ArrayList<Vertex>> getDupeSets4NonDepNodes( String transId,
-																  String fromAppId, Graph g, String version, String nType,
-																  ArrayList<Vertex> passedVertList,
-																  ArrayList <String> keyPropNamesArr,
-																  Loader loader ) {
-
-		ArrayList<ArrayList<Vertex>> returnList = new ArrayList<ArrayList<Vertex>>();
-
-		// We've been passed a set of nodes that we want to check.
-		// They are all NON-DEPENDENT nodes of the same nodeType meaning that they should be
-		// unique in the DB based on their KEY DATA alone.  So, if
-		// we group them by their key data - if any key has more than one
-		// vertex mapped to it, those vertices are dupes.
-		//
-		// When we find duplicates, we group them in an ArrayList (there can be
-		//     more than one duplicate for one set of key data)
-		// Then these dupeSets are grouped up and returned.
-		//
-
-		HashMap <String, ArrayList<String>> keyVals2VidHash = new HashMap <String, ArrayList<String>>();
-		HashMap <String,Vertex> vtxHash = new HashMap <String,Vertex>();
-		Iterator<Vertex> pItr = passedVertList.iterator();
-		while (pItr.hasNext()) {
-			try {
-				Vertex tvx =  pItr.next();
-				String thisVid = tvx.id().toString();
-				vtxHash.put(thisVid, tvx);
-
-				// if there are more than one vertexId mapping to the same keyProps -- they are dupes
-				// we dont check till later since a set can contain more than 2.
-				String hKey = getNodeKeyValString( tvx, keyPropNamesArr );
-				if( hKey.equals("") ){
-					// When we have corrupted data, hKey comes back as an empty string
-					// We will just skip this entry since it is not a Dupe - it is
-					// corrupted data which should be picked up in other checks.
-					continue;
-				}
-				if( keyVals2VidHash.containsKey(hKey) ){
-					// We've already seen this key
-					ArrayList <String> tmpVL = keyVals2VidHash.get(hKey);
-					tmpVL.add(thisVid);
-					keyVals2VidHash.put(hKey, tmpVL);
-				}
-				else {
-					// First time for this key
-					ArrayList <String> tmpVL = new ArrayList <String>();
-					tmpVL.add(thisVid);
-					keyVals2VidHash.put(hKey, tmpVL);
-				}
-			}
-			catch (Exception e) {
-				LOGGER.warn(" >>> Threw an error in getDupeSets4NonDepNodes - just absorb this error and move on. ", e);
-			}
-		}
-
-		for( Map.Entry<String, ArrayList<String>> entry : keyVals2VidHash.entrySet() ){
-			ArrayList <String> vidList = entry.getValue();
-			try {
-				if( !vidList.isEmpty() && vidList.size() > 1 ){
-					// There are more than one vertex id's using the same key info
-					ArrayList <Vertex> vertList = new ArrayList <Vertex> ();
-					for (int i = 0; i < vidList.size(); i++) {
-						String tmpVid = vidList.get(i);
-						vertList.add(vtxHash.get(tmpVid));
-					}
-					returnList.add(vertList);
-				}
-			}
-			catch (Exception e) {
-				LOGGER.warn(" >>> Threw an error in getDupeSets4NonDepNodes - just absorb this error and move on. ", e);
-			}
-
-		}
-		return returnList;
-
-	}// End of getDupeSets4NonDepNodes()
-
-
 	/**
 	 * Get values of the key properties for a node as a single string
 	 *
@@ -2886,6 +3603,67 @@ public class DataGrooming {
 
 	}// End of findJustOneUsingIndex()
 
+	/**
+	 * What the node checks need to know about one node type.
+	 */
+	private static class NodeTypeInfo {
+
+		final String nType;
+		// The key properties, in a consistent order
+		final ArrayList<String> keyProps;
+		final ArrayList<String> indexedProps;
+		final HashMap<String, String> propTypeHash = new HashMap<>();
+		// The types of nodes that this nodetype depends on for uniqueness (if any)
+		final Collection<String> depNodeTypes;
+
+		NodeTypeInfo(String nType, Introspector introspector, Loader loader) throws AAIUnknownObjectException {
+			this.nType = nType;
+			this.keyProps = new ArrayList<>(introspector.getKeys());
+			this.indexedProps = new ArrayList<>(introspector.getIndexedProperties());
+			for (String propName : indexedProps) {
+				propTypeHash.put(propName, introspector.getType(propName));
+			}
+			this.depNodeTypes = loader.introspectorFromName(nType).getDependentOn();
+		}
+	}
+
+	/**
+	 * What the batched index lookups of verifyIndexLookups() found for a page of vertices, by
+	 * vertex id.
+	 */
+	private static class IndexVerdicts {
+		// Whether the aai-uri brings back just this vertex
+		final Map<Object, Boolean> aaiUriOk = new HashMap<>();
+		// The vertices of the same node type that have the same key values
+		final Map<Object, List<Vertex>> keyMatches = new HashMap<>();
+	}
+
+	/**
+	 * The options of a run that the node checks need, and what they add to as they go.
+	 */
+	private static class NodeChecks {
+		Loader loader;
+		String version;
+		long windowStartTime;
+		Boolean dupeCheckOff;
+		Boolean dupeFixOn;
+		Boolean skipIndexUpdateFix;
+		Set<String> processedVertices;
+		List<String> errArr;
+		int pageSize;
+		final GroomCounts counts = new GroomCounts();
+		final Map<String, Long> nodeTypeCounts = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Counts kept by the node checks.  Several threads can add to them at once.
+	 */
+	private static class GroomCounts {
+		final AtomicInteger nodes = new AtomicInteger();
+		final AtomicInteger deleted = new AtomicInteger();
+		final AtomicInteger dummyUpdates = new AtomicInteger();
+	}
+
 	class CommandLineArgs {
 
 
@@ -2942,86 +3720,97 @@ public class DataGrooming {
 		@Parameter(names = "-singleNodeType", description = "singleNodeType")
 		public String singleNodeType = "";
 
+		// More than 1 checks node types (and slices of big ones) on that many threads at once.
+		// Not when fixing things (those runs use 1 thread), and such a run keeps no resume checkpoint.
+		@Parameter(names = "-threads", description = "threads, more than 1 is ignored when fixing and turns off the resume checkpoint")
+		public int groomThreads = GraphAdminConstants.AAI_GROOMING_DEFAULT_THREADS;
+
+		@Parameter(names = "-sliceSize", description = "sliceSize")
+		public int sliceSize = GraphAdminConstants.AAI_GROOMING_DEFAULT_SLICE_SIZE;
+
+		@Parameter(names = "-pageSize", description = "pageSize")
+		public int pageSize = GraphAdminConstants.AAI_GROOMING_DEFAULT_PAGE_SIZE;
+
 	}
 
 	public Map<String, Vertex> getOrphanNodeHash() {
-		return orphanNodeHash;
+		return new ResultView<>(orphanNodeHash, DataGrooming::getDetachedVertex);
 	}
 
 	public DataGrooming setOrphanNodeHash(Map<String, Vertex> orphanNodeHash) {
-		this.orphanNodeHash = orphanNodeHash;
+		this.orphanNodeHash = new VertexIdSet(orphanNodeHash.keySet());
 		return this;
 	}
 
 	public int getOrphanNodeCount(){
-		return getOrphanNodeHash().size();
+		return orphanNodeHash.size();
 	}
 
 	public Map<String, Vertex> getMissingAaiNtNodeHash() {
-		return missingAaiNtNodeHash;
+		return new ResultView<>(missingAaiNtNodeHash, DataGrooming::getDetachedVertex);
 	}
 
 	public DataGrooming setMissingAaiNtNodeHash(Map<String, Vertex> missingAaiNtNodeHash) {
-		this.missingAaiNtNodeHash = missingAaiNtNodeHash;
+		this.missingAaiNtNodeHash = new VertexIdSet(missingAaiNtNodeHash.keySet());
 		return this;
 	}
 
 	public int getMissingAaiNtNodeCount(){
-		return getMissingAaiNtNodeHash().size();
+		return missingAaiNtNodeHash.size();
 	}
 
 	public Map<String, Vertex> getBadUriNodeHash() {
-		return badUriNodeHash;
+		return new ResultView<>(badUriNodeHash, DataGrooming::getDetachedVertex);
 	}
 
 	public DataGrooming setBadUriNodeHash(Map<String, Vertex> badUriNodeHash) {
-		this.badUriNodeHash = badUriNodeHash;
+		this.badUriNodeHash = new VertexIdSet(badUriNodeHash.keySet());
 		return this;
 	}
 
 	public int getBadUriNodeCount(){
-		return getBadUriNodeHash().size();
+		return badUriNodeHash.size();
 	}
 
 	public Map<String, Vertex> getBadIndexNodeHash() {
-		return badIndexNodeHash;
+		return new ResultView<>(badIndexNodeHash, DataGrooming::getDetachedVertex);
 	}
 
 	public DataGrooming setBadIndexNodeHash(Map<String, Vertex> badIndexNodeHash) {
-		this.badIndexNodeHash = badIndexNodeHash;
+		this.badIndexNodeHash = new VertexIdSet(badIndexNodeHash.keySet());
 		return this;
 	}
 
 	public int getBadIndexNodeCount(){
-		return getBadIndexNodeHash().size();
+		return badIndexNodeHash.size();
 	}
 
 	public Map<String, Edge> getOneArmedEdgeHash() {
-		return oneArmedEdgeHash;
+		return new ResultView<>(oneArmedEdgeHash, DataGrooming::getDetachedEdge);
 	}
 
 	public int getOneArmedEdgeHashCount() {
-		return getOneArmedEdgeHash().size();
+		return oneArmedEdgeHash.size();
 	}
 
 
 
 	public DataGrooming setOneArmedEdgeHash(Map<String, Edge> oneArmedEdgeHash) {
-		this.oneArmedEdgeHash = oneArmedEdgeHash;
+		this.oneArmedEdgeHash = new LinkedHashSet<>(oneArmedEdgeHash.keySet());
 		return this;
 	}
 
 	public Map<String, Vertex> getGhostNodeHash() {
-		return ghostNodeHash;
+		return new ResultView<>(ghostNodeHash, DataGrooming::getDetachedVertex);
 	}
 
 	public DataGrooming setGhostNodeHash(Map<String, Vertex> ghostNodeHash) {
-		this.ghostNodeHash = ghostNodeHash;
+		this.ghostNodeHash = new VertexIdSet(ghostNodeHash.keySet());
 		return this;
 	}
 
 	public int getGhostNodeCount(){
-		return getGhostNodeHash().size();
+		return ghostNodeHash.size();
 	}
 
 	public List<String> getDupeGroups() {
@@ -3038,7 +3827,7 @@ public class DataGrooming {
 	}
 
 	public DataGrooming setDeleteCandidateList(Set<String> deleteCandidateList) {
-		this.deleteCandidateList = deleteCandidateList;
+		this.deleteCandidateList = new VertexIdSet(deleteCandidateList);
 		return this;
 	}
 
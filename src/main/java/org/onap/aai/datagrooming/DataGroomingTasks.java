@@ -36,6 +36,7 @@ import org.onap.aai.logging.ErrorLogHelper;
 import org.onap.aai.logging.LogFormatTools;
 import org.onap.aai.setup.SchemaVersions;
 import org.onap.aai.util.AAIConfig;
+import org.onap.aai.util.ToolJobGuard;
 import org.onap.logging.filter.base.ONAPComponents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -101,6 +102,12 @@ public class DataGroomingTasks {
 		    dataGroomingFlagMap.forEach((key, val) -> LOGGER.debug("Key: {} Value: {}", key, val));
 		}
 
+		ToolJobGuard.Job job = ToolJobGuard.getInstance().tryStart("dataGrooming");
+		if(job == null){
+			LOGGER.debug("Data Grooming is already running in this graphadmin, or there is no room for it next to the jobs that are");
+			return;
+		}
+
 		List<String> paramsArray  = new ArrayList();
 		try {
 			if("true".equals(dataGroomingFlagMap.get("enableautofix"))){
@@ -165,6 +172,7 @@ public class DataGroomingTasks {
             ErrorLogHelper.logError("AAI_4000", "Exception running cron job for dataGrooming"+LogFormatTools.getStackTop(e));
             LOGGER.debug("AAI_4000", "Exception running cron job for dataGrooming"+LogFormatTools.getStackTop(e));
 		} finally {
+			job.close();
 			LOGGER.debug("Ended cron job dataGrooming @ " + dateFormat.format(new Date()));
 		}
 		auditLog.logAfter();
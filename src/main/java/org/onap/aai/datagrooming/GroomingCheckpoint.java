@@ -0,0 +1,193 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datagrooming;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * The resume token of a FULL grooming run: how far the run got and what it found until
+ * then.  It is saved as the run goes along (at most once a minute), so if the run dies the
+ * next one with the same options picks up after the last page that was saved instead of
+ * starting over.  A finished run deletes it.
+ */
+class GroomingCheckpoint {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GroomingCheckpoint.class);
+
+	private static final long SAVE_INTERVAL_MILLIS = 60 * 1000L;
+
+	// What nodeType is set to while the edges are checked
+	static final String EDGES = "(edges)";
+
+	// The names the node results are saved under
+	static final String GHOST = "ghost";
+	static final String ORPHAN = "orphan";
+	static final String MISSING_AAI_NT = "missingAaiNt";
+	static final String BAD_URI = "badUri";
+	static final String BAD_INDEX = "badIndex";
+
+	/** What is saved in the file. */
+	static class State {
+		String options;
+		long startedTs;
+		List<String> doneNodeTypes = new ArrayList<>();
+		// The node type (or EDGES) being checked, and the last vertex id of it that is done
+		String nodeType;
+		long lastId = -1;
+		Map<String, List<String>> nodeResults = new TreeMap<>();
+		// Bad edge id -> the id of the vertex it points to ("" if there was none)
+		Map<String, String> oneArmedEdges = new TreeMap<>();
+		List<String> dupeGroups = new ArrayList<>();
+		List<String> errors = new ArrayList<>();
+		Map<String, Long> nodeTypeCounts = new TreeMap<>();
+		int nodeCount;
+	}
+
+	private final File file;
+	private final boolean resumed;
+	private State state;
+	private long lastSaveTs;
+
+	private GroomingCheckpoint(File file, State state, boolean resumed) {
+		this.file = file;
+		this.state = state;
+		this.resumed = resumed;
+		this.lastSaveTs = System.currentTimeMillis();
+	}
+
+	/**
+	 * Picks up the token in the file if it is from a run with the same options that was
+	 * started less than maxAgeMillis ago, otherwise starts a new one.
+	 *
+	 * @param options the options of this run, as one string
+	 */
+	static GroomingCheckpoint open(File file, String options, long maxAgeMillis) {
+		State saved = load(file);
+		long now = System.currentTimeMillis();
+		if( saved != null && options.equals(saved.options) && now - saved.startedTs <= maxAgeMillis ){
+			LOGGER.debug("Resuming the grooming run started at " + saved.startedTs + " after ["
+					+ saved.nodeType + "] id " + saved.lastId + ", from " + file);
+			return new GroomingCheckpoint(file, saved, true);
+		}
+		if( saved != null ){
+			LOGGER.debug("Not resuming from " + file + ", it is from another kind of run or too old");
+		}
+		State state = new State();
+		state.options = options;
+		state.startedTs = now;
+		return new GroomingCheckpoint(file, state, false);
+	}
+
+	boolean isResumed() {
+		return resumed;
+	}
+
+	State getState() {
+		return state;
+	}
+
+	boolean isNodeTypeDone(String nodeType) {
+		return state.doneNodeTypes.contains(nodeType);
+	}
+
+	/**
+	 * @return the last vertex id of the node type (or EDGES) that was done, -1 if none was
+	 */
+	long getLastId(String nodeType) {
+		return nodeType.equals(state.nodeType) ? state.lastId : -1;
+	}
+
+	/**
+	 * Notes that the vertices of nodeType up to lastId are done.
+	 *
+	 * @return true if it is time to save the token
+	 */
+	boolean pageDone(String nodeType, long lastId) {
+		state.nodeType = nodeType;
+		state.lastId = lastId;
+		return System.currentTimeMillis() - lastSaveTs >= SAVE_INTERVAL_MILLIS;
+	}
+
+	/**
+	 * Notes that all the vertices of nodeType are done.
+	 *
+	 * @return true if it is time to save the token
+	 */
+	boolean nodeTypeDone(String nodeType) {
+		state.doneNodeTypes.add(nodeType);
+		state.nodeType = null;
+		state.lastId = -1;
+		return System.currentTimeMillis() - lastSaveTs >= SAVE_INTERVAL_MILLIS;
+	}
+
+	void save() {
+		lastSaveTs = System.currentTimeMillis();
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			try (Writer w = new BufferedWriter(new FileWriter(tmp))) {
+				new GsonBuilder().create().toJson(state, w);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			// The run itself can go on, it just won't be resumable from here
+			LOGGER.warn("Could not save the grooming resume token to " + file + ": " + e.getMessage());
+		}
+	}
+
+	void delete() {
+		if( file.exists() && !file.delete() ){
+			LOGGER.warn("Could not delete the grooming resume token " + file);
+		}
+	}
+
+	private static State load(File file) {
+		if( !file.exists() ){
+			return null;
+		}
+		try (Reader r = new BufferedReader(new FileReader(file))) {
+			State s = new GsonBuilder().create().fromJson(r, State.class);
+			if( s != null && s.options != null && s.doneNodeTypes != null && s.nodeResults != null
+					&& s.oneArmedEdges != null && s.dupeGroups != null && s.errors != null && s.nodeTypeCounts != null ){
+				return s;
+			}
+		} catch (Exception e) {
+			LOGGER.warn("Could not read the grooming resume token " + file + ": " + e.getMessage());
+		}
+		return null;
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datagrooming;
+
+import java.time.temporal.ChronoUnit;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.schema.JanusGraphIndex;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.core.schema.SchemaAction;
+import org.janusgraph.core.schema.SchemaStatus;
+import org.janusgraph.graphdb.database.management.ManagementSystem;
+import org.onap.aai.exceptions.AAIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The mixed index on aai-last-mod-ts that lets a time-window (PARTIAL) grooming run, or a
+ * DELTA_SNAPSHOT, get the vertices changed since some time with a range query, instead of
+ * reading every vertex and looking at its timestamp.
+ *
+ * Composite indexes can't do ranges, so this needs an index backend to be configured for
+ * the graph (index.[backend].backend).  Grooming and the snapshot only check for the index;
+ * it is created (and the vertices already there indexed) by running GenTester with
+ * GEN_GROOMING_WINDOW_INDEX.  Until the index is ENABLED, they read every vertex.
+ */
+public class LastModTsIndex {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LastModTsIndex.class);
+
+	public static final String LAST_MOD_TS = "aai-last-mod-ts";
+	public static final String INDEX_NAME = "aai-last-mod-ts-mixed";
+
+	private LastModTsIndex() {
+	}
+
+	/**
+	 * @param backend the name of the index backend in the graph's configuration
+	 * @return true if the index is there and ENABLED, so range queries on aai-last-mod-ts use it
+	 */
+	public static boolean isEnabled(JanusGraph graph, String backend) {
+		if( !graph.configuration().containsKey("index." + backend + ".backend") ){
+			LOGGER.warn("No index backend [" + backend + "] is configured for the graph, so range queries on "
+					+ LAST_MOD_TS + " can't use the " + INDEX_NAME + " index and every vertex will be read");
+			return false;
+		}
+		JanusGraphManagement mgmt = graph.openManagement();
+		try {
+			JanusGraphIndex index = mgmt.getGraphIndex(INDEX_NAME);
+			if( index == null ){
+				LOGGER.warn("The index " + INDEX_NAME + " is missing, so every vertex will be read for the range "
+						+ "query on " + LAST_MOD_TS + " (run GenTester with GEN_GROOMING_WINDOW_INDEX to create it)");
+				return false;
+			}
+			SchemaStatus status = index.getIndexStatus(mgmt.getPropertyKey(LAST_MOD_TS));
+			if( status != SchemaStatus.ENABLED ){
+				LOGGER.warn("The index " + INDEX_NAME + " is " + status + ", so every vertex will be read for the "
+						+ "range query on " + LAST_MOD_TS + " (run GenTester with GEN_GROOMING_WINDOW_INDEX to finish it)");
+			}
+			return status == SchemaStatus.ENABLED;
+		} catch (Exception e) {
+			LOGGER.warn("Could not check the index " + INDEX_NAME + ", it won't be used: " + e.getMessage());
+			return false;
+		} finally {
+			if( mgmt.isOpen() ){
+				mgmt.rollback();
+			}
+		}
+	}
+
+	/**
+	 * Creates the index if it is missing and indexes the vertices that are already there.
+	 * An index that an earlier attempt left part way (not ENABLED yet) is finished, so this
+	 * can simply be run again after a failure.
+	 *
+	 * @param backend the name of the index backend in the graph's configuration
+	 */
+	public static void createIndex(JanusGraph graph, String backend) throws AAIException {
+		if( !graph.configuration().containsKey("index." + backend + ".backend") ){
+			throw new AAIException("AAI_4000", "No index backend [" + backend + "] is configured for the graph (index."
+					+ backend + ".backend), so " + INDEX_NAME + " can't be created");
+		}
+		JanusGraphManagement mgmt = graph.openManagement();
+		try {
+			JanusGraphIndex index = mgmt.getGraphIndex(INDEX_NAME);
+			if( index == null ){
+				PropertyKey key = mgmt.getPropertyKey(LAST_MOD_TS);
+				if( key == null ){
+					key = mgmt.makePropertyKey(LAST_MOD_TS).dataType(Long.class).cardinality(Cardinality.SINGLE).make();
+				}
+				LOGGER.info("Creating the mixed index " + INDEX_NAME + " on " + LAST_MOD_TS + " in backend " + backend);
+				mgmt.buildIndex(INDEX_NAME, Vertex.class).addKey(key).buildMixedIndex(backend);
+				mgmt.commit();
+			}
+			else {
+				SchemaStatus status = index.getIndexStatus(mgmt.getPropertyKey(LAST_MOD_TS));
+				mgmt.rollback();
+				if( status == SchemaStatus.ENABLED ){
+					LOGGER.info("The index " + INDEX_NAME + " is already ENABLED");
+					return;
+				}
+				LOGGER.info("The index " + INDEX_NAME + " is " + status + ", finishing it");
+			}
+
+			ManagementSystem.awaitGraphIndexStatus(graph, INDEX_NAME)
+					.status(SchemaStatus.REGISTERED, SchemaStatus.ENABLED)
+					.timeout(10, ChronoUnit.MINUTES)
+					.call();
+
+			// Index the vertices that are already there - the index is ENABLED when that is done
+			LOGGER.info("Reindexing " + INDEX_NAME + " (takes a while, but only once)");
+			mgmt = graph.openManagement();
+			mgmt.updateIndex(mgmt.getGraphIndex(INDEX_NAME), SchemaAction.REINDEX).get();
+			mgmt.commit();
+
+			mgmt = graph.openManagement();
+			SchemaStatus status = mgmt.getGraphIndex(INDEX_NAME).getIndexStatus(mgmt.getPropertyKey(LAST_MOD_TS));
+			if( status != SchemaStatus.ENABLED ){
+				throw new AAIException("AAI_4000", "The index " + INDEX_NAME + " is " + status
+						+ " after reindexing, run GEN_GROOMING_WINDOW_INDEX again to finish it");
+			}
+			LOGGER.info("The index " + INDEX_NAME + " is ENABLED");
+		} catch (AAIException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new AAIException("AAI_4000", e);
+		} finally {
+			if( mgmt.isOpen() ){
+				mgmt.rollback();
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datagrooming;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * The ids of a set of vertices, sorted, in a plain long array.  Grooming holds these
+ * instead of the vertices themselves and reads the vertices back a page at a time, so
+ * millions of them don't have to stay in memory (or in one open transaction).
+ *
+ * Since the ids are sorted, a page can be found again by the last id before it - that is
+ * what a resumed run starts from.
+ */
+class VertexIdList {
+
+	static final VertexIdList EMPTY = new VertexIdList(new long[0]);
+
+	private final long[] ids;
+
+	private VertexIdList(long[] ids) {
+		this.ids = ids;
+	}
+
+	/**
+	 * Ids that come more than once are only kept once.
+	 *
+	 * @param idIterator the vertex ids, e.g. from a g.V().id() traversal
+	 * @param expectedSize how many ids are expected, to size the array with (0 if not known)
+	 */
+	static VertexIdList of(Iterator<?> idIterator, long expectedSize) {
+		long[] ids = new long[(int) Math.max(16, Math.min(expectedSize + 16, Integer.MAX_VALUE - 8))];
+		int size = 0;
+		while( idIterator.hasNext() ){
+			Object id = idIterator.next();
+			if( size == ids.length ){
+				ids = Arrays.copyOf(ids, (int) Math.min((long) size * 3 / 2 + 16, Integer.MAX_VALUE - 8));
+			}
+			ids[size++] = id instanceof Number ? ((Number) id).longValue() : Long.parseLong(id.toString());
+		}
+		Arrays.sort(ids, 0, size);
+		int distinct = 0;
+		for( int i = 0; i < size; i++ ){
+			if( distinct == 0 || ids[i] != ids[distinct - 1] ){
+				ids[distinct++] = ids[i];
+			}
+		}
+		return new VertexIdList(Arrays.copyOf(ids, distinct));
+	}
+
+	int size() {
+		return ids.length;
+	}
+
+	long get(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * @return the ids from index from (inclusive) to index to (exclusive), to pass to g.V(...)
+	 */
+	Object[] page(int from, int to) {
+		Object[] page = new Object[to - from];
+		for( int i = from; i < to; i++ ){
+			page[i - from] = ids[i];
+		}
+		return page;
+	}
+
+	/**
+	 * @return the index of the first id that is bigger than the given one
+	 */
+	int indexAfter(long id) {
+		int i = Arrays.binarySearch(ids, id);
+		return i >= 0 ? i + 1 : -i - 1;
+	}
+}
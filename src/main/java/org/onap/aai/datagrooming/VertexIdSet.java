@@ -0,0 +1,215 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datagrooming;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A set of vertex ids in their decimal String form, like grooming has always used, that
+ * keeps them as primitive longs in an open-addressing hash table (no String objects, and
+ * no Vertex objects keeping their transactions reachable).  Anything that is not a plain
+ * vertex id (edge ids in a delete candidate file) is kept as a String on the side.
+ *
+ * Several threads can use it at once.  Iterating goes over a copy: the vertex ids in
+ * ascending order, then the other ids.  Removing is not supported.
+ */
+class VertexIdSet extends AbstractSet<String> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	// 0 marks a free slot, so an id of 0 is kept in hasZero
+	private long[] table = new long[INITIAL_CAPACITY];
+	private int tableCount = 0;
+	private boolean hasZero = false;
+	private final Set<String> others = new LinkedHashSet<>();
+
+	VertexIdSet() {
+	}
+
+	VertexIdSet(Collection<String> ids) {
+		addAll(ids);
+	}
+
+	@Override
+	public synchronized boolean add(String id) {
+		long vid = parseVertexId(id);
+		if( vid < 0 ){
+			return others.add(id);
+		}
+		return addId(vid);
+	}
+
+	synchronized boolean addId(long vid) {
+		if( vid == 0 ){
+			boolean added = !hasZero;
+			hasZero = true;
+			return added;
+		}
+		if( (tableCount + 1) * 2 > table.length ){
+			resize(table.length * 2);
+		}
+		int mask = table.length - 1;
+		int i = (int) mix(vid) & mask;
+		while( table[i] != 0 ){
+			if( table[i] == vid ){
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		table[i] = vid;
+		tableCount++;
+		return true;
+	}
+
+	@Override
+	public synchronized boolean contains(Object o) {
+		if( o instanceof Number ){
+			return containsId(((Number) o).longValue());
+		}
+		if( !(o instanceof String) ){
+			return false;
+		}
+		long vid = parseVertexId((String) o);
+		return vid < 0 ? others.contains(o) : containsId(vid);
+	}
+
+	synchronized boolean containsId(long vid) {
+		if( vid == 0 ){
+			return hasZero;
+		}
+		int mask = table.length - 1;
+		int i = (int) mix(vid) & mask;
+		while( table[i] != 0 ){
+			if( table[i] == vid ){
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized int size() {
+		return tableCount + (hasZero ? 1 : 0) + others.size();
+	}
+
+	@Override
+	public synchronized void clear() {
+		table = new long[INITIAL_CAPACITY];
+		tableCount = 0;
+		hasZero = false;
+		others.clear();
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		List<String> copy;
+		synchronized( this ){
+			long[] vids = sortedVertexIds();
+			copy = new ArrayList<>(vids.length + others.size());
+			for( long vid : vids ){
+				copy.add(Long.toString(vid));
+			}
+			copy.addAll(others);
+		}
+		Iterator<String> it = copy.iterator();
+		return new Iterator<String>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public String next() {
+				return it.next();
+			}
+		};
+	}
+
+	/**
+	 * @return the vertex ids (not the other ids) in ascending order
+	 */
+	synchronized long[] sortedVertexIds() {
+		long[] vids = new long[tableCount + (hasZero ? 1 : 0)];
+		int n = 0;
+		if( hasZero ){
+			vids[n++] = 0;
+		}
+		for( long vid : table ){
+			if( vid != 0 ){
+				vids[n++] = vid;
+			}
+		}
+		Arrays.sort(vids);
+		return vids;
+	}
+
+	private void resize(int newCapacity) {
+		long[] old = table;
+		table = new long[newCapacity];
+		int mask = newCapacity - 1;
+		for( long vid : old ){
+			if( vid != 0 ){
+				int i = (int) mix(vid) & mask;
+				while( table[i] != 0 ){
+					i = (i + 1) & mask;
+				}
+				table[i] = vid;
+			}
+		}
+	}
+
+	/**
+	 * @return the id as a long if it is a plain decimal vertex id (that turns back into the
+	 *   same String), -1 otherwise
+	 */
+	static long parseVertexId(String id) {
+		int len = id.length();
+		if( len == 0 || len > 18 || (id.charAt(0) == '0' && len > 1) ){
+			return -1;
+		}
+		long vid = 0;
+		for( int i = 0; i < len; i++ ){
+			char c = id.charAt(i);
+			if( c < '0' || c > '9' ){
+				return -1;
+			}
+			vid = vid * 10 + (c - '0');
+		}
+		return vid;
+	}
+
+	// The murmur3 64 bit finalizer - JanusGraph ids are far from random in their low bits
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.util.List;
+
+import org.janusgraph.core.JanusGraph;
+import org.slf4j.Logger;
+
+/**
+ * Commits a group of snapshot reload items in one JanusGraph transaction.
+ *
+ * If writing or committing the group fails, the transaction is rolled back and the group
+ * is split in half and each half is tried again, until the item(s) causing the problem
+ * are isolated.  Only an item that still fails on its own is passed to the
+ * FailureHandler, so one bad line costs a few extra commits instead of failing the
+ * whole group.
+ *
+ * Every attempt is paced by the shared ReloadRateController, and the time each
+ * write+commit takes (or the failure of the commit) is reported back to it.  An item that
+ * can't be written (bad data, a vertex id with no translation) is not the database's
+ * fault, so it does not slow the load down, unless it failed on the storage backend.
+ *
+ * NOTE - a commit that throws (a timeout, say) may still have been applied by the storage
+ * backend.  While the halves of such a group are written again, isReapplying() is true so
+ * the ItemWriter can skip what is already there (the edge step does); the vertex step is
+ * left with some extra bare vertices that nothing points to.
+ */
+public class BisectingBatchCommitter<T> {
+
+	/** Applies one item to the current transaction.  Throw to reject the item. */
+	public interface ItemWriter<T> {
+		void write(T item) throws Exception;
+	}
+
+	/** Called after a group of items has been committed. */
+	public interface CommitListener<T> {
+		void committed(List<T> items) throws Exception;
+	}
+
+	/** Called for an item that failed by itself.  Throw to abandon the whole load. */
+	public interface FailureHandler<T> {
+		void failed(T item, Exception e) throws Exception;
+	}
+
+	private Logger LOGGER;
+
+	private JanusGraph jg;
+	private ItemWriter<T> itemWriter;
+	private CommitListener<T> commitListener;
+	private FailureHandler<T> failureHandler;
+	private ReloadRateController rateController;
+
+	private long commitCount = 0;
+	private long bisectCount = 0;
+	private int reapplyDepth = 0;
+
+	public BisectingBatchCommitter(JanusGraph graph, ItemWriter<T> itemWriter,
+			CommitListener<T> commitListener, FailureHandler<T> failureHandler,
+			ReloadRateController rateController, Logger elfLog) {
+		jg = graph;
+		this.itemWriter = itemWriter;
+		this.commitListener = commitListener;
+		this.failureHandler = failureHandler;
+		this.rateController = rateController;
+		LOGGER = elfLog;
+	}
+
+	public void commit(List<T> items) throws Exception {
+
+		if( items == null || items.isEmpty() ){
+			return;
+		}
+
+		rateController.acquire(items.size());
+		Exception batchException = null;
+		boolean commitThrew = false;
+		long startNanos = System.nanoTime();
+		try {
+			for( T item : items ){
+				itemWriter.write(item);
+			}
+		}
+		catch ( Exception e ){
+			batchException = e;
+			if( ReloadRateController.isBackendFailure(e) ){
+				rateController.commitFailed();
+			}
+		}
+		if( batchException == null ){
+			try {
+				jg.tx().commit();
+				rateController.commitSucceeded(System.nanoTime() - startNanos);
+			}
+			catch ( Exception e ){
+				batchException = e;
+				commitThrew = true;
+				// A commit that is refused for the data in it is not a reason to slow down
+				if( ReloadRateController.isBackendFailure(e) ){
+					rateController.commitFailed();
+				}
+			}
+		}
+		if( batchException != null ){
+			try {
+				jg.tx().rollback();
+			}
+			catch ( Exception re ){
+				LOGGER.debug(" -- rollback after failed batch also failed. ErrorMsg = [" + re.getMessage() + "]");
+			}
+		}
+
+		if( batchException == null ){
+			commitCount++;
+			commitListener.committed(items);
+		}
+		else if( items.size() == 1 ){
+			failureHandler.failed(items.get(0), batchException);
+		}
+		else {
+			bisectCount++;
+			LOGGER.debug(" -- batch of " + items.size() + " items failed, will split it and retry. ErrorMsg = ["
+					+ batchException.getMessage() + "]");
+			int mid = items.size() / 2;
+			if( commitThrew ){
+				reapplyDepth++;
+			}
+			try {
+				commit(items.subList(0, mid));
+				commit(items.subList(mid, items.size()));
+			}
+			finally {
+				if( commitThrew ){
+					reapplyDepth--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true while the items being written are from a group whose commit threw, so
+	 *   some of them may already be in the database
+	 */
+	public boolean isReapplying() {
+		return reapplyDepth > 0;
+	}
+
+	public long getCommitCount() {
+		return commitCount;
+	}
+
+	public long getBisectCount() {
+		return bisectCount;
+	}
+
+}
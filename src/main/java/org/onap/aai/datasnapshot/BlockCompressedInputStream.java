@@ -0,0 +1,278 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a file written by BlockCompressedOutputStream.
+ *
+ * The compressed blocks are read in order, but up to readAhead of them are decompressed
+ * at the same time on a thread pool, so decompression keeps up with the parsing thread.
+ * The stream also reads several block-compressed files one after the other (e.g. through
+ * a SequenceInputStream).
+ */
+public class BlockCompressedInputStream extends InputStream {
+
+	/** One entry in the block index at the end of the file. */
+	public static class Block {
+		public long fileOffset;
+		// Number of records before this block, or -1 if the block starts in the middle of one
+		public long firstRecord;
+		public int compressedLength;
+		public int rawLength;
+		public int crc;
+	}
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private final DataInputStream in;
+	private final ExecutorService pool;
+	private final int readAhead;
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+	private boolean endOfInput = false;
+	private byte[] current = EMPTY;
+	private int pos = 0;
+
+	/**
+	 * @param is positioned at the start of a block-compressed file
+	 */
+	public BlockCompressedInputStream(InputStream is) throws IOException {
+		in = new DataInputStream(is instanceof BufferedInputStream ? is : new BufferedInputStream(is, 1024 * 1024));
+		pool = ForkJoinPool.commonPool();
+		readAhead = Math.max(2, Runtime.getRuntime().availableProcessors());
+		if (!readFileHeader()) {
+			throw new IOException("Empty block-compressed input");
+		}
+	}
+
+	/**
+	 * @return true if the file starts with the block-compressed header
+	 */
+	public static boolean isBlockCompressed(String fileName) throws IOException {
+		try (InputStream is = new FileInputStream(fileName)) {
+			return hasMagic(is);
+		}
+	}
+
+	/**
+	 * Opens a snapshot file for reading, decompressing it if it is block-compressed, or
+	 * streaming it back from the chunk store if it was archived there.
+	 */
+	public static InputStream openSnapshotFile(String fileName) throws IOException {
+		if (ChunkStore.isManifest(fileName)) {
+			return ChunkStore.open(fileName);
+		}
+		if (isBlockCompressed(fileName)) {
+			return new BlockCompressedInputStream(new FileInputStream(fileName));
+		}
+		return new FileInputStream(fileName);
+	}
+
+	/**
+	 * Wraps the stream so it is decompressed if it is block-compressed, and otherwise
+	 * returns it (or a buffered copy of it) unchanged.
+	 */
+	public static InputStream decompressIfNeeded(InputStream is) throws IOException {
+		InputStream bis = is.markSupported() ? is : new BufferedInputStream(is, 1024 * 1024);
+		bis.mark(MAGIC_LENGTH);
+		boolean compressed = hasMagic(bis);
+		bis.reset();
+		return compressed ? new BlockCompressedInputStream(bis) : bis;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (pos == current.length && !nextBlock()) {
+			return -1;
+		}
+		return current[pos++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (pos == current.length && !nextBlock()) {
+			return -1;
+		}
+		int n = Math.min(len, current.length - pos);
+		System.arraycopy(current, pos, b, off, n);
+		pos += n;
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return current.length - pos;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Future<byte[]> f : pending) {
+			f.cancel(false);
+		}
+		pending.clear();
+		endOfInput = true;
+		in.close();
+	}
+
+	private static final int MAGIC_LENGTH = BlockCompressedOutputStream.MAGIC.length;
+
+	private static boolean hasMagic(InputStream is) throws IOException {
+		byte[] header = new byte[MAGIC_LENGTH];
+		int read = 0;
+		while (read < header.length) {
+			int n = is.read(header, read, header.length - read);
+			if (n < 0) {
+				return false;
+			}
+			read += n;
+		}
+		return Arrays.equals(header, BlockCompressedOutputStream.MAGIC);
+	}
+
+	private boolean nextBlock() throws IOException {
+		fill();
+		while (!pending.isEmpty()) {
+			Future<byte[]> f = pending.poll();
+			try {
+				current = f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while decompressing a snapshot block", e);
+			} catch (ExecutionException e) {
+				throw new IOException("Could not decompress a snapshot block", e.getCause());
+			}
+			pos = 0;
+			fill();
+			if (current.length > 0) {
+				return true;
+			}
+		}
+		current = EMPTY;
+		pos = 0;
+		return false;
+	}
+
+	/** Queues blocks for decompression until readAhead of them are waiting. */
+	private void fill() throws IOException {
+		while (!endOfInput && pending.size() < readAhead) {
+			int rawLength;
+			try {
+				rawLength = in.readInt();
+			} catch (EOFException e) {
+				throw new IOException("Block-compressed input is truncated", e);
+			}
+			if (rawLength == 0) {
+				skipIndexAndTrailer();
+				// There may be another block-compressed file right after this one
+				if (!readFileHeader()) {
+					endOfInput = true;
+				}
+				continue;
+			}
+			int compressedLength = in.readInt();
+			int crc = in.readInt();
+			if (rawLength < 0 || compressedLength < 0) {
+				throw new IOException("Corrupt block header in block-compressed input");
+			}
+			byte[] compressed = new byte[compressedLength];
+			in.readFully(compressed);
+			pending.add(pool.submit(() -> inflate(compressed, rawLength, crc)));
+		}
+	}
+
+	private void skipIndexAndTrailer() throws IOException {
+		int blockCount = in.readInt();
+		long toSkip = (long) blockCount * BlockCompressedOutputStream.INDEX_ENTRY_LENGTH
+				+ BlockCompressedOutputStream.TRAILER_LENGTH;
+		while (toSkip > 0) {
+			int skipped = in.skipBytes((int) Math.min(toSkip, Integer.MAX_VALUE));
+			if (skipped <= 0) {
+				throw new IOException("Block-compressed input is truncated in its block index");
+			}
+			toSkip -= skipped;
+		}
+	}
+
+	/** @return false at the end of the input */
+	private boolean readFileHeader() throws IOException {
+		int first = in.read();
+		if (first < 0) {
+			return false;
+		}
+		byte[] header = new byte[MAGIC_LENGTH];
+		header[0] = (byte) first;
+		try {
+			in.readFully(header, 1, MAGIC_LENGTH - 1);
+		} catch (EOFException e) {
+			throw new IOException("Unexpected data after the end of a block-compressed file", e);
+		}
+		if (!Arrays.equals(header, BlockCompressedOutputStream.MAGIC)) {
+			throw new IOException("Not a block-compressed file (or unexpected data after the end of one)");
+		}
+		return true;
+	}
+
+	private static byte[] inflate(byte[] compressed, int rawLength, int expectedCrc)
+			throws DataFormatException, IOException {
+		byte[] raw = new byte[rawLength];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(compressed);
+			int n = 0;
+			while (n < rawLength) {
+				int got = inflater.inflate(raw, n, rawLength - n);
+				if (got == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				n += got;
+			}
+			if (n != rawLength) {
+				throw new IOException("Snapshot block decompressed to " + n + " bytes instead of " + rawLength);
+			}
+		} finally {
+			inflater.end();
+		}
+		CRC32 crc = new CRC32();
+		crc.update(raw, 0, rawLength);
+		if ((int) crc.getValue() != expectedCrc) {
+			throw new IOException("Snapshot block failed its CRC check");
+		}
+		return raw;
+	}
+
+}
@@ -0,0 +1,215 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a snapshot file as independently compressed blocks, so it can be compressed
+ * while it is written and decompressed in parallel (see BlockCompressedInputStream).
+ *
+ * File layout (all numbers big-endian):
+ *
+ *   MAGIC
+ *   block*      := int rawLength, int compressedLength, int crc32 of the raw bytes, raw deflate data
+ *   end marker  := int 0
+ *   index       := int blockCount, (long fileOffset, long firstRecord, int compressedLength, int rawLength, int crc32)*
+ *   trailer     := long indexOffset, END_MAGIC
+ *
+ * The writer calls endRecord() after each vertex, and a block is only cut at a record
+ * boundary once it holds blockSize bytes, so parsing could start at any block.  The index
+ * says which record each block starts with; the readers do not use it (they read every
+ * block in order).
+ */
+public class BlockCompressedOutputStream extends OutputStream {
+
+	static final byte[] MAGIC = { 'A', 'A', 'I', 'B', 'L', 'K', 'Z', 1 };
+	static final byte[] END_MAGIC = { 'A', 'A', 'I', 'B', 'L', 'K', 'Z', 'E' };
+	static final int BLOCK_HEADER_LENGTH = 12;
+	static final int INDEX_ENTRY_LENGTH = 28;
+	static final int TRAILER_LENGTH = 16;
+
+	// A record that never ends (a writer not calling endRecord) still gets cut at this many block sizes
+	static final int MAX_BLOCK_FACTOR = 8;
+
+	private final DataOutputStream out;
+	private final int blockSize;
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+	private final CRC32 crc = new CRC32();
+
+	private byte[] buf;
+	private int count = 0;
+	private byte[] compressed;
+	private long fileOffset;
+	private long recordCount = 0;
+	private long blockFirstRecord = 0;
+	private boolean blockStartsOnRecord = true;
+	private final List<BlockCompressedInputStream.Block> index = new ArrayList<>();
+	private boolean closed = false;
+
+	public BlockCompressedOutputStream(OutputStream os, int blockSize) throws IOException {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Bad compression block size " + blockSize);
+		}
+		out = new DataOutputStream(new BufferedOutputStream(os, 65536));
+		this.blockSize = blockSize;
+		buf = new byte[blockSize + blockSize / 4];
+		compressed = new byte[blockSize];
+		out.write(MAGIC);
+		fileOffset = MAGIC.length;
+	}
+
+	/**
+	 * Opens a snapshot file for writing, block-compressed if blockSize > 0.
+	 */
+	public static OutputStream open(String fileName, int blockSize) throws IOException {
+		return open(new FileOutputStream(fileName), blockSize);
+	}
+
+	/**
+	 * Wraps the stream so what is written to it gets block-compressed if blockSize > 0
+	 * (and just buffered otherwise).
+	 */
+	public static OutputStream open(OutputStream os, int blockSize) throws IOException {
+		if (blockSize > 0) {
+			return new BlockCompressedOutputStream(os, blockSize);
+		}
+		return new BufferedOutputStream(os, 1024 * 1024);
+	}
+
+	/**
+	 * Marks the end of a record (vertex) if os is a BlockCompressedOutputStream, does nothing otherwise.
+	 */
+	public static void endRecord(OutputStream os) throws IOException {
+		if (os instanceof BlockCompressedOutputStream) {
+			((BlockCompressedOutputStream) os).endRecord();
+		}
+	}
+
+	public void endRecord() throws IOException {
+		recordCount++;
+		if (count >= blockSize) {
+			writeBlock();
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureRoom(1);
+		buf[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureRoom(len);
+		System.arraycopy(b, off, buf, count, len);
+		count += len;
+	}
+
+	/** Does not cut a block -- the graph writers flush after every vertex. */
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			writeBlock();
+			out.writeInt(0);
+			long indexOffset = fileOffset + 4;
+			out.writeInt(index.size());
+			for (BlockCompressedInputStream.Block block : index) {
+				out.writeLong(block.fileOffset);
+				out.writeLong(block.firstRecord);
+				out.writeInt(block.compressedLength);
+				out.writeInt(block.rawLength);
+				out.writeInt(block.crc);
+			}
+			out.writeLong(indexOffset);
+			out.write(END_MAGIC);
+		} finally {
+			deflater.end();
+			out.close();
+		}
+	}
+
+	private void ensureRoom(int len) throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (count + len > buf.length && count >= blockSize * MAX_BLOCK_FACTOR) {
+			writeBlock();
+			blockStartsOnRecord = false;
+		}
+		if (count + len > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(count + len, buf.length * 2));
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (count == 0) {
+			return;
+		}
+		deflater.reset();
+		deflater.setInput(buf, 0, count);
+		deflater.finish();
+		int compressedLength = 0;
+		while (!deflater.finished()) {
+			if (compressedLength == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+		}
+		crc.reset();
+		crc.update(buf, 0, count);
+
+		BlockCompressedInputStream.Block block = new BlockCompressedInputStream.Block();
+		block.fileOffset = fileOffset;
+		block.firstRecord = blockStartsOnRecord ? blockFirstRecord : -1;
+		block.compressedLength = compressedLength;
+		block.rawLength = count;
+		block.crc = (int) crc.getValue();
+		index.add(block);
+
+		out.writeInt(block.rawLength);
+		out.writeInt(block.compressedLength);
+		out.writeInt(block.crc);
+		out.write(compressed, 0, compressedLength);
+		fileOffset += BLOCK_HEADER_LENGTH + compressedLength;
+		count = 0;
+		blockFirstRecord = recordCount;
+		blockStartsOnRecord = true;
+	}
+
+}
@@ -0,0 +1,399 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A deduplicated archive of snapshot files.  Each file is cut into chunks where its
+ * content says so (a gear rolling hash over the bytes hits a boundary pattern), so an
+ * insert or delete only changes the chunks around it.  Every chunk is stored once,
+ * deflated, under the SHA-256 of its content in the chunks directory next to the
+ * archived files, and the archived file itself becomes a manifest listing its chunks.
+ * Day to day most of a snapshot is unchanged, so most of its chunks are already there.
+ *
+ * A manifest keeps the name of the file it stands for, and openSnapshotFile() streams
+ * the original content back from the chunks, so a snapshot can be reloaded from the
+ * archive directory like any other.  Block-compressed files are stored decompressed
+ * (their compressed bytes would not dedupe) and come back as plain snapshot files.
+ *
+ * Chunks no manifest refers to any more are removed by removeUnreferencedChunks().
+ *
+ * Manifest layout:
+ *   MAGIC '\n'
+ *   one line per chunk := sha256-hex ' ' raw-length '\n'
+ */
+public class ChunkStore {
+
+	public static final String CHUNK_DIR_NAME = "chunks";
+
+	static final byte[] MAGIC = { 'A', 'A', 'I', 'C', 'H', 'N', 'K', 1 };
+
+	static final int MIN_CHUNK_SIZE = 16 * 1024;
+	static final int MAX_CHUNK_SIZE = 256 * 1024;
+	// 16 bits -> a boundary every 64K on average (plus the minimum)
+	private static final long BOUNDARY_MASK = 0xFFFFL << 32;
+
+	private static final long[] GEAR = new long[256];
+
+	static {
+		// Fixed seed: the boundaries have to fall in the same places from one run to the next
+		Random r = new Random(0x41414943484E4BL);
+		for (int i = 0; i < GEAR.length; i++) {
+			GEAR[i] = r.nextLong();
+		}
+	}
+
+	private final File chunkDir;
+	private final int level;
+
+	/** What storing one file did. */
+	public static class Result {
+		public int chunks;
+		public int newChunks;
+		public long rawBytes;
+		public long newRawBytes;
+		public long bytesWritten;
+	}
+
+	/**
+	 * @param archiveDir where the manifests go, with the chunks under archiveDir/chunks
+	 * @param level the deflate level the chunks are written with
+	 */
+	public ChunkStore(File archiveDir, int level) {
+		this.chunkDir = new File(archiveDir, CHUNK_DIR_NAME);
+		this.level = level;
+	}
+
+	/**
+	 * Stores the file's chunks that aren't in the store yet and writes its manifest to
+	 * the given file.  Several threads can store files into the same directory at once.
+	 */
+	public Result store(File file, File manifest) throws IOException {
+		Result result = new Result();
+		File dir = manifest.getAbsoluteFile().getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+			throw new IOException("Could not create the archive directory " + dir);
+		}
+		File tmpManifest = new File(manifest.getPath() + ".tmp");
+		MessageDigest digest = sha256();
+		try (InputStream in = BlockCompressedInputStream.openSnapshotFile(file.getPath());
+				Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpManifest), StandardCharsets.US_ASCII))) {
+			w.write(new String(MAGIC, StandardCharsets.US_ASCII));
+			w.write('\n');
+			byte[] readBuf = new byte[1024 * 1024];
+			byte[] chunk = new byte[MAX_CHUNK_SIZE];
+			int chunkLen = 0;
+			long hash = 0;
+			int n;
+			while ((n = in.read(readBuf)) > 0) {
+				for (int i = 0; i < n; i++) {
+					byte b = readBuf[i];
+					chunk[chunkLen++] = b;
+					hash = (hash << 1) + GEAR[b & 0xFF];
+					if ((chunkLen >= MIN_CHUNK_SIZE && (hash & BOUNDARY_MASK) == 0) || chunkLen == MAX_CHUNK_SIZE) {
+						storeChunk(chunk, chunkLen, digest, w, result);
+						chunkLen = 0;
+						hash = 0;
+					}
+				}
+			}
+			if (chunkLen > 0) {
+				storeChunk(chunk, chunkLen, digest, w, result);
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(tmpManifest.toPath());
+			throw e;
+		}
+		move(tmpManifest, manifest);
+		result.bytesWritten += manifest.length();
+		return result;
+	}
+
+	private void storeChunk(byte[] chunk, int len, MessageDigest digest, Writer manifest, Result result)
+			throws IOException {
+		digest.reset();
+		digest.update(chunk, 0, len);
+		String hex = toHex(digest.digest());
+		manifest.write(hex + " " + len + "\n");
+		result.chunks++;
+		result.rawBytes += len;
+
+		File f = chunkFile(chunkDir, hex);
+		if (f.exists()) {
+			return;
+		}
+		File dir = f.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+			throw new IOException("Could not create the chunk directory " + dir);
+		}
+		File tmp = File.createTempFile(hex, ".tmp", dir);
+		Deflater deflater = new Deflater(level);
+		try (OutputStream os = new DeflaterOutputStream(new FileOutputStream(tmp), deflater, 64 * 1024)) {
+			os.write(chunk, 0, len);
+		} catch (IOException e) {
+			Files.deleteIfExists(tmp.toPath());
+			throw e;
+		} finally {
+			deflater.end();
+		}
+		result.newChunks++;
+		result.newRawBytes += len;
+		result.bytesWritten += tmp.length();
+		// Another thread may have stored the same chunk meanwhile, it has the same content
+		move(tmp, f);
+	}
+
+	/**
+	 * @return true if the file is a chunk manifest
+	 */
+	public static boolean isManifest(String fileName) throws IOException {
+		try (InputStream is = new FileInputStream(fileName)) {
+			byte[] header = new byte[MAGIC.length];
+			int read = 0;
+			while (read < header.length) {
+				int n = is.read(header, read, header.length - read);
+				if (n < 0) {
+					return false;
+				}
+				read += n;
+			}
+			return Arrays.equals(header, MAGIC);
+		}
+	}
+
+	/**
+	 * Streams the content of the file a manifest stands for back from its chunks.  Each
+	 * chunk is checked against its hash as it is read.
+	 */
+	public static InputStream open(String manifestFileName) throws IOException {
+		File manifest = new File(manifestFileName);
+		File chunkDir = new File(manifest.getAbsoluteFile().getParentFile(), CHUNK_DIR_NAME);
+		BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(manifest),
+				StandardCharsets.US_ASCII));
+		try {
+			String header = br.readLine();
+			if (header == null || !header.equals(new String(MAGIC, StandardCharsets.US_ASCII))) {
+				throw new IOException(manifestFileName + " is not a chunk manifest");
+			}
+		} catch (IOException e) {
+			br.close();
+			throw e;
+		}
+		return new ChunkInputStream(br, chunkDir, manifestFileName);
+	}
+
+	/**
+	 * Deletes the chunks in archiveDir/chunks that none of the manifests in archiveDir
+	 * refer to, e.g. after the cleanup has deleted the old manifests.  It must not run
+	 * while files are being stored into the same directory.
+	 *
+	 * @return the number of chunks deleted
+	 */
+	public static int removeUnreferencedChunks(File archiveDir) throws IOException {
+		File chunkDir = new File(archiveDir, CHUNK_DIR_NAME);
+		File[] subDirs = chunkDir.listFiles(File::isDirectory);
+		if (subDirs == null) {
+			return 0;
+		}
+		Set<String> referenced = new HashSet<>();
+		File[] files = archiveDir.listFiles(File::isFile);
+		if (files != null) {
+			for (File f : files) {
+				if (isManifest(f.getPath())) {
+					readReferences(f, referenced);
+				}
+			}
+		}
+		int deleted = 0;
+		for (File subDir : subDirs) {
+			File[] chunks = subDir.listFiles();
+			if (chunks == null) {
+				continue;
+			}
+			for (File chunk : chunks) {
+				// Leftover .tmp files are from a store that died, nothing refers to them
+				if (!referenced.contains(chunk.getName()) && chunk.delete()) {
+					deleted++;
+				}
+			}
+			String[] left = subDir.list();
+			if (left != null && left.length == 0) {
+				subDir.delete();
+			}
+		}
+		return deleted;
+	}
+
+	private static void readReferences(File manifest, Set<String> referenced) throws IOException {
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(manifest),
+				StandardCharsets.US_ASCII))) {
+			br.readLine();
+			String line;
+			while ((line = br.readLine()) != null) {
+				int sp = line.indexOf(' ');
+				if (sp > 0) {
+					referenced.add(line.substring(0, sp));
+				}
+			}
+		}
+	}
+
+	static File chunkFile(File chunkDir, String hex) {
+		return new File(new File(chunkDir, hex.substring(0, 2)), hex);
+	}
+
+	private static void move(File from, File to) throws IOException {
+		try {
+			Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Reads the chunks of one manifest in order.
+	 */
+	private static class ChunkInputStream extends InputStream {
+
+		private final BufferedReader manifest;
+		private final File chunkDir;
+		private final String manifestFileName;
+		private final MessageDigest digest = sha256();
+		private byte[] current = new byte[0];
+		private int pos = 0;
+		private int len = 0;
+
+		ChunkInputStream(BufferedReader manifest, File chunkDir, String manifestFileName) {
+			this.manifest = manifest;
+			this.chunkDir = chunkDir;
+			this.manifestFileName = manifestFileName;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (pos == len && !nextChunk()) {
+				return -1;
+			}
+			return current[pos++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int n) throws IOException {
+			if (n == 0) {
+				return 0;
+			}
+			if (pos == len && !nextChunk()) {
+				return -1;
+			}
+			int count = Math.min(n, len - pos);
+			System.arraycopy(current, pos, b, off, count);
+			pos += count;
+			return count;
+		}
+
+		private boolean nextChunk() throws IOException {
+			String line;
+			do {
+				line = manifest.readLine();
+				if (line == null) {
+					return false;
+				}
+			} while (line.isEmpty());
+			int sp = line.indexOf(' ');
+			if (sp <= 0) {
+				throw new IOException("Bad line in chunk manifest " + manifestFileName + ": " + line);
+			}
+			String hex = line.substring(0, sp);
+			int rawLength = Integer.parseInt(line.substring(sp + 1).trim());
+			if (current.length < rawLength) {
+				current = new byte[Math.max(rawLength, MAX_CHUNK_SIZE)];
+			}
+			File f = chunkFile(chunkDir, hex);
+			int read = 0;
+			Inflater inflater = new Inflater();
+			try (InputStream is = new InflaterInputStream(new FileInputStream(f), inflater, 64 * 1024)) {
+				int n;
+				while (read < rawLength && (n = is.read(current, read, rawLength - read)) > 0) {
+					read += n;
+				}
+				if (read < rawLength || is.read() >= 0) {
+					throw new IOException("Chunk " + f + " of " + manifestFileName + " is not " + rawLength + " bytes long");
+				}
+			} finally {
+				inflater.end();
+			}
+			digest.reset();
+			digest.update(current, 0, rawLength);
+			if (!toHex(digest.digest()).equals(hex)) {
+				throw new IOException("Chunk " + f + " of " + manifestFileName + " does not match its hash");
+			}
+			pos = 0;
+			len = rawLength;
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			manifest.close();
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The "compact" snapshot file format (-snapshotType compact).
+ *
+ * A compact file starts with MAGIC and is followed by length-prefixed records:
+ *
+ *   record := varint bodyLength, body
+ *   body   := 'D' string                      -- adds the next entry to the dictionary
+ *           | 'V' vertex
+ *   vertex := varlong id, ref label,
+ *             varint propCount, (ref key, value)*,
+ *             varint outCount, (ref label, varlong inV, varint propCount, (ref key, value)*)*,
+ *             varint inCount, (ref label, varlong outV)*
+ *   value  := tag byte, then a string, a dictionary ref, a zigzag varint/varlong, or 8/4 bytes
+ *
+ * Property keys, vertex and edge labels, and the values of a few low-cardinality keys
+ * (aai-node-type, etc.) are written once per file as dictionary entries and referred to
+ * by their index after that.  Ids and timestamps are varints, so a file is several times
+ * smaller than the GraphSON version and can be read without building a JSON tree.  A
+ * multi-valued property is written as one (key, value) pair per value.  Property and edge
+ * ids and meta-properties are not kept -- the reload gives everything new ids anyway.
+ */
+public class CompactSnapshot {
+
+	/** "AAISNAP" plus the format version */
+	static final byte[] MAGIC = { 'A', 'A', 'I', 'S', 'N', 'A', 'P', 1 };
+
+	static final byte DICTIONARY_ENTRY = 'D';
+	static final byte VERTEX = 'V';
+
+	static final int TAG_STRING = 0;
+	static final int TAG_STRING_REF = 1;
+	static final int TAG_LONG = 2;
+	static final int TAG_INT = 3;
+	static final int TAG_FALSE = 4;
+	static final int TAG_TRUE = 5;
+	static final int TAG_DOUBLE = 6;
+	static final int TAG_FLOAT = 7;
+
+	/** String values of these keys repeat a lot, so they go in the dictionary too. */
+	static final Set<String> DICTIONARY_VALUE_KEYS = new HashSet<>(Arrays.asList(
+			"aai-node-type", "source-of-truth", "last-mod-source-of-truth",
+			"contains-other-v", "delete-other-v", "prevent-delete", "SVC-INFRA"));
+
+	private CompactSnapshot() {
+	}
+
+	/**
+	 * @return true if the file (after any block decompression) starts with the compact snapshot header
+	 */
+	public static boolean isCompactFile(String fileName) throws IOException {
+		try (InputStream in = BlockCompressedInputStream.openSnapshotFile(fileName)) {
+			return startsWithMagic(in);
+		}
+	}
+
+	/**
+	 * Reads the first bytes of the stream and checks them against the compact snapshot header.
+	 */
+	static boolean startsWithMagic(InputStream in) throws IOException {
+		byte[] header = new byte[MAGIC.length];
+		int read = 0;
+		while (read < header.length) {
+			int n = in.read(header, read, header.length - read);
+			if (n < 0) {
+				return false;
+			}
+			read += n;
+		}
+		return Arrays.equals(header, MAGIC);
+	}
+
+
+	/** One vertex from a compact snapshot file, with all of its properties and edges. */
+	public static class VertexRecord {
+		public long id;
+		public String label;
+		public final List<String> propKeys = new ArrayList<>();
+		public final List<Object> propValues = new ArrayList<>();
+		public final List<EdgeRecord> outE = new ArrayList<>();
+		public final List<EdgeRecord> inE = new ArrayList<>();
+
+		public void addProperty(String key, Object value) {
+			propKeys.add(key);
+			propValues.add(value);
+		}
+
+		/**
+		 * @return the (first) value of the given property, or null if the vertex doesn't have it
+		 */
+		public Object getFirstValue(String key) {
+			int i = propKeys.indexOf(key);
+			return i < 0 ? null : propValues.get(i);
+		}
+	}
+
+	/** One edge of a VertexRecord.  Only OUT edges carry their properties. */
+	public static class EdgeRecord {
+		public String label;
+		// The vertex at the other end: inV for an OUT edge, outV for an IN edge
+		public long otherVid;
+		public final List<String> propKeys = new ArrayList<>();
+		public final List<Object> propValues = new ArrayList<>();
+
+		public EdgeRecord() {
+		}
+
+		public EdgeRecord(String label, long otherVid) {
+			this.label = label;
+			this.otherVid = otherVid;
+		}
+
+		public void addProperty(String key, Object value) {
+			propKeys.add(key);
+			propValues.add(value);
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the vertices back out of one compact snapshot file (see CompactSnapshot).
+ */
+public class CompactSnapshotReader implements Closeable {
+
+	private final String fileName;
+	private final DataInputStream in;
+	private final List<String> dictionary = new ArrayList<>();
+	private byte[] buf = new byte[4096];
+	private int pos;
+	private int limit;
+
+	public CompactSnapshotReader(String fileName) throws IOException {
+		this(BlockCompressedInputStream.openSnapshotFile(fileName), fileName);
+	}
+
+	public CompactSnapshotReader(InputStream is, String name) throws IOException {
+		fileName = name;
+		in = new DataInputStream(new BufferedInputStream(is, 1024 * 1024));
+		byte[] header = new byte[CompactSnapshot.MAGIC.length];
+		try {
+			in.readFully(header);
+		} catch (EOFException e) {
+			header = null;
+		}
+		if (!Arrays.equals(header, CompactSnapshot.MAGIC)) {
+			in.close();
+			throw new IOException(fileName + " is not a compact snapshot file");
+		}
+	}
+
+	/**
+	 * @return the next vertex in the file, or null at the end of it
+	 */
+	public CompactSnapshot.VertexRecord next() throws IOException {
+		try {
+			while (readRecord()) {
+				byte type = buf[pos++];
+				if (type == CompactSnapshot.DICTIONARY_ENTRY) {
+					dictionary.add(readString());
+				} else if (type == CompactSnapshot.VERTEX) {
+					return readVertex();
+				} else {
+					throw new IOException("Unknown record type " + type + " in compact snapshot file " + fileName);
+				}
+			}
+			return null;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Corrupt record in compact snapshot file " + fileName, e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private CompactSnapshot.VertexRecord readVertex() throws IOException {
+		CompactSnapshot.VertexRecord rec = new CompactSnapshot.VertexRecord();
+		rec.id = readVarLong();
+		rec.label = readRef();
+		int propCount = readVarInt();
+		for (int i = 0; i < propCount; i++) {
+			String key = readRef();
+			rec.addProperty(key, readValue());
+		}
+		int outCount = readVarInt();
+		for (int i = 0; i < outCount; i++) {
+			CompactSnapshot.EdgeRecord ed = new CompactSnapshot.EdgeRecord(readRef(), readVarLong());
+			int ePropCount = readVarInt();
+			for (int j = 0; j < ePropCount; j++) {
+				String key = readRef();
+				ed.addProperty(key, readValue());
+			}
+			rec.outE.add(ed);
+		}
+		int inCount = readVarInt();
+		for (int i = 0; i < inCount; i++) {
+			rec.inE.add(new CompactSnapshot.EdgeRecord(readRef(), readVarLong()));
+		}
+		return rec;
+	}
+
+	private Object readValue() throws IOException {
+		int tag = buf[pos++];
+		switch (tag) {
+			case CompactSnapshot.TAG_STRING:
+				return readString();
+			case CompactSnapshot.TAG_STRING_REF:
+				return readRef();
+			case CompactSnapshot.TAG_LONG:
+				return unZigZag(readVarLong());
+			case CompactSnapshot.TAG_INT:
+				return (int) unZigZag(readVarLong());
+			case CompactSnapshot.TAG_FALSE:
+				return Boolean.FALSE;
+			case CompactSnapshot.TAG_TRUE:
+				return Boolean.TRUE;
+			case CompactSnapshot.TAG_DOUBLE:
+				return Double.longBitsToDouble(readFixed(8));
+			case CompactSnapshot.TAG_FLOAT:
+				return Float.intBitsToFloat((int) readFixed(4));
+			default:
+				throw new IOException("Unknown value tag " + tag + " in compact snapshot file " + fileName);
+		}
+	}
+
+	/** Reads the next record into buf.  Returns false at the end of the file. */
+	private boolean readRecord() throws IOException {
+		int first = in.read();
+		if (first < 0) {
+			return false;
+		}
+		try {
+			int len = first & 0x7F;
+			int shift = 7;
+			for (int b = first; (b & 0x80) != 0; shift += 7) {
+				b = in.readUnsignedByte();
+				len |= (b & 0x7F) << shift;
+			}
+			if (len > buf.length) {
+				buf = new byte[Math.max(len, buf.length * 2)];
+			}
+			in.readFully(buf, 0, len);
+			pos = 0;
+			limit = len;
+		} catch (EOFException e) {
+			throw new IOException("Compact snapshot file " + fileName + " is truncated", e);
+		}
+		if (limit == 0) {
+			throw new IOException("Empty record in compact snapshot file " + fileName);
+		}
+		return true;
+	}
+
+	private String readRef() throws IOException {
+		int idx = readVarInt();
+		if (idx >= dictionary.size()) {
+			throw new IOException("Dictionary reference " + idx + " not defined yet in compact snapshot file " + fileName);
+		}
+		return dictionary.get(idx);
+	}
+
+	private String readString() throws IOException {
+		int len = readVarInt();
+		if (pos + len > limit) {
+			throw new IOException("String runs past the end of its record in compact snapshot file " + fileName);
+		}
+		String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+		pos += len;
+		return s;
+	}
+
+	private int readVarInt() {
+		return (int) readVarLong();
+	}
+
+	private long readVarLong() {
+		long n = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buf[pos++];
+			n |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return n;
+	}
+
+	private long readFixed(int byteCount) {
+		long bits = 0;
+		for (int i = 0; i < byteCount; i++) {
+			bits = (bits << 8) | (buf[pos++] & 0xFF);
+		}
+		return bits;
+	}
+
+	private static long unZigZag(long n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+}
@@ -0,0 +1,207 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+
+/**
+ * Writes vertices to one compact snapshot file (see CompactSnapshot for the layout).
+ *
+ * The dictionary belongs to the file, so use a new writer for each file.  Records go
+ * straight to the stream, which the caller buffers and closes.
+ */
+public class CompactSnapshotWriter {
+
+	private final OutputStream out;
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private final RecordBuffer body = new RecordBuffer();
+	private final RecordBuffer entry = new RecordBuffer();
+
+	public CompactSnapshotWriter(OutputStream out) throws IOException {
+		this.out = out;
+		out.write(CompactSnapshot.MAGIC);
+	}
+
+	public void writeVertex(Vertex v) throws IOException {
+		writeRecord(toRecord(v));
+	}
+
+	static CompactSnapshot.VertexRecord toRecord(Vertex v) {
+		CompactSnapshot.VertexRecord rec = new CompactSnapshot.VertexRecord();
+		rec.id = ((Number) v.id()).longValue();
+		rec.label = v.label();
+		Iterator<VertexProperty<Object>> propItr = v.properties();
+		while (propItr.hasNext()) {
+			VertexProperty<Object> vp = propItr.next();
+			rec.addProperty(vp.key(), vp.value());
+		}
+		Iterator<Edge> outItr = v.edges(Direction.OUT);
+		while (outItr.hasNext()) {
+			Edge e = outItr.next();
+			CompactSnapshot.EdgeRecord ed = new CompactSnapshot.EdgeRecord(e.label(),
+					((Number) e.inVertex().id()).longValue());
+			Iterator<? extends Property<Object>> ePropItr = e.properties();
+			while (ePropItr.hasNext()) {
+				Property<Object> ep = ePropItr.next();
+				ed.addProperty(ep.key(), ep.value());
+			}
+			rec.outE.add(ed);
+		}
+		Iterator<Edge> inItr = v.edges(Direction.IN);
+		while (inItr.hasNext()) {
+			Edge e = inItr.next();
+			rec.inE.add(new CompactSnapshot.EdgeRecord(e.label(), ((Number) e.outVertex().id()).longValue()));
+		}
+		return rec;
+	}
+
+	public void writeRecord(CompactSnapshot.VertexRecord rec) throws IOException {
+		body.reset();
+		body.write(CompactSnapshot.VERTEX);
+		body.writeVarLong(rec.id);
+		body.writeVarInt(ref(rec.label));
+		writeProperties(rec.propKeys, rec.propValues);
+		body.writeVarInt(rec.outE.size());
+		for (CompactSnapshot.EdgeRecord ed : rec.outE) {
+			body.writeVarInt(ref(ed.label));
+			body.writeVarLong(ed.otherVid);
+			writeProperties(ed.propKeys, ed.propValues);
+		}
+		body.writeVarInt(rec.inE.size());
+		for (CompactSnapshot.EdgeRecord ed : rec.inE) {
+			body.writeVarInt(ref(ed.label));
+			body.writeVarLong(ed.otherVid);
+		}
+		// Any new dictionary entries this vertex needed have already gone out ahead of it
+		body.writeRecordTo(out);
+	}
+
+	private void writeProperties(List<String> keys, List<Object> values) throws IOException {
+		body.writeVarInt(keys.size());
+		for (int i = 0; i < keys.size(); i++) {
+			String key = keys.get(i);
+			body.writeVarInt(ref(key));
+			writeValue(key, values.get(i));
+		}
+	}
+
+	private void writeValue(String key, Object val) throws IOException {
+		if (val instanceof String) {
+			if (CompactSnapshot.DICTIONARY_VALUE_KEYS.contains(key)) {
+				body.write(CompactSnapshot.TAG_STRING_REF);
+				body.writeVarInt(ref((String) val));
+			} else {
+				body.write(CompactSnapshot.TAG_STRING);
+				body.writeString((String) val);
+			}
+		} else if (val instanceof Long) {
+			body.write(CompactSnapshot.TAG_LONG);
+			body.writeVarLong(zigZag((Long) val));
+		} else if (val instanceof Integer) {
+			body.write(CompactSnapshot.TAG_INT);
+			body.writeVarLong(zigZag((Integer) val));
+		} else if (val instanceof Boolean) {
+			body.write((Boolean) val ? CompactSnapshot.TAG_TRUE : CompactSnapshot.TAG_FALSE);
+		} else if (val instanceof Double) {
+			body.write(CompactSnapshot.TAG_DOUBLE);
+			body.writeFixed(Double.doubleToLongBits((Double) val), 8);
+		} else if (val instanceof Float) {
+			body.write(CompactSnapshot.TAG_FLOAT);
+			body.writeFixed(Float.floatToIntBits((Float) val), 4);
+		} else {
+			throw new IOException("Property [" + key + "] has a value type the compact snapshot format can't hold: "
+					+ (val == null ? "null" : val.getClass().getName()));
+		}
+	}
+
+	private int ref(String s) throws IOException {
+		Integer idx = dictionary.get(s);
+		if (idx == null) {
+			idx = dictionary.size();
+			dictionary.put(s, idx);
+			entry.reset();
+			entry.write(CompactSnapshot.DICTIONARY_ENTRY);
+			entry.writeString(s);
+			entry.writeRecordTo(out);
+		}
+		return idx;
+	}
+
+	private static long zigZag(long n) {
+		return (n << 1) ^ (n >> 63);
+	}
+
+
+	/** Builds one record body so its length can be written in front of it. */
+	private static class RecordBuffer extends ByteArrayOutputStream {
+
+		RecordBuffer() {
+			super(4096);
+		}
+
+		void writeVarInt(int n) {
+			writeVarLong(n & 0xFFFFFFFFL);
+		}
+
+		void writeVarLong(long n) {
+			while ((n & ~0x7FL) != 0) {
+				write((int) ((n & 0x7F) | 0x80));
+				n >>>= 7;
+			}
+			write((int) n);
+		}
+
+		void writeFixed(long bits, int byteCount) {
+			for (int i = byteCount - 1; i >= 0; i--) {
+				write((int) (bits >>> (i * 8)));
+			}
+		}
+
+		void writeString(String s) {
+			byte[] b = s.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(b.length);
+			write(b, 0, b.length);
+		}
+
+		void writeRecordTo(OutputStream os) throws IOException {
+			int n = count;
+			while ((n & ~0x7F) != 0) {
+				os.write((n & 0x7F) | 0x80);
+				n >>>= 7;
+			}
+			os.write(n);
+			os.write(buf, 0, count);
+		}
+	}
+
+}
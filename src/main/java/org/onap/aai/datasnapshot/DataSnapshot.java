@@ -21,31 +21,37 @@ package org.onap.aai.datasnapshot;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
 
 import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.io.IoCore;
 import org.apache.tinkerpop.gremlin.structure.io.graphson.GraphSONIo;
 import org.apache.tinkerpop.gremlin.structure.io.graphson.GraphSONVersion;
 import org.janusgraph.core.JanusGraph;
 import org.janusgraph.core.JanusGraphFactory;
+import org.onap.aai.datagrooming.LastModTsIndex;
 import org.onap.aai.dbmap.AAIGraph;
 import org.onap.aai.dbmap.AAIGraphConfig;
 import org.onap.aai.exceptions.AAIException;
@@ -55,6 +61,7 @@ import org.onap.aai.util.AAIConstants;
 import org.onap.aai.util.AAISystemExitUtil;
 import org.onap.aai.util.FormatDate;
 import org.onap.aai.util.GraphAdminConstants;
+import org.onap.aai.util.GraphStatistics;
 import org.onap.aai.util.GraphAdminDBUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -101,6 +108,10 @@ public class DataSnapshot {
 		success = dataSnapshot.executeCommand(args, success, dbClearFlag, graph, command,
 				oldSnapshotFileName);
 
+		if( "VERIFY_SNAPSHOT".equals(dataSnapshot.cArgs.command) ){
+			// The graph was never opened, so don't open it just to close it
+			System.exit(success ? 0 : 1);
+		}
 		if(success){
 			AAISystemExitUtil.systemExitCloseAAIGraph(0);
 		} else {
@@ -141,67 +152,92 @@ public class DataSnapshot {
 		}
 		long maxNodesPerFile4Create = cArgs.maxNodesPerFile;
 
-		Long vertAddDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_VERTEX_ADD_DELAY_MS;
-		itemName = "aai.datasnapshot.vertex.add.delay.ms";
+		int maxErrorsPerThread = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_MAX_ERRORS_PER_THREAD;
+		itemName = "aai.datasnapshot.max.errors.per.thread";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.vertAddDelayMs = Long.parseLong(val);
+				cArgs.maxErrorsPerThread = Integer.parseInt(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		Long edgeAddDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_EDGE_ADD_DELAY_MS;
-		itemName = "aai.datasnapshot.edge.add.delay.ms";
+		itemName = "aai.datasnapshot.reload.batch.size";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.edgeAddDelayMs = Long.parseLong(val);
+				cArgs.reloadBatchSize = Integer.parseInt(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		Long failureDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_FAILURE_DELAY_MS;
-		itemName = "aai.datasnapshot.failure.delay.ms";
+		itemName = "aai.datasnapshot.delta.max.chain.length";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.failureDelayMs = Long.parseLong(val);
+				cArgs.maxDeltaChainLength = Integer.parseInt(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		Long retryDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RETRY_DELAY_MS;
-		itemName = "aai.datasnapshot.retry.delay.ms";
+		itemName = "aai.datasnapshot.delta.safety.margin.ms";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.retryDelayMs = Long.parseLong(val);
+				cArgs.deltaSafetyMarginMs = Long.parseLong(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		int maxErrorsPerThread = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_MAX_ERRORS_PER_THREAD;
-		itemName = "aai.datasnapshot.max.errors.per.thread";
+		itemName = "aai.datasnapshot.delta.index.backend";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.maxErrorsPerThread = Integer.parseInt(val);
+				cArgs.deltaIndexBackend = val;
+			}
+		}catch ( Exception e ){
+			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
+		}
+
+		itemName = "aai.datasnapshot.reload.initial.rate";
+		try {
+			String val = AAIConfig.get(itemName);
+			if( val != null &&  !val.equals("") ){
+				cArgs.reloadInitialRate = Integer.parseInt(val);
+			}
+		}catch ( Exception e ){
+			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
+		}
+
+		itemName = "aai.datasnapshot.reload.max.rate";
+		try {
+			String val = AAIConfig.get(itemName);
+			if( val != null &&  !val.equals("") ){
+				cArgs.reloadMaxRate = Integer.parseInt(val);
+			}
+		}catch ( Exception e ){
+			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
+		}
+
+		itemName = "aai.datasnapshot.reload.target.latency.ms";
+		try {
+			String val = AAIConfig.get(itemName);
+			if( val != null &&  !val.equals("") ){
+				cArgs.reloadTargetLatencyMs = Long.parseLong(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		Long vertToEdgeProcDelay = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_VERTEX_TO_EDGE_PROC_DELAY_MS;
-		itemName = "aai.datasnapshot.vertex.to.edge.proc.delay.ms";
+		itemName = "aai.datasnapshot.compress.block.size.kb";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.vertToEdgeProcDelay = Long.parseLong(val);
+				cArgs.compressBlockSizeKb = Integer.parseInt(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
@@ -246,7 +282,8 @@ public class DataSnapshot {
 				snapshotType = cArgs.snapshotType;
 			}
 		}
-		else if( command.equals("THREADED_SNAPSHOT") ){
+		else if( command.equals("THREADED_SNAPSHOT") || command.equals("STREAMING_SNAPSHOT")
+				|| command.equals("DELTA_SNAPSHOT") || command.equals("NODE_TYPE_SNAPSHOT") ){
 			if (args.length >= 2) {
 				// If doing a "threaded" snapshot, they need to specify how many threads to use
 				threadCount4Create = validateThreadCount(cArgs);
@@ -264,6 +301,11 @@ public class DataSnapshot {
 				if (debug4Create) {
 					debugAddDelayTime = validateDebugAddDelayTime(cArgs, threadCount4Create, debug4Create);
 				}
+				if( command.equals("NODE_TYPE_SNAPSHOT") && getNodeTypeList(cArgs).isEmpty() ){
+					ErrorLogHelper.logError("AAI_6128", "No -nodeTypes passed when using NODE_TYPE_SNAPSHOT.");
+					LOGGER.debug("No -nodeTypes passed when using NODE_TYPE_SNAPSHOT.");
+					AAISystemExitUtil.systemExitCloseAAIGraph(1);
+				}
 			}
 			else {
 				ErrorLogHelper.logError("AAI_6128", "Wrong param count (should be 2,3 or 4) when using THREADED_SNAPSHOT.");
@@ -271,22 +313,14 @@ public class DataSnapshot {
 				AAISystemExitUtil.systemExitCloseAAIGraph(1);
 			}
 		}
-		else if( command.equals("MULTITHREAD_RELOAD") ){
+		else if( command.equals("MULTITHREAD_RELOAD") || command.equals("RESTORE_DELTA_CHAIN") ){
 			// Note - this will use as many threads as the snapshot file is
 			//   broken up into.  (up to a limit - whatever the 'threadCount' variable is set to)
 			if (args.length >= 2) {
 				// Since they are re-loading, they need to pass the snapshot file name to use.
 				// We expected the file to be found in our snapshot directory.  Note - if
 				// it is a multi-part snapshot, then this should be the root of the name.
-				// We will be using the default delay timers.
 				oldSnapshotFileName = cArgs.oldFileName;
-
-				// They should be passing the timers in in this order:
-				//    vertDelay, edgeDelay, failureDelay, retryDelay
-				vertAddDelayMs = cArgs.vertAddDelayMs;
-				edgeAddDelayMs = cArgs.edgeAddDelayMs;
-				failureDelayMs = cArgs.failureDelayMs;
-				retryDelayMs = cArgs.retryDelayMs;
 				maxErrorsPerThread = validateMaxErrorsPerThread(cArgs);
 			}
 			else {
@@ -295,7 +329,7 @@ public class DataSnapshot {
 				AAISystemExitUtil.systemExitCloseAAIGraph(1);
 			}
 		}
-		else if (command.equals("CLEAR_ENTIRE_DATABASE")) {
+		else if (command.equals("CLEAR_ENTIRE_DATABASE") || command.equals("VERIFY_SNAPSHOT")) {
 			if (args.length >= 2) {
 				oldSnapshotFileName = cArgs.oldFileName;
 			}
@@ -318,12 +352,15 @@ public class DataSnapshot {
 		LOGGER.debug("Max Nodes Per File is [" + cArgs.maxNodesPerFile + "]");
 		LOGGER.debug("Debug Flag is [" + cArgs.debugFlag + "]");
 		LOGGER.debug("DebugAddDelayTimer is [" + cArgs.debugAddDelayTime + "]");
-		LOGGER.debug("VertAddDelayMs is [" + cArgs.vertAddDelayMs + "]");
-		LOGGER.debug("FailureDelayMs is [" + cArgs.failureDelayMs + "]");
-		LOGGER.debug("RetryDelayMs is [" + cArgs.retryDelayMs + "]");
 		LOGGER.debug("MaxErrorsPerThread is [" + cArgs.maxErrorsPerThread + "]");
-		LOGGER.debug("VertToEdgeProcDelay is [" + cArgs.vertToEdgeProcDelay + "]");
 		LOGGER.debug("StaggerThreadDelay is [" + cArgs.staggerThreadDelay + "]");
+		LOGGER.debug("ReloadBatchSize is [" + cArgs.reloadBatchSize + "]");
+		LOGGER.debug("ReloadInitialRate is [" + cArgs.reloadInitialRate + "]");
+		LOGGER.debug("ReloadMaxRate is [" + cArgs.reloadMaxRate + "]");
+		LOGGER.debug("ReloadTargetLatencyMs is [" + cArgs.reloadTargetLatencyMs + "]");
+		LOGGER.debug("CompressBlockSizeKb is [" + cArgs.compressBlockSizeKb + "]");
+		LOGGER.debug("NodeTypes is [" + cArgs.nodeTypes + "]");
+		LOGGER.debug("ChildDepth is [" + cArgs.childDepth + "]");
 		LOGGER.debug("Caller process is ["+ cArgs.caller + "]");
 
 		//Print non-default values
@@ -336,6 +373,9 @@ public class DataSnapshot {
 		if (!AAIConfig.isEmpty(cArgs.oldFileDir)){
 			LOGGER.debug("Directory path (if not default) to load the old snapshot file from is [" + cArgs.oldFileDir + "]");
 		}
+		if (!AAIConfig.isEmpty(cArgs.reloadCheckpointDir)){
+			LOGGER.debug("Directory path for reload checkpoints is [" + cArgs.reloadCheckpointDir + "]");
+		}
 
 
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -382,8 +422,16 @@ public class DataSnapshot {
 					GraphAdminDBUtils.logConfigs(graph.configuration());
 					long timeA = System.nanoTime();
 
-					LOGGER.debug("Count how many nodes are in the db. ");
-					long totalVertCount = graph.traversal().V().count().next();
+					// The count only sizes the files, so a recent one from GraphStatistics will do
+					Long estimatedVertCount = GraphStatistics.getInstance().getVertexCountEstimate();
+					long totalVertCount;
+					if( estimatedVertCount != null && estimatedVertCount > 0 ){
+						totalVertCount = estimatedVertCount;
+						LOGGER.debug(" Using the recent estimate of the number of nodes in the db. ");
+					} else {
+						LOGGER.debug("Count how many nodes are in the db. ");
+						totalVertCount = graph.traversal().V().count().next();
+					}
 					long timeA2 = System.nanoTime();
 					long diffTime =  timeA2 - timeA;
 					long minCount = TimeUnit.NANOSECONDS.toMinutes(diffTime);
@@ -415,18 +463,39 @@ public class DataSnapshot {
 					String currentTKey = "0";
 					long thisThrIndex = 0;
 					Iterator <Vertex> vtxItr = graph.vertices();  // Getting ALL vertices!
+					int estimatedFileCount = fileCount4Create;
 					while( vtxItr.hasNext() ){
 						// Divide up ALL the vertices so we can process them on different threads
 						thisThrIndex++;
-						if( (thisThrIndex >= nodesPerFile) && (currentTNum < (fileCount4Create - 1)) ){
+						// The last file takes whatever is left over, up to the max nodes per file
+						long thisFileLimit = (currentTNum < (fileCount4Create - 1)) ? nodesPerFile
+								: Math.max(nodesPerFile, maxNodesPerFile4Create);
+						if( thisThrIndex >= thisFileLimit ){
 							// We will need to start adding to the Hash for the next file
 							currentTNum++;
 							currentTKey = "" + currentTNum;
 							thisThrIndex = 0;
+							if( currentTNum >= fileCount4Create ){
+								// The estimate was low, so spill over into another file
+								vertIdListHash.put(currentTKey, new ArrayList <Long> ());
+								fileCount4Create++;
+							}
 						}
 						long vid = (long)(vtxItr.next()).id();
 						(vertIdListHash.get(currentTKey)).add(vid);
 					}
+					if( fileCount4Create > estimatedFileCount ){
+						LOGGER.debug(" There were more nodes than estimated, so " + (fileCount4Create - estimatedFileCount)
+								+ " more file(s) will be written, " + fileCount4Create + " in all. ");
+						threadPassesNeeded = (int) Math.ceil((double)fileCount4Create / (double)threadCount4Create);
+					}
+					else if( currentTNum < fileCount4Create - 1 ){
+						// There were fewer nodes than estimated, don't write empty files
+						LOGGER.debug(" Only " + (currentTNum + 1) + " of the " + fileCount4Create
+								+ " files got nodes, the rest will not be written. ");
+						fileCount4Create = currentTNum + 1;
+						threadPassesNeeded = (int) Math.ceil((double)fileCount4Create / (double)threadCount4Create);
+					}
 
 					// close this graph instance thing here since we have all the ids
 					graph.tx().rollback();
@@ -445,24 +514,30 @@ public class DataSnapshot {
 					//    just means that ALL the files won't necessarily be generated in parallel.
 
 					int fileNo = 0;
+					ArrayList <PrintVertexDetails> fileWriters = new ArrayList <PrintVertexDetails> ();
+					// The writers go over every vertex, so they count them for GraphStatistics as they go
+					GraphStatistics.Scan statisticsScan = GraphStatistics.getInstance().startScan("dataSnapshot");
 					for( int passNo = 1; passNo <= threadPassesNeeded; passNo++ ){
 						ArrayList <Thread> threadArr = new ArrayList <Thread> ();
 						// For each Pass, kick off all the threads and wait until they finish
 						long timeP1 = System.nanoTime();
-						for( int thNum = 0; thNum < threadCount4Create; thNum++ ){
+						for( int thNum = 0; thNum < threadCount4Create && fileNo < fileCount4Create; thNum++ ){
 							String fileNoStr = "" + fileNo;
 							String subFName = newSnapshotOutFname + ".P" + fileNoStr;
 							LOGGER.debug(" DEBUG >>> kick off pass # " + passNo + ", thread # " + thNum);
-							Thread thr = new Thread(new PrintVertexDetails(graph, subFName,
+							PrintVertexDetails fileWriter = new PrintVertexDetails(graph, subFName,
 									vertIdListHash.get(fileNoStr),
 									debug4Create, debugAddDelayTime,
-									snapshotType, LOGGER) );
+									snapshotType, compressBlockSize(), LOGGER);
+							fileWriter.setStatisticsScan(statisticsScan);
+							fileWriters.add(fileWriter);
+							Thread thr = new Thread(fileWriter);
 							thr.start();
 							threadArr.add(thr);
 							fileNo++;
 						}
 						// Make sure all the threads finish before considering this Pass finished.
-						for( int thNum = 0; thNum < threadCount4Create; thNum++ ){
+						for( int thNum = 0; thNum < threadArr.size(); thNum++ ){
 							if( null != threadArr.get(thNum) ){
 								(threadArr.get(thNum)).join();
 							}
@@ -473,6 +548,7 @@ public class DataSnapshot {
 						secCount = TimeUnit.NANOSECONDS.toSeconds(diffTime) - (60 * minCount);
 						LOGGER.debug(" Pass number " + passNo + " (out of " + threadPassesNeeded +
 								") took " + minCount + " minutes, " + secCount + " seconds ");
+						SnapshotMetrics.phaseDone("write-pass", diffTime);
 					}
 
 					long timeC = System.nanoTime();
@@ -482,178 +558,155 @@ public class DataSnapshot {
 					LOGGER.debug("   -- To write all the data out to snapshot files, it took: " +
 							minCount + " minutes, " + secCount + " seconds " );
 
+					ArrayList <SnapshotManifest.FileEntry> fileEntries = new ArrayList <SnapshotManifest.FileEntry> ();
+					for( PrintVertexDetails fileWriter : fileWriters ){
+						if( fileWriter.getFileEntry() == null ){
+							fileEntries = null;
+							break;
+						}
+						fileEntries.add(fileWriter.getFileEntry());
+					}
+					if( fileEntries == null ){
+						LOGGER.debug(" -- Not all snapshot files were written completely, so no manifest was written. ");
+					} else {
+						saveSnapshotManifest(newSnapshotOutFname, snapshotType, fileEntries);
+						statisticsScan.finish();
+					}
+
+
+			} else if( command.equals("STREAMING_SNAPSHOT") ){
+				graph = writeStreamingSnapshot(command, targetDir, snapshotType,
+						threadCount4Create, maxNodesPerFile4Create);
 
-			} else if( command.equals("MULTITHREAD_RELOAD") ){
+			} else if( command.equals("DELTA_SNAPSHOT") ){
+				graph = writeDeltaSnapshot(command, targetDir, threadCount4Create, maxNodesPerFile4Create);
+
+			} else if( command.equals("NODE_TYPE_SNAPSHOT") ){
+				graph = writeNodeTypeSnapshot(command, targetDir, snapshotType,
+						threadCount4Create, maxNodesPerFile4Create);
+
+			} else if( command.equals("MULTITHREAD_RELOAD") || command.equals("RESTORE_DELTA_CHAIN") ){
 				// ---------------------------------------------------------------------
 				// They want the RELOAD of the snapshot to be spread out via threads
 				// NOTE - it will only use as many threads as the number of files the
 				//    snapshot is  written to.  Ie. if you have a single-file snapshot,
 				//    then this will be single-threaded.
-				// If the number of files is greater than the 'threadCount' parameter,
-				//    then we will use more than one pass to keep the number of simultaneous
-				//    threads below the threadCount param.
+				// At most 'threadCount' loader tasks run at the same time.  The edges and
+				//    properties for a file get loaded as soon as all the vertices they
+				//    point to are in, rather than after every file's vertices are in.
 				//
 				LOGGER.debug(" Command = " + command );
 
 				if (cArgs.oldFileDir != null && !cArgs.oldFileDir.isEmpty()){
 					targetDir = cArgs.oldFileDir;
 				}
+				if( command.equals("RESTORE_DELTA_CHAIN") ){
+					// Squash the base snapshot and its deltas into one plain multi-file
+					// snapshot (latest version of each vertex, no deleted ones), then reload that.
+					SnapshotChain chain = SnapshotChain.load(new File(targetDir));
+					if( chain == null ){
+						throw new Exception("No " + SnapshotChain.MANIFEST_FILE_NAME + " found in " + targetDir);
+					}
+					FormatDate fd = new FormatDate("yyyyMMddHHmm", "GMT");
+					File restoreDir = new File(targetDir, "restore." + fd.getDateTime());
+					oldSnapshotFileName = "dataSnapshot.restore.graphSON";
+					LOGGER.debug(" -- Merging base snapshot " + chain.getBase().snapshotName + " and "
+							+ chain.getDeltas().size() + " delta(s) into " + restoreDir );
+					chain.merge(new File(targetDir), restoreDir, oldSnapshotFileName, LOGGER);
+					targetDir = restoreDir.getPath();
+				}
 				ArrayList <File> snapFilesArr = getFilesToProcess(targetDir, oldSnapshotFileName, false);
 				int fCount = snapFilesArr.size();
-				int threadPassesNeeded = (int) Math.ceil((double)fCount / (double)threadCount4Create);
-				int filesPerPass = (int) Math.ceil((double)fCount / (double)threadPassesNeeded);
 
 				JanusGraph graph1 = AAIGraph.getInstance().getGraph();
 				long timeStart = System.nanoTime();
 
-				HashMap <String,String> old2NewVertIdMap = new HashMap <String,String> ();
-
-				ExecutorService executor = Executors.newFixedThreadPool(fCount);
-				int threadFailCount = 0;
-
-				LOGGER.debug(" -- vertAddDelayMs = " + vertAddDelayMs
-						+ ", failureDelayMs = " + failureDelayMs + ", retryDelayMs = " + retryDelayMs
+				VertexIdMap old2NewVertIdMap = AAIConfig.isEmpty(cArgs.vidMapSpillDir) ? new VertexIdMap()
+						: new VertexIdMap(new File(cArgs.vidMapSpillDir));
+				LOGGER.debug(" -- old to new vertex id map is " + (old2NewVertIdMap.isSpilled() ?
+						"memory-mapped under " + cArgs.vidMapSpillDir : "on the heap"));
+
+				// All the loader threads share one rate, which goes up while the DB keeps up
+				// and comes down when commits get slow or start failing
+				ReloadRateController rateController = new ReloadRateController(cArgs.reloadInitialRate,
+						GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_MIN_RATE, cArgs.reloadMaxRate,
+						cArgs.reloadTargetLatencyMs, GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_MAX_ERROR_RATE,
+						LOGGER);
+				SnapshotMetrics.watchReloadRate(rateController);
+				LOGGER.debug(" -- reloadInitialRate = " + cArgs.reloadInitialRate
+						+ ", reloadMaxRate = " + cArgs.reloadMaxRate + ", reloadTargetLatencyMs = " + cArgs.reloadTargetLatencyMs
 						+ ", maxErrorsPerThread = " + maxErrorsPerThread );
 
-				// --------------------------------------
-				// Step 1 -- Load empty vertices
-				// --------------------------------------
-				int fileNo = 0;
-				for( int passNo = 1; passNo <= threadPassesNeeded; passNo++ ){
-					List<Future<HashMap<String,String>>> listFutV = new ArrayList<Future<HashMap<String,String>>>();
-
-					int thisPassCount = 0;
-					while( (thisPassCount < filesPerPass) && (fileNo < fCount) ){
-						File f = snapFilesArr.get(fileNo);
-						String fname = f.getName();
-						String fullSnapName = targetDir + AAIConstants.AAI_FILESEP + fname;
-						Thread.sleep(cArgs.staggerThreadDelay);  // Stagger the threads a bit
-						LOGGER.debug(" -- Read file: [" + fullSnapName + "]");
-						Callable <HashMap<String,String>> vLoader = new PartialVertexLoader(graph1, fullSnapName,
-								vertAddDelayMs, failureDelayMs, retryDelayMs, maxErrorsPerThread, LOGGER);
-						Future <HashMap<String,String>> future = (Future<HashMap<String, String>>) executor.submit(vLoader);
-
-						// add future to the list, we can get return value later
-						listFutV.add(future);
-						LOGGER.debug(" --  Starting PartialDbLoad VERT_ONLY file # "+ fileNo
-								+ "( passNo = " + passNo + ", passIndex = " + thisPassCount + ")");
-
-						thisPassCount++;
-						fileNo++;
-					}
+				final int maxErrors = maxErrorsPerThread;
+				ArrayList <String> fullSnapNames = new ArrayList <String> ();
+				for( File f : snapFilesArr ){
+					fullSnapNames.add(targetDir + AAIConstants.AAI_FILESEP + f.getName());
+				}
 
-					int threadCount4Reload = 0;
-					for(Future<HashMap<String,String>> fut : listFutV){
-						threadCount4Reload++;
-						try {
-							old2NewVertIdMap.putAll(fut.get());
-							LOGGER.debug(" -- back from PartialVertexLoader.  returned pass # "
-									+ passNo + ", thread # "
-									+ threadCount4Reload +
-									", current size of old2NewVertMap is: " + old2NewVertIdMap.size() );
-						}
-						catch (InterruptedException e) {
-							threadFailCount++;
-							AAIException ae = new AAIException("AAI_6128", e , "InterruptedException");
-							ErrorLogHelper.logException(ae);
-						}
-						catch (ExecutionException e) {
-							threadFailCount++;
-							AAIException ae = new AAIException("AAI_6128", e , "ExecutionException");
-							ErrorLogHelper.logException(ae);
-						}
-					}
-				} // end of passes for loading empty vertices
+				// With a checkpoint dir, each loader records what it has committed, so if this
+				// reload dies it can be run again (without clearing the db) and picks up from there
+				final File checkpointDir = AAIConfig.isEmpty(cArgs.reloadCheckpointDir) ? null
+						: new File(cArgs.reloadCheckpointDir);
+				if( checkpointDir != null ){
+					LOGGER.debug(" -- reload checkpoints are kept in " + checkpointDir);
+				}
+
+				// ------------------------------------------------------------------
+				// Load the empty vertices, then the edges and properties for each
+				// file once the vertices its edges point to have been added
+				// ------------------------------------------------------------------
+				ExecutorService executor = Executors.newWorkStealingPool(Math.max(1, Math.min(fCount, threadCount4Create)));
+				ReloadPipeline pipeline = new ReloadPipeline(graph1, executor, old2NewVertIdMap,
+						fileName -> new PartialVertexLoader(graph1, fileName, rateController, maxErrors,
+								cArgs.reloadBatchSize, old2NewVertIdMap, checkpointDir, LOGGER),
+						fileName -> new PartialPropAndEdgeLoader(graph1, fileName, rateController,
+								old2NewVertIdMap, maxErrors, cArgs.reloadBatchSize, checkpointDir, LOGGER),
+						LOGGER);
+				try {
+					pipeline.run(fullSnapNames, cArgs.staggerThreadDelay);
+				}
+				finally {
+					executor.shutdown();
+					SnapshotMetrics.watchReloadRate(null);
+				}
+				LOGGER.debug(" -- ReloadRateController at the end of the reload: " + rateController.getStats());
 
-				executor.shutdown();
-				if( threadFailCount > 0 ) {
-					String emsg = " FAILURE >> " + threadFailCount + " Vertex-loader thread(s) failed to complete successfully.  ";
+				if( pipeline.getVertexFailCount() > 0 ) {
+					String emsg = " FAILURE >> " + pipeline.getVertexFailCount() + " Vertex-loader thread(s) failed to complete successfully.  ";
+					LOGGER.debug(emsg);
+					throw new Exception( emsg );
+				}
+				if( pipeline.getEdgeFailCount() > 0 ) {
+					String emsg = " FAILURE >> " + pipeline.getEdgeFailCount() + " Property/Edge-loader thread(s) failed to complete successfully.  ";
 					LOGGER.debug(emsg);
 					throw new Exception( emsg );
 				}
 
-				long timeX = System.nanoTime();
+				long timeX = pipeline.getVertexLoadsEndNanos();
 				long diffTime =  timeX - timeStart;
 				long minCount = TimeUnit.NANOSECONDS.toMinutes(diffTime);
 				long secCount = TimeUnit.NANOSECONDS.toSeconds(diffTime) - (60 * minCount);
 				LOGGER.debug("   -- To reload just the vertex ids from the snapshot files, it took: " +
 						minCount + " minutes, " + secCount + " seconds " );
-
-				// Give the DB a little time to chew on all those new vertices
-				Thread.sleep(vertToEdgeProcDelay);
-
-
-				// -------------------------------------------------------------
-				// Step 2 -- Load Edges and properties onto the empty vertices
-				// -------------------------------------------------------------
-				LOGGER.debug("\n\n\n  -- Now load the edges/properties ----------------------");
-				executor = Executors.newFixedThreadPool(fCount);
-
-				fileNo = 0;
-				for( int passNo = 1; passNo <= threadPassesNeeded; passNo++ ){
-					ArrayList<Future<ArrayList<String>>> listFutEdg = new ArrayList<Future<ArrayList<String>>>();
-
-					int thisPassCount = 0;
-					while( (thisPassCount < filesPerPass) && (fileNo < fCount) ){
-						File f = snapFilesArr.get(fileNo);
-						String fname = f.getName();
-						String fullSnapName = targetDir + AAIConstants.AAI_FILESEP + fname;
-						Thread.sleep(cArgs.staggerThreadDelay);  // Stagger the threads a bit
-						LOGGER.debug(" -- Read file: [" + fullSnapName + "]");
-						Callable eLoader = new PartialPropAndEdgeLoader(graph1, fullSnapName,
-								edgeAddDelayMs, failureDelayMs, retryDelayMs,
-								old2NewVertIdMap, maxErrorsPerThread, LOGGER);
-						Future <ArrayList<String>> future = (Future<ArrayList<String>>) executor.submit(eLoader);
-
-						// add future to the list, we can wait for it below
-						listFutEdg.add(future);
-						LOGGER.debug(" --  Starting PartialPropAndEdge file # "
-								+ fileNo + " (pass # " + passNo + ", passIndex "
-								+ thisPassCount + ")" );
-
-						thisPassCount++;
-						fileNo++;
-					}
-
-					int threadCount4Reload = 0;
-					for( Future<ArrayList<String>> fut : listFutEdg ){
-						threadCount4Reload++;
-						try{
-							fut.get();
-							LOGGER.debug(" -- back from PartialPropAndEdgeLoader.  pass # "
-									+ passNo + ", thread # " + threadCount4Reload  );
-						}
-						catch (InterruptedException e) {
-							threadFailCount++;
-							AAIException ae = new AAIException("AAI_6128", e , "InterruptedException");
-							ErrorLogHelper.logException(ae);
-						}
-						catch (ExecutionException e) {
-							threadFailCount++;
-							AAIException ae = new AAIException("AAI_6128", e , "ExecutionException");
-							ErrorLogHelper.logException(ae);
-						}
-					}
-
-				} // end of passes for reloading edges and properties
-
-				executor.shutdown();
-
-				if( threadFailCount > 0 ) {
-					String emsg = " FAILURE >> " + threadFailCount + " Property/Edge-loader thread(s) failed to complete successfully.  ";
-					LOGGER.debug(emsg);
-					throw new Exception( emsg );
-				}
+				SnapshotMetrics.phaseDone("reload-vertices", diffTime);
 
 				// This is needed so we can see the data committed by the called threads
 				graph1.tx().commit();
+				old2NewVertIdMap.close();
+				if( checkpointDir != null ){
+					// The reload is complete, so the checkpoints must not make a later reload skip anything
+					for( String fileName : fullSnapNames ){
+						ReloadCheckpoint.remove(checkpointDir, fileName);
+					}
+				}
 
 				long timeEnd = System.nanoTime();
 				diffTime =  timeEnd - timeX;
 				minCount = TimeUnit.NANOSECONDS.toMinutes(diffTime);
 				secCount = TimeUnit.NANOSECONDS.toSeconds(diffTime) - (60 * minCount);
-				LOGGER.debug("   -- To reload the edges and properties from snapshot files, it took: " +
+				LOGGER.debug("   -- After the last vertex load, the remaining edges and properties took: " +
 						minCount + " minutes, " + secCount + " seconds " );
+				SnapshotMetrics.phaseDone("reload-edges", diffTime);
 
 				long totalDiffTime =  timeEnd - timeStart;
 				long totalMinCount = TimeUnit.NANOSECONDS.toMinutes(totalDiffTime);
@@ -661,6 +714,17 @@ public class DataSnapshot {
 				LOGGER.debug("   -- TOTAL multi-threaded reload time: " +
 						totalMinCount + " minutes, " + totalSecCount + " seconds " );
 
+			} else if (command.equals("VERIFY_SNAPSHOT")) {
+				// ------------------------------------------------------------------
+				// Check a snapshot against its manifest before using it for a
+				// reload.  This reads the files only and never opens the graph.
+				// ------------------------------------------------------------------
+				LOGGER.debug(" Command = " + command );
+				if (cArgs.oldFileDir != null && !cArgs.oldFileDir.isEmpty()){
+					targetDir = cArgs.oldFileDir;
+				}
+				success = verifySnapshot(targetDir, oldSnapshotFileName, threadCount4Create);
+
 			} else if (command.equals("CLEAR_ENTIRE_DATABASE")) {
 				// ------------------------------------------------------------------
 				// They are calling this to clear the db before re-loading it
@@ -670,7 +734,7 @@ public class DataSnapshot {
 				// First - make sure the backup file(s) they will be using can be
 				// found and has(have) data.
 				// getFilesToProcess makes sure the file(s) exist and have some data.
-				getFilesToProcess(targetDir, oldSnapshotFileName, true);
+				ArrayList <File> snapFilesToClear = getFilesToProcess(targetDir, oldSnapshotFileName, true);
 
 				LOGGER.debug(" WARNING <<<< ");
 				LOGGER.debug(">>> All data and schema in this database will be removed at this point. <<<");
@@ -700,6 +764,13 @@ public class DataSnapshot {
 				LOGGER.debug(">>> IMPORTANT - NOTE >>> you need to run the SchemaGenerator (use GenTester) before ");
 				LOGGER.debug("     reloading data or the data will be put in without indexes. ");
 				dbClearFlag = true;
+				if (!AAIConfig.isEmpty(cArgs.reloadCheckpointDir)) {
+					// Whatever an earlier reload of this snapshot got done is gone now
+					for (File f : snapFilesToClear) {
+						ReloadCheckpoint.remove(new File(cArgs.reloadCheckpointDir), f.getName());
+					}
+					LOGGER.debug(" Removed the reload checkpoints in " + cArgs.reloadCheckpointDir);
+				}
 				LOGGER.debug("All done clearing DB");
 
 			} else if (command.equals("RELOAD_DATA")) {
@@ -762,7 +833,7 @@ public class DataSnapshot {
 						AAISystemExitUtil.systemExitCloseAAIGraph(1);
 					}
 					String fullFName = targetDir + AAIConstants.AAI_FILESEP + fname;
-					InputStream fis = new FileInputStream(fullFName);
+					InputStream fis = BlockCompressedInputStream.openSnapshotFile(fullFName);
 					inputStreamsV.add(fis);
 				}
 
@@ -831,6 +902,10 @@ public class DataSnapshot {
 		// They want to take a snapshot on a single thread and have it go in a single file
 		//   NOTE - they can't use the DEBUG option in this case.
 		// -------------------------------------------------------------------------------
+		if ("compact".equalsIgnoreCase(format)) {
+			// The compact format is only written by the multi-file snapshots
+			LOGGER.debug(" Single-file snapshots can't be written in the compact format, using graphson");
+		}
 		if (format != "graphson" && format != "gryo") {
 			format = "graphson";
 		}
@@ -863,6 +938,398 @@ public class DataSnapshot {
 	}
 
 
+	private JanusGraph writeStreamingSnapshot(String command, String targetDir, String format,
+			int threadCount4Create, long maxNodesPerFile4Create) throws Exception {
+		// -------------------------------------------------------------------------------
+		// Multi-file snapshot without counting or collecting the vertex ids first.
+		//   One thread scans the vertices and hands out small batches of ids through a
+		//   bounded queue, while each writer thread streams its batches straight into
+		//   its own ".P" files.  Heap use depends on the queue size, not the graph size.
+		// -------------------------------------------------------------------------------
+		LOGGER.debug(" Command = " + command );
+		String newSnapshotOutFname;
+		if (!AAIConfig.isEmpty(cArgs.fileName)){
+			newSnapshotOutFname = cArgs.fileName;
+		} else {
+			FormatDate fd = new FormatDate("yyyyMMddHHmm", "GMT");
+			String dteStr = fd.getDateTime();
+			newSnapshotOutFname = targetDir + AAIConstants.AAI_FILESEP
+					+ "dataSnapshot.graphSON." + dteStr;
+		}
+		verifyGraph(AAIGraph.getInstance().getGraph());
+		JanusGraph graph = AAIGraph.getInstance().getGraph();
+		LOGGER.debug(" Successfully got the Graph instance. ");
+		GraphAdminDBUtils.logConfigs(graph.configuration());
+
+		streamVerticesToFiles(graph, newSnapshotOutFname, format, threadCount4Create,
+				maxNodesPerFile4Create, null, null, null, false);
+		return graph;
+	}
+
+
+	private JanusGraph writeNodeTypeSnapshot(String command, String targetDir, String format,
+			int threadCount4Create, long maxNodesPerFile4Create) throws Exception {
+		// -------------------------------------------------------------------------------
+		// Multi-file snapshot of just the vertices of some node types (and, if asked for,
+		//   their containment children down to -childDepth levels).  The starting vertices
+		//   come from the aai-node-type index instead of a scan of the whole graph, and are
+		//   written out the same way as a STREAMING_SNAPSHOT.  The name is different from a
+		//   full snapshot's, so nothing picks it up as one.
+		// -------------------------------------------------------------------------------
+		LOGGER.debug(" Command = " + command );
+		List<String> nodeTypes = getNodeTypeList(cArgs);
+		String newSnapshotOutFname;
+		if (!AAIConfig.isEmpty(cArgs.fileName)){
+			newSnapshotOutFname = cArgs.fileName;
+		} else {
+			FormatDate fd = new FormatDate("yyyyMMddHHmm", "GMT");
+			String dteStr = fd.getDateTime();
+			newSnapshotOutFname = targetDir + AAIConstants.AAI_FILESEP
+					+ "dataSnapshot.nodeTypes.graphSON." + dteStr;
+		}
+		LOGGER.debug(" Writing the vertices of node types " + nodeTypes + " with " + cArgs.childDepth
+				+ " level(s) of children to " + newSnapshotOutFname );
+		verifyGraph(AAIGraph.getInstance().getGraph());
+		JanusGraph graph = AAIGraph.getInstance().getGraph();
+		LOGGER.debug(" Successfully got the Graph instance. ");
+		GraphAdminDBUtils.logConfigs(graph.configuration());
+
+		streamVerticesToFiles(graph, newSnapshotOutFname, format, threadCount4Create,
+				maxNodesPerFile4Create, new NodeTypeVertexIterator(graph.traversal(), nodeTypes, cArgs.childDepth),
+				null, null, true);
+		return graph;
+	}
+
+
+	private static List<String> getNodeTypeList(CommandLineArgs cArgs) {
+		List<String> nodeTypes = new ArrayList<>();
+		if( cArgs.nodeTypes != null ){
+			for( String nodeType : cArgs.nodeTypes.split(",") ){
+				if( !nodeType.trim().isEmpty() ){
+					nodeTypes.add(nodeType.trim());
+				}
+			}
+		}
+		return nodeTypes;
+	}
+
+
+	private JanusGraph writeDeltaSnapshot(String command, String targetDir,
+			int threadCount4Create, long maxNodesPerFile4Create) throws Exception {
+		// -------------------------------------------------------------------------------
+		// Incremental snapshot.  If there is no snapshot chain yet (or the chain is long
+		//   enough), this writes a full base snapshot and starts a new chain.  Otherwise it
+		//   writes only the vertices changed since the last snapshot in the chain, plus
+		//   tombstones for the vertices that have been deleted since then.
+		// -------------------------------------------------------------------------------
+		LOGGER.debug(" Command = " + command );
+		File snapshotDir = new File(targetDir);
+		SnapshotChain chain = SnapshotChain.load(snapshotDir);
+		boolean newBase = ( chain == null || chain.getDeltas().size() >= cArgs.maxDeltaChainLength );
+		final long sinceTs = newBase ? 0L : chain.getLast().highWaterMark;
+		// Anything changed while we scan will be picked up again by the next delta.  The
+		//   aai-last-mod-ts values come from the clocks of the hosts that did the updates, so
+		//   the mark is set back by a safety margin: a vertex written into two deltas is
+		//   harmless, one that falls between them is lost.
+		long highWaterMark = System.currentTimeMillis() - Math.max(0L, cArgs.deltaSafetyMarginMs);
+
+		FormatDate fd = new FormatDate("yyyyMMddHHmm", "GMT");
+		String dteStr = fd.getDateTime();
+		String snapshotName = (newBase ? "dataSnapshot.graphSON." : "dataSnapshot.delta.graphSON.") + dteStr;
+		String newSnapshotOutFname = targetDir + AAIConstants.AAI_FILESEP + snapshotName;
+		LOGGER.debug(" Writing " + (newBase ? "a new BASE snapshot" : "a DELTA snapshot of vertices changed since "
+				+ sinceTs) + " to " + newSnapshotOutFname );
+
+		verifyGraph(AAIGraph.getInstance().getGraph());
+		JanusGraph graph = AAIGraph.getInstance().getGraph();
+		GraphAdminDBUtils.logConfigs(graph.configuration());
+
+		// The base has every vertex.  A delta has only the changed ones, which come from a
+		//   range query on the aai-last-mod-ts index if it is ENABLED.  Without the index every
+		//   vertex is read and the ones that did not change are passed over.
+		long[][] writtenIds = { new long[1024] };
+		int[] idCount = { 0 };
+		long printedCount;
+		// The ids of all the vertices in the graph now, for finding a delta's tombstones
+		VertexIdMap currentIds = newBase ? null : new VertexIdMap();
+		try {
+			if( newBase ){
+				printedCount = streamVerticesToFiles(graph, newSnapshotOutFname, "graphson",
+						threadCount4Create, maxNodesPerFile4Create, null, null,
+						id -> addId(writtenIds, idCount, id), true);
+			}
+			else if( LastModTsIndex.isEnabled(graph, cArgs.deltaIndexBackend) ){
+				// Vertices without an aai-last-mod-ts are not in the index, so only a new base picks those up
+				printedCount = streamVerticesToFiles(graph, newSnapshotOutFname, "graphson",
+						threadCount4Create, maxNodesPerFile4Create,
+						graph.traversal().V().has(LastModTsIndex.LAST_MOD_TS, P.gte(sinceTs)), null,
+						id -> addId(writtenIds, idCount, id), true);
+				// Only the ids are read for this, not the vertices
+				Iterator<Object> idItr = graph.traversal().V().id();
+				try {
+					while( idItr.hasNext() ){
+						currentIds.put((Long) idItr.next(), 0L);
+					}
+				}
+				finally {
+					graph.tx().rollback();
+				}
+			}
+			else {
+				printedCount = streamVerticesToFiles(graph, newSnapshotOutFname, "graphson",
+						threadCount4Create, maxNodesPerFile4Create, null,
+						v -> {
+							// No timestamp means we can't tell, so those always go in
+							Object objModTimeStamp = v.property(LastModTsIndex.LAST_MOD_TS).orElse(null);
+							if( objModTimeStamp != null && ((Number) objModTimeStamp).longValue() < sinceTs ){
+								return false;
+							}
+							addId(writtenIds, idCount, (long) v.id());
+							return true;
+						},
+						id -> currentIds.put(id, 0L), true);
+			}
+
+			long[] sortedIds = writtenIds[0];
+			Arrays.sort(sortedIds, 0, idCount[0]);
+			SnapshotChain.Link link = new SnapshotChain.Link();
+			link.snapshotName = snapshotName;
+			link.sinceTs = sinceTs;
+			link.highWaterMark = highWaterMark;
+			link.vertexCount = printedCount;
+			if( newBase ){
+				SnapshotChain.writeVertexIds(new File(snapshotDir, snapshotName + SnapshotChain.VERTEX_ID_SUFFIX),
+						sortedIds, idCount[0]);
+				chain = SnapshotChain.newChain(link);
+			}
+			else {
+				link.tombstoneCount = SnapshotChain.writeDeltaVertexIds(
+						new File(snapshotDir, chain.getLast().snapshotName + SnapshotChain.VERTEX_ID_SUFFIX),
+						currentIds, sortedIds, idCount[0],
+						new File(snapshotDir, snapshotName + SnapshotChain.VERTEX_ID_SUFFIX),
+						new File(snapshotDir, snapshotName + SnapshotChain.TOMBSTONE_SUFFIX));
+				chain.addDelta(link);
+			}
+		}
+		finally {
+			if( currentIds != null ){
+				currentIds.close();
+			}
+		}
+		chain.save(snapshotDir);
+		SnapshotChain.Link link = chain.getLast();
+		LOGGER.debug(" -- " + snapshotName + " has " + link.vertexCount + " vertices and " + link.tombstoneCount
+				+ " tombstones. The chain now has " + chain.getDeltas().size() + " delta(s).");
+		return graph;
+	}
+
+
+	private static void addId(long[][] ids, int[] count, long id) {
+		if( count[0] == ids[0].length ){
+			ids[0] = Arrays.copyOf(ids[0], count[0] * 2);
+		}
+		ids[0][count[0]++] = id;
+	}
+
+
+	/**
+	 * @return the compression block size in bytes, or 0 to write the files uncompressed
+	 */
+	private int compressBlockSize() {
+		return cArgs.compressBlockSizeKb > 0 ? cArgs.compressBlockSizeKb * 1024 : 0;
+	}
+
+
+	/**
+	 * One thread scans the vertices and hands out batches of ids through a bounded queue to
+	 * PrintVertexStream writers, each writing its own ".P" files.
+	 *
+	 * @param vertexSource the vertices to scan, or null for all of them
+	 * @param filter only vertices it accepts get written, or all of them if null
+	 * @param idListener gets the id of every scanned vertex (written or not), if not null
+	 * @param dropEmptyFiles remove the files that got no vertices (the reload won't take those)
+	 * @return the number of vertices written
+	 */
+	private long streamVerticesToFiles(JanusGraph graph, String newSnapshotOutFname, String format,
+			int threadCount4Create, long maxNodesPerFile4Create, Iterator<Vertex> vertexSource,
+			Predicate<Vertex> filter, LongConsumer idListener, boolean dropEmptyFiles) throws Exception {
+		int batchSize = cArgs.streamBatchSize;
+		if( batchSize < 1 ){
+			batchSize = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_STREAM_BATCH_SIZE;
+		}
+		LOGGER.debug(" We will run this many writer threads: " + threadCount4Create );
+		LOGGER.debug(" Max Nodes per file: " + maxNodesPerFile4Create );
+		LOGGER.debug(" Vertex ids will be handed out in batches of: " + batchSize );
+
+		long timeA = System.nanoTime();
+		BlockingQueue<long[]> idBatchQueue = new ArrayBlockingQueue<>(threadCount4Create * 4);
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount4Create);
+		List<Future<Long>> listFutW = new ArrayList<>();
+		List<PrintVertexStream> writers = new ArrayList<>();
+		// Only a scan of the whole graph says how many of everything there is
+		GraphStatistics.Scan statisticsScan = vertexSource == null && filter == null
+				? GraphStatistics.getInstance().startScan("dataSnapshot") : null;
+		for( int thNum = 0; thNum < threadCount4Create; thNum++ ){
+			PrintVertexStream writer = new PrintVertexStream(graph, newSnapshotOutFname, thNum,
+					threadCount4Create, maxNodesPerFile4Create, idBatchQueue, format, compressBlockSize(), LOGGER);
+			writer.setStatisticsScan(statisticsScan);
+			writers.add(writer);
+			listFutW.add(executor.submit(writer));
+		}
+
+		long scanCount = 0;
+		try {
+			long[] idBatch = new long[batchSize];
+			int batchIndex = 0;
+			Iterator <Vertex> vtxItr = vertexSource != null ? vertexSource : graph.vertices();
+			while( vtxItr.hasNext() ){
+				Vertex v = vtxItr.next();
+				long vid = (long) v.id();
+				scanCount++;
+				if( idListener != null ){
+					idListener.accept(vid);
+				}
+				if( filter != null && !filter.test(v) ){
+					continue;
+				}
+				idBatch[batchIndex++] = vid;
+				if( batchIndex == batchSize ){
+					handOffIdBatch(idBatchQueue, idBatch, listFutW);
+					idBatch = new long[batchSize];
+					batchIndex = 0;
+				}
+			}
+			if( batchIndex > 0 ){
+				handOffIdBatch(idBatchQueue, Arrays.copyOf(idBatch, batchIndex), listFutW);
+			}
+			for( int thNum = 0; thNum < threadCount4Create; thNum++ ){
+				handOffIdBatch(idBatchQueue, PrintVertexStream.END_OF_SCAN, listFutW);
+			}
+		}
+		catch (Exception e) {
+			// Wake up any writers still waiting on the queue
+			executor.shutdownNow();
+			throw e;
+		}
+		finally {
+			graph.tx().rollback();
+			graph.tx().close();
+		}
+
+		long printedCount = 0;
+		int threadFailCount = 0;
+		for( Future<Long> fut : listFutW ){
+			try {
+				printedCount += fut.get();
+			}
+			catch (InterruptedException | ExecutionException e) {
+				threadFailCount++;
+				AAIException ae = new AAIException("AAI_6128", e , "Error in a streaming snapshot writer thread");
+				ErrorLogHelper.logException(ae);
+			}
+		}
+		executor.shutdown();
+
+		long diffTime =  System.nanoTime() - timeA;
+		long minCount = TimeUnit.NANOSECONDS.toMinutes(diffTime);
+		long secCount = TimeUnit.NANOSECONDS.toSeconds(diffTime) - (60 * minCount);
+		LOGGER.debug("   -- Scanned " + scanCount + " vertices and printed " + printedCount
+				+ " of them in " + minCount + " minutes, " + secCount + " seconds " );
+		if( threadFailCount > 0 ) {
+			String emsg = " FAILURE >> " + threadFailCount + " snapshot writer thread(s) failed to complete successfully.  ";
+			LOGGER.debug(emsg);
+			throw new Exception( emsg );
+		}
+
+		List<SnapshotManifest.FileEntry> fileEntries = new ArrayList<>();
+		File snapshotDir = new File(newSnapshotOutFname).getAbsoluteFile().getParentFile();
+		for( PrintVertexStream writer : writers ){
+			for( SnapshotManifest.FileEntry entry : writer.getFileEntries() ){
+				if( dropEmptyFiles && entry.vertexCount == 0 ){
+					File f = new File(snapshotDir, entry.fileName);
+					if( !f.delete() ){
+						LOGGER.debug(" -- could not remove empty snapshot file " + f.getName());
+					}
+				} else {
+					fileEntries.add(entry);
+				}
+			}
+		}
+		saveSnapshotManifest(newSnapshotOutFname, format, fileEntries);
+		if( statisticsScan != null ){
+			statisticsScan.finish();
+		}
+		return printedCount;
+	}
+
+
+	private void saveSnapshotManifest(String newSnapshotOutFname, String format,
+			List<SnapshotManifest.FileEntry> fileEntries) throws IOException {
+		File outFile = new File(newSnapshotOutFname).getAbsoluteFile();
+		SnapshotManifest manifest = new SnapshotManifest(outFile.getName(), format, fileEntries);
+		manifest.save(outFile.getParentFile());
+		LOGGER.debug(" -- Wrote the manifest for " + outFile.getName() + ": " + fileEntries.size() + " file(s), "
+				+ manifest.getVertexCount() + " vertices, " + manifest.getEdgeCount() + " edges");
+	}
+
+
+	/**
+	 * Checks a snapshot against its manifest, reading the files in parallel.  The graph is
+	 * not opened.
+	 *
+	 * @return true if the snapshot matches its manifest
+	 */
+	private boolean verifySnapshot(String snapshotDirName, String snapshotName, int threadCount) throws IOException {
+		File snapshotDir = new File(snapshotDirName);
+		SnapshotManifest manifest = SnapshotManifest.load(snapshotDir, snapshotName);
+		if( manifest == null ){
+			String emsg = "No manifest " + snapshotName + SnapshotManifest.MANIFEST_SUFFIX + " found in " + snapshotDirName;
+			LOGGER.warn(emsg);
+			return false;
+		}
+		long timeA = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+				Math.min(threadCount, manifest.getFiles().size())));
+		List<String> problems;
+		try {
+			problems = manifest.verify(snapshotDir, executor, LOGGER);
+		}
+		finally {
+			executor.shutdown();
+		}
+		long diffTime =  System.nanoTime() - timeA;
+		long minCount = TimeUnit.NANOSECONDS.toMinutes(diffTime);
+		long secCount = TimeUnit.NANOSECONDS.toSeconds(diffTime) - (60 * minCount);
+		for( String problem : problems ){
+			LOGGER.warn(" VERIFY_SNAPSHOT >> " + problem);
+		}
+		String msg = " Snapshot " + snapshotName + (problems.isEmpty() ? " is OK" : " is BAD, " + problems.size()
+				+ " problem(s) found") + ". Checked " + manifest.getFiles().size() + " file(s) with "
+				+ manifest.getVertexCount() + " vertices and " + manifest.getEdgeCount() + " edges in "
+				+ minCount + " minutes, " + secCount + " seconds ";
+		if( problems.isEmpty() ){
+			LOGGER.debug(msg);
+		}
+		else {
+			LOGGER.warn(msg);
+		}
+		return problems.isEmpty();
+	}
+
+
+	private void handOffIdBatch(BlockingQueue<long[]> idBatchQueue, long[] idBatch,
+			List<Future<Long>> writerFutures) throws Exception {
+		// Don't block forever if the writers have died and nobody is draining the queue
+		while( !idBatchQueue.offer(idBatch, 5, TimeUnit.SECONDS) ){
+			for( Future<Long> fut : writerFutures ){
+				if( fut.isDone() ){
+					throw new Exception(" ERROR - a snapshot writer thread ended before the vertex scan finished. ");
+				}
+			}
+		}
+	}
+
+
 	private int validateMaxErrorsPerThread(CommandLineArgs cArgs) {
 		int maxErrorsPerThread = 0;
 		try {
@@ -1055,7 +1522,7 @@ public class DataSnapshot {
 		@Parameter(names = "-v", description = "Graphson version of the snapshot file. Defaults to 1")
 		public String graphsonVersion = GraphSONVersion.V1_0.getVersion();
 
-		@Parameter(names = "-snapshotType", description = "snapshot type of gryo or graphson")
+		@Parameter(names = "-snapshotType", description = "snapshot type of gryo, graphson or compact (binary, for multi-file snapshots)")
 		public String snapshotType = "graphson";
 
 		@Parameter(names = "-threadCount", description = "thread count for create")
@@ -1070,27 +1537,66 @@ public class DataSnapshot {
 		@Parameter(names = "-debugAddDelayTime", description = "delay in ms between each Add for debug mode")
 		public long debugAddDelayTime = 1L;
 
-		@Parameter(names = "-vertAddDelayMs", description = "delay in ms while adding each vertex")
+		@Parameter(names = "-vertAddDelayMs", description = "no longer used, the reload is paced by the reload rate options")
 		public long vertAddDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_VERTEX_ADD_DELAY_MS.longValue();
 
-		@Parameter(names = "-edgeAddDelayMs", description = "delay in ms while adding each edge")
+		@Parameter(names = "-edgeAddDelayMs", description = "no longer used, the reload is paced by the reload rate options")
 		public long edgeAddDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_EDGE_ADD_DELAY_MS.longValue();
 
-		@Parameter(names = "-failureDelayMs", description = "delay in ms when failure to load vertex or edge in snapshot")
+		@Parameter(names = "-failureDelayMs", description = "no longer used, the reload is paced by the reload rate options")
 		public long failureDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_FAILURE_DELAY_MS.longValue();
 
-		@Parameter(names = "-retryDelayMs", description = "time in ms after which load snapshot is retried")
+		@Parameter(names = "-retryDelayMs", description = "no longer used, the reload is paced by the reload rate options")
 		public long retryDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_FAILURE_DELAY_MS.longValue();
 
 		@Parameter(names = "-maxErrorsPerThread", description = "max errors allowed per thread")
 		public int maxErrorsPerThread = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_MAX_ERRORS_PER_THREAD;
 
-		@Parameter(names = "-vertToEdgeProcDelay", description = "vertex to edge processing delay in ms")
+		@Parameter(names = "-vertToEdgeProcDelay", description = "no longer used, edges for a file are loaded as soon as the vertices they need are in")
 		public long vertToEdgeProcDelay = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_VERTEX_TO_EDGE_PROC_DELAY_MS.longValue();
 
 		@Parameter(names = "-staggerThreadDelay", description = "thread delay stagger time in ms")
 		public long staggerThreadDelay = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_STAGGER_THREAD_DELAY_MS;
 
+		@Parameter(names = "-reloadBatchSize", description = "number of snapshot lines committed together during a reload")
+		public int reloadBatchSize = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_BATCH_SIZE;
+
+		@Parameter(names = "-reloadInitialRate", description = "snapshot lines per second (over all threads) that a reload starts out at")
+		public int reloadInitialRate = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_INITIAL_RATE;
+
+		@Parameter(names = "-reloadMaxRate", description = "most snapshot lines per second (over all threads) that a reload will go up to")
+		public int reloadMaxRate = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_MAX_RATE;
+
+		@Parameter(names = "-reloadTargetLatencyMs", description = "a reload slows down when its commits take longer than this many ms")
+		public long reloadTargetLatencyMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_TARGET_LATENCY_MS;
+
+		@Parameter(names = "-vidMapSpillDir", description = "directory for memory-mapping the old to new vertex id map during a reload (default is to keep it on the heap)")
+		public String vidMapSpillDir = "";
+
+		@Parameter(names = "-reloadCheckpointDir", description = "directory where a MULTITHREAD_RELOAD checkpoints its progress so it can be restarted (default is no checkpoints)")
+		public String reloadCheckpointDir = "";
+
+		@Parameter(names = "-streamBatchSize", description = "number of vertex ids handed to a writer at a time for STREAMING_SNAPSHOT")
+		public int streamBatchSize = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_STREAM_BATCH_SIZE;
+
+		@Parameter(names = "-maxDeltaChainLength", description = "number of DELTA_SNAPSHOTs taken before the next one writes a new base snapshot")
+		public int maxDeltaChainLength = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_MAX_DELTA_CHAIN_LENGTH;
+
+		@Parameter(names = "-deltaSafetyMarginMs", description = "how far (ms) each DELTA_SNAPSHOT sets its high-water mark back to allow for clock skew between hosts")
+		public long deltaSafetyMarginMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_DELTA_SAFETY_MARGIN_MS;
+
+		@Parameter(names = "-deltaIndexBackend", description = "index backend of the aai-last-mod-ts mixed index a DELTA_SNAPSHOT gets the changed vertices from")
+		public String deltaIndexBackend = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_DELTA_INDEX_BACKEND;
+
+		@Parameter(names = "-compressBlockSizeKb", description = "if > 0, multi-file snapshots are written compressed in blocks of about this many KB")
+		public int compressBlockSizeKb = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_COMPRESS_BLOCK_SIZE_KB;
+
+		@Parameter(names = "-nodeTypes", description = "comma separated node types to write for NODE_TYPE_SNAPSHOT")
+		public String nodeTypes = "";
+
+		@Parameter(names = "-childDepth", description = "levels of containment children to also write for NODE_TYPE_SNAPSHOT (default 0, none)")
+		public int childDepth = 0;
+
 		@Parameter(names = "-fileName", description = "file name for generating snapshot ")
 		public String fileName = "";
 
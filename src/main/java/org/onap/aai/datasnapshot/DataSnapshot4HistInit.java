@@ -21,7 +21,6 @@ package org.onap.aai.datasnapshot;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
@@ -177,67 +176,52 @@ public class DataSnapshot4HistInit {
 		long maxNodesPerFile4Create = cArgs.maxNodesPerFile;
 
 		cArgs.snapshotType = "graphson";
-		Long vertAddDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_VERTEX_ADD_DELAY_MS;
-		itemName = "aai.datasnapshot.vertex.add.delay.ms";
-		try {
-			String val = AAIConfig.get(itemName);
-			if( val != null &&  !val.equals("") ){
-				cArgs.vertAddDelayMs = Long.parseLong(val);
-			}
-		}catch ( Exception e ){
-			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
-		}
-
-		Long edgeAddDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_EDGE_ADD_DELAY_MS;
-		itemName = "aai.datasnapshot.edge.add.delay.ms";
+		int maxErrorsPerThread = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_MAX_ERRORS_PER_THREAD;
+		itemName = "aai.datasnapshot.max.errors.per.thread";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.edgeAddDelayMs = Long.parseLong(val);
+				cArgs.maxErrorsPerThread = Integer.parseInt(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		Long failureDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_FAILURE_DELAY_MS;
-		itemName = "aai.datasnapshot.failure.delay.ms";
+		itemName = "aai.datasnapshot.reload.batch.size";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.failureDelayMs = Long.parseLong(val);
+				cArgs.reloadBatchSize = Integer.parseInt(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		Long retryDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RETRY_DELAY_MS;
-		itemName = "aai.datasnapshot.retry.delay.ms";
+		itemName = "aai.datasnapshot.reload.initial.rate";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.retryDelayMs = Long.parseLong(val);
+				cArgs.reloadInitialRate = Integer.parseInt(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		int maxErrorsPerThread = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_MAX_ERRORS_PER_THREAD;
-		itemName = "aai.datasnapshot.max.errors.per.thread";
+		itemName = "aai.datasnapshot.reload.max.rate";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.maxErrorsPerThread = Integer.parseInt(val);
+				cArgs.reloadMaxRate = Integer.parseInt(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
 		}
 
-		Long vertToEdgeProcDelay = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_VERTEX_TO_EDGE_PROC_DELAY_MS;
-		itemName = "aai.datasnapshot.vertex.to.edge.proc.delay.ms";
+		itemName = "aai.datasnapshot.reload.target.latency.ms";
 		try {
 			String val = AAIConfig.get(itemName);
 			if( val != null &&  !val.equals("") ){
-				cArgs.vertToEdgeProcDelay = Long.parseLong(val);
+				cArgs.reloadTargetLatencyMs = Long.parseLong(val);
 			}
 		}catch ( Exception e ){
 			LOGGER.warn("WARNING - could not get [" + itemName + "] value from aaiconfig.properties file. " + e.getMessage());
@@ -343,12 +327,7 @@ public class DataSnapshot4HistInit {
 				// Since they are re-loading, they need to pass the snapshot file name to use.
 				// We expected the file to be found in our snapshot directory.  Note - if
 				// it is a multi-part snapshot, then this should be the root of the name.
-				// We will be using the default delay timers.
 				oldSnapshotFileName = cArgs.oldFileName;
-				vertAddDelayMs = cArgs.vertAddDelayMs;
-				edgeAddDelayMs = cArgs.edgeAddDelayMs;
-				failureDelayMs = cArgs.failureDelayMs;
-				retryDelayMs = cArgs.retryDelayMs;
 				try {
 					maxErrorsPerThread = cArgs.maxErrorsPerThread;
 				}
@@ -385,12 +364,12 @@ public class DataSnapshot4HistInit {
 		LOGGER.debug("Thread count is [" + cArgs.threadCount + "]");
 		LOGGER.debug("Debug Flag is [" + cArgs.debugFlag + "]");
 		LOGGER.debug("DebugAddDelayTimer is [" + cArgs.debugAddDelayTime + "]");
-		LOGGER.debug("VertAddDelayMs is [" + cArgs.vertAddDelayMs + "]");
-		LOGGER.debug("FailureDelayMs is [" + cArgs.failureDelayMs + "]");
-		LOGGER.debug("RetryDelayMs is [" + cArgs.retryDelayMs + "]");
 		LOGGER.debug("MaxErrorsPerThread is [" + cArgs.maxErrorsPerThread + "]");
-		LOGGER.debug("VertToEdgeProcDelay is [" + cArgs.vertToEdgeProcDelay + "]");
 		LOGGER.debug("StaggerThreadDelay is [" + cArgs.staggerThreadDelay + "]");
+		LOGGER.debug("ReloadBatchSize is [" + cArgs.reloadBatchSize + "]");
+		LOGGER.debug("ReloadInitialRate is [" + cArgs.reloadInitialRate + "]");
+		LOGGER.debug("ReloadMaxRate is [" + cArgs.reloadMaxRate + "]");
+		LOGGER.debug("ReloadTargetLatencyMs is [" + cArgs.reloadTargetLatencyMs + "]");
 		LOGGER.debug("Caller process is ["+ cArgs.caller + "]");
 
 		//Print non-default values
@@ -558,6 +537,7 @@ public class DataSnapshot4HistInit {
 						secCount = TimeUnit.NANOSECONDS.toSeconds(diffTime) - (60 * minCount);
 						LOGGER.debug(" Pass number " + passNo + " (out of " + threadPassesNeeded +
 								") took " + minCount + " minutes, " + secCount + " seconds ");
+						SnapshotMetrics.phaseDone("write-pass", diffTime);
 					}
 
 					long timeC = System.nanoTime();
@@ -574,9 +554,9 @@ public class DataSnapshot4HistInit {
 				// NOTE - it will only use as many threads as the number of files the
 				//    snapshot is  written to.  Ie. if you have a single-file snapshot,
 				//    then this will be single-threaded.
-				// If the number of files is greater than the 'threadCount' parameter,
-				//    then we will use more than one pass to keep the number of simultaneous
-				//    threads below the threadCount param.
+				// At most 'threadCount' loader tasks run at the same time.  The edges and
+				//    properties for a file get loaded as soon as all the vertices they
+				//    point to are in, rather than after every file's vertices are in.
 				//
 				LOGGER.debug(" Command = " + command );
 
@@ -585,171 +565,96 @@ public class DataSnapshot4HistInit {
 				}
 				ArrayList <File> snapFilesArr = getFilesToProcess(targetDir, oldSnapshotFileName, false);
 				int fCount = snapFilesArr.size();
-				int threadPassesNeeded = (int) Math.ceil((double)fCount / (double)threadCount4Create);
-				int filesPerPass = (int) Math.ceil((double)fCount / (double)threadPassesNeeded);
 
 				JanusGraph graph1 = AAIGraph.getInstance().getGraph();
 				long timeStart = System.nanoTime();
 				GraphAdminDBUtils.logConfigs(graph1.configuration());
-				HashMap <String,String> old2NewVertIdMap = new HashMap <String,String>  ();
-				HashMap <String,ArrayList<String>> nodeKeyNames = new  HashMap <String,ArrayList<String>> ();
+				VertexIdMap old2NewVertIdMap = AAIConfig.isEmpty(cArgs.vidMapSpillDir) ? new VertexIdMap()
+						: new VertexIdMap(new File(cArgs.vidMapSpillDir));
+				LOGGER.debug(" -- old to new vertex id map is " + (old2NewVertIdMap.isSpilled() ?
+						"memory-mapped under " + cArgs.vidMapSpillDir : "on the heap"));
+				// Work out once which properties get the source-of-truth for each node type,
+				// rather than looking up the key names for every vertex
+				NodeKeyNameTable nodeKeyNameTable = null;
 				try {
 					LOGGER.debug("call getNodeKeyNames ()" );
-					nodeKeyNames = getNodeKeyNames();
+					nodeKeyNameTable = new NodeKeyNameTable(getNodeKeyNames());
+					LOGGER.debug(" -- got the key names for " + nodeKeyNameTable.size() + " node types");
 				} catch (Exception e) {
 					AAIException ae = new AAIException("AAI_6128", e , "Error - Could not get node Key names "+e.getMessage());
 					ErrorLogHelper.logException(ae);
 					AAISystemExitUtil.systemExitCloseAAIGraph(1);
 				}
 
-				ExecutorService executor = Executors.newFixedThreadPool(fCount);
-				int threadFailCount = 0;
-
-				LOGGER.debug(" -- vertAddDelayMs = " + vertAddDelayMs
-						+ ", failureDelayMs = " + failureDelayMs + ", retryDelayMs = " + retryDelayMs
+				// All the loader threads share one rate, which goes up while the DB keeps up
+				// and comes down when commits get slow or start failing
+				ReloadRateController rateController = new ReloadRateController(cArgs.reloadInitialRate,
+						GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_MIN_RATE, cArgs.reloadMaxRate,
+						cArgs.reloadTargetLatencyMs, GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_MAX_ERROR_RATE,
+						LOGGER);
+				SnapshotMetrics.watchReloadRate(rateController);
+				LOGGER.debug(" -- reloadInitialRate = " + cArgs.reloadInitialRate
+						+ ", reloadMaxRate = " + cArgs.reloadMaxRate + ", reloadTargetLatencyMs = " + cArgs.reloadTargetLatencyMs
 						+ ", maxErrorsPerThread = " + maxErrorsPerThread );
 
-				// --------------------------------------
-				// Step 1 -- Load empty vertices
-				// --------------------------------------
-				int fileNo = 0;
-				for( int passNo = 1; passNo <= threadPassesNeeded; passNo++ ){
-					List<Future<HashMap<String,String>>> listFutV = new ArrayList<Future<HashMap<String,String>>>();
-
-					int thisPassCount = 0;
-					while( (thisPassCount < filesPerPass) && (fileNo < fCount) ){
-						File f = snapFilesArr.get(fileNo);
-						String fname = f.getName();
-						String fullSnapName = targetDir + AAIConstants.AAI_FILESEP + fname;
-						Thread.sleep(cArgs.staggerThreadDelay);  // Stagger the threads a bit
-						LOGGER.debug(" -- Read file: [" + fullSnapName + "]");
-						Callable <HashMap<String,String>> vLoader = new PartialVertexLoader(graph1, fullSnapName,
-								vertAddDelayMs, failureDelayMs, retryDelayMs, maxErrorsPerThread, LOGGER);
-						Future <HashMap<String,String>> future = (Future<HashMap<String, String>>) executor.submit(vLoader);
-
-						// add future to the list, we can get return value later
-						listFutV.add(future);
-						LOGGER.debug(" --  Starting PartialDbLoad VERT_ONLY file # "+ fileNo
-								+ "( passNo = " + passNo + ", passIndex = " + thisPassCount + ")");
-
-						thisPassCount++;
-						fileNo++;
-					}
+				final int maxErrors = maxErrorsPerThread;
+				final NodeKeyNameTable keyNameTable = nodeKeyNameTable;
+				ArrayList <String> fullSnapNames = new ArrayList <String> ();
+				for( File f : snapFilesArr ){
+					fullSnapNames.add(targetDir + AAIConstants.AAI_FILESEP + f.getName());
+				}
 
-					int threadCount4Reload = 0;
-					for(Future<HashMap<String,String>> fut : listFutV){
-						threadCount4Reload++;
-						try {
-							old2NewVertIdMap.putAll(fut.get());
-							LOGGER.debug(" -- back from PartialVertexLoader.  returned pass # "
-									+ passNo + ", thread # "
-									+ threadCount4Reload +
-									", current size of old2NewVertMap is: " + old2NewVertIdMap.size() );
-						}
-						catch (InterruptedException e) {
-							threadFailCount++;
-							AAIException ae = new AAIException("AAI_6128", e , "InterruptedException");
-							ErrorLogHelper.logException(ae);
-						}
-						catch (ExecutionException e) {
-							threadFailCount++;
-							AAIException ae = new AAIException("AAI_6128", e , "ExecutionException");
-							ErrorLogHelper.logException(ae);
-						}
-					}
-				} // end of passes for loading empty vertices
+				// ------------------------------------------------------------------
+				// Load the empty vertices, then the edges and properties for each
+				// file once the vertices its edges point to have been added
+				// ------------------------------------------------------------------
+				ExecutorService executor = Executors.newWorkStealingPool(Math.max(1, Math.min(fCount, threadCount4Create)));
+				ReloadPipeline pipeline = new ReloadPipeline(graph1, executor, old2NewVertIdMap,
+						fileName -> new PartialVertexLoader(graph1, fileName, rateController, maxErrors,
+								cArgs.reloadBatchSize, old2NewVertIdMap, LOGGER),
+						fileName -> new PartialPropAndEdgeLoader4HistInit(graph1, fileName,
+								rateController, old2NewVertIdMap, maxErrors, cArgs.reloadBatchSize, LOGGER,
+								scriptStartTime, keyNameTable),
+						LOGGER);
+				try {
+					pipeline.run(fullSnapNames, cArgs.staggerThreadDelay);
+				}
+				finally {
+					executor.shutdown();
+					SnapshotMetrics.watchReloadRate(null);
+				}
+				LOGGER.debug(" -- ReloadRateController at the end of the reload: " + rateController.getStats());
 
-				executor.shutdown();
-				if( threadFailCount > 0 ) {
-					String emsg = " FAILURE >> " + threadFailCount + " Vertex-loader thread(s) failed to complete successfully.  ";
+				if( pipeline.getVertexFailCount() > 0 ) {
+					String emsg = " FAILURE >> " + pipeline.getVertexFailCount() + " Vertex-loader thread(s) failed to complete successfully.  ";
+					LOGGER.debug(emsg);
+					throw new Exception( emsg );
+				}
+				if( pipeline.getEdgeFailCount() > 0 ) {
+					String emsg = " FAILURE >> " + pipeline.getEdgeFailCount() + " Property/Edge-loader thread(s) failed to complete successfully.  ";
 					LOGGER.debug(emsg);
 					throw new Exception( emsg );
 				}
 
-				long timeX = System.nanoTime();
+				long timeX = pipeline.getVertexLoadsEndNanos();
 				long diffTime =  timeX - timeStart;
 				long minCount = TimeUnit.NANOSECONDS.toMinutes(diffTime);
 				long secCount = TimeUnit.NANOSECONDS.toSeconds(diffTime) - (60 * minCount);
 				LOGGER.debug("   -- To reload just the vertex ids from the snapshot files, it took: " +
 						minCount + " minutes, " + secCount + " seconds " );
-
-				// Give the DB a little time to chew on all those new vertices
-				Thread.sleep(vertToEdgeProcDelay);
-
-
-				// -------------------------------------------------------------
-				// Step 2 -- Load Edges and properties onto the empty vertices
-				// -------------------------------------------------------------
-				LOGGER.debug("\n\n\n  -- Now load the edges/properties ----------------------");
-				executor = Executors.newFixedThreadPool(fCount);
-
-				fileNo = 0;
-				for( int passNo = 1; passNo <= threadPassesNeeded; passNo++ ){
-					ArrayList<Future<ArrayList<String>>> listFutEdg = new ArrayList<Future<ArrayList<String>>>();
-
-					int thisPassCount = 0;
-					while( (thisPassCount < filesPerPass) && (fileNo < fCount) ){
-						File f = snapFilesArr.get(fileNo);
-						String fname = f.getName();
-						String fullSnapName = targetDir + AAIConstants.AAI_FILESEP + fname;
-						Thread.sleep(cArgs.staggerThreadDelay);  // Stagger the threads a bit
-						LOGGER.debug(" -- Read file: [" + fullSnapName + "]");
-						Callable eLoader = new PartialPropAndEdgeLoader4HistInit(graph1, fullSnapName,
-								edgeAddDelayMs, failureDelayMs, retryDelayMs,
-								old2NewVertIdMap, maxErrorsPerThread, LOGGER,
-								scriptStartTime, nodeKeyNames);
-
-						Future <ArrayList<String>> future = (Future<ArrayList<String>>) executor.submit(eLoader);
-
-						// add future to the list, we can wait for it below
-						listFutEdg.add(future);
-						LOGGER.debug(" --  Starting PartialPropAndEdgeLoader4HistInit file # "
-								+ fileNo + " (pass # " + passNo + ", passIndex "
-								+ thisPassCount + ")" );
-
-						thisPassCount++;
-						fileNo++;
-					}
-
-					int threadCount4Reload = 0;
-					for( Future<ArrayList<String>> fut : listFutEdg ){
-						threadCount4Reload++;
-						try{
-							fut.get();
-							LOGGER.debug(" -- back from PartialPropAndEdgeLoader4HistInit.  pass # "
-									+ passNo + ", thread # " + threadCount4Reload  );
-						}
-						catch (InterruptedException e) {
-							threadFailCount++;
-							AAIException ae = new AAIException("AAI_6128", e , "InterruptedException");
-							ErrorLogHelper.logException(ae);
-						}
-						catch (ExecutionException e) {
-							threadFailCount++;
-							AAIException ae = new AAIException("AAI_6128", e , "ExecutionException");
-							ErrorLogHelper.logException(ae);
-						}
-					}
-
-				} // end of passes for reloading edges and properties
-
-				executor.shutdown();
-
-				if( threadFailCount > 0 ) {
-					String emsg = " FAILURE >> " + threadFailCount + " Property/Edge-loader thread(s) failed to complete successfully.  ";
-					LOGGER.debug(emsg);
-					throw new Exception( emsg );
-				}
+				SnapshotMetrics.phaseDone("reload-vertices", diffTime);
 
 				// This is needed so we can see the data committed by the called threads
 				graph1.tx().commit();
+				old2NewVertIdMap.close();
 
 				long timeEnd = System.nanoTime();
 				diffTime =  timeEnd - timeX;
 				minCount = TimeUnit.NANOSECONDS.toMinutes(diffTime);
 				secCount = TimeUnit.NANOSECONDS.toSeconds(diffTime) - (60 * minCount);
-				LOGGER.debug("   -- To reload the edges and properties from snapshot files, it took: " +
+				LOGGER.debug("   -- After the last vertex load, the remaining edges and properties took: " +
 						minCount + " minutes, " + secCount + " seconds " );
+				SnapshotMetrics.phaseDone("reload-edges", diffTime);
 
 				long totalDiffTime =  timeEnd - timeStart;
 				long totalMinCount = TimeUnit.NANOSECONDS.toMinutes(totalDiffTime);
@@ -859,7 +764,7 @@ public class DataSnapshot4HistInit {
 						AAISystemExitUtil.systemExitCloseAAIGraph(1);
 					}
 					String fullFName = targetDir + AAIConstants.AAI_FILESEP + fname;
-					InputStream fis = new FileInputStream(fullFName);
+					InputStream fis = BlockCompressedInputStream.openSnapshotFile(fullFName);
 					inputStreamsV.add(fis);
 				}
 
@@ -1049,7 +954,7 @@ public class DataSnapshot4HistInit {
 		@Parameter(names = "-f", description = "previous snapshot file to reload")
 		public String oldFileName = "";
 
-		@Parameter(names = "-snapshotType", description = "snapshot type of gryo or graphson")
+		@Parameter(names = "-snapshotType", description = "snapshot type of gryo, graphson or compact (binary, for multi-file snapshots)")
 		public String snapshotType = "graphson";
 
 		@Parameter(names = "-v", description = "Graphson version of the snapshot file. Defaults to 1")
@@ -1067,27 +972,42 @@ public class DataSnapshot4HistInit {
 		@Parameter(names = "-debugAddDelayTime", description = "delay in ms between each Add for debug mode")
 		public long debugAddDelayTime = 1L;
 
-		@Parameter(names = "-vertAddDelayMs", description = "delay in ms while adding each vertex")
+		@Parameter(names = "-vertAddDelayMs", description = "no longer used, the reload is paced by the reload rate options")
 		public long vertAddDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_VERTEX_ADD_DELAY_MS.longValue();
 
-		@Parameter(names = "-edgeAddDelayMs", description = "delay in ms while adding each edge")
+		@Parameter(names = "-edgeAddDelayMs", description = "no longer used, the reload is paced by the reload rate options")
 		public long edgeAddDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_EDGE_ADD_DELAY_MS.longValue();
 
-		@Parameter(names = "-failureDelayMs", description = "delay in ms when failure to load vertex or edge in snapshot")
+		@Parameter(names = "-failureDelayMs", description = "no longer used, the reload is paced by the reload rate options")
 		public long failureDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_FAILURE_DELAY_MS.longValue();
 
-		@Parameter(names = "-retryDelayMs", description = "time in ms after which load snapshot is retried")
+		@Parameter(names = "-retryDelayMs", description = "no longer used, the reload is paced by the reload rate options")
 		public long retryDelayMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_FAILURE_DELAY_MS.longValue();
 
 		@Parameter(names = "-maxErrorsPerThread", description = "max errors allowed per thread")
 		public int maxErrorsPerThread = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_MAX_ERRORS_PER_THREAD;
 
-		@Parameter(names = "-vertToEdgeProcDelay", description = "vertex to edge processing delay in ms")
+		@Parameter(names = "-vertToEdgeProcDelay", description = "no longer used, edges for a file are loaded as soon as the vertices they need are in")
 		public long vertToEdgeProcDelay = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_VERTEX_TO_EDGE_PROC_DELAY_MS.longValue();
 
 		@Parameter(names = "-staggerThreadDelay", description = "thread delay stagger time in ms")
 		public long staggerThreadDelay = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_STAGGER_THREAD_DELAY_MS;
 
+		@Parameter(names = "-reloadBatchSize", description = "number of snapshot lines committed together during a reload")
+		public int reloadBatchSize = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_BATCH_SIZE;
+
+		@Parameter(names = "-reloadInitialRate", description = "snapshot lines per second (over all threads) that a reload starts out at")
+		public int reloadInitialRate = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_INITIAL_RATE;
+
+		@Parameter(names = "-reloadMaxRate", description = "most snapshot lines per second (over all threads) that a reload will go up to")
+		public int reloadMaxRate = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_MAX_RATE;
+
+		@Parameter(names = "-reloadTargetLatencyMs", description = "a reload slows down when its commits take longer than this many ms")
+		public long reloadTargetLatencyMs = GraphAdminConstants.AAI_SNAPSHOT_DEFAULT_RELOAD_TARGET_LATENCY_MS;
+
+		@Parameter(names = "-vidMapSpillDir", description = "directory for memory-mapping the old to new vertex id map during a reload (default is to keep it on the heap)")
+		public String vidMapSpillDir = "";
+
 		@Parameter(names = "-fileName", description = "file name for generating snapshot ")
 		public String fileName = "";
 
@@ -31,6 +31,7 @@ import org.onap.aai.exceptions.AAIException;
 import org.onap.aai.logging.ErrorLogHelper;
 import org.onap.aai.logging.LogFormatTools;
 import org.onap.aai.util.AAIConfig;
+import org.onap.aai.util.ToolJobGuard;
 import org.onap.logging.filter.base.ONAPComponents;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.PropertySource;
@@ -60,6 +61,11 @@ public class DataSnapshotTasks {
 				return;
 			}
 		}
+		ToolJobGuard.Job job = ToolJobGuard.getInstance().tryStart("dataSnapshot");
+		if(job == null){
+			LOGGER.debug("Data Snapshot is already running in this graphadmin, or there is no room for it next to the jobs that are");
+			return;
+		}
 		LOGGER.debug("Started cron job dataSnapshot @ " + dateFormat.format(new Date()));
 		try {
 			if (AAIConfig.get("aai.cron.enable.dataSnapshot").equals("true")) {
@@ -72,6 +78,7 @@ public class DataSnapshotTasks {
 			ErrorLogHelper.logError("AAI_4000", "Exception running cron job for DataSnapshot"+LogFormatTools.getStackTop(e));
 			LOGGER.debug("AAI_4000", "Exception running cron job for DataSnapshot"+LogFormatTools.getStackTop(e));
 		} finally {
+			job.close();
 			LOGGER.debug("Ended cron job dataSnapshot @ " + dateFormat.format(new Date()));
 		}
 		auditLog.logAfter();
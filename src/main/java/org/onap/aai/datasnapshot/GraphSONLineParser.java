@@ -0,0 +1,170 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Turns one GraphSON (1.0) snapshot line into a CompactSnapshot.VertexRecord by streaming
+ * over its tokens, without building a JSON tree.  Only the id, the label, the OUT edges and
+ * (if asked for) the vertex and edge properties are kept -- the IN edges, the property and
+ * edge ids and the meta-properties are skipped, since a reload doesn't use them.
+ *
+ * Numbers come back the same way org.json hands them out: an Integer if it fits, else a Long,
+ * or a Double if it has a fraction or exponent.
+ */
+public final class GraphSONLineParser {
+
+	private GraphSONLineParser() {
+	}
+
+	/**
+	 * @param withProperties false to only read the id, label and OUT edge targets (which is all
+	 *   the vertex loader needs)
+	 * @throws IOException if the line isn't a GraphSON vertex we know how to read
+	 */
+	public static CompactSnapshot.VertexRecord parse(String line, boolean withProperties) throws IOException {
+		CompactSnapshot.VertexRecord rec = new CompactSnapshot.VertexRecord();
+		boolean hasId = false;
+		try (JsonReader jr = new JsonReader(new StringReader(line))) {
+			jr.beginObject();
+			while (jr.hasNext()) {
+				switch (jr.nextName()) {
+				case "id":
+					rec.id = jr.nextLong();
+					hasId = true;
+					break;
+				case "label":
+					rec.label = jr.nextString();
+					break;
+				case "outE":
+					readOutEdges(jr, rec, withProperties);
+					break;
+				case "properties":
+					if (withProperties) {
+						readProperties(jr, rec);
+					} else {
+						jr.skipValue();
+					}
+					break;
+				default:
+					jr.skipValue();
+				}
+			}
+			jr.endObject();
+			if (jr.peek() != JsonToken.END_DOCUMENT) {
+				throw new IOException("Unexpected data after the vertex");
+			}
+		} catch (IllegalStateException | NumberFormatException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		if (!hasId || rec.label == null) {
+			throw new IOException("No id or label for the vertex");
+		}
+		return rec;
+	}
+
+	// "outE":{"label":[{"id":"...","inV":123,"properties":{"key":value,...}},...],...}
+	private static void readOutEdges(JsonReader jr, CompactSnapshot.VertexRecord rec, boolean withProperties)
+			throws IOException {
+		jr.beginObject();
+		while (jr.hasNext()) {
+			String eLabel = jr.nextName();
+			jr.beginArray();
+			while (jr.hasNext()) {
+				CompactSnapshot.EdgeRecord ed = new CompactSnapshot.EdgeRecord();
+				ed.label = eLabel;
+				boolean hasInV = false;
+				jr.beginObject();
+				while (jr.hasNext()) {
+					String name = jr.nextName();
+					if (name.equals("inV")) {
+						ed.otherVid = jr.nextLong();
+						hasInV = true;
+					} else if (name.equals("properties") && withProperties) {
+						jr.beginObject();
+						while (jr.hasNext()) {
+							ed.addProperty(jr.nextName(), readValue(jr));
+						}
+						jr.endObject();
+					} else {
+						jr.skipValue();
+					}
+				}
+				jr.endObject();
+				if (!hasInV) {
+					throw new IOException("No inV for a " + eLabel + " edge");
+				}
+				rec.outE.add(ed);
+			}
+			jr.endArray();
+		}
+		jr.endObject();
+	}
+
+	// "properties":{"key":[{"id":"...","value":value,"properties":{...}},...],...}
+	private static void readProperties(JsonReader jr, CompactSnapshot.VertexRecord rec) throws IOException {
+		jr.beginObject();
+		while (jr.hasNext()) {
+			String pKey = jr.nextName();
+			jr.beginArray();
+			while (jr.hasNext()) {
+				jr.beginObject();
+				while (jr.hasNext()) {
+					if (jr.nextName().equals("value")) {
+						rec.addProperty(pKey, readValue(jr));
+					} else {
+						jr.skipValue();
+					}
+				}
+				jr.endObject();
+			}
+			jr.endArray();
+		}
+		jr.endObject();
+	}
+
+	private static Object readValue(JsonReader jr) throws IOException {
+		switch (jr.peek()) {
+		case STRING:
+			return jr.nextString();
+		case BOOLEAN:
+			return jr.nextBoolean();
+		case NUMBER:
+			String num = jr.nextString();
+			if (num.indexOf('.') >= 0 || num.indexOf('e') >= 0 || num.indexOf('E') >= 0) {
+				return Double.valueOf(num);
+			}
+			long l = Long.parseLong(num);
+			if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+				return (int) l;
+			}
+			return l;
+		default:
+			// null, or a list or map value, which a snapshot of our graph doesn't have
+			throw new IOException("Unsupported property value " + jr.peek() + " at " + jr.getPath());
+		}
+	}
+
+}
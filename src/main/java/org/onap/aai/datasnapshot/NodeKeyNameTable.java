@@ -0,0 +1,71 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * For each node type, the names of the properties that get the node's source-of-truth when
+ * history is initialized: the node's key properties plus aai-node-type, aai-uri and
+ * source-of-truth itself.  Every other property gets "N/A".
+ *
+ * The sets are worked out once, from the schema's key names, and never change after that,
+ * so all the loader threads can share one table.
+ */
+public class NodeKeyNameTable {
+
+	static final List<String> ALWAYS_SOT_PROPS = Arrays.asList("aai-node-type", "aai-uri", "source-of-truth");
+
+	private static final Set<String> UNKNOWN_TYPE_SOT_PROPS = Collections.unmodifiableSet(new HashSet<>(ALWAYS_SOT_PROPS));
+
+	private final Map<String, Set<String>> sotPropsByNodeType = new HashMap<>();
+
+	/**
+	 * @param keyNames the key property names for each node type, as from
+	 *   DataSnapshot4HistInit.getNodeKeyNames()
+	 */
+	public NodeKeyNameTable(Map<String, ? extends Collection<String>> keyNames) {
+		for( Map.Entry<String, ? extends Collection<String>> entry : keyNames.entrySet() ){
+			Set<String> sotProps = new HashSet<>(entry.getValue());
+			sotProps.addAll(ALWAYS_SOT_PROPS);
+			sotPropsByNodeType.put(entry.getKey(), Collections.unmodifiableSet(sotProps));
+		}
+	}
+
+	/**
+	 * @return the names of the properties that get the source-of-truth for this node type
+	 */
+	public Set<String> getSotPropNames(String nodeType) {
+		Set<String> sotProps = sotPropsByNodeType.get(nodeType);
+		return sotProps != null ? sotProps : UNKNOWN_TYPE_SOT_PROPS;
+	}
+
+	public int size() {
+		return sotPropsByNodeType.size();
+	}
+
+}
@@ -0,0 +1,108 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.onap.aai.edges.enums.AAIDirection;
+import org.onap.aai.edges.enums.EdgeProperty;
+
+/**
+ * Walks the vertices of the given node types, found through the aai-node-type index one
+ * type at a time, each followed by its containment children down to childDepth levels
+ * (0 for none, 1 for the direct children, and so on).
+ *
+ * It is lazy: only the children of the start vertex being walked are pending at any time.
+ * A vertex is only handed out once, even when one of the node types is a child of another.
+ */
+class NodeTypeVertexIterator implements Iterator<Vertex> {
+
+	private final GraphTraversalSource g;
+	private final Iterator<String> nodeTypeItr;
+	private final int childDepth;
+
+	private Iterator<Vertex> startItr = Collections.emptyIterator();
+	private final Deque<Vertex> pending = new ArrayDeque<>();
+	private final Deque<Integer> pendingDepth = new ArrayDeque<>();
+	// Only needed when children are followed, the index gives each vertex of a type once
+	private final Set<Object> seenIds;
+	private Vertex next = null;
+
+	NodeTypeVertexIterator(GraphTraversalSource g, List<String> nodeTypes, int childDepth) {
+		this.g = g;
+		this.nodeTypeItr = new LinkedHashSet<>(nodeTypes).iterator();
+		this.childDepth = Math.max(0, childDepth);
+		this.seenIds = this.childDepth > 0 ? new HashSet<>() : null;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while( next == null ){
+			if( pending.isEmpty() ){
+				while( !startItr.hasNext() ){
+					if( !nodeTypeItr.hasNext() ){
+						return false;
+					}
+					startItr = g.V().has("aai-node-type", nodeTypeItr.next());
+				}
+				pending.push(startItr.next());
+				pendingDepth.push(0);
+			}
+			Vertex v = pending.pop();
+			int depth = pendingDepth.pop();
+			if( seenIds != null && !seenIds.add(v.id()) ){
+				continue;
+			}
+			if( depth < childDepth ){
+				Iterator<Vertex> childItr = g.V(v).union(
+						__.outE().has(EdgeProperty.CONTAINS.toString(), AAIDirection.OUT.toString()).inV(),
+						__.inE().has(EdgeProperty.CONTAINS.toString(), AAIDirection.IN.toString()).outV());
+				while( childItr.hasNext() ){
+					pending.push(childItr.next());
+					pendingDepth.push(depth + 1);
+				}
+			}
+			next = v;
+		}
+		return true;
+	}
+
+	@Override
+	public Vertex next() {
+		if( !hasNext() ){
+			throw new NoSuchElementException();
+		}
+		Vertex v = next;
+		next = null;
+		return v;
+	}
+
+}
@@ -19,12 +19,18 @@
  */
 package org.onap.aai.datasnapshot;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.Callable;
+
+import io.micrometer.core.instrument.Counter;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Property;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.janusgraph.core.JanusGraph;
 import org.apache.tinkerpop.gremlin.structure.Edge;
@@ -42,28 +48,80 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 
 	private JanusGraph jg;
 	private String fName;
-	private Long edgeAddDelayMs;
-	private Long retryDelayMs;
-	private Long failureDelayMs;
-	private HashMap<String,String> old2NewVidMap;
+	private ReloadRateController rateController;
+	private VertexIdMap old2NewVidMap;
 	private int maxAllowedErrors;
-	
+	private int batchSize;
+
+	private int failureCount = 0;
+	// Values are CompactSnapshot.VertexRecords (or a GraphSON line that could not be parsed)
+	private HashMap <String,Object> failedAttemptHash = new HashMap <String,Object> ();
+	private ArrayList <String> failedAttemptInfo = new ArrayList <String> ();
+
+	// Only used when the reload keeps checkpoints
+	private File checkpointDir;
+	private ReloadCheckpoint checkpoint;
+	private HashMap <String,Long> failedLineHash = new HashMap <String,Long> ();
+	private List<Object> pendingFailures = new ArrayList<>();
+
+	private BisectingBatchCommitter<Object> committer;
+
+	private Counter edgesLoaded;
+	private Counter loadFailures;
+	private Counter loadRetries;
 
 		
-	public PartialPropAndEdgeLoader (JanusGraph graph, String fn, Long edgeDelay, Long failureDelay, Long retryDelay, 
-			 HashMap<String,String> vidMap, int maxErrors, Logger elfLog ){
+	public PartialPropAndEdgeLoader (JanusGraph graph, String fn, ReloadRateController rateController,
+			 VertexIdMap vidMap, int maxErrors, int batchSize, Logger elfLog ){
+		this(graph, fn, rateController, vidMap, maxErrors, batchSize, null, elfLog);
+	}
+
+	/**
+	 * @param checkpointDir if not null, progress is checkpointed there after every batch and
+	 *   a restarted reload skips what an earlier run already committed for this file
+	 */
+	public PartialPropAndEdgeLoader (JanusGraph graph, String fn, ReloadRateController rateController,
+			 VertexIdMap vidMap, int maxErrors, int batchSize, File checkpointDir, Logger elfLog ){
 		jg = graph;
 		fName = fn;
-		edgeAddDelayMs = edgeDelay;
-		failureDelayMs = failureDelay;
-		retryDelayMs = retryDelay;
+		this.rateController = rateController;
 		old2NewVidMap = vidMap;
 		maxAllowedErrors = maxErrors;
+		this.batchSize = batchSize < 1 ? 1 : batchSize;
+		this.checkpointDir = checkpointDir;
+		edgesLoaded = SnapshotMetrics.edgesLoaded(fn);
+		loadFailures = SnapshotMetrics.loadFailures(SnapshotMetrics.PHASE_EDGES, fn);
+		loadRetries = SnapshotMetrics.loadRetries(SnapshotMetrics.PHASE_EDGES, fn);
 		LOGGER = elfLog;
 	}
 	
 		
 	public ArrayList<String> call() throws Exception  {  
+		if( checkpointDir == null ){
+			return loadFile();
+		}
+		try( ReloadCheckpoint ckpt = new ReloadCheckpoint(checkpointDir, fName, ReloadCheckpoint.EDGE_PHASE, LOGGER) ){
+			checkpoint = ckpt;
+			ckpt.resume(null);
+			if( ckpt.isDone() ){
+				LOGGER.debug(" -- the edges and properties for [" + fName + "] were all loaded by an earlier run");
+				return failedAttemptInfo;
+			}
+			if( ckpt.getLinesDone() > 0 ){
+				LOGGER.debug(" -- resuming PartialPropAndEdgeLoader for [" + fName + "] after record # "
+						+ ckpt.getLinesDone());
+			}
+			ArrayList<String> info = loadFile();
+			ckpt.finish();
+			return info;
+		}
+		finally {
+			checkpoint = null;
+		}
+	}
+
+
+	private ArrayList<String> loadFile() throws Exception {
 	
 		// This is a partner to the "PartialVertexLoader" code.  
 		// That code loads in vertex-id's/vertex-label's for a 
@@ -75,45 +133,45 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 		// 
 		
 		
-		// NOTE - We will be loading parameters and edges for one node at a time so that problems can be 
-		//   identified or ignored or re-tried instead of causing the entire load to fail.   
+		// NOTE - We commit parameters and edges for up to batchSize nodes at a time.  If a batch fails it
+		//   is split and retried until the bad node(s) are isolated, and those are then loaded one at a
+		//   time so that problems can be identified or ignored or re-tried instead of causing the
+		//   entire load to fail.
+		//   Whenever a node's edges may have been committed already (we are resuming from a
+		//   checkpoint, a commit threw, or this is a retry) an edge the node already has is not
+		//   added again.
 		//
 		// Return an arrayList of Strings to give info on what nodes encountered problems
 		
 		int entryCount = 0;
 		int retryCount = 0;
-		int failureCount = 0;
 		int retryFailureCount = 0;
-		HashMap <String,String> failedAttemptHash = new HashMap <String,String> ();
-		ArrayList <String> failedAttemptInfo = new ArrayList <String> ();
+
+		committer = new BisectingBatchCommitter<>(jg,
+				this::applyThisItem, items -> items.forEach(this::countEdgesLoaded), this::processIsolatedItem,
+				rateController, LOGGER);
 		
 		int passNum = 1;
-		try( BufferedReader br = new BufferedReader(new FileReader(fName))) {
-			// loop through the file lines and do PUT for each vertex or the edges depending on what the loadtype is
-       		for(String origLine; (origLine = br.readLine()) != null; ) {
+		try( SnapshotItemSource src = SnapshotItemSource.open(fName) ) {
+			// loop through the vertices (parsed ahead of us on other threads) and add the edges and properties for each one
+			ArrayList<Object> batch = new ArrayList<>(batchSize);
+       		for(Object origItem; (origItem = src.next()) != null; ) {
        			entryCount++;
-        		Thread.sleep(edgeAddDelayMs);  // Space the edge requests out a little
-        		
-        		String errInfoStr = processThisLine(origLine, passNum); 
-        		if( !errInfoStr.equals("") ){
-        			// There was a problem with this line
-        			String vidStr = getTheVidForThisLine(origLine);
-        			// We'll use the failedAttemptHash to reTry this item
-        			failedAttemptHash.put(vidStr,origLine);
-        			failedAttemptInfo.add(errInfoStr);
-        			failureCount++;
-        			if( failureCount > maxAllowedErrors ) {
-        				LOGGER.debug(">>> Abandoning PartialPropAndEdgeLoader() because " +
-               					"Max Allowed Error count was exceeded for this thread. (max = " + 
-               					maxAllowedErrors + ". ");
-        				throw new Exception(" ERROR - Max Allowed Error count exceeded for this thread. (max = " + maxAllowedErrors + ". ");
-        			}
-        			Thread.sleep(failureDelayMs);  // take a little nap if it failed
-        		}
+       			if( alreadyLoaded(entryCount, origItem) ){
+       				continue;
+       			}
+       			batch.add(origItem);
+       			if( batch.size() >= batchSize ){
+       				commitBatch(committer, batch, entryCount);
+       				batch = new ArrayList<>(batchSize);
+       			}
         	} // End of looping over each line
-       		if( br != null  ){
-	       		br.close();
-	       	}
+       		if( !batch.isEmpty() ){
+       			commitBatch(committer, batch, entryCount);
+       		}
+       		LOGGER.debug(" -- PartialPropAndEdgeLoader used " + committer.getCommitCount() + " batch commits for "
+       				+ entryCount + " records (batchSize = " + batchSize + ", batches split = "
+       				+ committer.getBisectCount() + ")");
        }
 		catch (Exception e) {
 	       	LOGGER.debug(" --- Failed in the main loop for Buffered-Reader item # " + entryCount +
@@ -128,19 +186,30 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 		passNum++;
        	try {
        		for (String failedVidStr : failedAttemptHash.keySet()) {
-        		// Take a little nap, and retry this failed attempt
-       			LOGGER.debug("DEBUG >> We will sleep for " + retryDelayMs + " and then RETRY any failed edge/property ADDs. ");
-    			Thread.sleep(retryDelayMs);
+        		// Wait our turn with the rate controller, and retry this failed attempt
+    			rateController.acquire(1);
     			retryCount++;
+    			loadRetries.increment();
     			Long failedVidL = Long.parseLong(failedVidStr);
-    			// When an Edge/Property Add fails, we store the whole (translated) graphSON line as the data in the failedAttemptHash
+    			// When an Edge/Property Add fails, we store the whole (translated) graphSON line (or compact
+    			// record) as the data in the failedAttemptHash
     	       	// We're really just doing a GET of this one vertex here...
-    			String jsonLineToRetry = failedAttemptHash.get(failedVidStr);
-    			String errInfoStr = processThisLine(jsonLineToRetry, passNum); 
-            	if( !errInfoStr.equals("") ){
+    			Object itemToRetry = failedAttemptHash.get(failedVidStr);
+    			long retryStartNanos = System.nanoTime();
+    			String errInfoStr = processThisItem(itemToRetry, passNum, true, true);
+            	if( errInfoStr.equals("") ){
+            		rateController.commitSucceeded(System.nanoTime() - retryStartNanos);
+            		countEdgesLoaded(itemToRetry);
+            		if( checkpoint != null ){
+            			checkpoint.commit(checkpoint.getLinesDone(), null, 0, Collections.emptyList(),
+            					Collections.singletonList(failedLineHash.get(failedVidStr)));
+            		}
+            	}
+            	else {
+            		// processThisItem() told the rate controller if it was a commit that failed
             		// There was a problem with this line
-            		String translatedVidStr = getTheVidForThisLine(jsonLineToRetry);
-            		failedAttemptHash.put(translatedVidStr,jsonLineToRetry);
+            		String translatedVidStr = getTheVidForThisItem(itemToRetry);
+            		failedAttemptHash.put(translatedVidStr,itemToRetry);
             		failedAttemptInfo.add(errInfoStr);
             		retryFailureCount++;
            			if( retryFailureCount > maxAllowedErrors ) {
@@ -149,7 +218,6 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
            					maxAllowedErrors + ". ");
         				throw new Exception(" ERROR - Max Allowed Error count exceeded for this thread. (max = " + maxAllowedErrors + ". ");
         			}
-            		Thread.sleep(failureDelayMs);  // take a little nap if it failed
            		}
             } // End of looping over each failed line
         }
@@ -168,14 +236,89 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 
 	
 	
-	private String translateThisVid(String oldVid) throws Exception {
+	private void applyThisItem(Object item) throws Exception {
+		// Used for batches -- the caller does the commit
+		boolean edgesMayExist = committer.isReapplying() || (checkpoint != null && checkpoint.isResumed());
+		String errInfoStr = processThisItem(item, 1, false, edgesMayExist);
+		if( !errInfoStr.equals("") ){
+			throw new Exception(errInfoStr);
+		}
+	}
+
+
+	private void countEdgesLoaded(Object item) {
+		// The rare GraphSON line that GraphSONLineParser couldn't handle isn't counted
+		if( item instanceof CompactSnapshot.VertexRecord ){
+			edgesLoaded.increment(((CompactSnapshot.VertexRecord) item).outE.size());
+		}
+	}
+
+
+	private void processIsolatedItem(Object item, Exception batchException) throws Exception {
+		// This line failed even in a batch by itself, so give it the original one-line-at-a-time
+		// treatment (edges and properties committed separately) and track it if it still fails.
+		String errInfoStr = processThisItem(item, 1, true, true);
+		if( errInfoStr.equals("") ){
+			countEdgesLoaded(item);
+		}
+		else {
+			// There was a problem with this line
+			String vidStr = getTheVidForThisItem(item);
+			// We'll use the failedAttemptHash to reTry this item
+			failedAttemptHash.put(vidStr,item);
+			failedAttemptInfo.add(errInfoStr);
+			pendingFailures.add(item);
+			failureCount++;
+			loadFailures.increment();
+			if( failureCount > maxAllowedErrors ) {
+				LOGGER.debug(">>> Abandoning PartialPropAndEdgeLoader() because " +
+						"Max Allowed Error count was exceeded for this thread. (max = " + 
+						maxAllowedErrors + ". ");
+				throw new Exception(" ERROR - Max Allowed Error count exceeded for this thread. (max = " + maxAllowedErrors + ". ");
+			}
+		}
+	}
+
+
+	private boolean alreadyLoaded(long lineNo, Object item) throws Exception {
+		// True if an earlier run checkpointed this line.  Lines that had failed then go back
+		// on the list for the retry pass.
+		if( checkpoint == null || lineNo > checkpoint.getLinesDone() ){
+			return false;
+		}
+		if( checkpoint.isFailedLine(lineNo) ){
+			String vidStr = getTheVidForThisItem(item);
+			failedAttemptHash.put(vidStr, item);
+			failedLineHash.put(vidStr, lineNo);
+		}
+		return true;
+	}
+
+
+	private void commitBatch(BisectingBatchCommitter<Object> committer, ArrayList<Object> batch,
+			long lastLineNo) throws Exception {
+		committer.commit(batch);
+		if( checkpoint == null ){
+			return;
+		}
+		List<Long> failedLines = ReloadCheckpoint.linesOf(pendingFailures, batch, lastLineNo - batch.size() + 1);
+		for( int i = 0; i < pendingFailures.size(); i++ ){
+			failedLineHash.put(getTheVidForThisItem(pendingFailures.get(i)), failedLines.get(i));
+		}
+		checkpoint.commit(lastLineNo, null, 0, failedLines, Collections.emptyList());
+		pendingFailures.clear();
+	}
+
+
+	private long translateThisVid(String oldVid) throws Exception {
 		
 		if( old2NewVidMap == null ){
 			throw new Exception(" ERROR - null old2NewVidMap found in translateThisVid. ");
 		}
 		
-		if( old2NewVidMap.containsKey(oldVid) ){
-			return old2NewVidMap.get(oldVid);
+		long newVid = old2NewVidMap.get(Long.parseLong(oldVid));
+		if( newVid != VertexIdMap.NO_ID ){
+			return newVid;
 		}
 		else {
 			throw new Exception(" ERROR - could not find VID translation for original VID = " + oldVid );
@@ -183,6 +326,14 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 	}
 	
 	
+	private String getTheVidForThisItem(Object item) throws Exception {
+		if( item instanceof CompactSnapshot.VertexRecord ){
+			return Long.toString(((CompactSnapshot.VertexRecord) item).id);
+		}
+		return getTheVidForThisLine((String) item);
+	}
+
+
 	private String getTheVidForThisLine(String graphSonLine) throws Exception {
 		
 		if( graphSonLine == null ){
@@ -205,13 +356,30 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 	}
 		
 	
-	private String processThisLine(String graphSonLine, int passNum){
-		
-		String passInfo = ""; 
-		if( passNum > 1 ) {
-			passInfo = " >> RETRY << pass # " + passNum + " ";
+	/** Adds the edges or properties of one vertex, returns "" if it worked, else what went wrong */
+	private interface VertexDataApplier {
+		String apply(Vertex dbVtx, String passInfo, String originalVid);
+	}
+
+
+	/**
+	 * @param edgesMayExist true if an earlier attempt may have committed this vertex's edges,
+	 *   so the ones it already has are not added again
+	 */
+	private String processThisItem(Object item, int passNum, boolean commitEach, boolean edgesMayExist){
+		if( item instanceof CompactSnapshot.VertexRecord ){
+			CompactSnapshot.VertexRecord rec = (CompactSnapshot.VertexRecord) item;
+			return processThisVertex(Long.toString(rec.id),
+					(dbVtx, passInfo, originalVid) -> processEdgesForRecord(rec, dbVtx, passInfo, originalVid, edgesMayExist),
+					(dbVtx, passInfo, originalVid) -> processPropertiesForRecord(rec, dbVtx, passInfo, originalVid),
+					passNum, commitEach);
 		}
+		return processThisLine((String) item, passNum, commitEach, edgesMayExist);
+	}
+
 
+	private String processThisLine(String graphSonLine, int passNum, boolean commitEach, boolean edgesMayExist){
+		
 		JSONObject jObj = new JSONObject();
 		String originalVid = "";
 		
@@ -225,17 +393,31 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
     			
     		return(" JSON translation or getVid exception when processing this line [" + graphSonLine + "]");
 		}
+		
+		final JSONObject vtxObj = jObj;
+		return processThisVertex(originalVid,
+				(dbVtx, passInfo, origVid) -> processEdgesForVtx(vtxObj, dbVtx, passInfo, origVid, edgesMayExist),
+				(dbVtx, passInfo, origVid) -> processPropertiesForVtx(vtxObj, dbVtx, passInfo, origVid),
+				passNum, commitEach);
+	}
+
+
+	private String processThisVertex(String originalVid, VertexDataApplier edgeApplier,
+			VertexDataApplier propApplier, int passNum, boolean commitEach){
+		
+		String passInfo = ""; 
+		if( passNum > 1 ) {
+			passInfo = " >> RETRY << pass # " + passNum + " ";
+		}
 		 	
 		// -----------------------------------------------------------------------------------------
 		// Note - this assumes that any vertices referred to by an edge will already be in the DB.
 		// -----------------------------------------------------------------------------------------
 		Vertex dbVtx = null;	
 		
-		String newVidStr = "";
-		Long newVidL = 0L;
+		long newVidL = 0L;
 		try {
-			newVidStr = translateThisVid(originalVid);
-			newVidL = Long.parseLong(newVidStr);
+			newVidL = translateThisVid(originalVid);
 		}
 		catch ( Exception e ){
     		LOGGER.debug(" -- "  + passInfo + " translate VertexId before adding edges failed for this: vtxId = " 
@@ -245,23 +427,39 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
     	}
 
 		try {
-			dbVtx = getVertexFromDbForVid(newVidStr);
+			dbVtx = getVertexFromDbForVid(newVidL);
 		}
 		catch ( Exception e ){
+			if( commitEach && ReloadRateController.isBackendFailure(e) ){
+				// In a batch, the committer looks after this
+				rateController.commitFailed();
+			}
     		LOGGER.debug(" -- "  + passInfo + " READ Vertex from DB before adding edges failed for this: vtxId = " + originalVid
     				+ ", newVidId = " + newVidL + ".  ErrorMsg = [" +e.getMessage() + "]");
     			
-    		return(" ERROR getting Vertex based on VID = " + newVidStr + "]");
+    		return(" ERROR getting Vertex based on VID = " + newVidL + "]");
     	}
 			
 		
-		String edResStr = processEdgesForVtx( jObj, dbVtx, passInfo, originalVid );
+		String edResStr = edgeApplier.apply( dbVtx, passInfo, originalVid );
+		if( !commitEach ){
+			// Part of a batch -- any problem fails the line and the caller commits or rolls back
+			if( !edResStr.equals("") ){
+				return(" ERROR processing edges for vertexId = " + originalVid + ", [" + edResStr + "]");
+			}
+			String pResStr = propApplier.apply( dbVtx, passInfo, originalVid );
+			if( !pResStr.equals("") ){
+				return(" ERROR processing properties for vertexId = " + originalVid + ", [" + pResStr + "]");
+			}
+			return "";
+		}
 		if( edResStr.equals("") ){
 			// We will commit the edges by themselves in case the properties stuff below fails
 	       	try { 
 	       		jg.tx().commit();
 			}
 			catch ( Exception e ){
+				rateController.commitFailed();
 				LOGGER.debug(" -- " + passInfo + " COMMIT FAILED adding EDGES for this vertex: vtxId = " 
 						+ originalVid + ".  ErrorMsg = [" +e.getMessage() + "]");
 				return(" ERROR with committing edges for vertexId = " + originalVid );
@@ -269,13 +467,14 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 		}
 		
 		// Add the properties that we didn't have when we added the 'bare-bones' vertex
-		String pResStr = processPropertiesForVtx( jObj, dbVtx, passInfo, originalVid );
+		String pResStr = propApplier.apply( dbVtx, passInfo, originalVid );
 		if( pResStr.equals("") ){
 			try { 
 	       		jg.tx().commit();
 	       		return "";
 			}
 			catch ( Exception e ){
+				rateController.commitFailed();
 				LOGGER.debug(" -- " + passInfo + " COMMIT FAILED adding Properties for this vertex: vtxId = " 
 						+ originalVid + ".  ErrorMsg = [" +e.getMessage() + "]");
 				return(" ERROR with committing properties for vertexId = " + originalVid );
@@ -293,16 +492,19 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 		
 		try {
 			JSONObject propsOb = (JSONObject) jObj.get("properties");
+			List<String> propKeys = new ArrayList<>();
+			List<Object> propValues = new ArrayList<>();
 			Iterator <String> propsItr = propsOb.keys();
 			while( propsItr.hasNext() ){
 				String pKey = propsItr.next();
 				JSONArray propsDetArr = propsOb.getJSONArray(pKey);
 				for( int i=0; i< propsDetArr.length(); i++ ){
 					JSONObject prop = propsDetArr.getJSONObject(i);
-					Object val = prop.get("value");
-					dbVtx.property(pKey, val);  // DEBUG - not sure if this is would handle String[] properties?
+					propKeys.add(pKey);
+					propValues.add(prop.get("value"));  // DEBUG - not sure if this is would handle String[] properties?
 				}
 			}
+			setVertexProperties(dbVtx, propKeys, propValues);
 		}
 		catch ( Exception e ){
        		LOGGER.debug(" -- " + passInfo + " failure getting/setting properties for: vtxId = " 
@@ -314,12 +516,48 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 	}
 	
 	
-	private Vertex getVertexFromDbForVid( String vtxIdStr ) throws Exception {
+	private String processPropertiesForRecord( CompactSnapshot.VertexRecord rec, Vertex dbVtx, String passInfo,
+			String originalVid ){
+		
+		try {
+			setVertexProperties(dbVtx, rec.propKeys, rec.propValues);
+		}
+		catch ( Exception e ){
+       		LOGGER.debug(" -- " + passInfo + " failure getting/setting properties for: vtxId = " 
+       				+ originalVid + ".  ErrorMsg = [" + e.getMessage() + "]");
+       		return(" error processing properties for vtxId = " + originalVid);
+       	}
+       		
+		return "";
+	}
+	
+	
+	/**
+	 * Sets the properties of one vertex (same keys and values order as in the snapshot).
+	 * The history-init loader overrides this to add the history meta-properties.
+	 */
+	protected void setVertexProperties( Vertex dbVtx, List<String> propKeys, List<Object> propValues ){
+		for( int i = 0; i < propKeys.size(); i++ ){
+			dbVtx.property(propKeys.get(i), propValues.get(i));
+		}
+	}
+
+
+	/**
+	 * Sets the properties of one newly added edge.  The history-init loader overrides this to
+	 * add the history properties.
+	 */
+	protected void setEdgeProperties( Edge dbEdge, List<String> propKeys, List<Object> propValues ){
+		for( int i = 0; i < propKeys.size(); i++ ){
+			dbEdge.property(propKeys.get(i), propValues.get(i));
+		}
+	}
+
+
+	private Vertex getVertexFromDbForVid( long vtxIdL ) throws Exception {
 		Vertex thisVertex = null;
-		Long vtxIdL = 0L;
 		
 		try {
-			vtxIdL = Long.parseLong(vtxIdStr);
 			Iterator <Vertex> vItr = jg.vertices(vtxIdL);
 			// Note - we only expect to find one vertex found for this ID.
 			while( vItr.hasNext() ){
@@ -327,12 +565,12 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 			}
 		}
 		catch ( Exception e ){
-			String emsg = "Error finding vertex for vid = " + vtxIdStr + "[" + e.getMessage() + "]";
-			throw new Exception ( emsg );
+			String emsg = "Error finding vertex for vid = " + vtxIdL + "[" + e.getMessage() + "]";
+			throw new Exception ( emsg, e );
 		}
 		
 		if( thisVertex == null ){
-			String emsg = "Could not find vertex for passed vid = " + vtxIdStr;
+			String emsg = "Could not find vertex for passed vid = " + vtxIdL;
 			throw new Exception ( emsg );
 		}
 		
@@ -340,7 +578,8 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 	}
 	
 	
-	private String processEdgesForVtx( JSONObject jObj, Vertex dbVtx, String passInfo, String originalVid ){
+	private String processEdgesForVtx( JSONObject jObj, Vertex dbVtx, String passInfo, String originalVid,
+			boolean edgesMayExist ){
 
 		// Process the edges for this vertex -- but, just the "OUT" ones so edges don't get added twice (once from
 		// each side of the edge).
@@ -358,6 +597,7 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 				// There were no OUT edges.  This is OK.  Not all nodes have out edges.
 				return "";
 			}
+			ExistingEdges existingEdges = edgesMayExist ? new ExistingEdges(dbVtx) : null;
 			Iterator <String> edItr = edOb.keys();
 			while( edItr.hasNext() ){
 				String eLabel = edItr.next();
@@ -365,12 +605,9 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 				for( int i=0; i< edArr.length(); i++ ){
 					JSONObject eObj = edArr.getJSONObject(i);
 					String inVidStr = eObj.get("inV").toString();
-					String translatedInVidStr = translateThisVid(inVidStr);
-					Vertex newInVertex = getVertexFromDbForVid(translatedInVidStr);
+					long translatedInVid = translateThisVid(inVidStr);
+					Vertex newInVertex = getVertexFromDbForVid(translatedInVid);
 					
-					// Note - addEdge automatically adds the edge in the OUT direction from the 
-					//     'anchor' node that the call is being made from.
-					Edge tmpE = dbVtx.addEdge(eLabel, newInVertex); 
 					JSONObject ePropsOb = null;
 					try {
 						ePropsOb = (JSONObject) eObj.get("properties");
@@ -380,13 +617,27 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 						// Ie. when a model-element node has an "isA" edge to a "model-ver" node, that edge does
 						//    not have edge properties on it.
 					}
+					List<String> ePropKeys = new ArrayList<>();
+					List<Object> ePropValues = new ArrayList<>();
 					if( ePropsOb != null ){
 						Iterator <String> ePropsItr = ePropsOb.keys();
 						while( ePropsItr.hasNext() ){
 							String pKey = ePropsItr.next();
-							tmpE.property(pKey, ePropsOb.get(pKey));
+							ePropKeys.add(pKey);
+							ePropValues.add(ePropsOb.get(pKey));
 						}
 					}
+					if( existingEdges != null && existingEdges.claim(eLabel, newInVertex, ePropKeys, ePropValues) ){
+						// An earlier attempt already committed this one
+						continue;
+					}
+					
+					// Note - addEdge automatically adds the edge in the OUT direction from the 
+					//     'anchor' node that the call is being made from.
+					Edge tmpE = dbVtx.addEdge(eLabel, newInVertex); 
+					if( ePropsOb != null ){
+						setEdgeProperties(tmpE, ePropKeys, ePropValues);
+					}
 				}
 			}
 		}
@@ -402,6 +653,72 @@ public class PartialPropAndEdgeLoader implements Callable <ArrayList<String>>{
 	}
 	
 	
-}	     
+	private String processEdgesForRecord( CompactSnapshot.VertexRecord rec, Vertex dbVtx, String passInfo,
+			String originalVid, boolean edgesMayExist ){
+
+		// Just the "OUT" edges, same as for a GraphSON line
+		try {
+			ExistingEdges existingEdges = ( edgesMayExist && !rec.outE.isEmpty() ) ? new ExistingEdges(dbVtx) : null;
+			for( CompactSnapshot.EdgeRecord ed : rec.outE ){
+				long translatedInVid = translateThisVid(Long.toString(ed.otherVid));
+				Vertex newInVertex = getVertexFromDbForVid(translatedInVid);
+				if( existingEdges != null && existingEdges.claim(ed.label, newInVertex, ed.propKeys, ed.propValues) ){
+					// An earlier attempt already committed this one
+					continue;
+				}
+				Edge tmpE = dbVtx.addEdge(ed.label, newInVertex);
+				setEdgeProperties(tmpE, ed.propKeys, ed.propValues);
+			}
+		}
+		catch ( Exception e ){
+			String msg =  " -- " + passInfo + " failure adding edge for: original vtxId = " 
+					+ originalVid + ".  ErrorMsg = [" +e.getMessage() + "]";
+			LOGGER.debug( " -- " + msg );
+			LOGGER.debug(" -- now going to return/bail out of processEdgesForRecord" );
+			return(" >> " + msg );
+   		}
+   			
+		return "";
+	}
+	
 	
+	/**
+	 * The OUT edges a vertex already has in the db.  Each one can stand in for one edge of the
+	 * snapshot with the same label, the same other vertex and the same values for the
+	 * snapshot's edge properties (the history-init loader adds more properties of its own),
+	 * so parallel edges that really are in the snapshot are all still loaded.
+	 */
+	static class ExistingEdges {
+
+		private final List<Edge> unclaimed = new ArrayList<>();
+
+		ExistingEdges( Vertex dbVtx ){
+			dbVtx.edges(Direction.OUT).forEachRemaining(unclaimed::add);
+		}
+
+		/** @return true if a matching edge is there, which can then not match another edge */
+		boolean claim( String label, Vertex inVtx, List<String> propKeys, List<Object> propValues ){
+			for( Iterator<Edge> it = unclaimed.iterator(); it.hasNext(); ){
+				Edge dbEdge = it.next();
+				if( dbEdge.label().equals(label) && dbEdge.inVertex().id().equals(inVtx.id())
+						&& hasProperties(dbEdge, propKeys, propValues) ){
+					it.remove();
+					return true;
+				}
+			}
+			return false;
+		}
 
+		private static boolean hasProperties( Edge dbEdge, List<String> propKeys, List<Object> propValues ){
+			for( int i = 0; i < propKeys.size(); i++ ){
+				Property<Object> prop = dbEdge.property(propKeys.get(i));
+				// The snapshot's numbers may have been parsed into another type than the db's
+				if( !prop.isPresent() || !String.valueOf(prop.value()).equals(String.valueOf(propValues.get(i))) ){
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+}
@@ -19,12 +19,16 @@
  */
 package org.onap.aai.datasnapshot;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.Callable;
+
+import io.micrometer.core.instrument.Counter;
+
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.janusgraph.core.JanusGraph;
 import org.onap.aai.exceptions.AAIException;
@@ -33,134 +37,189 @@ import org.slf4j.Logger;
 
 
 
-public class PartialVertexLoader implements Callable<HashMap<String,String>>{
+public class PartialVertexLoader implements Callable<Long>{
 	
 	private Logger LOGGER;
 
 	private JanusGraph jg;
 	private String fName;
-	private Long vertAddDelayMs;
-	private Long failurePauseMs;
-	private Long retryDelayMs;
+	private ReloadRateController rateController;
 	private int maxAllowedErrors;
+	private int batchSize;
+
+	private int failureCount = 0;
+	private HashMap <String,String> failedAttemptHash = new HashMap <String,String> ();
+	private VertexIdMap old2NewVtxIdMap;
+	private long mappedCount = 0;
+	private long [] edgeTargetVids = new long[1024];
+	private int edgeTargetCount = 0;
+
+	// Only used when the reload keeps checkpoints
+	private File checkpointDir;
+	private ReloadCheckpoint checkpoint;
+	private HashMap <String,Long> failedLineHash = new HashMap <String,Long> ();
+	private long [] pendingIdPairs = new long[64];
+	private int pendingPairCount = 0;
+	private List<String[]> pendingFailures = new ArrayList<>();
+
+	private Counter verticesLoaded;
+	private Counter loadFailures;
+	private Counter loadRetries;
 		
-	public PartialVertexLoader (JanusGraph graph, String fn, Long vertDelay, Long failurePause, 
-			Long retryDelay, int maxErrors, Logger elfLog ){
+	public PartialVertexLoader (JanusGraph graph, String fn, ReloadRateController rateController,
+			int maxErrors, int batchSize, VertexIdMap vidMap, Logger elfLog ){
+		this(graph, fn, rateController, maxErrors, batchSize, vidMap, null, elfLog);
+	}
+
+	/**
+	 * @param checkpointDir if not null, progress is checkpointed there after every batch and
+	 *   a restarted reload skips what an earlier run already committed for this file
+	 */
+	public PartialVertexLoader (JanusGraph graph, String fn, ReloadRateController rateController,
+			int maxErrors, int batchSize, VertexIdMap vidMap, File checkpointDir, Logger elfLog ){
 		jg = graph;
 		fName = fn;
-		vertAddDelayMs = vertDelay;
-		failurePauseMs = failurePause;
-		retryDelayMs = retryDelay;
+		old2NewVtxIdMap = vidMap;
+		this.rateController = rateController;
 		maxAllowedErrors = maxErrors;
+		this.batchSize = batchSize < 1 ? 1 : batchSize;
+		this.checkpointDir = checkpointDir;
+		verticesLoaded = SnapshotMetrics.verticesLoaded(fn);
+		loadFailures = SnapshotMetrics.loadFailures(SnapshotMetrics.PHASE_VERTICES, fn);
+		loadRetries = SnapshotMetrics.loadRetries(SnapshotMetrics.PHASE_VERTICES, fn);
 		LOGGER = elfLog;
 	}
 		
-	public HashMap<String,String> call() throws Exception  {  
+	/**
+	 * Adds the bare vertices from this file, putting each old to new vertex id
+	 * mapping into the shared VertexIdMap.
+	 *
+	 * @return the number of vertices this loader mapped
+	 */
+	public Long call() throws Exception  {  
+		if( checkpointDir == null ){
+			return loadFile();
+		}
+		try( ReloadCheckpoint ckpt = new ReloadCheckpoint(checkpointDir, fName, ReloadCheckpoint.VERTEX_PHASE, LOGGER) ){
+			checkpoint = ckpt;
+			ckpt.resume(old2NewVtxIdMap);
+			if( ckpt.getLinesDone() > 0 || ckpt.isDone() ){
+				LOGGER.debug(" -- resuming PartialVertexLoader for [" + fName + "]: " + ckpt.getLinesDone()
+						+ " records and " + ckpt.getMappingCount() + " vertex ids came from the checkpoint"
+						+ (ckpt.isDone() ? ", the vertices for this file are all in" : ""));
+			}
+			if( ckpt.isDone()
+					&& ReloadCheckpoint.isDone(checkpointDir, fName, ReloadCheckpoint.EDGE_PHASE, LOGGER) ){
+				// Nothing left to do for this file -- its ids are back in the map and its edges are in
+				mappedCount = ckpt.getMappingCount();
+				return mappedCount;
+			}
+			long replayed = ckpt.getMappingCount();
+			Long mapped = replayed + loadFile();
+			if( !ckpt.isDone() ){
+				ckpt.finish();
+			}
+			return mapped;
+		}
+		finally {
+			checkpoint = null;
+		}
+	}
+
+
+	private Long loadFile() throws Exception {
 	
-		// NOTE - we will be loading one node at a time so that bad nodes can be ignored instead of causing the
-		//   entire load to fail.   
+		// NOTE - we commit up to batchSize vertices at a time.  If a batch fails, it gets split
+		//   in half and retried until the bad node(s) are isolated, so bad nodes can still be
+		//   ignored instead of causing the entire load to fail.
 		//
 		int entryCount = 0;
 		int retryCount = 0;
-		int failureCount = 0;
 		int retryFailureCount = 0;
-		HashMap <String,String> failedAttemptHash = new HashMap <String,String> ();
-		HashMap <String,String> old2NewVtxIdHash = new HashMap <String,String> ();
+
+		// Each item is { oldVid, label, newVid } -- newVid is filled in when the vertex is added
+		BisectingBatchCommitter<String[]> committer = new BisectingBatchCommitter<>(jg,
+				item -> item[2] = jg.addVertex(item[1]).id().toString(),
+				items -> {
+					for( String[] item : items ){
+						old2NewVtxIdMap.put(Long.parseLong(item[0]), Long.parseLong(item[2]));
+						mappedCount++;
+						notePendingIdPair(Long.parseLong(item[0]), Long.parseLong(item[2]));
+					}
+					verticesLoaded.increment(items.size());
+				},
+				this::recordFailedVertex, rateController, LOGGER);
 	
-		// Read this file into a JSON object
-		JsonParser parser = new JsonParser();
-		
-		try( BufferedReader br = new BufferedReader(new FileReader(fName))) {
-			// loop through the file lines and do PUT for each vertex or the edges depending on what the loadtype is
-       		for(String line; (line = br.readLine()) != null; ) {
+		// The file is read and parsed on other threads, ahead of this one (see SnapshotParsePipeline)
+		try( SnapshotItemSource src = SnapshotParsePipeline.open(fName, false) ) {
+			// loop through the vertices and add the bare vertex for each one
+			ArrayList<String[]> batch = new ArrayList<>(batchSize);
+       		for(Object item; (item = src.next()) != null; ) {
        			entryCount++;
-       			Object ob = parser.parse(line);
-       			JsonObject jObj = (JsonObject) ob;
+       			if( !(item instanceof CompactSnapshot.VertexRecord) ){
+       				throw new Exception("Could not parse the vertex on line # " + entryCount + " of " + fName);
+       			}
+       			CompactSnapshot.VertexRecord rec = (CompactSnapshot.VertexRecord) item;
        			// NOTE - we will need to keep track of how the newly generated vid's map
         		//    to the old ones so we can aim the edges correctly later.
         			
         		// ----  Note -- This ONLY loads the vertexId and the label for each vertex -------------
-       			Thread.sleep(vertAddDelayMs); 
-        				
-        		String oldVtxIdStr = jObj.get("id").getAsString();
-        		String vtxLabelStr = jObj.get("label").getAsString();
-	        	try { 
-        			Vertex tmpV = jg.addVertex(vtxLabelStr);
-       				String newVtxIdStr = tmpV.id().toString();
-       				old2NewVtxIdHash.put(oldVtxIdStr,  newVtxIdStr);
-       			}
-       			catch ( Exception e ){
-       				failureCount++;
-       				Thread.sleep(failurePauseMs); // Slow down if things are failing
-       				LOGGER.debug(" >> addVertex FAILED for vtxId = " + oldVtxIdStr + ", label = [" 
-       						+ vtxLabelStr + "].  ErrorMsg = [" + e.getMessage() + "]" );
-        			failedAttemptHash.put(oldVtxIdStr, vtxLabelStr);
-        			if( failureCount > maxAllowedErrors ) {
-        				LOGGER.debug(" >>> Abandoning PartialVertexLoader() because " +
-               					"Max Allowed Error count was exceeded for this thread. (max = " + 
-               					maxAllowedErrors + ". ");
-        				throw new Exception(" ERROR - Max Allowed Error count exceeded for this thread. (max = " + maxAllowedErrors + ". ");
-        			}
-        			else {
-        				continue;
-        			}
+        		String oldVtxIdStr = Long.toString(rec.id);
+        		for( CompactSnapshot.EdgeRecord ed : rec.outE ){
+        			// Remember where this vertex's OUT edges go -- those are the only edges the
+        			// PartialPropAndEdgeLoader will add for this file.
+        			noteEdgeTarget(ed.otherVid);
         		}
-        		try { 
-	       			jg.tx().commit();
-	       		}
-	       		catch ( Exception e ){
-	       			failureCount++;
-	       			Thread.sleep(failurePauseMs); // Slow down if things are failing
-	       			LOGGER.debug(" -- COMMIT FAILED for Vtx ADD for vtxId = " + oldVtxIdStr + ", label = [" 
-	       					+ vtxLabelStr + "].  ErrorMsg = [" +e.getMessage() + "]" );
-        			failedAttemptHash.put(oldVtxIdStr, vtxLabelStr);
-        			if( failureCount > maxAllowedErrors ) {
-        				LOGGER.debug(">>> Abandoning PartialVertexLoader() because " +
-               					"Max Allowed Error count was exceeded for this thread. (max = " + 
-               					maxAllowedErrors + ". ");
-        				throw new Exception(" ERROR - Max Allowed Error count exceeded for this thread. (max = " + maxAllowedErrors + ". ");
-        			}
-        			else {
-        				continue;
-        			}
-	        	}
-	        			
-	        } // End of looping over each line
-        		
-        	if( br != null  ){
-	        	br.close();
-	        }
+        		if( alreadyLoaded(entryCount, oldVtxIdStr, rec.label) ){
+        			continue;
+        		}
+        		batch.add(new String[] {oldVtxIdStr, rec.label, null});
+        		if( batch.size() >= batchSize ){
+        			commitBatch(committer, batch, entryCount);
+        			batch = new ArrayList<>(batchSize);
+        		}
+	        } // End of looping over each vertex
+       		if( !batch.isEmpty() ){
+       			commitBatch(committer, batch, entryCount);
+       		}
 		}
 		catch (Exception e) {
-	        LOGGER.debug(" --- Failed in the main loop for Buffered-Reader item # " + entryCount +
+	        LOGGER.debug(" --- Failed in the main loop for snapshot item # " + entryCount +
 	        		", fName = " + fName );
 	        LOGGER.debug(" --- msg = " + e.getMessage() );
-	        	AAIException ae = new AAIException("AAI_6128", e , "Failed in the main loop for Buffered-Reader item");
-				ErrorLogHelper.logException(ae);
-	            throw e;
+	        AAIException ae = new AAIException("AAI_6128", e , "Failed in the main loop for snapshot item");
+			ErrorLogHelper.logException(ae);
+	        throw e;
 		}	
+		LOGGER.debug(" -- PartialVertexLoader used " + committer.getCommitCount() + " commits for "
+				+ entryCount + " records (batchSize = " + batchSize + ", batches split = "
+				+ committer.getBisectCount() + ")");
         		
 		// ---------------------------------------------------------------------------
        	// Now Re-Try any failed requests that might have Failed on the first pass.
        	// ---------------------------------------------------------------------------
        	try {
         	for (String failedVidStr : failedAttemptHash.keySet()) {
-    			// Take a little nap, and retry this failed attempt
-        		LOGGER.debug("DEBUG >> We will sleep for " + retryDelayMs + " and then RETRY any failed vertex ADDs. ");
-    			Thread.sleep(retryDelayMs);
+    			// Wait our turn with the rate controller, and retry this failed attempt
+    			rateController.acquire(1);
     			
     			retryCount++;
+    			loadRetries.increment();
     			// When a vertex Add fails we store the label as the data in the failedAttemptHash.
     			String failedLabel = failedAttemptHash.get(failedVidStr);
     			LOGGER.debug("DEBUG >> RETRY << " +
     					failedVidStr + ", label = " + failedLabel );
+    			long retryStartNanos = System.nanoTime();
+    			long newVtxId;
     			try {
     				Vertex tmpV = jg.addVertex(failedLabel);
-    				String newVtxIdStr = tmpV.id().toString();
-    	      		old2NewVtxIdHash.put(failedVidStr, newVtxIdStr);
+    				newVtxId = (Long) tmpV.id();
     			}
     			catch ( Exception e ){
     				retryFailureCount++;
+    				if( ReloadRateController.isBackendFailure(e) ){
+    					rateController.commitFailed();
+    				}
     				LOGGER.debug(" -- addVertex FAILED for RETRY for vtxId = " +
     						failedVidStr + ", label = [" + failedLabel + 
     						"].  ErrorMsg = [" +e.getMessage() + "]" );
@@ -178,11 +237,22 @@ public class PartialVertexLoader implements Callable<HashMap<String,String>>{
     			}
     			try { 
     				jg.tx().commit();
+    				rateController.commitSucceeded(System.nanoTime() - retryStartNanos);
+    				// Only a committed vertex goes in the map, same as for the batches
+    				old2NewVtxIdMap.put(Long.parseLong(failedVidStr), newVtxId);
+    				mappedCount++;
+    				verticesLoaded.increment();
 	       			LOGGER.debug(" -- addVertex Successful RETRY for vtxId = " +
     						failedVidStr + ", label = [" + failedLabel + "]");
+	       			if( checkpoint != null ){
+	       				checkpoint.commit(checkpoint.getLinesDone(),
+	       						new long[] {Long.parseLong(failedVidStr), newVtxId}, 1,
+	       						Collections.emptyList(), Collections.singletonList(failedLineHash.get(failedVidStr)));
+	       			}
     	       	}
     			catch ( Exception e ){
     				retryFailureCount++;
+    				rateController.commitFailed();
     				// Note - this is a "POSSIBLE" error because the reason the commit fails may be that
     				//    the node is a dupe or has some other legit reason that it should not be in the DB.
     				LOGGER.debug(" --POSSIBLE ERROR-- COMMIT FAILED for RETRY for vtxId = " + failedVidStr 
@@ -216,9 +286,101 @@ public class PartialVertexLoader implements Callable<HashMap<String,String>>{
 				entryCount + " records processed.  " + failureCount + " records failed. " +
 				retryCount + " RETRYs processed.  " + retryFailureCount + " RETRYs failed. ");
         		
-        return old2NewVtxIdHash;
+        return mappedCount;
 	        
 	}// end of call()  
+
+
+	/**
+	 * Returns the (old) vertex ids that the OUT edges in this file point to which are not
+	 * in the shared VertexIdMap yet.  The edges for this file can't be loaded until
+	 * another loader has added those vertices.  Only meaningful once call() has returned.
+	 */
+	public long [] getUnresolvedEdgeTargets() {
+		long [] targets = Arrays.copyOf(edgeTargetVids, edgeTargetCount);
+		edgeTargetVids = null;
+		Arrays.sort(targets);
+		int keep = 0;
+		for( int i = 0; i < targets.length; i++ ){
+			if( (i > 0 && targets[i] == targets[i - 1]) || old2NewVtxIdMap.containsKey(targets[i]) ){
+				continue;
+			}
+			targets[keep++] = targets[i];
+		}
+		return Arrays.copyOf(targets, keep);
+	}
+
+
+	private boolean alreadyLoaded(long lineNo, String oldVtxIdStr, String vtxLabelStr) {
+		// True if an earlier run checkpointed this line.  Lines that had failed then go back
+		// on the list for the retry pass below, unless that run's retries already got them in.
+		if( checkpoint == null || lineNo > checkpoint.getLinesDone() ){
+			return false;
+		}
+		if( !checkpoint.isDone() && checkpoint.isFailedLine(lineNo)
+				&& !old2NewVtxIdMap.containsKey(Long.parseLong(oldVtxIdStr)) ){
+			failedAttemptHash.put(oldVtxIdStr, vtxLabelStr);
+			failedLineHash.put(oldVtxIdStr, lineNo);
+		}
+		return true;
+	}
+
+
+	private void commitBatch(BisectingBatchCommitter<String[]> committer, ArrayList<String[]> batch,
+			long lastLineNo) throws Exception {
+		committer.commit(batch);
+		if( checkpoint == null ){
+			return;
+		}
+		long firstLineNo = lastLineNo - batch.size() + 1;
+		List<Long> failedLines = ReloadCheckpoint.linesOf(pendingFailures, batch, firstLineNo);
+		for( int i = 0; i < pendingFailures.size(); i++ ){
+			failedLineHash.put(pendingFailures.get(i)[0], failedLines.get(i));
+		}
+		checkpoint.commit(lastLineNo, pendingIdPairs, pendingPairCount, failedLines, Collections.emptyList());
+		pendingPairCount = 0;
+		pendingFailures.clear();
+	}
+
+
+	private void notePendingIdPair(long oldVid, long newVid) {
+		if( checkpoint == null ){
+			return;
+		}
+		if( pendingPairCount * 2 == pendingIdPairs.length ){
+			pendingIdPairs = Arrays.copyOf(pendingIdPairs, pendingIdPairs.length * 2);
+		}
+		pendingIdPairs[pendingPairCount * 2] = oldVid;
+		pendingIdPairs[pendingPairCount * 2 + 1] = newVid;
+		pendingPairCount++;
+	}
+
+
+	private void noteEdgeTarget(long inVid) {
+		if( edgeTargetCount == edgeTargetVids.length ){
+			edgeTargetVids = Arrays.copyOf(edgeTargetVids, edgeTargetCount * 2);
+		}
+		edgeTargetVids[edgeTargetCount++] = inVid;
+	}
+
+
+	private void recordFailedVertex(String[] item, Exception e) throws Exception {
+		// item is { oldVid, label, newVid }
+		// The committer already told the rate controller if the commit failed, which slows
+		// everyone down if things keep failing
+		failureCount++;
+		loadFailures.increment();
+		LOGGER.debug(" >> addVertex/COMMIT FAILED for vtxId = " + item[0] + ", label = [" 
+				+ item[1] + "].  ErrorMsg = [" + e.getMessage() + "]" );
+		failedAttemptHash.put(item[0], item[1]);
+		pendingFailures.add(item);
+		if( failureCount > maxAllowedErrors ) {
+			LOGGER.debug(" >>> Abandoning PartialVertexLoader() because " +
+					"Max Allowed Error count was exceeded for this thread. (max = " + 
+					maxAllowedErrors + ". ");
+			throw new Exception(" ERROR - Max Allowed Error count exceeded for this thread. (max = " + maxAllowedErrors + ". ");
+		}
+	}
 	
 	
 		
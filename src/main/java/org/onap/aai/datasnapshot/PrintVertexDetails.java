@@ -19,20 +19,29 @@
  */
 package org.onap.aai.datasnapshot;
 
+import java.io.File;
 import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import io.micrometer.core.instrument.Counter;
 
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.io.GraphWriter;
 import org.apache.tinkerpop.gremlin.structure.io.IoCore;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 import org.janusgraph.core.JanusGraph;
 import org.onap.aai.aailog.logs.AaiScheduledTaskAuditLog;
 import org.onap.aai.exceptions.AAIException;
 import org.onap.aai.logging.ErrorLogHelper;
+import org.onap.aai.util.GraphStatistics;
 import org.onap.logging.filter.base.ONAPComponents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +57,12 @@ public class PrintVertexDetails implements Runnable{
 	private Boolean debugOn;
 	private long debugDelayMs;
 	private String snapshotType;
+	private int compressBlockSize;
+	private SnapshotManifest.FileEntry fileEntry;
+	private Counter verticesWritten;
+	private Counter edgesWritten;
+	private Counter writeFailures;
+	private GraphStatistics.Scan statisticsScan;
 
 	static final byte[] newLineBytes = "\n".getBytes();
 	
@@ -56,12 +71,25 @@ public class PrintVertexDetails implements Runnable{
 
 	public PrintVertexDetails (JanusGraph graph, String fn, ArrayList<Long> vIdL, Boolean debugFlag, 
 			long debugAddDelayTime, String snapshotType, Logger elfLog){
+		this(graph, fn, vIdL, debugFlag, debugAddDelayTime, snapshotType, 0, elfLog);
+	}
+
+	/**
+	 * @param compressBlockSize if > 0, the file is block-compressed (see BlockCompressedOutputStream)
+	 */
+	public PrintVertexDetails (JanusGraph graph, String fn, ArrayList<Long> vIdL, Boolean debugFlag,
+			long debugAddDelayTime, String snapshotType, int compressBlockSize, Logger elfLog){
 		jg = graph;
 		fname = fn;
 		vtxIdList = vIdL;
 		debugOn = debugFlag;
 		debugDelayMs = debugAddDelayTime;
 		this.snapshotType = snapshotType;
+		this.compressBlockSize = compressBlockSize;
+		this.fileEntry = new SnapshotManifest.FileEntry(new File(fn).getName());
+		this.verticesWritten = SnapshotMetrics.verticesWritten(fn);
+		this.edgesWritten = SnapshotMetrics.edgesWritten(fn);
+		this.writeFailures = SnapshotMetrics.writeFailures(fn);
 		LOGGER = elfLog;
 		this.auditLog = new AaiScheduledTaskAuditLog();
 	}
@@ -74,13 +102,18 @@ public class PrintVertexDetails implements Runnable{
 			if (debugOn) {
 				// This is much slower, but sometimes we need to find out which single line is
 				// causing a failure
-				try(FileOutputStream subFileStr = new FileOutputStream(fname)) {
+				CheckedOutputStream checkedStr = new CheckedOutputStream(
+						SnapshotMetrics.countBytesWritten(new FileOutputStream(fname), fname), new CRC32C());
+				try(OutputStream subFileStr = BlockCompressedOutputStream.open(checkedStr, compressBlockSize)) {
 					int okCount = 0;
 					int failCount = 0;
 					Long debugDelayMsL = Long.valueOf(debugDelayMs);
 					
 					GraphWriter graphWriter = null;
-					if ("gryo".equalsIgnoreCase(snapshotType)) {
+					CompactSnapshotWriter compactWriter = null;
+					if ("compact".equalsIgnoreCase(snapshotType)) {
+						compactWriter = new CompactSnapshotWriter(subFileStr);
+					} else if ("gryo".equalsIgnoreCase(snapshotType)) {
 						graphWriter = jg.io(IoCore.gryo()).writer().create();
 					} else {
 						graphWriter = jg.io(IoCore.graphson()).writer().create();
@@ -106,11 +139,18 @@ public class PrintVertexDetails implements Runnable{
 							aaiUuid = (String) tmpV.property("aai-uuid").orElse(null);
 
 							Thread.sleep(debugDelayMsL); // Make sure it doesn't bump into itself
-							graphWriter.writeVertex(subFileStr, tmpV, Direction.BOTH);
-							subFileStr.write(newLineBytes);
+							if (compactWriter != null) {
+								compactWriter.writeVertex(tmpV);
+							} else {
+								graphWriter.writeVertex(subFileStr, tmpV, Direction.BOTH);
+								subFileStr.write(newLineBytes);
+							}
+							BlockCompressedOutputStream.endRecord(subFileStr);
+							noteVertex(tmpV);
 							okCount++;
 						} catch (Exception e) {
 							failCount++;
+							writeFailures.increment();
 							String fmsg = " >> DEBUG MODE >> Failed at:  VertexId = [" + vertexIdL
 									+ "], aai-node-type = [" + aaiNodeType + "], aai-uuid = [" + aaiUuid
 									+ "], aai-uri = [" + aaiUri + "]. ";
@@ -120,6 +160,8 @@ public class PrintVertexDetails implements Runnable{
 					}
 					System.out.println(" -- Printed " + okCount + " vertexes out to " + fname + ", with " + failCount
 							+ " failed.");
+					subFileStr.close();
+					fileEntry.finish(new File(fname), checkedStr.getChecksum());
 				} catch (Exception e) {
 					AAIException ae = new AAIException("AAI_6128", e , "Error running PrintVertexDetails in debugon");
 					ErrorLogHelper.logException(ae);
@@ -133,14 +175,38 @@ public class PrintVertexDetails implements Runnable{
 					vtxList.add(gt.next());
 				}
 				
-				try(FileOutputStream subFileStr = new FileOutputStream(fname)) {
+				CheckedOutputStream checkedStr = new CheckedOutputStream(
+						SnapshotMetrics.countBytesWritten(new FileOutputStream(fname), fname), new CRC32C());
+				try(OutputStream subFileStr = BlockCompressedOutputStream.open(checkedStr, compressBlockSize)) {
 					int count = vtxList.size();
 					Iterator<Vertex> vSubItr = vtxList.iterator();
-					if ("gryo".equalsIgnoreCase(snapshotType)) {
-						jg.io(IoCore.gryo()).writer().create().writeVertices(subFileStr, vSubItr, Direction.BOTH);
+					// One vertex at a time (same output as writeVertices), so compressed blocks end
+					// on vertex boundaries and each vertex gets counted for the manifest
+					CompactSnapshotWriter compactWriter = null;
+					GraphWriter graphWriter = null;
+					boolean gryo = "gryo".equalsIgnoreCase(snapshotType);
+					if ("compact".equalsIgnoreCase(snapshotType)) {
+						compactWriter = new CompactSnapshotWriter(subFileStr);
+					} else if (gryo) {
+						graphWriter = jg.io(IoCore.gryo()).writer().create();
 					} else {
-						jg.io(IoCore.graphson()).writer().create().writeVertices(subFileStr, vSubItr, Direction.BOTH);
+						graphWriter = jg.io(IoCore.graphson()).writer().create();
 					}
+					while (vSubItr.hasNext()) {
+						Vertex v = vSubItr.next();
+						if (compactWriter != null) {
+							compactWriter.writeVertex(v);
+						} else {
+							graphWriter.writeVertex(subFileStr, v, Direction.BOTH);
+							if (!gryo) {
+								subFileStr.write(newLineBytes);
+							}
+						}
+						BlockCompressedOutputStream.endRecord(subFileStr);
+						noteVertex(v);
+					}
+					subFileStr.close();
+					fileEntry.finish(new File(fname), checkedStr.getChecksum());
 					String pmsg = " -- Printed " + count + " vertexes out to " + fname;
 					System.out.println(pmsg);
 					LOGGER.debug(" PrintVertexDetails " + pmsg);
@@ -160,6 +226,45 @@ public class PrintVertexDetails implements Runnable{
 			jg.tx().close();
 		}
 		auditLog.logAfter();
-	}  
+	}
+
+	private void noteVertex(Vertex v) {
+		long outEdges = countOutEdges(v, statisticsScan);
+		fileEntry.addVertex(((Number) v.id()).longValue(), outEdges);
+		verticesWritten.increment();
+		edgesWritten.increment(outEdges);
+	}
+
+	/**
+	 * Counts the vertex's OUT edges, and adds the vertex and the edges to the scan if there
+	 * is one.  The edges were just read for writing, so this comes from the tx cache.
+	 */
+	static long countOutEdges(Vertex v, GraphStatistics.Scan scan) {
+		if (scan == null) {
+			return IteratorUtils.count(v.edges(Direction.OUT));
+		}
+		scan.addVertex(v.property("aai-node-type").orElse(null));
+		long outEdges = 0;
+		Iterator<Edge> edges = v.edges(Direction.OUT);
+		while (edges.hasNext()) {
+			scan.addEdge(edges.next().label());
+			outEdges++;
+		}
+		return outEdges;
+	}
+
+	/**
+	 * Counts what this writer writes into the scan (see GraphStatistics).
+	 */
+	public void setStatisticsScan(GraphStatistics.Scan statisticsScan) {
+		this.statisticsScan = statisticsScan;
+	}
+
+	/**
+	 * @return the manifest entry for the file, or null if it was not written completely
+	 */
+	public SnapshotManifest.FileEntry getFileEntry() {
+		return fileEntry.checksum == null ? null : fileEntry;
+	}
 	
 }	 
\ No newline at end of file
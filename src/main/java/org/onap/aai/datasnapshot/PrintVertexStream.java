@@ -0,0 +1,197 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import io.micrometer.core.instrument.Counter;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.io.GraphWriter;
+import org.apache.tinkerpop.gremlin.structure.io.IoCore;
+import org.janusgraph.core.JanusGraph;
+import org.onap.aai.exceptions.AAIException;
+import org.onap.aai.logging.ErrorLogHelper;
+import org.onap.aai.util.GraphStatistics;
+import org.slf4j.Logger;
+
+/**
+ * Writer side of the STREAMING_SNAPSHOT command.
+ *
+ * Each instance owns its own series of ".P" files.  It pulls batches of vertex ids off a
+ * shared bounded queue (filled by the single scanning thread in DataSnapshot) and writes
+ * those vertices out as soon as they arrive, so no thread ever needs the full list of ids.
+ * When the current file reaches maxNodesPerFile, the writer rolls over to its next file
+ * number (writerNum + writerCount, writerNum + 2*writerCount, ...).
+ * If compressBlockSize > 0 the files are block-compressed (see BlockCompressedOutputStream)
+ * as they are written.
+ */
+public class PrintVertexStream implements Callable<Long> {
+
+	/** Marker put on the queue (once per writer) when the scan is done. */
+	static final long[] END_OF_SCAN = new long[0];
+
+	static final byte[] newLineBytes = "\n".getBytes();
+
+	private Logger LOGGER;
+
+	private JanusGraph jg;
+	private String fnamePrefix;
+	private int writerNum;
+	private int writerCount;
+	private long maxNodesPerFile;
+	private BlockingQueue<long[]> idBatchQueue;
+	private String snapshotType;
+	private int compressBlockSize;
+	private List<SnapshotManifest.FileEntry> fileEntries = new ArrayList<>();
+	private GraphStatistics.Scan statisticsScan;
+
+	public PrintVertexStream(JanusGraph graph, String fnPrefix, int writerNum, int writerCount,
+			long maxNodesPerFile, BlockingQueue<long[]> idBatchQueue, String snapshotType, int compressBlockSize,
+			Logger elfLog) {
+		jg = graph;
+		fnamePrefix = fnPrefix;
+		this.writerNum = writerNum;
+		this.writerCount = writerCount;
+		this.maxNodesPerFile = maxNodesPerFile;
+		this.idBatchQueue = idBatchQueue;
+		this.snapshotType = snapshotType;
+		this.compressBlockSize = compressBlockSize;
+		LOGGER = elfLog;
+	}
+
+	public Long call() throws Exception {
+
+		boolean compact = "compact".equalsIgnoreCase(snapshotType);
+		GraphWriter graphWriter = null;
+		if ("gryo".equalsIgnoreCase(snapshotType)) {
+			graphWriter = jg.io(IoCore.gryo()).writer().create();
+		} else {
+			graphWriter = jg.io(IoCore.graphson()).writer().create();
+		}
+
+		long totalCount = 0;
+		long countInThisFile = 0;
+		int fileNo = writerNum;
+		String fname = fnamePrefix + ".P" + fileNo;
+		// The meters are per writer (tagged with its first file) rather than per file, so
+		// rolling over to more files doesn't make more of them
+		String metricsFname = fname;
+		CheckedOutputStream checkedStr = new CheckedOutputStream(
+				SnapshotMetrics.countBytesWritten(new FileOutputStream(fname), metricsFname), new CRC32C());
+		OutputStream subFileStr = BlockCompressedOutputStream.open(checkedStr, compressBlockSize);
+		SnapshotManifest.FileEntry fileEntry = new SnapshotManifest.FileEntry(new File(fname).getName());
+		CompactSnapshotWriter compactWriter = compact ? new CompactSnapshotWriter(subFileStr) : null;
+		Counter verticesWritten = SnapshotMetrics.verticesWritten(metricsFname);
+		Counter edgesWritten = SnapshotMetrics.edgesWritten(metricsFname);
+		try {
+			while (true) {
+				long[] idBatch = idBatchQueue.take();
+				if (idBatch == END_OF_SCAN) {
+					break;
+				}
+				Object[] ids = new Object[idBatch.length];
+				for (int i = 0; i < idBatch.length; i++) {
+					ids[i] = idBatch[i];
+				}
+				try {
+					GraphTraversal<Vertex, Vertex> gt = jg.traversal().V(ids);
+					while (gt.hasNext()) {
+						if (countInThisFile >= maxNodesPerFile) {
+							// Roll over to the next file that this writer owns
+							subFileStr.close();
+							fileEntry.finish(new File(fname), checkedStr.getChecksum());
+							fileEntries.add(fileEntry);
+							LOGGER.debug(" PrintVertexStream -- Printed " + countInThisFile
+									+ " vertexes out to " + fname);
+							fileNo += writerCount;
+							fname = fnamePrefix + ".P" + fileNo;
+							checkedStr = new CheckedOutputStream(
+									SnapshotMetrics.countBytesWritten(new FileOutputStream(fname), metricsFname), new CRC32C());
+							subFileStr = BlockCompressedOutputStream.open(checkedStr, compressBlockSize);
+							fileEntry = new SnapshotManifest.FileEntry(new File(fname).getName());
+							if (compact) {
+								// Each file gets its own dictionary
+								compactWriter = new CompactSnapshotWriter(subFileStr);
+							}
+							countInThisFile = 0;
+						}
+						Vertex v = gt.next();
+						if (compact) {
+							compactWriter.writeVertex(v);
+						} else {
+							graphWriter.writeVertex(subFileStr, v, Direction.BOTH);
+							subFileStr.write(newLineBytes);
+						}
+						BlockCompressedOutputStream.endRecord(subFileStr);
+						long outEdges = PrintVertexDetails.countOutEdges(v, statisticsScan);
+						fileEntry.addVertex(((Number) v.id()).longValue(), outEdges);
+						verticesWritten.increment();
+						edgesWritten.increment(outEdges);
+						countInThisFile++;
+						totalCount++;
+					}
+				} finally {
+					// We only read here, so drop this thread's transaction after each batch
+					// to keep its vertex cache from growing for the life of the snapshot.
+					jg.tx().rollback();
+				}
+			}
+		} catch (Exception e) {
+			AAIException ae = new AAIException("AAI_6128", e, "Error running PrintVertexStream for file " + fname);
+			ErrorLogHelper.logException(ae);
+			throw e;
+		} finally {
+			subFileStr.close();
+			jg.tx().close();
+		}
+		fileEntry.finish(new File(fname), checkedStr.getChecksum());
+		fileEntries.add(fileEntry);
+		String pmsg = " -- Writer # " + writerNum + " printed " + totalCount + " vertexes, last file was " + fname;
+		System.out.println(pmsg);
+		LOGGER.debug(" PrintVertexStream " + pmsg);
+		return totalCount;
+	}
+
+	/**
+	 * Counts what this writer writes into the scan (see GraphStatistics).
+	 */
+	public void setStatisticsScan(GraphStatistics.Scan statisticsScan) {
+		this.statisticsScan = statisticsScan;
+	}
+
+	/**
+	 * @return the manifest entries for the files this writer wrote (once call() has returned)
+	 */
+	public List<SnapshotManifest.FileEntry> getFileEntries() {
+		return fileEntries;
+	}
+
+}
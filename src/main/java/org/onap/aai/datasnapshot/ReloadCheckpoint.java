@@ -0,0 +1,307 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+
+/**
+ * Durable progress of one reload phase (vertices or edges/properties) for one snapshot file,
+ * so a MULTITHREAD_RELOAD that died part way can pick up where it left off instead of
+ * starting over from an empty database.
+ *
+ * The checkpoint is an append-only file, &lt;snapshot file name&gt;.&lt;phase&gt;.ckpt, in the
+ * checkpoint directory.  After every batch commit the loader appends one record with how many
+ * lines of the snapshot file are done, the old to new vertex id pairs that batch produced, the
+ * lines that failed (they still get retried) and the failed lines that a retry has since fixed.
+ * Each record is forced to disk before the loader goes on, and carries a CRC so a record that
+ * was only partly written when the process died is dropped on the next start.  A checkpoint
+ * that was written for a different copy of the snapshot file (other length or timestamp) is
+ * thrown away.
+ *
+ * A batch that was committed but not yet checkpointed when the process died gets loaded again.
+ * In the vertex phase that leaves up to one batch per file of extra bare vertices behind
+ * (nothing points to them).  In the edge phase it would add those edges twice, so while a
+ * file isResumed() the edge loader skips an edge that the vertex already has.
+ */
+public class ReloadCheckpoint implements Closeable {
+
+	public static final String VERTEX_PHASE = "vertices";
+	public static final String EDGE_PHASE = "edges";
+	public static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+	private static final long MAGIC = 0x41414952434B5031L;  // "AAIRCKP1"
+	private static final int HEADER_LENGTH = 24;
+	private static final byte BATCH_RECORD = 1;
+	private static final byte DONE_RECORD = 2;
+
+	private final File ckptFile;
+	private final File snapshotFile;
+	private final Logger LOGGER;
+	private FileChannel channel;
+
+	private long linesDone = 0;
+	private long mappingCount = 0;
+	private boolean done = false;
+	private boolean resumed = false;
+	private Set<Long> failedLines = new HashSet<>();
+
+	public ReloadCheckpoint(File checkpointDir, String snapshotFileName, String phase, Logger elfLog) {
+		snapshotFile = new File(snapshotFileName);
+		ckptFile = checkpointFile(checkpointDir, snapshotFileName, phase);
+		LOGGER = elfLog;
+	}
+
+	/**
+	 * Reads what an earlier run got done, putting the id pairs it produced back into the
+	 * given map (if there is one), and opens the checkpoint for appending.
+	 */
+	public void resume(VertexIdMap vidMap) throws IOException {
+		ckptFile.getParentFile().mkdirs();
+		channel = FileChannel.open(ckptFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		long goodLength = 0;
+		if (channel.size() >= HEADER_LENGTH) {
+			ByteBuffer header = readFully(0, HEADER_LENGTH);
+			if (header.getLong() == MAGIC && header.getLong() == snapshotFile.length()
+					&& header.getLong() == snapshotFile.lastModified()) {
+				goodLength = replay(vidMap);
+				resumed = true;
+			} else {
+				LOGGER.warn(" -- checkpoint " + ckptFile + " was written for another copy of "
+						+ snapshotFile.getName() + ", starting this file over");
+			}
+		}
+		if (goodLength == 0) {
+			resumed = false;
+			linesDone = 0;
+			mappingCount = 0;
+			done = false;
+			failedLines.clear();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+			header.putLong(MAGIC).putLong(snapshotFile.length()).putLong(snapshotFile.lastModified()).flip();
+			channel.truncate(0);
+			channel.write(header, 0);
+			goodLength = HEADER_LENGTH;
+		}
+		// Drop anything after the last good record, then append from there
+		channel.truncate(goodLength);
+		channel.position(goodLength);
+		channel.force(false);
+	}
+
+	/**
+	 * Durably records one committed batch.
+	 *
+	 * @param linesDone    lines (or records) of the snapshot file that are done, counting from 1
+	 * @param idPairs      old and new vertex ids, one after the other, for the vertices added
+	 * @param pairCount    number of pairs in idPairs
+	 * @param newFailures  lines that failed and are waiting to be retried
+	 * @param fixedLines   earlier failed lines that a retry has since loaded
+	 */
+	public void commit(long linesDone, long[] idPairs, int pairCount, List<Long> newFailures,
+			List<Long> fixedLines) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(32 + pairCount * 16);
+		DataOutputStream dos = new DataOutputStream(bos);
+		dos.writeByte(BATCH_RECORD);
+		dos.writeLong(linesDone);
+		dos.writeInt(pairCount);
+		for (int i = 0; i < pairCount * 2; i++) {
+			dos.writeLong(idPairs[i]);
+		}
+		writeLines(dos, newFailures);
+		writeLines(dos, fixedLines);
+		append(bos.toByteArray());
+		this.linesDone = linesDone;
+		this.mappingCount += pairCount;
+		failedLines.addAll(newFailures);
+		failedLines.removeAll(fixedLines);
+	}
+
+	/** Durably records that this phase is done for the file, retries included. */
+	public void finish() throws IOException {
+		append(new byte[] {DONE_RECORD});
+		done = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	public long getLinesDone() {
+		return linesDone;
+	}
+
+	public long getMappingCount() {
+		return mappingCount;
+	}
+
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * @return true if an earlier run had started this phase for this copy of the snapshot
+	 *   file, so some of what comes after getLinesDone() may already be in the database
+	 */
+	public boolean isResumed() {
+		return resumed;
+	}
+
+	/** @return true if the given line failed before and has not been loaded by a retry yet */
+	public boolean isFailedLine(long lineNo) {
+		return failedLines.contains(lineNo);
+	}
+
+	/**
+	 * @return true if a checkpoint says the phase is done for this copy of the snapshot file
+	 */
+	public static boolean isDone(File checkpointDir, String snapshotFileName, String phase, Logger elfLog)
+			throws IOException {
+		if (!checkpointFile(checkpointDir, snapshotFileName, phase).exists()) {
+			return false;
+		}
+		try (ReloadCheckpoint ckpt = new ReloadCheckpoint(checkpointDir, snapshotFileName, phase, elfLog)) {
+			ckpt.resume(null);
+			return ckpt.isDone();
+		}
+	}
+
+	/** Deletes the checkpoints of both phases for a snapshot file. */
+	public static void remove(File checkpointDir, String snapshotFileName) throws IOException {
+		for (String phase : new String[] {VERTEX_PHASE, EDGE_PHASE}) {
+			Files.deleteIfExists(checkpointFile(checkpointDir, snapshotFileName, phase).toPath());
+		}
+	}
+
+	static File checkpointFile(File checkpointDir, String snapshotFileName, String phase) {
+		return new File(checkpointDir, new File(snapshotFileName).getName() + "." + phase + CHECKPOINT_SUFFIX);
+	}
+
+	/**
+	 * @return the line numbers (counting from 1) of some items of a batch whose first item
+	 *   came from line firstLineNo
+	 */
+	static List<Long> linesOf(List<?> items, List<?> batch, long firstLineNo) {
+		List<Long> lines = new ArrayList<>(items.size());
+		for (Object item : items) {
+			for (int i = 0; i < batch.size(); i++) {
+				if (batch.get(i) == item) {
+					lines.add(firstLineNo + i);
+					break;
+				}
+			}
+		}
+		return lines;
+	}
+
+	// Returns the length of the file up to the end of the last good record
+	private long replay(VertexIdMap vidMap) throws IOException {
+		long pos = HEADER_LENGTH;
+		long size = channel.size();
+		while (pos + 8 <= size) {
+			ByteBuffer lenAndCrc = readFully(pos, 8);
+			int len = lenAndCrc.getInt();
+			int crc = lenAndCrc.getInt();
+			if (len <= 0 || pos + 8 + len > size) {
+				break;
+			}
+			ByteBuffer rec = readFully(pos + 8, len);
+			CRC32 check = new CRC32();
+			check.update(rec.array(), 0, len);
+			if ((int) check.getValue() != crc) {
+				break;
+			}
+			if (rec.get() == DONE_RECORD) {
+				done = true;
+			} else {
+				linesDone = rec.getLong();
+				int pairCount = rec.getInt();
+				for (int i = 0; i < pairCount; i++) {
+					long oldVid = rec.getLong();
+					long newVid = rec.getLong();
+					if (vidMap != null) {
+						vidMap.put(oldVid, newVid);
+					}
+				}
+				mappingCount += pairCount;
+				for (int i = rec.getInt(); i > 0; i--) {
+					failedLines.add(rec.getLong());
+				}
+				for (int i = rec.getInt(); i > 0; i--) {
+					failedLines.remove(rec.getLong());
+				}
+			}
+			pos += 8 + len;
+		}
+		if (pos < size) {
+			LOGGER.debug(" -- dropping " + (size - pos) + " bytes of a partly written record from " + ckptFile);
+		}
+		return pos;
+	}
+
+	private void append(byte[] rec) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(rec);
+		ByteBuffer buf = ByteBuffer.allocate(8 + rec.length);
+		buf.putInt(rec.length).putInt((int) crc.getValue()).put(rec).flip();
+		while (buf.hasRemaining()) {
+			channel.write(buf);
+		}
+		channel.force(false);
+	}
+
+	private ByteBuffer readFully(long pos, int len) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(len);
+		while (buf.hasRemaining()) {
+			if (channel.read(buf, pos + buf.position()) < 0) {
+				throw new IOException("Unexpected end of checkpoint " + ckptFile);
+			}
+		}
+		buf.flip();
+		return buf;
+	}
+
+	private static void writeLines(DataOutputStream dos, List<Long> lines) throws IOException {
+		dos.writeInt(lines.size());
+		for (Long line : lines) {
+			dos.writeLong(line);
+		}
+	}
+
+}
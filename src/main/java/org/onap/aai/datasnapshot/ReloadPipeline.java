@@ -0,0 +1,216 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+import org.janusgraph.core.JanusGraph;
+import org.onap.aai.exceptions.AAIException;
+import org.onap.aai.logging.ErrorLogHelper;
+import org.slf4j.Logger;
+
+/**
+ * Runs the two steps of a MULTITHREAD_RELOAD (bare vertices, then edges/properties) as
+ * one pipeline instead of two passes with a barrier between them.
+ *
+ * Every snapshot file gets a vertex-load task right away.  When a file's vertices are in,
+ * the file waits only until every vertex its OUT edges point to has a new id in the
+ * VertexIdMap, and then its edge/property task is queued.  Once all the vertex loads are
+ * done, any file still waiting is released (its edge loader reports the ids that never
+ * got translated, as before).  All tasks share one executor, so a work-stealing pool
+ * keeps every thread busy until the last file is finished.
+ */
+public class ReloadPipeline {
+
+	private Logger LOGGER;
+
+	private JanusGraph jg;
+	private ExecutorService executor;
+	private VertexIdMap old2NewVidMap;
+	private Function<String, PartialVertexLoader> vertexLoaderFactory;
+	private Function<String, Callable<?>> edgeLoaderFactory;
+
+	// file name -> old vertex ids its edges need that are not translated yet
+	private Map<String, long[]> waitingFiles = new LinkedHashMap<>();
+	private int fileCount = 0;
+	private int vertexLoadsDone = 0;
+	private int outstandingTasks = 0;
+	private int vertexFailCount = 0;
+	private int edgeFailCount = 0;
+	private long vertexLoadsEndNanos = 0;
+
+	public ReloadPipeline(JanusGraph graph, ExecutorService executor, VertexIdMap vidMap,
+			Function<String, PartialVertexLoader> vertexLoaderFactory,
+			Function<String, Callable<?>> edgeLoaderFactory, Logger elfLog) {
+		jg = graph;
+		this.executor = executor;
+		old2NewVidMap = vidMap;
+		this.vertexLoaderFactory = vertexLoaderFactory;
+		this.edgeLoaderFactory = edgeLoaderFactory;
+		LOGGER = elfLog;
+	}
+
+	/**
+	 * Loads the given snapshot files and waits until every task has finished.
+	 */
+	public void run(List<String> fileNames, long staggerThreadDelayMs) throws InterruptedException {
+		synchronized (this) {
+			fileCount = fileNames.size();
+		}
+		int fileNo = 0;
+		for (String fileName : fileNames) {
+			Thread.sleep(staggerThreadDelayMs);  // Stagger the threads a bit
+			LOGGER.debug(" --  Starting PartialVertexLoader for file # " + fileNo + " [" + fileName + "]");
+			submit(() -> loadVertices(fileName));
+			fileNo++;
+		}
+		synchronized (this) {
+			while (outstandingTasks > 0) {
+				wait();
+			}
+		}
+	}
+
+	public synchronized int getVertexFailCount() {
+		return vertexFailCount;
+	}
+
+	public synchronized int getEdgeFailCount() {
+		return edgeFailCount;
+	}
+
+	/**
+	 * @return System.nanoTime() when the last vertex load finished
+	 */
+	public synchronized long getVertexLoadsEndNanos() {
+		return vertexLoadsEndNanos;
+	}
+
+	private void loadVertices(String fileName) {
+		long[] unresolved = null;
+		try {
+			PartialVertexLoader vLoader = vertexLoaderFactory.apply(fileName);
+			Long mapped = vLoader.call();
+			unresolved = vLoader.getUnresolvedEdgeTargets();
+			LOGGER.debug(" -- back from PartialVertexLoader for [" + fileName + "], it mapped " + mapped
+					+ " vertices, its edges are waiting on " + unresolved.length + " vertices from other files"
+					+ ", current size of old2NewVertMap is: " + old2NewVidMap.size());
+		} catch (Exception e) {
+			AAIException ae = new AAIException("AAI_6128", e, "PartialVertexLoader failed for " + fileName);
+			ErrorLogHelper.logException(ae);
+		}
+		synchronized (this) {
+			vertexLoadsDone++;
+			if (unresolved == null) {
+				vertexFailCount++;
+			} else {
+				waitingFiles.put(fileName, unresolved);
+			}
+			if (vertexLoadsDone == fileCount) {
+				vertexLoadsEndNanos = System.nanoTime();
+			}
+			releaseReadyFiles();
+		}
+	}
+
+	private void loadEdges(String fileName) {
+		try {
+			edgeLoaderFactory.apply(fileName).call();
+			LOGGER.debug(" -- back from PartialPropAndEdgeLoader for [" + fileName + "]");
+		} catch (Exception e) {
+			synchronized (this) {
+				edgeFailCount++;
+			}
+			AAIException ae = new AAIException("AAI_6128", e, "PartialPropAndEdgeLoader failed for " + fileName);
+			ErrorLogHelper.logException(ae);
+		}
+	}
+
+	// Caller must hold the lock on this
+	private void releaseReadyFiles() {
+		if (vertexFailCount > 0) {
+			// Same as before: no edges get loaded if any vertex loader failed
+			if (!waitingFiles.isEmpty()) {
+				LOGGER.debug(" -- a vertex loader failed, so edges/properties will not be loaded for "
+						+ waitingFiles.size() + " waiting file(s)");
+				waitingFiles.clear();
+			}
+			return;
+		}
+		boolean allVerticesLoaded = (vertexLoadsDone == fileCount);
+		Iterator<Map.Entry<String, long[]>> it = waitingFiles.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, long[]> entry = it.next();
+			long[] stillNeeded = dropTranslatedIds(entry.getValue());
+			if (stillNeeded.length == 0 || allVerticesLoaded) {
+				it.remove();
+				if (stillNeeded.length > 0) {
+					LOGGER.debug(" -- all vertex loads are done, but " + stillNeeded.length
+							+ " edge target vertices are still missing for [" + entry.getKey() + "]");
+				}
+				String fileName = entry.getKey();
+				LOGGER.debug(" --  Starting PartialPropAndEdgeLoader for [" + fileName + "]");
+				submit(() -> loadEdges(fileName));
+			} else {
+				entry.setValue(stillNeeded);
+			}
+		}
+	}
+
+	private long[] dropTranslatedIds(long[] ids) {
+		int keep = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (!old2NewVidMap.containsKey(ids[i])) {
+				ids[keep++] = ids[i];
+			}
+		}
+		return keep == ids.length ? ids : Arrays.copyOf(ids, keep);
+	}
+
+	private synchronized void submit(Runnable task) {
+		outstandingTasks++;
+		executor.execute(() -> {
+			try {
+				task.run();
+			} finally {
+				try {
+					// Pool threads get reused, don't let an open transaction carry over
+					jg.tx().rollback();
+				} catch (Exception e) {
+					LOGGER.debug(" -- rollback after reload task failed. ErrorMsg = [" + e.getMessage() + "]");
+				}
+				taskDone();
+			}
+		});
+	}
+
+	private synchronized void taskDone() {
+		outstandingTasks--;
+		notifyAll();
+	}
+
+}
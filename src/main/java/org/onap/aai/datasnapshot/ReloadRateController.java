@@ -0,0 +1,196 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.slf4j.Logger;
+
+/**
+ * Paces the snapshot reload loaders so they go as fast as the database can take.
+ *
+ * One instance is shared by all the loader threads.  Each thread asks for permission
+ * (acquire) before it writes a batch and reports how its commits went.  The controller
+ * keeps one overall rate in items per second and adjusts it AIMD style: every
+ * ADJUST_INTERVAL it adds a fixed step to the rate if the average commit latency and
+ * the commit error rate were under target, and cuts the rate in half if they were not.
+ * This replaces the fixed vertAddDelayMs/edgeAddDelayMs/failureDelayMs/retryDelayMs
+ * sleeps, which had to be tuned by hand for each environment.
+ *
+ * Every commit latency and failure is also published (see SnapshotMetrics).
+ */
+public class ReloadRateController {
+
+	static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+	static final double DECREASE_FACTOR = 0.5;
+
+	private Logger LOGGER;
+
+	private final double minRate;
+	private final double maxRate;
+	private final double increaseStep;
+	private final long targetLatencyNanos;
+	private final double maxErrorRate;
+	private final LongSupplier nanoClock;
+
+	private double rate;
+	private long nextFreeNanos = 0;
+
+	// Stats for the current adjustment window
+	private long windowStartNanos;
+	private long windowCommits = 0;
+	private long windowFailures = 0;
+	private long windowLatencyNanos = 0;
+
+	// Totals for the whole load
+	private long totalItems = 0;
+	private long totalCommits = 0;
+	private long totalFailures = 0;
+	private int increaseCount = 0;
+	private int decreaseCount = 0;
+
+	/**
+	 * @param initialRate items per second to start at
+	 * @param minRate the rate never goes below this
+	 * @param maxRate the rate never goes above this
+	 * @param targetLatencyMs back off if the average commit takes longer than this
+	 * @param maxErrorRate back off if more than this fraction of commits fail
+	 */
+	public ReloadRateController(double initialRate, double minRate, double maxRate, long targetLatencyMs,
+			double maxErrorRate, Logger elfLog) {
+		this(initialRate, minRate, maxRate, targetLatencyMs, maxErrorRate, System::nanoTime, elfLog);
+	}
+
+	/**
+	 * @param nanoClock what paces the items and tells the adjustment windows apart (System.nanoTime
+	 *   outside of tests)
+	 */
+	ReloadRateController(double initialRate, double minRate, double maxRate, long targetLatencyMs,
+			double maxErrorRate, LongSupplier nanoClock, Logger elfLog) {
+		if (minRate <= 0 || maxRate < minRate) {
+			throw new IllegalArgumentException("Bad reload rate limits, min = " + minRate + ", max = " + maxRate);
+		}
+		this.minRate = minRate;
+		this.maxRate = maxRate;
+		this.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+		// Climb back from the minimum to the starting rate in about ten windows
+		this.increaseStep = Math.max(1.0, this.rate / 10.0);
+		this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+		this.maxErrorRate = maxErrorRate;
+		this.nanoClock = nanoClock;
+		this.windowStartNanos = nanoClock.getAsLong();
+		LOGGER = elfLog;
+	}
+
+	/**
+	 * Waits until the given number of items may be written at the current rate.
+	 */
+	public void acquire(int items) throws InterruptedException {
+		long waitNanos;
+		synchronized (this) {
+			long now = nanoClock.getAsLong();
+			long start = Math.max(now, nextFreeNanos);
+			nextFreeNanos = start + (long) (items * 1e9 / rate);
+			totalItems += items;
+			waitNanos = start - now;
+		}
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/**
+	 * Reports a commit that worked and how long it took.
+	 */
+	public synchronized void commitSucceeded(long latencyNanos) {
+		SnapshotMetrics.commitSucceeded(latencyNanos);
+		windowCommits++;
+		totalCommits++;
+		windowLatencyNanos += latencyNanos;
+		adjustIfDue();
+	}
+
+	/**
+	 * Reports a commit that failed, or a write that failed on the storage backend (see
+	 * isBackendFailure).  Items that are rejected for their data should not be reported:
+	 * bisecting a batch around one bad item fails several times, and each time would cut
+	 * the rate of every loader thread in half.
+	 */
+	public synchronized void commitFailed() {
+		SnapshotMetrics.commitFailed();
+		windowFailures++;
+		totalFailures++;
+		adjustIfDue();
+	}
+
+	/**
+	 * @return true if the exception (or one of its causes) came from the storage backend or
+	 *   timed out, rather than from the item that was being written
+	 */
+	public static boolean isBackendFailure(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof BackendException || t instanceof TimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	public synchronized String getStats() {
+		return String.format("current rate = %.1f items/sec, %d items paced, %d commits, %d failed commits, "
+				+ "rate raised %d times, lowered %d times", rate, totalItems, totalCommits, totalFailures,
+				increaseCount, decreaseCount);
+	}
+
+	private void adjustIfDue() {
+		long now = nanoClock.getAsLong();
+		if (now - windowStartNanos < ADJUST_INTERVAL_NANOS) {
+			return;
+		}
+		long attempts = windowCommits + windowFailures;
+		double errorRate = attempts == 0 ? 0.0 : (double) windowFailures / attempts;
+		long avgLatencyNanos = windowCommits == 0 ? 0 : windowLatencyNanos / windowCommits;
+		double oldRate = rate;
+		if (errorRate > maxErrorRate || avgLatencyNanos > targetLatencyNanos) {
+			rate = Math.max(minRate, rate * DECREASE_FACTOR);
+			decreaseCount++;
+		} else {
+			rate = Math.min(maxRate, rate + increaseStep);
+			increaseCount++;
+		}
+		if (rate != oldRate) {
+			LOGGER.debug(String.format(" -- ReloadRateController: rate %.1f -> %.1f items/sec "
+					+ "(avg commit latency %d ms, %d of %d commits failed)", oldRate, rate,
+					TimeUnit.NANOSECONDS.toMillis(avgLatencyNanos), windowFailures, attempts));
+		}
+		windowStartNanos = now;
+		windowCommits = 0;
+		windowFailures = 0;
+		windowLatencyNanos = 0;
+	}
+
+}
@@ -0,0 +1,510 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+
+/**
+ * The manifest for a chain of incremental snapshots: one full (base) snapshot followed by
+ * the delta snapshots taken since, oldest first.
+ *
+ * Each snapshot in the chain records its high-water mark: the time (aai-last-mod-ts
+ * scale, ms) the scan for it started.  A delta holds every vertex (with all of its
+ * edges) whose aai-last-mod-ts is after the previous snapshot's high-water mark, plus a
+ * ".tombstones" file listing the vertex ids that went away since then.  To find those,
+ * every snapshot in the chain also keeps a ".vids" file with the sorted ids of all the
+ * vertices the chain holds up to it.
+ *
+ * The chain's files live in the dataSnapshots directory next to the other snapshots;
+ * holds() tells the snapshot cleanup which of them it must leave alone.
+ *
+ * merge() turns a chain back into a plain multi-file snapshot that MULTITHREAD_RELOAD
+ * can load.
+ */
+public class SnapshotChain {
+
+	public static final String MANIFEST_FILE_NAME = "dataSnapshot.chain.manifest";
+	public static final String VERTEX_ID_SUFFIX = ".vids";
+	public static final String TOMBSTONE_SUFFIX = ".tombstones";
+
+	/** One snapshot in the chain. */
+	public static class Link {
+		public String snapshotName;
+		public long sinceTs;
+		public long highWaterMark;
+		public long vertexCount;
+		public long tombstoneCount;
+	}
+
+	private Link base;
+	private List<Link> deltas = new ArrayList<>();
+
+	public static SnapshotChain newChain(Link base) {
+		SnapshotChain chain = new SnapshotChain();
+		chain.base = base;
+		return chain;
+	}
+
+	/**
+	 * @return the chain recorded in dir, or null if there isn't one
+	 */
+	public static SnapshotChain load(File dir) throws IOException {
+		File f = new File(dir, MANIFEST_FILE_NAME);
+		if (!f.exists()) {
+			return null;
+		}
+		try (Reader r = new BufferedReader(new FileReader(f))) {
+			SnapshotChain chain = new Gson().fromJson(r, SnapshotChain.class);
+			if (chain == null || chain.base == null) {
+				throw new IOException("Snapshot chain manifest " + f + " has no base snapshot");
+			}
+			if (chain.deltas == null) {
+				chain.deltas = new ArrayList<>();
+			}
+			return chain;
+		}
+	}
+
+	public void save(File dir) throws IOException {
+		// Write a temp file and move it over the old one, so a crash can't leave half a manifest
+		File tmp = new File(dir, MANIFEST_FILE_NAME + ".tmp");
+		try (Writer w = new BufferedWriter(new FileWriter(tmp))) {
+			new GsonBuilder().setPrettyPrinting().create().toJson(this, w);
+		}
+		Files.move(tmp.toPath(), new File(dir, MANIFEST_FILE_NAME).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public void addDelta(Link delta) {
+		deltas.add(delta);
+	}
+
+	public Link getBase() {
+		return base;
+	}
+
+	public List<Link> getDeltas() {
+		return deltas;
+	}
+
+	/** The newest snapshot in the chain. */
+	public Link getLast() {
+		return deltas.isEmpty() ? base : deltas.get(deltas.size() - 1);
+	}
+
+	/**
+	 * @return true if the file is one the chain needs: its manifest, or a file (snapshot
+	 *   file, manifest, ".vids" or ".tombstones") of one of its snapshots
+	 */
+	public boolean holds(String fileName) {
+		if (fileName.startsWith(MANIFEST_FILE_NAME)) {
+			return true;
+		}
+		List<Link> links = new ArrayList<>(deltas);
+		links.add(base);
+		for (Link link : links) {
+			if (fileName.equals(link.snapshotName) || fileName.startsWith(link.snapshotName + ".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Writes sorted vertex ids as varint-encoded gaps, which keeps the file small.
+	 */
+	public static void writeVertexIds(File f, long[] sortedIds, int count) throws IOException {
+		try (VertexIdWriter out = new VertexIdWriter(f)) {
+			for (int i = 0; i < count; i++) {
+				out.write(sortedIds[i]);
+			}
+		}
+	}
+
+	public static long[] readVertexIds(File f) throws IOException {
+		try (VertexIdReader in = new VertexIdReader(f)) {
+			long[] ids = new long[in.count];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = in.next();
+			}
+			return ids;
+		}
+	}
+
+	/**
+	 * Writes the ".vids" and ".tombstones" files of a delta without having the ids of every
+	 * vertex in an array.  The previous snapshot's ids are streamed from its ".vids" file:
+	 * the ones that are not in the graph any more are the tombstones, the others stay in the
+	 * chain.  The delta's own vertices that the chain did not have yet are added to them.
+	 *
+	 * @param currentIds the ids of the vertices in the graph now (the values are not used)
+	 * @param sortedDeltaIds the ids of the vertices written to the delta, sorted
+	 * @return the number of tombstones
+	 */
+	public static long writeDeltaVertexIds(File previousIdFile, VertexIdMap currentIds, long[] sortedDeltaIds,
+			int deltaCount, File idFile, File tombstoneFile) throws IOException {
+		try (VertexIdReader previous = new VertexIdReader(previousIdFile);
+				VertexIdWriter ids = new VertexIdWriter(idFile);
+				VertexIdWriter tombstones = new VertexIdWriter(tombstoneFile)) {
+			int d = 0;
+			for (int i = 0; i < previous.count; i++) {
+				long id = previous.next();
+				while (d < deltaCount && sortedDeltaIds[d] < id) {
+					ids.write(sortedDeltaIds[d++]);
+				}
+				if (d < deltaCount && sortedDeltaIds[d] == id) {
+					d++;
+				}
+				if (currentIds.containsKey(id)) {
+					ids.write(id);
+				} else {
+					tombstones.write(id);
+				}
+			}
+			while (d < deltaCount) {
+				ids.write(sortedDeltaIds[d++]);
+			}
+			return tombstones.count;
+		}
+	}
+
+	/** Writes ascending ids to a ".vids" style file, the count going in front when it is closed. */
+	private static class VertexIdWriter implements Closeable {
+		private final File f;
+		private final DataOutputStream out;
+		private int count = 0;
+		private long prev = 0;
+
+		VertexIdWriter(File f) throws IOException {
+			this.f = f;
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 65536));
+			out.writeInt(0);
+		}
+
+		void write(long id) throws IOException {
+			long gap = id - prev;
+			while ((gap & ~0x7FL) != 0) {
+				out.writeByte((int) ((gap & 0x7F) | 0x80));
+				gap >>>= 7;
+			}
+			out.writeByte((int) gap);
+			prev = id;
+			count++;
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+			try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+				raf.writeInt(count);
+			}
+		}
+	}
+
+	/** Reads the ids of a ".vids" style file one at a time. */
+	private static class VertexIdReader implements Closeable {
+		private final File f;
+		private final DataInputStream in;
+		private final int count;
+		private long prev = 0;
+
+		VertexIdReader(File f) throws IOException {
+			this.f = f;
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 65536));
+			try {
+				this.count = in.readInt();
+			} catch (IOException e) {
+				in.close();
+				throw new IOException("Vertex id file " + f + " is truncated", e);
+			}
+		}
+
+		long next() throws IOException {
+			try {
+				long gap = 0;
+				int shift = 0;
+				int b;
+				do {
+					b = in.readUnsignedByte();
+					gap |= (long) (b & 0x7F) << shift;
+					shift += 7;
+				} while ((b & 0x80) != 0);
+				prev += gap;
+				return prev;
+			} catch (EOFException e) {
+				throw new IOException("Vertex id file " + f + " is truncated", e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+
+	/**
+	 * Writes the latest version of every vertex in the chain into outDir as the multi-file
+	 * snapshot outName.P0, outName.P1, ...  Deltas are read newest first, so the first
+	 * time a vertex id is seen wins, and tombstoned vertices are left out.  Edges are left
+	 * out if they point to a vertex that was deleted, or to a vertex that was re-written by
+	 * a newer snapshot that no longer has the edge.  An edge that a delta vertex has coming
+	 * IN from a vertex that did not change (so only an older snapshot has it, maybe from
+	 * before the edge was added) is put in that vertex's OUT edges, since those are the
+	 * only edges the reload adds.
+	 *
+	 * @return the number of vertices written
+	 */
+	public long merge(File snapshotDir, File outDir, String outName, Logger logger) throws IOException {
+		if (!outDir.isDirectory() && !outDir.mkdirs()) {
+			throw new IOException("Could not create restore directory " + outDir);
+		}
+		MergeState state = new MergeState();
+		int outFileNo = 0;
+		long written = 0;
+		try {
+			for (int gen = deltas.size(); gen >= 0; gen--) {
+				Link link = (gen == 0) ? base : deltas.get(gen - 1);
+				if (gen > 0) {
+					File tombstones = new File(snapshotDir, link.snapshotName + TOMBSTONE_SUFFIX);
+					if (tombstones.exists()) {
+						for (long id : readVertexIds(tombstones)) {
+							state.markDeleted(id, gen);
+						}
+					}
+				}
+				for (File f : snapshotFiles(snapshotDir, link.snapshotName)) {
+					File out = new File(outDir, outName + ".P" + outFileNo);
+					long count = state.copyLatest(f, out, gen, gen > 0);
+					if (count == 0) {
+						Files.delete(out.toPath());  // the reload does not accept empty files
+					} else {
+						outFileNo++;
+						written += count;
+					}
+					logger.debug(" -- merged " + count + " vertices from " + f.getName());
+				}
+			}
+		} finally {
+			state.close();
+		}
+		logger.debug(" -- snapshot chain merged into " + outFileNo + " file(s) with " + written + " vertices in " + outDir);
+		return written;
+	}
+
+	static List<File> snapshotFiles(File snapshotDir, String snapshotName) throws IOException {
+		List<File> files = new ArrayList<>();
+		File single = new File(snapshotDir, snapshotName);
+		if (single.exists()) {
+			files.add(single);
+			return files;
+		}
+		File[] all = snapshotDir.listFiles();
+		if (all != null) {
+			for (File f : all) {
+				if (f.getName().startsWith(snapshotName + ".P")) {
+					files.add(f);
+				}
+			}
+		}
+		if (files.isEmpty()) {
+			throw new IOException("No files found for snapshot " + snapshotName + " in " + snapshotDir);
+		}
+		files.sort(null);
+		return files;
+	}
+
+
+	/** What merge() knows about each vertex id it has already decided on. */
+	private static class MergeState {
+		// vertex id -> (generation << 1) | deleted
+		private final VertexIdMap decided = new VertexIdMap();
+		// ids of the in-edges of the delta vertices we kept
+		private final Set<String> keptInEdgeIds = new HashSet<>();
+		// vertex id -> in-edges of kept delta vertices that this (not yet written) vertex is
+		// the OUT side of, shaped like an "outE" object
+		private final Map<Long, JsonObject> pendingOutEdges = new HashMap<>();
+		private final JsonParser parser = new JsonParser();
+
+		void markDeleted(long id, int gen) {
+			if (!decided.containsKey(id)) {
+				decided.put(id, ((long) gen << 1) | 1L);
+			}
+		}
+
+		long copyLatest(File in, File out, int gen, boolean isDelta) throws IOException {
+			long count = 0;
+			try (BufferedReader br = new BufferedReader(new InputStreamReader(BlockCompressedInputStream.openSnapshotFile(in.getPath())));
+					BufferedWriter bw = new BufferedWriter(new FileWriter(out), 1024 * 1024)) {
+				for (String line; (line = br.readLine()) != null; ) {
+					if (line.isEmpty()) {
+						continue;
+					}
+					JsonObject jObj = (JsonObject) parser.parse(line);
+					long id = jObj.get("id").getAsLong();
+					if (decided.containsKey(id)) {
+						continue;  // a newer snapshot already has this vertex, or deleted it
+					}
+					decided.put(id, (long) gen << 1);
+					if (isDelta) {
+						noteInEdges(jObj, id);
+					}
+					boolean changed = dropStaleOutEdges(jObj, gen);
+					if (addPendingOutEdges(jObj, id) || changed) {
+						line = jObj.toString();
+					}
+					bw.write(line);
+					bw.newLine();
+					count++;
+				}
+			}
+			return count;
+		}
+
+		private void noteInEdges(JsonObject jObj, long id) {
+			JsonElement inE = jObj.get("inE");
+			if (inE == null || !inE.isJsonObject()) {
+				return;
+			}
+			for (Map.Entry<String, JsonElement> edEntry : inE.getAsJsonObject().entrySet()) {
+				for (JsonElement edElem : edEntry.getValue().getAsJsonArray()) {
+					JsonObject ed = edElem.getAsJsonObject();
+					keptInEdgeIds.add(ed.get("id").toString());
+					long outVid = ed.get("outV").getAsLong();
+					if (decided.containsKey(outVid)) {
+						// The OUT side is from this or a newer snapshot, which has all of its edges
+						continue;
+					}
+					JsonObject outEd = ed.deepCopy();
+					outEd.remove("outV");
+					outEd.addProperty("inV", id);
+					JsonObject pending = pendingOutEdges.computeIfAbsent(outVid, k -> new JsonObject());
+					if (!pending.has(edEntry.getKey())) {
+						pending.add(edEntry.getKey(), new JsonArray());
+					}
+					pending.getAsJsonArray(edEntry.getKey()).add(outEd);
+				}
+			}
+		}
+
+		/** @return true if any edges were added */
+		private boolean addPendingOutEdges(JsonObject jObj, long id) {
+			JsonObject pending = pendingOutEdges.remove(id);
+			if (pending == null) {
+				return false;
+			}
+			JsonElement outElem = jObj.get("outE");
+			JsonObject outE;
+			if (outElem != null && outElem.isJsonObject()) {
+				outE = outElem.getAsJsonObject();
+			} else {
+				outE = new JsonObject();
+				jObj.add("outE", outE);
+			}
+			Set<String> haveIds = new HashSet<>();
+			for (Map.Entry<String, JsonElement> edEntry : outE.entrySet()) {
+				for (JsonElement ed : edEntry.getValue().getAsJsonArray()) {
+					haveIds.add(ed.getAsJsonObject().get("id").toString());
+				}
+			}
+			boolean changed = false;
+			for (Map.Entry<String, JsonElement> edEntry : pending.entrySet()) {
+				for (JsonElement ed : edEntry.getValue().getAsJsonArray()) {
+					if (haveIds.contains(ed.getAsJsonObject().get("id").toString())) {
+						continue;
+					}
+					if (!outE.has(edEntry.getKey())) {
+						outE.add(edEntry.getKey(), new JsonArray());
+					}
+					outE.getAsJsonArray(edEntry.getKey()).add(ed);
+					changed = true;
+				}
+			}
+			return changed;
+		}
+
+		/** @return true if any edges were removed */
+		private boolean dropStaleOutEdges(JsonObject jObj, int gen) {
+			JsonElement outE = jObj.get("outE");
+			if (outE == null || !outE.isJsonObject()) {
+				return false;
+			}
+			boolean changed = false;
+			for (Map.Entry<String, JsonElement> edEntry : outE.getAsJsonObject().entrySet()) {
+				Iterator<JsonElement> edItr = edEntry.getValue().getAsJsonArray().iterator();
+				while (edItr.hasNext()) {
+					JsonObject ed = edItr.next().getAsJsonObject();
+					long inState = decided.get(ed.get("inV").getAsLong());
+					if (inState == VertexIdMap.NO_ID) {
+						continue;
+					}
+					boolean inDeleted = (inState & 1L) != 0;
+					boolean inIsNewer = (inState >>> 1) > gen;
+					if (inDeleted || (inIsNewer && !keptInEdgeIds.contains(ed.get("id").toString()))) {
+						edItr.remove();
+						changed = true;
+					}
+				}
+			}
+			return changed;
+		}
+
+		void close() {
+			decided.close();
+		}
+	}
+
+}
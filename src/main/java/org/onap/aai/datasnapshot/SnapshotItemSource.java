@@ -0,0 +1,47 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.IOException;
+
+/**
+ * Hands the loaders one vertex at a time from a snapshot file, as a
+ * CompactSnapshot.VertexRecord for both GraphSON and compact files.  A GraphSON line that
+ * can't be parsed comes back as the String itself.
+ */
+interface SnapshotItemSource extends AutoCloseable {
+
+	/**
+	 * @return the next vertex, or null at the end of the file
+	 */
+	Object next() throws IOException;
+
+	@Override
+	void close() throws IOException;
+
+	/**
+	 * Opens the file with the vertex and edge properties read too.  The reading and parsing
+	 * run on their own threads, ahead of the caller (see SnapshotParsePipeline).
+	 */
+	static SnapshotItemSource open(String fileName) throws IOException {
+		return SnapshotParsePipeline.open(fileName, true);
+	}
+
+}
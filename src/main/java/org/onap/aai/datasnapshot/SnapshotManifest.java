@@ -0,0 +1,335 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+
+/**
+ * What a snapshot should look like: for each of its files, the length, a CRC32C of the
+ * bytes on disk, the number of vertices and (out-)edges and the lowest and highest vertex
+ * id.  It is saved next to the snapshot as &lt;snapshot name&gt;.manifest.
+ *
+ * verify() checks a snapshot against its manifest by reading every file (in parallel,
+ * one file per task) without opening the graph, so a bad or incomplete snapshot can be
+ * caught before a reload starts.  The contents of gryo files can't be parsed without a
+ * graph, so for those only the length and checksum are checked.
+ */
+public class SnapshotManifest {
+
+	public static final String MANIFEST_SUFFIX = ".manifest";
+	public static final String CHECKSUM_ALGORITHM = "CRC32C";
+
+	/** One file of the snapshot. */
+	public static class FileEntry {
+		public String fileName;
+		public long length;
+		public String checksum;
+		public long vertexCount;
+		public long edgeCount;
+		public long minVertexId = Long.MAX_VALUE;
+		public long maxVertexId = Long.MIN_VALUE;
+
+		public FileEntry() {
+		}
+
+		public FileEntry(String fileName) {
+			this.fileName = fileName;
+		}
+
+		public void addVertex(long id, long outEdgeCount) {
+			vertexCount++;
+			edgeCount += outEdgeCount;
+			minVertexId = Math.min(minVertexId, id);
+			maxVertexId = Math.max(maxVertexId, id);
+		}
+
+		/** Records the length and checksum of the finished file. */
+		public void finish(File f, Checksum crc) {
+			length = f.length();
+			checksum = Long.toHexString(crc.getValue());
+		}
+	}
+
+	private String snapshotName;
+	private String format;
+	private String checksumAlgorithm = CHECKSUM_ALGORITHM;
+	private long createdTs;
+	private long vertexCount;
+	private long edgeCount;
+	private List<FileEntry> files = new ArrayList<>();
+
+	public SnapshotManifest() {
+	}
+
+	public SnapshotManifest(String snapshotName, String format, List<FileEntry> entries) {
+		this.snapshotName = snapshotName;
+		this.format = format;
+		this.createdTs = System.currentTimeMillis();
+		for (FileEntry entry : entries) {
+			files.add(entry);
+			vertexCount += entry.vertexCount;
+			edgeCount += entry.edgeCount;
+		}
+		files.sort((a, b) -> a.fileName.compareTo(b.fileName));
+	}
+
+	/**
+	 * Builds the manifest for a snapshot that was written without collecting the numbers,
+	 * by reading its files.
+	 */
+	public static SnapshotManifest build(File snapshotDir, String snapshotName, String format,
+			ExecutorService executor) throws IOException {
+		List<File> snapFiles = SnapshotChain.snapshotFiles(snapshotDir, snapshotName);
+		List<Future<FileEntry>> futures = new ArrayList<>();
+		for (File f : snapFiles) {
+			futures.add(executor.submit(() -> scan(f, format)));
+		}
+		List<FileEntry> entries = new ArrayList<>();
+		for (Future<FileEntry> future : futures) {
+			entries.add(getResult(future));
+		}
+		return new SnapshotManifest(snapshotName, format, entries);
+	}
+
+	/**
+	 * @return the manifest for the snapshot, or null if it doesn't have one
+	 */
+	public static SnapshotManifest load(File snapshotDir, String snapshotName) throws IOException {
+		File f = new File(snapshotDir, snapshotName + MANIFEST_SUFFIX);
+		if (!f.exists()) {
+			return null;
+		}
+		try (Reader r = new BufferedReader(new FileReader(f))) {
+			SnapshotManifest manifest = new GsonBuilder().create().fromJson(r, SnapshotManifest.class);
+			if (manifest == null || manifest.files == null) {
+				throw new IOException("Snapshot manifest " + f + " has no file list");
+			}
+			return manifest;
+		}
+	}
+
+	public void save(File snapshotDir) throws IOException {
+		File tmp = new File(snapshotDir, snapshotName + MANIFEST_SUFFIX + ".tmp");
+		try (Writer w = new BufferedWriter(new FileWriter(tmp))) {
+			new GsonBuilder().setPrettyPrinting().create().toJson(this, w);
+		}
+		Files.move(tmp.toPath(), new File(snapshotDir, snapshotName + MANIFEST_SUFFIX).toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Checks every file of the snapshot against this manifest.
+	 *
+	 * @return what is wrong with the snapshot, or an empty list if nothing is
+	 */
+	public List<String> verify(File snapshotDir, ExecutorService executor, Logger logger) throws IOException {
+		List<String> problems = new ArrayList<>();
+		Map<String, FileEntry> expected = new HashMap<>();
+		for (FileEntry entry : files) {
+			expected.put(entry.fileName, entry);
+		}
+		List<File> found = new ArrayList<>();
+		try {
+			found.addAll(SnapshotChain.snapshotFiles(snapshotDir, snapshotName));
+		} catch (IOException e) {
+			// None of its files are there, which is reported below
+		}
+
+		List<Future<FileEntry>> futures = new ArrayList<>();
+		for (File f : found) {
+			if (!expected.containsKey(f.getName())) {
+				problems.add(f.getName() + " is not in the manifest");
+			} else {
+				futures.add(executor.submit(() -> scan(f, format)));
+			}
+		}
+		Map<String, FileEntry> actual = new HashMap<>();
+		for (Future<FileEntry> future : futures) {
+			try {
+				FileEntry entry = getResult(future);
+				actual.put(entry.fileName, entry);
+			} catch (IOException e) {
+				problems.add(e.getMessage());
+			}
+		}
+
+		for (FileEntry want : files) {
+			FileEntry got = actual.get(want.fileName);
+			if (got == null) {
+				if (found.stream().noneMatch(f -> f.getName().equals(want.fileName))) {
+					problems.add(want.fileName + " is missing");
+				}
+				continue;
+			}
+			if (got.length != want.length) {
+				problems.add(want.fileName + " is " + got.length + " bytes, the manifest says " + want.length);
+			} else if (!got.checksum.equals(want.checksum)) {
+				problems.add(want.fileName + " has checksum " + got.checksum + ", the manifest says " + want.checksum);
+			}
+			if (!"gryo".equalsIgnoreCase(format)) {
+				if (got.vertexCount != want.vertexCount || got.edgeCount != want.edgeCount) {
+					problems.add(want.fileName + " has " + got.vertexCount + " vertices and " + got.edgeCount
+							+ " edges, the manifest says " + want.vertexCount + " and " + want.edgeCount);
+				}
+				if (got.vertexCount > 0
+						&& (got.minVertexId != want.minVertexId || got.maxVertexId != want.maxVertexId)) {
+					problems.add(want.fileName + " has vertex ids " + got.minVertexId + " to " + got.maxVertexId
+							+ ", the manifest says " + want.minVertexId + " to " + want.maxVertexId);
+				}
+			}
+			logger.debug(" -- checked " + want.fileName + ": " + got.vertexCount + " vertices, " + got.edgeCount + " edges");
+		}
+		return problems;
+	}
+
+	/**
+	 * Reads one snapshot file and works out its manifest entry.  The checksum is over the
+	 * bytes on disk (so compressed files are checked before they are decompressed), and the
+	 * counts come from the decompressed vertices.
+	 */
+	static FileEntry scan(File f, String format) throws IOException {
+		FileEntry entry = new FileEntry(f.getName());
+		CRC32C crc = new CRC32C();
+		try (CheckedInputStream checked = new CheckedInputStream(new FileInputStream(f), crc)) {
+			try {
+				if (!"gryo".equalsIgnoreCase(format)) {
+					scanVertices(checked, f.getName(), entry);
+				}
+			} catch (IOException | RuntimeException e) {
+				throw new IOException(f.getName() + " could not be read: " + e.getMessage(), e);
+			}
+			// Whatever the parser didn't need (or all of a gryo file) still goes into the checksum
+			byte[] buf = new byte[65536];
+			while (checked.read(buf) >= 0) {
+				// checksum only
+			}
+		}
+		entry.finish(f, crc);
+		return entry;
+	}
+
+	private static void scanVertices(InputStream raw, String name, FileEntry entry) throws IOException {
+		InputStream in = new BufferedInputStream(BlockCompressedInputStream.decompressIfNeeded(raw), 65536);
+		in.mark(CompactSnapshot.MAGIC.length);
+		boolean compact = CompactSnapshot.startsWithMagic(in);
+		in.reset();
+		if (compact) {
+			CompactSnapshotReader reader = new CompactSnapshotReader(in, name);
+			for (CompactSnapshot.VertexRecord rec; (rec = reader.next()) != null; ) {
+				entry.addVertex(rec.id, rec.outE.size());
+			}
+			return;
+		}
+		BufferedReader br = new BufferedReader(new InputStreamReader(in));
+		JsonParser parser = new JsonParser();
+		for (String line; (line = br.readLine()) != null; ) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			JsonObject jObj = untyped(parser.parse(line)).getAsJsonObject();
+			long edges = 0;
+			JsonElement outE = jObj.get("outE");
+			if (outE != null && outE.isJsonObject()) {
+				for (Map.Entry<String, JsonElement> byLabel : outE.getAsJsonObject().entrySet()) {
+					edges += byLabel.getValue().getAsJsonArray().size();
+				}
+			}
+			entry.addVertex(untyped(jObj.get("id")).getAsLong(), edges);
+		}
+	}
+
+	/** GraphSON 2.0 and 3.0 wrap values as {"@type":..., "@value":...}. */
+	private static JsonElement untyped(JsonElement element) {
+		if (element.isJsonObject() && element.getAsJsonObject().has("@value")) {
+			return element.getAsJsonObject().get("@value");
+		}
+		return element;
+	}
+
+	private static FileEntry getResult(Future<FileEntry> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading snapshot files", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+		}
+	}
+
+	public String getSnapshotName() {
+		return snapshotName;
+	}
+
+	public String getFormat() {
+		return format;
+	}
+
+	public String getChecksumAlgorithm() {
+		return checksumAlgorithm;
+	}
+
+	public long getCreatedTs() {
+		return createdTs;
+	}
+
+	public long getVertexCount() {
+		return vertexCount;
+	}
+
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	public List<FileEntry> getFiles() {
+		return files;
+	}
+
+}
@@ -0,0 +1,222 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The meters the snapshot writers and the reload loaders publish, so a long snapshot or
+ * reload can be watched (and alerted on when it stalls) from the actuator's prometheus
+ * endpoint instead of the debug log.
+ *
+ * They go to Micrometer's global registry, which Spring Boot adds its registries to, so
+ * they show up when the tools run inside the graphadmin app (DataSnapshotTasks).  When a
+ * tool is run from the shell nothing is bound to it and the meters cost next to nothing.
+ *
+ * The counters only count up; Prometheus' rate() turns them into vertices (edges, bytes)
+ * per second.  They are tagged with the file part (the n of a .Pn file), which stays the
+ * same from one run to the next, rather than with thread names, which don't.
+ */
+public final class SnapshotMetrics {
+
+	static final String VERTICES_WRITTEN = "aai.snapshot.vertices.written";
+	static final String EDGES_WRITTEN = "aai.snapshot.edges.written";
+	static final String BYTES_WRITTEN = "aai.snapshot.bytes.written";
+	static final String WRITE_FAILURES = "aai.snapshot.write.failures";
+	static final String PHASE_DURATION = "aai.snapshot.phase.duration";
+	static final String VERTICES_LOADED = "aai.reload.vertices.loaded";
+	static final String EDGES_LOADED = "aai.reload.edges.loaded";
+	static final String BYTES_READ = "aai.reload.bytes.read";
+	static final String LOAD_FAILURES = "aai.reload.failures";
+	static final String LOAD_RETRIES = "aai.reload.retries";
+	static final String COMMIT_LATENCY = "aai.reload.commit.latency";
+	static final String COMMIT_FAILURES = "aai.reload.commit.failures";
+	static final String RELOAD_RATE = "aai.reload.rate";
+
+	static final String PHASE_VERTICES = "vertices";
+	static final String PHASE_EDGES = "edges";
+
+	private static final Pattern PART_PATTERN = Pattern.compile("\\.P(\\d+)$");
+
+	private static final MeterRegistry registry = Metrics.globalRegistry;
+
+	// The rate controller of the reload that is running, if any
+	private static final AtomicReference<ReloadRateController> reloadRateController = new AtomicReference<>();
+
+	private static final Timer commitLatency = Timer.builder(COMMIT_LATENCY)
+			.description("Time to write and commit one reload batch")
+			.publishPercentileHistogram()
+			.register(registry);
+
+	private static final Counter commitFailures = Counter.builder(COMMIT_FAILURES)
+			.description("Reload commits (or writes to the storage backend) that failed")
+			.register(registry);
+
+	static {
+		Gauge.builder(RELOAD_RATE, reloadRateController, ref -> {
+					ReloadRateController rc = ref.get();
+					return rc == null ? 0.0 : rc.getRate();
+				})
+				.description("Items per second the running reload is paced at")
+				.register(registry);
+	}
+
+	private SnapshotMetrics() {
+	}
+
+	/**
+	 * @return the part tag for a snapshot file: "P3" for a name ending in .P3, or "all" for
+	 *   a single-file snapshot
+	 */
+	static String part(String fileName) {
+		Matcher m = PART_PATTERN.matcher(fileName);
+		return m.find() ? "P" + m.group(1) : "all";
+	}
+
+	static Counter verticesWritten(String fileName) {
+		return counter(VERTICES_WRITTEN, fileName);
+	}
+
+	static Counter edgesWritten(String fileName) {
+		return counter(EDGES_WRITTEN, fileName);
+	}
+
+	static Counter writeFailures(String fileName) {
+		return counter(WRITE_FAILURES, fileName);
+	}
+
+	static Counter verticesLoaded(String fileName) {
+		return counter(VERTICES_LOADED, fileName);
+	}
+
+	static Counter edgesLoaded(String fileName) {
+		return counter(EDGES_LOADED, fileName);
+	}
+
+	/**
+	 * @param phase PHASE_VERTICES or PHASE_EDGES
+	 */
+	static Counter loadFailures(String phase, String fileName) {
+		return Counter.builder(LOAD_FAILURES).tag("phase", phase).tag("part", part(fileName)).register(registry);
+	}
+
+	/**
+	 * @param phase PHASE_VERTICES or PHASE_EDGES
+	 */
+	static Counter loadRetries(String phase, String fileName) {
+		return Counter.builder(LOAD_RETRIES).tag("phase", phase).tag("part", part(fileName)).register(registry);
+	}
+
+	/**
+	 * Counts what is written to the stream as bytes written to the given snapshot file.
+	 */
+	static OutputStream countBytesWritten(OutputStream os, String fileName) {
+		Counter bytes = counter(BYTES_WRITTEN, fileName);
+		return new FilterOutputStream(os) {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				bytes.increment();
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				bytes.increment(len);
+			}
+		};
+	}
+
+	/**
+	 * Counts what is read from the stream as bytes read from the given snapshot file.
+	 */
+	static InputStream countBytesRead(InputStream is, String fileName) {
+		Counter bytes = counter(BYTES_READ, fileName);
+		return new FilterInputStream(is) {
+			@Override
+			public int read() throws IOException {
+				int b = in.read();
+				if (b >= 0) {
+					bytes.increment();
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = in.read(b, off, len);
+				if (n > 0) {
+					bytes.increment(n);
+				}
+				return n;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = in.skip(n);
+				bytes.increment(skipped);
+				return skipped;
+			}
+		};
+	}
+
+	static void commitSucceeded(long latencyNanos) {
+		commitLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+	}
+
+	static void commitFailed() {
+		commitFailures.increment();
+	}
+
+	/**
+	 * Publishes the rate of this reload's controller as the reload rate, until the next
+	 * reload starts (or null is passed in once it is done).
+	 */
+	static void watchReloadRate(ReloadRateController rateController) {
+		reloadRateController.set(rateController);
+	}
+
+	/**
+	 * Records how long one phase of a snapshot or reload took (a write pass, the vertex
+	 * loads, the edge and property loads).
+	 */
+	static void phaseDone(String phase, long nanos) {
+		Timer.builder(PHASE_DURATION).tag("phase", phase).register(registry).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static Counter counter(String name, String fileName) {
+		return Counter.builder(name).tag("part", part(fileName)).register(registry);
+	}
+
+}
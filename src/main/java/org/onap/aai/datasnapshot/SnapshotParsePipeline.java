@@ -0,0 +1,212 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads and parses a snapshot file ahead of the loader that is adding it to the graph, so
+ * the file I/O and the parsing overlap with the loader waiting on its commits.
+ *
+ * There are three stages, with a bounded queue of chunks between each of them:
+ *
+ *   reader thread -- reads GraphSON lines (or compact records) in chunks of CHUNK_SIZE
+ *   parser thread -- turns each GraphSON line into a CompactSnapshot.VertexRecord
+ *                    (GraphSONLineParser, no JSON tree); compact records pass straight through
+ *   the caller    -- takes the records one at a time with next() and writes them to the graph
+ *
+ * The queues hold at most QUEUE_CHUNKS chunks each, so a slow graph writer holds back the
+ * reading instead of the whole file ending up on the heap.  A line the parser can't read is
+ * handed on as the original String, for the caller to report (or handle the old way).
+ * Records come out in file order, one per line.
+ */
+class SnapshotParsePipeline implements SnapshotItemSource {
+
+	static final int CHUNK_SIZE = 256;
+	static final int QUEUE_CHUNKS = 8;
+
+	// Marks the end of the file (or a failure) in a queue
+	private static final List<Object> END = Collections.emptyList();
+
+	private final String fileName;
+	private final boolean withProperties;
+	private final BlockingQueue<List<Object>> rawQueue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+	private final BlockingQueue<List<Object>> parsedQueue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+	private final Thread readerThread;
+	private final Thread parserThread;
+	private volatile Exception failure = null;
+	private volatile boolean closed = false;
+
+	private List<Object> chunk = null;
+	private int chunkPos = 0;
+	private boolean ended = false;
+
+	/**
+	 * @param withProperties false if the caller only needs the id, label and OUT edge targets
+	 */
+	static SnapshotParsePipeline open(String fileName, boolean withProperties) throws IOException {
+		SnapshotItemSource raw;
+		boolean compact = CompactSnapshot.isCompactFile(fileName);
+		// Count the bytes as they come off the disk, before any decompression (for a file
+		// in the chunk store they are counted as they come out of it)
+		InputStream fis = ChunkStore.isManifest(fileName) ? ChunkStore.open(fileName) : new FileInputStream(fileName);
+		InputStream is = BlockCompressedInputStream.decompressIfNeeded(
+				SnapshotMetrics.countBytesRead(fis, fileName));
+		if (compact) {
+			CompactSnapshotReader cr = new CompactSnapshotReader(is, fileName);
+			raw = new SnapshotItemSource() {
+				public Object next() throws IOException {
+					return cr.next();
+				}
+
+				public void close() throws IOException {
+					cr.close();
+				}
+			};
+		} else {
+			BufferedReader br = new BufferedReader(new InputStreamReader(is));
+			raw = new SnapshotItemSource() {
+				public Object next() throws IOException {
+					return br.readLine();
+				}
+
+				public void close() throws IOException {
+					br.close();
+				}
+			};
+		}
+		return new SnapshotParsePipeline(fileName, raw, withProperties);
+	}
+
+	private SnapshotParsePipeline(String fileName, SnapshotItemSource raw, boolean withProperties) {
+		this.fileName = fileName;
+		this.withProperties = withProperties;
+		String shortName = new File(fileName).getName();
+		readerThread = new Thread(() -> read(raw), "snapshot-reader-" + shortName);
+		parserThread = new Thread(this::parse, "snapshot-parser-" + shortName);
+		readerThread.setDaemon(true);
+		parserThread.setDaemon(true);
+		readerThread.start();
+		parserThread.start();
+	}
+
+	/**
+	 * @return the next vertex as a CompactSnapshot.VertexRecord (or the GraphSON line if it
+	 *   couldn't be parsed), or null at the end of the file
+	 */
+	@Override
+	public Object next() throws IOException {
+		while (chunk == null || chunkPos == chunk.size()) {
+			if (ended) {
+				return null;
+			}
+			try {
+				chunk = parsedQueue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while reading " + fileName, e);
+			}
+			chunkPos = 0;
+			if (chunk == END) {
+				ended = true;
+				if (failure != null) {
+					throw new IOException("Failed reading " + fileName + ": " + failure.getMessage(), failure);
+				}
+			}
+		}
+		return chunk.get(chunkPos++);
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		readerThread.interrupt();
+		parserThread.interrupt();
+		try {
+			// Keep the queues empty so neither stage can stay stuck on a put
+			while (readerThread.isAlive() || parserThread.isAlive()) {
+				rawQueue.clear();
+				parsedQueue.clear();
+				readerThread.join(50);
+				parserThread.join(50);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void read(SnapshotItemSource raw) {
+		try (SnapshotItemSource src = raw) {
+			List<Object> rawChunk = new ArrayList<>(CHUNK_SIZE);
+			for (Object item; !closed && (item = src.next()) != null; ) {
+				rawChunk.add(item);
+				if (rawChunk.size() == CHUNK_SIZE) {
+					rawQueue.put(rawChunk);
+					rawChunk = new ArrayList<>(CHUNK_SIZE);
+				}
+			}
+			if (!rawChunk.isEmpty()) {
+				rawQueue.put(rawChunk);
+			}
+		} catch (InterruptedException e) {
+			// close() was called, nobody is waiting for the rest
+			return;
+		} catch (Exception e) {
+			failure = e;
+		}
+		try {
+			rawQueue.put(END);
+		} catch (InterruptedException e) {
+			// close() was called
+		}
+	}
+
+	private void parse() {
+		try {
+			for (List<Object> rawChunk; !closed && (rawChunk = rawQueue.take()) != END; ) {
+				for (int i = 0; i < rawChunk.size(); i++) {
+					Object item = rawChunk.get(i);
+					if (item instanceof String) {
+						try {
+							rawChunk.set(i, GraphSONLineParser.parse((String) item, withProperties));
+						} catch (IOException e) {
+							// Leave the line as it is, the loader says what's wrong with it
+						}
+					}
+				}
+				parsedQueue.put(rawChunk);
+			}
+			parsedQueue.put(END);
+		} catch (InterruptedException e) {
+			// close() was called
+		}
+	}
+
+}
@@ -0,0 +1,308 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.datasnapshot;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Maps the vertex ids found in a snapshot to the ids the vertices were given when they
+ * were re-created during a reload.
+ *
+ * Ids are kept as primitive longs in open-addressing hash tables (no String or Map.Entry
+ * objects).  The table is split into shards, each with its own lock, so that the loader
+ * threads can add entries at the same time.  If a spill directory is given, the shard
+ * tables live in memory-mapped files instead of on the heap, so very large reloads do
+ * not need a correspondingly large heap.
+ */
+public class VertexIdMap implements Closeable {
+
+	/** Returned by get() when there is no mapping for an id. */
+	public static final long NO_ID = -1L;
+
+	private static final int SHARD_BITS = 6;
+	private static final int SHARD_COUNT = 1 << SHARD_BITS;
+	private static final int INITIAL_SHARD_CAPACITY = 1 << 12;
+	private static final int MAX_MAPPED_SHARD_CAPACITY = 1 << 27;  // 16 bytes per slot, must stay under 2GB
+	private static final int MAX_HEAP_SHARD_CAPACITY = 1 << 29;
+
+	private final Shard[] shards = new Shard[SHARD_COUNT];
+	private final File spillDir;
+
+	/**
+	 * Creates a map that keeps its tables on the heap.
+	 */
+	public VertexIdMap() {
+		this(null);
+	}
+
+	/**
+	 * Creates a map that keeps its tables in memory-mapped files in spillDir,
+	 * or on the heap if spillDir is null.
+	 */
+	public VertexIdMap(File spillDir) {
+		this.spillDir = spillDir;
+		if (spillDir != null && !spillDir.isDirectory() && !spillDir.mkdirs()) {
+			throw new IllegalArgumentException("Could not create vertex id spill directory " + spillDir);
+		}
+		for (int i = 0; i < SHARD_COUNT; i++) {
+			shards[i] = new Shard(i);
+		}
+	}
+
+	public void put(long oldId, long newId) {
+		long hash = mix(oldId);
+		shardFor(hash).put(oldId, newId, hash);
+	}
+
+	/**
+	 * @return the new id for oldId, or NO_ID if we don't have one
+	 */
+	public long get(long oldId) {
+		long hash = mix(oldId);
+		return shardFor(hash).get(oldId, hash);
+	}
+
+	public boolean containsKey(long oldId) {
+		return get(oldId) != NO_ID;
+	}
+
+	public long size() {
+		long size = 0;
+		for (Shard shard : shards) {
+			size += shard.size();
+		}
+		return size;
+	}
+
+	public boolean isSpilled() {
+		return spillDir != null;
+	}
+
+	@Override
+	public void close() {
+		for (Shard shard : shards) {
+			shard.release();
+		}
+	}
+
+	private Shard shardFor(long hash) {
+		return shards[(int) (hash >>> (64 - SHARD_BITS))];
+	}
+
+	// The murmur3 64 bit finalizer - JanusGraph ids are far from random in their low bits
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+
+	private final class Shard {
+
+		private final int shardNum;
+		private Slots slots;
+		private int capacity;
+		private int tableCount = 0;
+		private boolean hasZeroKey = false;
+		private long zeroKeyValue;
+		private int generation = 0;
+
+		Shard(int shardNum) {
+			this.shardNum = shardNum;
+			this.capacity = INITIAL_SHARD_CAPACITY;
+			this.slots = newSlots(capacity);
+		}
+
+		synchronized void put(long key, long value, long hash) {
+			// Zero marks an empty slot, so a zero key is kept on the side
+			if (key == 0) {
+				hasZeroKey = true;
+				zeroKeyValue = value;
+				return;
+			}
+			if (insert(slots, capacity, key, value, hash)) {
+				tableCount++;
+				if (tableCount > (capacity >>> 1) + (capacity >>> 2)) {
+					grow();
+				}
+			}
+		}
+
+		synchronized long get(long key, long hash) {
+			if (key == 0) {
+				return hasZeroKey ? zeroKeyValue : NO_ID;
+			}
+			int mask = capacity - 1;
+			int i = (int) hash & mask;
+			while (true) {
+				long k = slots.key(i);
+				if (k == key) {
+					return slots.value(i);
+				}
+				if (k == 0) {
+					return NO_ID;
+				}
+				i = (i + 1) & mask;
+			}
+		}
+
+		synchronized long size() {
+			return tableCount + (hasZeroKey ? 1 : 0);
+		}
+
+		synchronized void release() {
+			if (slots != null) {
+				slots.release();
+				slots = null;
+			}
+		}
+
+		/** @return true if this was a new key */
+		private boolean insert(Slots target, int targetCapacity, long key, long value, long hash) {
+			int mask = targetCapacity - 1;
+			int i = (int) hash & mask;
+			while (true) {
+				long k = target.key(i);
+				if (k == 0) {
+					target.set(i, key, value);
+					return true;
+				}
+				if (k == key) {
+					target.set(i, key, value);
+					return false;
+				}
+				i = (i + 1) & mask;
+			}
+		}
+
+		private void grow() {
+			int maxCapacity = spillDir == null ? MAX_HEAP_SHARD_CAPACITY : MAX_MAPPED_SHARD_CAPACITY;
+			if (capacity >= maxCapacity) {
+				throw new IllegalStateException("Vertex id map shard " + shardNum + " is full at "
+						+ tableCount + " entries");
+			}
+			int newCapacity = capacity << 1;
+			Slots newSlots = newSlots(newCapacity);
+			for (int i = 0; i < capacity; i++) {
+				long k = slots.key(i);
+				if (k != 0) {
+					insert(newSlots, newCapacity, k, slots.value(i), mix(k));
+				}
+			}
+			slots.release();
+			slots = newSlots;
+			capacity = newCapacity;
+		}
+
+		private Slots newSlots(int slotCount) {
+			if (spillDir == null) {
+				return new HeapSlots(slotCount);
+			}
+			File f = new File(spillDir, "vertexIdMap." + shardNum + "." + (generation++));
+			return new MappedSlots(f, slotCount);
+		}
+	}
+
+
+	/** Key/value pairs stored next to each other: key at 2*i, value at 2*i+1. */
+	private interface Slots {
+		long key(int i);
+		long value(int i);
+		void set(int i, long key, long value);
+		void release();
+	}
+
+	private static final class HeapSlots implements Slots {
+		private final long[] data;
+
+		HeapSlots(int slotCount) {
+			data = new long[slotCount * 2];
+		}
+
+		public long key(int i) {
+			return data[i << 1];
+		}
+
+		public long value(int i) {
+			return data[(i << 1) + 1];
+		}
+
+		public void set(int i, long key, long value) {
+			data[i << 1] = key;
+			data[(i << 1) + 1] = value;
+		}
+
+		public void release() {
+			// nothing to do, the garbage collector takes care of it
+		}
+	}
+
+	private static final class MappedSlots implements Slots {
+		private final LongBuffer data;
+		private final File file;
+
+		MappedSlots(File file, int slotCount) {
+			this.file = file;
+			long bytes = (long) slotCount * 16L;
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+					FileChannel channel = raf.getChannel()) {
+				// A newly extended file reads back as zeros, which is our "empty" marker
+				raf.setLength(bytes);
+				data = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).asLongBuffer();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not map vertex id spill file " + file, e);
+			}
+			// The mapping stays valid after the file is unlinked, and the space is given
+			// back as soon as the mapping goes away - even if we never get to close().
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+
+		public long key(int i) {
+			return data.get(i << 1);
+		}
+
+		public long value(int i) {
+			return data.get((i << 1) + 1);
+		}
+
+		public void set(int i, long key, long value) {
+			data.put(i << 1, key);
+			data.put((i << 1) + 1, value);
+		}
+
+		public void release() {
+			if (file.exists() && !file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+	}
+
+}
@@ -30,9 +30,7 @@ import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSo
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
 import org.apache.tinkerpop.gremlin.structure.*;
 import org.janusgraph.core.JanusGraph;
-import org.janusgraph.core.JanusGraphFactory;
 import org.onap.aai.dbmap.AAIGraph;
-import org.onap.aai.dbmap.AAIGraphConfig;
 import org.onap.aai.edges.enums.AAIDirection;
 import org.onap.aai.edges.enums.EdgeProperty;
 import org.onap.aai.exceptions.AAIException;
@@ -46,6 +44,7 @@ import org.onap.aai.setup.SchemaVersions;
 import org.onap.aai.util.AAIConfig;
 import org.onap.aai.util.AAIConstants;
 import org.onap.aai.util.ExceptionTranslator;
+import org.onap.aai.util.ToolGraphPool;
 import org.slf4j.MDC;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
@@ -1763,7 +1762,8 @@ public class DupeTool {
                 janusGraph = AAIGraph.getInstance().getGraph();
                 graphType = INMEMORY;
             } else {
-                janusGraph = JanusGraphFactory.open(new AAIGraphConfig.Builder(AAIConstants.REALTIME_DB_CONFIG).forService(DupeTool.class.getSimpleName()).withGraphType("realtime" + graphIndex).buildConfiguration());
+                // Inside graphadmin this comes already open from the pool
+                janusGraph = ToolGraphPool.getInstance().open(DupeTool.class.getSimpleName(), "realtime" + graphIndex);
                 graphIndex++;
             }
         } catch (Exception e) {
@@ -1780,10 +1780,7 @@ public class DupeTool {
             if (INMEMORY.equals(graphType)) {
                 return;
             }
-            if (graph != null && graph.isOpen()) {
-                graph.tx().close();
-                graph.close();
-            }
+            ToolGraphPool.getInstance().release(graph);
         } catch (Exception ex) {
             // Don't throw anything because JanusGraph sometimes is just saying that the graph is already closed{
             logger.warn("WARNING from final graph.shutdown()", ex);
@@ -31,6 +31,7 @@ import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.Tree;
 import org.apache.tinkerpop.gremlin.structure.Element;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.onap.aai.datasnapshot.BlockCompressedInputStream;
 import org.onap.aai.db.props.AAIProperties;
 import org.onap.aai.dbmap.InMemoryGraph;
 import org.onap.aai.edges.EdgeIngestor;
@@ -59,6 +60,7 @@ import org.onap.aai.util.AAIConfig;
 import org.onap.aai.util.AAIConstants;
 import org.onap.aai.util.AAISystemExitUtil;
 import org.onap.aai.util.ExceptionTranslator;
+import org.onap.aai.util.GraphAdminConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -73,6 +75,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -88,7 +91,7 @@ public class DynamicPayloadGenerator {
 	private InMemoryGraph inMemGraph = null;
 
 	private InMemoryDBEngine dbEngine;
-	private InputStream sequenceInputStreams;
+	private List<File> snapshotFiles;
 	/*
 	 * Loader, QueryStyle, ConnectionType for the Serializer
 	 */
@@ -187,6 +190,7 @@ public class DynamicPayloadGenerator {
 		LOGGER.debug("schema enabled " + cArgs.schemaEnabled);
 		LOGGER.debug("Multiple snapshots " + cArgs.isMultipleSnapshot);
 		LOGGER.debug("Is Partial Graph " + cArgs.isPartialGraph);
+		LOGGER.debug("Load threads " + cArgs.loadThreads);
 
 		if (cArgs.config.isEmpty())
 			cArgs.config = AAIConstants.AAI_HOME_ETC_APP_PROPERTIES + "dynamic.properties";
@@ -208,7 +212,7 @@ public class DynamicPayloadGenerator {
 		} else {
 			// for multiple snapshots dataSnapshot + ".P" is the prefix of the
 			// files
-			sequenceInputStreams = validateMultipleSnapshots(cArgs.dataSnapshot);
+			snapshotFiles = validateMultipleSnapshots(cArgs.dataSnapshot);
 		}
 
 		LOGGER.debug("Datasnapshot file " + cArgs.dataSnapshot);
@@ -410,10 +414,62 @@ public class DynamicPayloadGenerator {
 		if (!(cArgs.isMultipleSnapshot)) {
 			inMemGraph = new InMemoryGraph.Builder().build(cArgs.dataSnapshot, cArgs.config, cArgs.schemaEnabled,
 					cArgs.isPartialGraph);
+		} else if (!cArgs.isPartialGraph) {
+			// The full GraphSON reader only takes one stream, so the files are read one after the other
+			inMemGraph = new InMemoryGraph.Builder().build(openSnapshotSequence(snapshotFiles), cArgs.config,
+					cArgs.schemaEnabled, false);
 		} else {
-			inMemGraph = new InMemoryGraph.Builder().build(sequenceInputStreams, cArgs.config, cArgs.schemaEnabled,
-					cArgs.isPartialGraph);
+			// Start from an empty graph (with the schema) and read the snapshot files into it
+			// in parallel, instead of one after the other through a SequenceInputStream
+			inMemGraph = buildEmptyInMemoryGraph();
+			long timeA = System.nanoTime();
+			List<GraphSONPartialReader.FileLoadStats> loadStats = GraphSONPartialReader.build().create()
+					.readGraph(snapshotFiles, inMemGraph.getGraph(), cArgs.loadThreads);
+			long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - timeA);
+			logLoadStats(loadStats, elapsedMs);
+		}
+	}
+
+	/**
+	 * The in-memory graph (with the schema, if enabled) and no data.  InMemoryGraph.Builder only
+	 * takes a snapshot file or a stream, so it is given a stream with nothing in it.
+	 */
+	private InMemoryGraph buildEmptyInMemoryGraph() throws IOException {
+		try (InputStream noData = InputStream.nullInputStream()) {
+			return new InMemoryGraph.Builder().build(noData, cArgs.config, cArgs.schemaEnabled, true);
+		}
+	}
+
+	private InputStream openSnapshotSequence(List<File> files) throws IOException {
+		Vector<InputStream> inputStreamsV = new Vector<>();
+		for (File f : files) {
+			inputStreamsV.add(BlockCompressedInputStream.openSnapshotFile(f.getPath()));
+		}
+		return new SequenceInputStream(inputStreamsV.elements());
+	}
+
+	/**
+	 * Logs how long each snapshot file took to load, and whether the load as a whole spent
+	 * more of its time reading and parsing the files or adding to the graph.
+	 */
+	private void logLoadStats(List<GraphSONPartialReader.FileLoadStats> loadStats, long elapsedMs) {
+		long readParseMs = 0;
+		long graphMs = 0;
+		long vertices = 0;
+		long edges = 0;
+		for (GraphSONPartialReader.FileLoadStats fs : loadStats) {
+			LOGGER.debug("Loaded " + fs);
+			readParseMs += fs.getReadMillis() + fs.getParseMillis();
+			graphMs += fs.getGraphMillis();
+			vertices += fs.getVertices();
+			edges += fs.getEdges();
 		}
+		String msg = "Loaded " + vertices + " vertices and " + edges + " edges from " + loadStats.size()
+				+ " snapshot files with " + cArgs.loadThreads + " threads in " + elapsedMs + " ms; read and parse "
+				+ readParseMs + " ms, graph " + graphMs + " ms over all files, so the load was bound by "
+				+ (readParseMs > graphMs ? "reading and parsing" : "graph insertion");
+		LOGGER.debug(msg);
+		System.out.println(msg);
 	}
 
 	private void buildDbEngine() {
@@ -766,7 +822,7 @@ public class DynamicPayloadGenerator {
 		}
 	}
 
-	private InputStream validateMultipleSnapshots(String filenamePrefix) {
+	private List<File> validateMultipleSnapshots(String filenamePrefix) {
 		if (filenamePrefix == null || filenamePrefix.length() == 0) {
 			String emsg = "No snapshot path was provided.";
 			LOGGER.error(emsg);
@@ -816,11 +872,7 @@ public class DynamicPayloadGenerator {
 			taskExit();
 		}
 
-		int fCount = snapFilesArr.size();
-		Iterator<File> fItr = snapFilesArr.iterator();
-		Vector<InputStream> inputStreamsV = new Vector<>();
-		for (int i = 0; i < fCount; i++) {
-			File f = snapFilesArr.get(i);
+		for (File f : snapFilesArr) {
 			String fname = f.getName();
 			if (!f.canRead()) {
 				String emsg = "Snapshot file " + fname + " could not be read.";
@@ -833,22 +885,10 @@ public class DynamicPayloadGenerator {
 				System.out.println(emsg);
 				taskExit();
 			}
-			String fullFName = targetDir + AAIConstants.AAI_FILESEP + fname;
-			InputStream fis = null;
-			try {
-				fis = new FileInputStream(fullFName);
-			} catch (FileNotFoundException e) {
-				// should not happen at this point
-				String emsg = "Snapshot file " + fullFName + " could not be found";
-				LOGGER.error(emsg);
-				System.out.println(emsg);
-				taskExit();
-			}
-			inputStreamsV.add(fis);
 		}
-		// Now add inputStreams.elements() to the Vector,
-		InputStream sis = new SequenceInputStream(inputStreamsV.elements());
-		return (sis);
+		// Biggest first, so the load doesn't end waiting on one big file that started last
+		snapFilesArr.sort(Comparator.comparingLong(File::length).reversed());
+		return (snapFilesArr);
 	}
 
 	public InMemoryGraph getInMemGraph() {
@@ -892,4 +932,7 @@ class CommandLineArgs {
 	@Parameter(names = "-p", description = "Use the partial graph", arity = 1)
 	public boolean isPartialGraph = true;
 
+	@Parameter(names = "-t", description = "number of threads to load multiple snapshots with (when -p is true)")
+	public int loadThreads = GraphAdminConstants.AAI_DATAEXPORT_DEFAULT_LOAD_THREADS;
+
 }
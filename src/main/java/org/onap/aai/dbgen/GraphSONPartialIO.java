@@ -27,11 +27,11 @@ import org.apache.tinkerpop.gremlin.structure.io.graphson.GraphSONMapper;
 import org.apache.tinkerpop.gremlin.structure.io.graphson.GraphSONVersion;
 import org.apache.tinkerpop.gremlin.structure.io.graphson.GraphSONWriter;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.function.Consumer;
 
@@ -92,13 +92,11 @@ public final class GraphSONPartialIO implements Io<GraphSONPartialReader.Builder
     }
 
     /**
-     * {@inheritDoc}
+     * Reads the file straight from disk, once for the vertices and once for the edges.
      */
     @Override
     public void readGraph(final String file) throws IOException {
-        try (final InputStream in = new FileInputStream(file)) {
-            reader().create().readGraph(in, graph);
-        }
+        reader().create().readGraph(Collections.singletonList(new File(file)), graph, 1);
     }
 
     /**
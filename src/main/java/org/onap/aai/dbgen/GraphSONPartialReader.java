@@ -37,12 +37,15 @@ import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoWriter;
 import org.apache.tinkerpop.gremlin.structure.util.Attachable;
 import org.apache.tinkerpop.gremlin.structure.util.Host;
 import org.apache.tinkerpop.gremlin.structure.util.star.StarGraph;
-import org.apache.tinkerpop.gremlin.util.function.FunctionUtils;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 import org.apache.tinkerpop.shaded.jackson.core.type.TypeReference;
 import org.apache.tinkerpop.shaded.jackson.databind.JsonNode;
 import org.apache.tinkerpop.shaded.jackson.databind.ObjectMapper;
 import org.apache.tinkerpop.shaded.jackson.databind.node.JsonNodeType;
+import org.onap.aai.datasnapshot.BlockCompressedInputStream;
+import org.onap.aai.datasnapshot.CompactSnapshot;
+import org.onap.aai.datasnapshot.GraphSONLineParser;
+import org.onap.aai.datasnapshot.VertexIdMap;
 import org.onap.aai.dbmap.InMemoryGraph;
 
 import org.slf4j.Logger;
@@ -50,14 +53,29 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.util.HashMap;
+import java.io.PushbackInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -92,6 +110,11 @@ public final class GraphSONPartialReader implements GraphReader {
     /**
      * Read data into a {@link Graph} from output generated by any of the {@link GraphSONWriter} {@code writeVertex} or
      * {@code writeVertices} methods or by {@link GryoWriter#writeGraph(OutputStream, Graph)}.
+     * <p/>
+     * The edge pass reads the input a second time instead of holding every vertex (and all of its edges) in
+     * memory until the end.  A {@link FileInputStream} is read again from where it was; any other stream is
+     * copied to a temporary file first.  Callers that have the file should use
+     * {@link #readGraph(List, Graph, int)}.
      *
      * @param inputStream a stream containing an entire graph of vertices and edges as defined by the accompanying
      *                    {@link GraphSONWriter#writeGraph(OutputStream, Graph)}.
@@ -99,53 +122,413 @@ public final class GraphSONPartialReader implements GraphReader {
      */
     @Override
     public void readGraph(final InputStream inputStream, final Graph graphToWriteTo) throws IOException {
-        // dual pass - create all vertices and store to cache the ids.  then create edges.  as long as we don't
-        // have vertex labels in the output we can't do this single pass
-    	LOGGER.info("Read the Partial Graph");
-    	final Map<StarGraph.StarVertex,Vertex> cache = new HashMap<>();
-        final AtomicLong counter = new AtomicLong(0);
-        
+        LOGGER.info("Read the Partial Graph");
+        if (inputStream instanceof FileInputStream) {
+            final FileChannel channel = ((FileInputStream) inputStream).getChannel();
+            final long start = channel.position();
+            readTwice(() -> new FilterInputStream(Channels.newInputStream(channel.position(start))) {
+                @Override
+                public void close() {
+                    // The caller closes its own stream
+                }
+            }, graphToWriteTo, new FileLoadStats(null));
+            return;
+        }
+        final PushbackInputStream in = new PushbackInputStream(inputStream);
+        final int first = in.read();
+        if (first < 0) {
+            // Nothing to read, as when InMemoryGraph is built empty
+            return;
+        }
+        in.unread(first);
+        final File spillFile = File.createTempFile("graphsonPartial", ".tmp");
+        try {
+            Files.copy(in, spillFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            readTwice(() -> new FileInputStream(spillFile), graphToWriteTo, new FileLoadStats(spillFile));
+        } finally {
+            Files.deleteIfExists(spillFile.toPath());
+        }
+    }
+
+    // Both passes over one input, on this thread
+    private void readTwice(final StreamOpener source, final Graph graphToWriteTo, final FileLoadStats stats)
+            throws IOException {
         final boolean supportsTx = graphToWriteTo.features().graph().supportsTransactions();
-        final Graph.Features.EdgeFeatures edgeFeatures = graphToWriteTo.features().edge();
-        
-        readVertexStrings(inputStream).<Vertex>map(FunctionUtils.wrapFunction(line -> readVertex(new ByteArrayInputStream(line.getBytes()), null, null, Direction.IN))).forEach(vertex -> {
-        	try{
-        		final Attachable<Vertex> attachable = (Attachable<Vertex>) vertex;
-	            cache.put((StarGraph.StarVertex) attachable.get(), attachable.attach(Attachable.Method.create(graphToWriteTo)));
-	            if (supportsTx && counter.incrementAndGet() % batchSize == 0)
-	                graphToWriteTo.tx().commit();
-        	}
-        	catch(Exception ex){
-        		LOGGER.info("Error in reading vertex from graphson"+vertex.toString());
-        	}
+        final VertexIdMap idMap = new VertexIdMap();
+        try {
+            readVertices(source, graphToWriteTo, idMap, supportsTx, stats);
+            readEdges(source, graphToWriteTo, idMap, supportsTx, stats);
+        } finally {
+            idMap.close();
+        }
+    }
+
+    /**
+     * Read the snapshot files into a {@link Graph} in two passes: first every vertex (with its properties) is
+     * created, then each file is read again and the OUT edges of its vertices are added.  Between the passes
+     * only the old to new vertex id mapping is kept, as primitive longs.  The files are spread over up to
+     * {@code threadCount} threads in each pass if the graph supports transactions (each thread commits its own
+     * every {@code batchSize} mutations); otherwise they are read one after the other.
+     *
+     * @param snapshotFiles the snapshot files (plain or block-compressed GraphSON)
+     * @param graphToWriteTo the graph to write to
+     * @param threadCount the most files to read at the same time
+     * @return how long each file took to load, in the same order as {@code snapshotFiles}
+     */
+    public List<FileLoadStats> readGraph(final List<File> snapshotFiles, final Graph graphToWriteTo, final int threadCount)
+            throws IOException {
+        final boolean supportsTx = graphToWriteTo.features().graph().supportsTransactions();
+        final int threads = supportsTx ? Math.max(1, Math.min(threadCount, snapshotFiles.size())) : 1;
+        final Map<File, FileLoadStats> statsMap = new LinkedHashMap<>();
+        for (File f : snapshotFiles) {
+            statsMap.put(f, new FileLoadStats(f));
+        }
+        final VertexIdMap idMap = new VertexIdMap();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            runPass(snapshotFiles, executor, f -> readVertices(() -> new FileInputStream(f), graphToWriteTo, idMap,
+                    supportsTx, statsMap.get(f)));
+            LOGGER.info("Added " + idMap.size() + " vertices from " + snapshotFiles.size() + " file(s), now adding the edges");
+            runPass(snapshotFiles, executor, f -> readEdges(() -> new FileInputStream(f), graphToWriteTo, idMap,
+                    supportsTx, statsMap.get(f)));
+        } finally {
+            executor.shutdown();
+            idMap.close();
+        }
+        return new ArrayList<>(statsMap.values());
+    }
+
+    /**
+     * How long one snapshot file took to load, over both passes, split into reading its lines (file I/O and
+     * decompression), parsing them and adding them to the graph (including the commits).  Adding up the
+     * read and parse times and comparing them with the graph time shows which side a load is bound by.
+     */
+    public static final class FileLoadStats {
+        private final File file;
+        private long lines = 0;
+        private long vertices = 0;
+        private long edges = 0;
+        private long errors = 0;
+        private long readNanos = 0;
+        private long parseNanos = 0;
+        private long graphNanos = 0;
+        private long vertexPassNanos = 0;
+        private long edgePassNanos = 0;
+
+        FileLoadStats(final File file) {
+            this.file = file;
+        }
+
+        /** @return the snapshot file, or null if the graph was read from a stream */
+        public File getFile() {
+            return file;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getVertices() {
+            return vertices;
+        }
+
+        public long getEdges() {
+            return edges;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getReadMillis() {
+            return readNanos / 1000000;
+        }
+
+        public long getParseMillis() {
+            return parseNanos / 1000000;
+        }
+
+        public long getGraphMillis() {
+            return graphNanos / 1000000;
+        }
+
+        public long getVertexPassMillis() {
+            return vertexPassNanos / 1000000;
+        }
+
+        public long getEdgePassMillis() {
+            return edgePassNanos / 1000000;
+        }
+
+        // Each of these adds the time since the given mark and returns the new mark
+        private long addRead(final long mark) {
+            final long now = System.nanoTime();
+            readNanos += now - mark;
+            return now;
+        }
+
+        private long addParse(final long mark) {
+            final long now = System.nanoTime();
+            parseNanos += now - mark;
+            return now;
+        }
+
+        private long addGraph(final long mark) {
+            final long now = System.nanoTime();
+            graphNanos += now - mark;
+            return now;
+        }
+
+        @Override
+        public String toString() {
+            return (file == null ? "stream" : file.getName()) + ": " + vertices + " vertices, " + edges + " edges, " + errors + " errors from "
+                    + lines + " lines in " + (getVertexPassMillis() + getEdgePassMillis()) + " ms (vertex pass "
+                    + getVertexPassMillis() + " ms, edge pass " + getEdgePassMillis() + " ms); read "
+                    + getReadMillis() + " ms, parse " + getParseMillis() + " ms, graph " + getGraphMillis() + " ms";
+        }
+    }
+
+    private interface FileTask {
+        void run(File f) throws IOException;
+    }
+
+    // Opens the input from the start, once for each pass
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    private void runPass(final List<File> snapshotFiles, final ExecutorService executor, final FileTask task)
+            throws IOException {
+        final List<Future<?>> futures = new ArrayList<>();
+        for (File f : snapshotFiles) {
+            futures.add(executor.submit(() -> {
+                task.run(f);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading the graph", e);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    private void readVertices(final StreamOpener source, final Graph graphToWriteTo, final VertexIdMap idMap,
+            final boolean supportsTx, final FileLoadStats stats) throws IOException {
+        final long passStart = System.nanoTime();
+        long counter = 0;
+        long mark = passStart;
+        // Old and new ids of the vertices added since the last commit.  Other threads look ids up in the
+        // map for their edges, so an id only goes in once its vertex is committed.
+        long[] pendingIds = new long[supportsTx ? (int) Math.min(batchSize, 65536) * 2 : 0];
+        int pendingCount = 0;
+        try (InputStream is = source.open()) {
+            final Iterator<String> lines = readVertexStrings(is).iterator();
+            while (lines.hasNext()) {
+                final String line = lines.next();
+                mark = stats.addRead(mark);
+                stats.lines++;
+                final CompactSnapshot.VertexRecord rec;
+                try {
+                    rec = parseLine(line);
+                } catch (Exception ex) {
+                    stats.errors++;
+                    LOGGER.info("Error in reading vertex from graphson " + abbreviate(line));
+                    mark = stats.addParse(mark);
+                    continue;
+                }
+                mark = stats.addParse(mark);
+                try {
+                    final Vertex newVertex = graphToWriteTo.features().vertex().willAllowId(rec.id)
+                            ? graphToWriteTo.addVertex(T.id, rec.id, T.label, rec.label)
+                            : graphToWriteTo.addVertex(rec.label);
+                    for (int i = 0; i < rec.propKeys.size(); i++) {
+                        final String key = rec.propKeys.get(i);
+                        newVertex.property(graphToWriteTo.features().vertex().getCardinality(key), key, rec.propValues.get(i));
+                    }
+                    final long newId = ((Number) newVertex.id()).longValue();
+                    if (!supportsTx) {
+                        idMap.put(rec.id, newId);
+                        stats.vertices++;
+                    } else {
+                        if (pendingCount * 2 == pendingIds.length) {
+                            pendingIds = Arrays.copyOf(pendingIds, Math.max(16, pendingIds.length * 2));
+                        }
+                        pendingIds[pendingCount * 2] = rec.id;
+                        pendingIds[pendingCount * 2 + 1] = newId;
+                        pendingCount++;
+                    }
+                } catch (Exception ex) {
+                    stats.errors++;
+                    LOGGER.info("Error in reading vertex from graphson " + abbreviate(line));
+                }
+                if (supportsTx && ++counter % batchSize == 0) {
+                    commitVertices(graphToWriteTo, idMap, pendingIds, pendingCount, stats);
+                    pendingCount = 0;
+                }
+                mark = stats.addGraph(mark);
+            }
+        }
+        if (supportsTx) {
+            commitVertices(graphToWriteTo, idMap, pendingIds, pendingCount, stats);
+        }
+        stats.addGraph(mark);
+        stats.vertexPassNanos = System.nanoTime() - passStart;
+    }
+
+    // Commits the vertices added since the last commit, and only then maps their ids
+    private void commitVertices(final Graph graphToWriteTo, final VertexIdMap idMap, final long[] pendingIds,
+            final int pendingCount, final FileLoadStats stats) {
+        try {
+            graphToWriteTo.tx().commit();
+        } catch (Exception ex) {
+            stats.errors += pendingCount;
+            LOGGER.info("Error committing " + pendingCount + " vertices read from graphson, they are left out: "
+                    + ex.getMessage());
+            try {
+                graphToWriteTo.tx().rollback();
+            } catch (Exception re) {
+                LOGGER.debug("Rollback after the failed commit also failed: " + re.getMessage());
+            }
+            return;
+        }
+        for (int i = 0; i < pendingCount; i++) {
+            idMap.put(pendingIds[i * 2], pendingIds[i * 2 + 1]);
+        }
+        stats.vertices += pendingCount;
+    }
+
+    private void readEdges(final StreamOpener source, final Graph graphToWriteTo, final VertexIdMap idMap,
+            final boolean supportsTx, final FileLoadStats stats) throws IOException {
+        final long passStart = System.nanoTime();
+        long counter = 0;
+        long mark = passStart;
+        // The edges added since the last commit and the old ids of their out vertices, so a failed
+        // commit can say which edges it lost
+        final List<CompactSnapshot.EdgeRecord> pendingEdges = new ArrayList<>();
+        long[] pendingOutIds = new long[supportsTx ? (int) Math.min(batchSize, 65536) : 0];
+        try (InputStream is = source.open()) {
+            final Iterator<String> lines = readVertexStrings(is).iterator();
+            while (lines.hasNext()) {
+                final String line = lines.next();
+                mark = stats.addRead(mark);
+                final CompactSnapshot.VertexRecord rec;
+                try {
+                    rec = parseLine(line);
+                } catch (Exception ex) {
+                    // Already logged (and counted) in the vertex pass
+                    mark = stats.addParse(mark);
+                    continue;
+                }
+                mark = stats.addParse(mark);
+                if (rec.outE.isEmpty()) {
+                    continue;
+                }
+                final Vertex outV = lookupVertex(graphToWriteTo, idMap, rec.id);
+                for (CompactSnapshot.EdgeRecord ed : rec.outE) {
+                    try {
+                        final Vertex inV = lookupVertex(graphToWriteTo, idMap, ed.otherVid);
+                        if (outV != null && inV != null) {
+                            final Object[] keyValues = new Object[ed.propKeys.size() * 2];
+                            for (int i = 0; i < ed.propKeys.size(); i++) {
+                                keyValues[i * 2] = ed.propKeys.get(i);
+                                keyValues[i * 2 + 1] = ed.propValues.get(i);
+                            }
+                            outV.addEdge(ed.label, inV, keyValues);
+                            if (!supportsTx) {
+                                stats.edges++;
+                            } else {
+                                if (pendingEdges.size() == pendingOutIds.length) {
+                                    pendingOutIds = Arrays.copyOf(pendingOutIds, Math.max(16, pendingOutIds.length * 2));
+                                }
+                                pendingOutIds[pendingEdges.size()] = rec.id;
+                                pendingEdges.add(ed);
+                            }
+                        } else {
+                            LOGGER.debug("Ghost edges from " + rec.id + " to " + ed.otherVid);
+                        }
+                    } catch (Exception ex) {
+                        stats.errors++;
+                        LOGGER.info("Error in writing edge into graph " + ed.label + " from " + rec.id + " to " + ed.otherVid);
+                    }
+                    if (supportsTx && ++counter % batchSize == 0) {
+                        commitEdges(graphToWriteTo, pendingEdges, pendingOutIds, stats);
+                    }
+                }
+                mark = stats.addGraph(mark);
+            }
+        }
+        if (supportsTx) {
+            commitEdges(graphToWriteTo, pendingEdges, pendingOutIds, stats);
+        }
+        stats.addGraph(mark);
+        stats.edgePassNanos = System.nanoTime() - passStart;
+    }
+
+    // Commits the edges added since the last commit.  If that fails, all of them are rolled back,
+    // counted as errors and logged, like the vertices in commitVertices()
+    private void commitEdges(final Graph graphToWriteTo, final List<CompactSnapshot.EdgeRecord> pendingEdges,
+            final long[] pendingOutIds, final FileLoadStats stats) {
+        try {
+            graphToWriteTo.tx().commit();
+            stats.edges += pendingEdges.size();
+        } catch (Exception ex) {
+            stats.errors += pendingEdges.size();
+            LOGGER.info("Error committing " + pendingEdges.size() + " edges read from graphson, they are left out: "
+                    + ex.getMessage());
+            for (int i = 0; i < pendingEdges.size(); i++) {
+                final CompactSnapshot.EdgeRecord ed = pendingEdges.get(i);
+                LOGGER.info("Edge left out " + ed.label + " from " + pendingOutIds[i] + " to " + ed.otherVid);
+            }
+            try {
+                graphToWriteTo.tx().rollback();
+            } catch (Exception re) {
+                LOGGER.debug("Rollback after the failed commit also failed: " + re.getMessage());
+            }
+        }
+        pendingEdges.clear();
+    }
+
+    private Vertex lookupVertex(final Graph graph, final VertexIdMap idMap, final long oldId) {
+        final long newId = idMap.get(oldId);
+        if (newId == VertexIdMap.NO_ID) {
+            return null;
+        }
+        final Iterator<Vertex> it = graph.vertices(newId);
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * Reads a line with the streaming GraphSON 1.0 parser, or (for other GraphSON versions) through a
+     * {@link StarGraph} that is dropped as soon as its contents have been copied out.
+     */
+    private CompactSnapshot.VertexRecord parseLine(final String line) throws IOException {
+        try {
+            return GraphSONLineParser.parse(line, true);
+        } catch (IOException e) {
+            // Not plain GraphSON 1.0, let TinkerPop read it
+        }
+        final Vertex starVertex = readVertex(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)), null, null, Direction.OUT);
+        final CompactSnapshot.VertexRecord rec = new CompactSnapshot.VertexRecord();
+        rec.id = ((Number) starVertex.id()).longValue();
+        rec.label = starVertex.label();
+        starVertex.properties().forEachRemaining(vp -> rec.addProperty(vp.key(), vp.value()));
+        starVertex.edges(Direction.OUT).forEachRemaining(e -> {
+            final CompactSnapshot.EdgeRecord ed = new CompactSnapshot.EdgeRecord(e.label(), ((Number) e.inVertex().id()).longValue());
+            e.properties().forEachRemaining(p -> ed.addProperty(p.key(), p.value()));
+            rec.outE.add(ed);
         });
-        
-        cache.entrySet().forEach(kv -> kv.getKey().edges(Direction.IN).forEachRemaining(e -> {
-        	try{
-	        	// can't use a standard Attachable attach method here because we have to use the cache for those
-	            // graphs that don't support userSuppliedIds on edges.  note that outVertex/inVertex methods return
-	            // StarAdjacentVertex whose equality should match StarVertex.
-	            final Vertex cachedOutV = cache.get(e.outVertex());
-	            final Vertex cachedInV = cache.get(e.inVertex());
-	            
-	            if(cachedOutV != null  && cachedInV != null){
-	            	 
-		            final Edge newEdge = edgeFeatures.willAllowId(e.id()) ? cachedOutV.addEdge(e.label(), cachedInV, T.id, e.id()) : cachedOutV.addEdge(e.label(), cachedInV);
-		            e.properties().forEachRemaining(p -> newEdge.property(p.key(), p.value()));
-		        }
-	            else{
-	            	LOGGER.debug("Ghost edges from "+ cachedOutV + " to "+ cachedInV);
-	            	
-	            }
-	            if (supportsTx && counter.incrementAndGet() % batchSize == 0)
-	                graphToWriteTo.tx().commit();
-        	}
-        	catch(Exception ex){
-        		LOGGER.info("Error in writing vertex into graph"+e.toString());
-        	}
-        }));
-
-        if (supportsTx) graphToWriteTo.tx().commit();
+        return rec;
+    }
+
+    private static String abbreviate(final String line) {
+        return line.length() > 200 ? line.substring(0, 200) + "..." : line;
     }
 
     /**
@@ -291,7 +674,8 @@ public final class GraphSONPartialReader implements GraphReader {
             if (!vertices.getNodeType().equals(JsonNodeType.ARRAY)) throw new IOException("The '%s' key must be an array".formatted(GraphSONTokens.VERTICES));
             return IteratorUtils.stream(vertices.elements()).map(Object::toString);
         } else {
-        	final BufferedReader br = new BufferedReader(new InputStreamReader(inputStream));
+        	// Snapshot files may be block-compressed
+        	final BufferedReader br = new BufferedReader(new InputStreamReader(BlockCompressedInputStream.decompressIfNeeded(inputStream)));
             return br.lines();
         }
     	
@@ -19,32 +19,27 @@
  */
 package org.onap.aai.dbgen;
 
-import org.apache.commons.configuration2.PropertiesConfiguration;
-import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.janusgraph.core.JanusGraph;
-import org.janusgraph.core.JanusGraphFactory;
 import org.janusgraph.core.schema.JanusGraphIndex;
 import org.janusgraph.core.schema.JanusGraphManagement;
 import org.janusgraph.core.schema.SchemaAction;
 import org.janusgraph.core.schema.SchemaStatus;
 import org.janusgraph.graphdb.database.management.ManagementSystem;
-import org.onap.aai.dbmap.AAIGraphConfig;
 import org.onap.aai.edges.EdgeIngestor;
 import org.onap.aai.exceptions.AAIException;
 import org.onap.aai.logging.ErrorLogHelper;
 import org.onap.aai.serialization.engines.TransactionalGraphEngine;
 import org.onap.aai.setup.SchemaVersions;
-import org.onap.aai.util.AAIConstants;
 import org.onap.aai.util.AAISystemExitUtil;
 import org.onap.aai.util.ExceptionTranslator;
+import org.onap.aai.util.ToolGraphPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
-import java.io.FileNotFoundException;
 import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
 import java.util.Set;
@@ -126,20 +121,22 @@ public class ReindexingTool {
     }
 
     public Set<String> getListOfIndexes(){
-        final String rtConfig = AAIConstants.REALTIME_DB_CONFIG;
         final String serviceName = System.getProperty("aai.service.name", ReindexingTool.class.getSimpleName());
         Set<String> indexSet = new HashSet<>();
         try {
-            PropertiesConfiguration graphConfig = getGraphConfig(rtConfig, serviceName);
-            try (JanusGraph janusGraph = JanusGraphFactory.open(graphConfig)) {
+            JanusGraph janusGraph = ToolGraphPool.getInstance().open(serviceName, REALTIME_DB);
+            try {
                 JanusGraphManagement mgmt = janusGraph.openManagement();
 
                 for (JanusGraphIndex index : mgmt.getGraphIndexes(Vertex.class)) {
                     indexSet.add(index.name());
                 }
+                mgmt.rollback();
+            } finally {
+                ToolGraphPool.getInstance().release(janusGraph);
             }
-        } catch (ConfigurationException | FileNotFoundException e) {
-            logger.error("Failed to load graph configuration: {}", e.getMessage(), e);
+        } catch (AAIException e) {
+            logger.error("Failed to open the graph: {}", e.getMessage(), e);
         } catch (Exception e) {
             logger.error("Unexpected error while fetching indexes : {}", e.getMessage(), e);
         }
@@ -147,13 +144,11 @@ public class ReindexingTool {
     }
 
     private static void fullReindex() throws InterruptedException {
-        final String rtConfig = AAIConstants.REALTIME_DB_CONFIG;
         final String serviceName = System.getProperty("aai.service.name", ReindexingTool.class.getSimpleName());
 
         try {
-            PropertiesConfiguration graphConfig = getGraphConfig(rtConfig, serviceName);
-
-            try (JanusGraph janusGraph = JanusGraphFactory.open(graphConfig)) {
+            JanusGraph janusGraph = ToolGraphPool.getInstance().open(serviceName, REALTIME_DB);
+            try {
                 JanusGraphManagement mgmt = janusGraph.openManagement();
 
                 for (JanusGraphIndex index : mgmt.getGraphIndexes(Vertex.class)) {
@@ -172,29 +167,22 @@ public class ReindexingTool {
                         throw e;
                     }
                 }
+            } finally {
+                ToolGraphPool.getInstance().release(janusGraph);
             }
-        } catch (ConfigurationException | FileNotFoundException e) {
-            logger.error("Failed to load graph configuration: {}", e.getMessage(), e);
+        } catch (AAIException e) {
+            logger.error("Failed to open the graph: {}", e.getMessage(), e);
         } catch (Exception e) {
             logger.error("Unexpected error while reindexing '{}': {}", indexNameParam, e.getMessage(), e);
         }
     }
 
-    private static PropertiesConfiguration getGraphConfig(String rtConfig, String serviceName) throws ConfigurationException, FileNotFoundException {
-        return new AAIGraphConfig.Builder(rtConfig)
-                .forService(serviceName)
-                .withGraphType(REALTIME_DB)
-                .buildConfiguration();
-    }
-
     public static void reindexByName(String indexNameParam) throws InterruptedException {
-        final String rtConfig = AAIConstants.REALTIME_DB_CONFIG;
         final String serviceName = System.getProperty("aai.service.name", ReindexingTool.class.getSimpleName());
 
         try {
-            PropertiesConfiguration graphConfig = getGraphConfig(rtConfig, serviceName);
-
-            try (JanusGraph janusGraph = JanusGraphFactory.open(graphConfig)) {
+            JanusGraph janusGraph = ToolGraphPool.getInstance().open(serviceName, REALTIME_DB);
+            try {
                 JanusGraphManagement mgmt = janusGraph.openManagement();
                 JanusGraphIndex index = mgmt.getGraphIndex(indexNameParam);
                 if (index == null) {
@@ -218,10 +206,11 @@ public class ReindexingTool {
                     logger.error("Error while waiting for index '{}' to register: {}", indexNameParam, e.getMessage(), e);
                     throw e;
                 }
-
+            } finally {
+                ToolGraphPool.getInstance().release(janusGraph);
             }
-        } catch (ConfigurationException | FileNotFoundException e) {
-            logger.error("Failed to load graph configuration: {}", e.getMessage(), e);
+        } catch (AAIException e) {
+            logger.error("Failed to open the graph: {}", e.getMessage(), e);
         } catch (Exception e) {
             logger.error("Unexpected error while reindexing '{}': {}", indexNameParam, e.getMessage(), e);
         }
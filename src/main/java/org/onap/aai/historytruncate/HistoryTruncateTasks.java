@@ -30,6 +30,7 @@ import org.onap.aai.exceptions.AAIException;
 import org.onap.aai.logging.ErrorLogHelper;
 import org.onap.aai.logging.LogFormatTools;
 import org.onap.aai.util.AAIConfig;
+import org.onap.aai.util.ToolJobGuard;
 import org.onap.logging.filter.base.ONAPComponents;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -71,6 +72,12 @@ public class HistoryTruncateTasks {
 			}
 		}
 
+		ToolJobGuard.Job job = ToolJobGuard.getInstance().tryStart("historyTruncate");
+		if(job == null){
+			LOGGER.debug("History Truncate is already running in this graphadmin, or there is no room for it next to the jobs that are");
+			return;
+		}
+
 		auditLog.logBefore("historyTruncateTask", ONAPComponents.AAI.toString() );
 		LOGGER.debug("Started cron job HistoryTruncate @ " + dateFormat.format(new Date()));
 		try {
@@ -86,6 +93,7 @@ public class HistoryTruncateTasks {
 			ErrorLogHelper.logError("AAI_4000", "Exception running cron job for HistoryTruncate "+LogFormatTools.getStackTop(e));
 			LOGGER.debug("AAI_4000", "Exception running cron job for HistoryTruncate "+LogFormatTools.getStackTop(e));
 		} finally {
+			job.close();
 			LOGGER.debug("Ended cron job historyTruncate @ " + dateFormat.format(new Date()));
 		}
 		auditLog.logAfter();
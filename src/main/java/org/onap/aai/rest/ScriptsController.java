@@ -25,6 +25,7 @@ import org.onap.aai.rest.service.DataGroomingService;
 import org.onap.aai.rest.service.DataGroomingSummaryService;
 import org.onap.aai.rest.service.DupeToolService;
 import org.onap.aai.rest.service.ReindexingToolService;
+import org.onap.aai.util.GraphStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -130,6 +131,13 @@ public class ScriptsController {
     }
 
 
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<String, Object>> getGraphStatistics() {
+        logger.info(">>> inside getGraphStatistics");
+
+        return ResponseEntity.ok(GraphStatistics.getInstance().toMap());
+    }
+
     @GetMapping("/grooming/files/present")
     public ResponseEntity<Map<String, Object>> checkIfFilesPresent() throws IOException {
         boolean present = dataGroomingSummaryService.hasGroomingFiles();
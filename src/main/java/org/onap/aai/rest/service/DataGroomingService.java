@@ -26,6 +26,7 @@ import org.onap.aai.datagrooming.DataGrooming;
 import org.onap.aai.introspection.LoaderFactory;
 import org.onap.aai.rest.model.DataGroomingRequest;
 import org.onap.aai.setup.SchemaVersions;
+import org.onap.aai.util.ToolJobGuard;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -58,6 +59,12 @@ public class DataGroomingService {
     @Async("dataGroomingExecutor")
     public void executeAsync(DataGroomingRequest requestBody) throws JsonProcessingException {
 
+        // The scheduled dataGrooming task uses the same guard
+        ToolJobGuard.Job job = ToolJobGuard.getInstance().tryStart("dataGrooming");
+        if (job == null) {
+            logger.warn("DataGrooming is already running, or there is no room for it next to the jobs that are");
+            return;
+        }
         try {
             logger.info("Incoming JSON: {}", requestBody);
 
@@ -69,6 +76,8 @@ public class DataGroomingService {
         } catch (Exception e) {
             logger.error("Error:", e);
             throw e;
+        } finally {
+            job.close();
         }
     }
 
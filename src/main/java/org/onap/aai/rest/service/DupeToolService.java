@@ -27,6 +27,7 @@ import org.onap.aai.exceptions.AAIException;
 import org.onap.aai.introspection.LoaderFactory;
 import org.onap.aai.rest.model.DupeToolRequest;
 import org.onap.aai.setup.SchemaVersions;
+import org.onap.aai.util.ToolJobGuard;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -57,6 +58,11 @@ public class DupeToolService {
     @Async("dupeExecutor")
     public void executeAsync(DupeToolRequest requestBody) throws AAIException {
 
+        ToolJobGuard.Job job = ToolJobGuard.getInstance().tryStart("dupeTool");
+        if (job == null) {
+            logger.warn("DupeTool is already running, or there is no room for it next to the jobs that are");
+            return;
+        }
         try {
             logger.info("Incoming JSON: {}", requestBody);
 
@@ -71,6 +77,8 @@ public class DupeToolService {
         } catch (Exception e) {
             logger.error("Error:", e);
             throw e;
+        } finally {
+            job.close();
         }
     }
 
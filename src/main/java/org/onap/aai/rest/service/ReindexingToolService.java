@@ -24,6 +24,7 @@ import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 
 import org.onap.aai.dbgen.ReindexingTool;
+import org.onap.aai.util.ToolJobGuard;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +48,11 @@ public class ReindexingToolService {
     @Async("reindexingExecutor")
     public void execute(String requestBody) {
 
+        ToolJobGuard.Job job = ToolJobGuard.getInstance().tryStart("reindexingTool");
+        if (job == null) {
+            logger.warn("ReindexingTool is already running, or there is no room for it next to the jobs that are");
+            return;
+        }
         try {
             logger.info("Incoming JSON: {}", requestBody);
             Map<String, Object> requestMap = objectMapper.readValue(requestBody, Map.class);
@@ -58,6 +64,8 @@ public class ReindexingToolService {
 
         } catch (Exception e) {
             logger.error("Error:", e);
+        } finally {
+            job.close();
         }
     }
 
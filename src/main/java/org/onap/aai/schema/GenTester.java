@@ -27,12 +27,14 @@ import org.janusgraph.core.schema.JanusGraphIndex;
 import org.janusgraph.core.schema.JanusGraphManagement;
 import org.janusgraph.graphdb.database.StandardJanusGraph;
 import org.janusgraph.graphdb.database.management.ManagementSystem;
+import org.onap.aai.datagrooming.LastModTsIndex;
 import org.onap.aai.dbgen.SchemaGenerator;
 import org.onap.aai.dbmap.AAIGraph;
 import org.onap.aai.exceptions.AAIException;
 import org.onap.aai.logging.ErrorLogHelper;
 import org.onap.aai.util.AAIConfig;
 import org.onap.aai.util.ExceptionTranslator;
+import org.onap.aai.util.GraphAdminConstants;
 import org.onap.aai.util.GraphAdminDBUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -116,6 +118,18 @@ public class GenTester {
                     }
                 } else if ("GEN_DB_WITH_NO_DEFAULT_CR".equals(args[0])) {
                     addDefaultCR = false;
+                } else if ("GEN_GROOMING_WINDOW_INDEX".equals(args[0])) {
+                    // Only the mixed index on aai-last-mod-ts that time-window grooming runs use
+                    LOGGER.debug("about to open graph (takes a little while)");
+                    graph = AAIGraph.getInstance().getGraph();
+                    if (graph == null) {
+                        ErrorLogHelper.logError("AAI_5102", "Error creating JanusGraph graph. ");
+                        return;
+                    }
+                    LastModTsIndex.createIndex(graph, AAIConfig.get("aai.grooming.window.index.backend",
+                            GraphAdminConstants.AAI_GROOMING_DEFAULT_WINDOW_INDEX_BACKEND));
+                    graph.close();
+                    return;
                 } else {
                     ErrorLogHelper.logError("AAI_3000",
                             "Unrecognized argument passed to GenTester.java: [" + args[0] + "]. ");
@@ -124,7 +138,8 @@ public class GenTester {
                     System.out.println(emsg);
                     LOGGER.error(emsg);
 
-                    emsg = "Either pass no argument for normal processing, or use 'GEN_DB_WITH_NO_SCHEMA'.";
+                    emsg = "Either pass no argument for normal processing, or use 'GEN_DB_WITH_NO_SCHEMA', "
+                            + "'GEN_DB_WITH_NO_DEFAULT_CR' or 'GEN_GROOMING_WINDOW_INDEX'.";
                     System.out.println(emsg);
                     LOGGER.error(emsg);
 
@@ -30,13 +30,40 @@ public final class GraphAdminConstants {
     public static final Long AAI_SNAPSHOT_DEFAULT_RETRY_DELAY_MS = 1500L;
     public static final Long AAI_SNAPSHOT_DEFAULT_VERTEX_TO_EDGE_PROC_DELAY_MS = 9000L;
     public static final Long AAI_SNAPSHOT_DEFAULT_STAGGER_THREAD_DELAY_MS = 5000L;
+    public static final int AAI_SNAPSHOT_DEFAULT_STREAM_BATCH_SIZE = 500;
+    public static final int AAI_SNAPSHOT_DEFAULT_RELOAD_BATCH_SIZE = 100;
+    public static final int AAI_SNAPSHOT_DEFAULT_RELOAD_INITIAL_RATE = 1000;
+    public static final int AAI_SNAPSHOT_DEFAULT_RELOAD_MIN_RATE = 20;
+    public static final int AAI_SNAPSHOT_DEFAULT_RELOAD_MAX_RATE = 50000;
+    public static final Long AAI_SNAPSHOT_DEFAULT_RELOAD_TARGET_LATENCY_MS = 1000L;
+    public static final double AAI_SNAPSHOT_DEFAULT_RELOAD_MAX_ERROR_RATE = 0.05;
+    public static final int AAI_SNAPSHOT_DEFAULT_MAX_DELTA_CHAIN_LENGTH = 24;
+    public static final Long AAI_SNAPSHOT_DEFAULT_DELTA_SAFETY_MARGIN_MS = 300000L;
+    public static final String AAI_SNAPSHOT_DEFAULT_DELTA_INDEX_BACKEND = "search";
+    public static final int AAI_SNAPSHOT_DEFAULT_COMPRESS_BLOCK_SIZE_KB = 0;
 
     public static final int AAI_GROOMING_DEFAULT_MAX_FIX = 150;
     public static final int AAI_GROOMING_DEFAULT_SLEEP_MINUTES = 7;
+    public static final int AAI_GROOMING_DEFAULT_THREADS = 1;
+    public static final int AAI_GROOMING_DEFAULT_SLICE_SIZE = 20000;
+    public static final int AAI_GROOMING_DEFAULT_PAGE_SIZE = 5000;
+    public static final long AAI_GROOMING_DEFAULT_RESUME_MAX_AGE_MINUTES = 1440;
+    public static final String AAI_GROOMING_DEFAULT_WINDOW_INDEX_BACKEND = "search";
 
     public static final int AAI_DUPETOOL_DEFAULT_MAX_FIX = 25;
     public static final int AAI_DUPETOOL_DEFAULT_SLEEP_MINUTES = 7;
 
+    public static final int AAI_DATAEXPORT_DEFAULT_LOAD_THREADS = 4;
+
+    public static final int AAI_TOOLJOBS_DEFAULT_MAX_THREADS = 32;
+
+    public static final String AAI_DATACLEANUP_DEFAULT_ARCHIVE_CODEC = "zip";
+    public static final int AAI_DATACLEANUP_DEFAULT_ARCHIVE_LEVEL = -1;
+    public static final int AAI_DATACLEANUP_DEFAULT_ARCHIVE_THREADS = 4;
+    public static final int AAI_DATACLEANUP_DEFAULT_ARCHIVE_BUFFER_KB = 1024;
+
+    public static final long AAI_GRAPHSTATS_DEFAULT_MAX_AGE_MINUTES = 1440;
+
     /** Micro-service Names */
     public static final String AAI_GRAPHADMIN_MS = "aai-graphadmin";
     
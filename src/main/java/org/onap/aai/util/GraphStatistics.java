@@ -0,0 +1,313 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Vertex counts per aai-node-type and edge counts per label, as seen by the last full
+ * scan that counted them.  The admin tools that go over the whole graph anyway (the
+ * threaded dataSnapshot, dataGrooming) record what they saw, so other runs can size their
+ * work from a recent estimate instead of paying for another full count.
+ *
+ * The counts are kept in a JSON file (aai.graphstats.file, by default
+ * logs/data/graphStatistics.json under AAI_HOME) so runs from the shell and the ones
+ * inside graphadmin share them.  An estimate is only handed out while it is younger than
+ * aai.graphstats.max.age.minutes.
+ */
+public class GraphStatistics {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GraphStatistics.class);
+
+	// What vertices without an aai-node-type are counted under
+	public static final String NO_NODE_TYPE = "(none)";
+
+	/** One count and where it came from. */
+	public static class Count {
+		public long count;
+		public long updatedTs;
+		public String source;
+
+		public Count() {
+		}
+
+		Count(long count, long updatedTs, String source) {
+			this.count = count;
+			this.updatedTs = updatedTs;
+			this.source = source;
+		}
+	}
+
+	/** What is saved in the file. */
+	static class Stats {
+		Count totalVertices;
+		Count totalEdges;
+		Map<String, Count> nodeTypes = new TreeMap<>();
+		Map<String, Count> edgeLabels = new TreeMap<>();
+	}
+
+	private final File file;
+	private Stats stats;
+	private long loadedFileTs = -1;
+
+	private static class Helper {
+		private static final GraphStatistics INSTANCE = new GraphStatistics(new File(AAIConfig.get("aai.graphstats.file",
+				AAIConstants.AAI_HOME + AAIConstants.AAI_FILESEP + "logs" + AAIConstants.AAI_FILESEP + "data"
+						+ AAIConstants.AAI_FILESEP + "graphStatistics.json")));
+	}
+
+	public static GraphStatistics getInstance() {
+		return Helper.INSTANCE;
+	}
+
+	GraphStatistics(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Starts counting what one full scan of the graph sees.  Its counts replace the old
+	 * ones when it is finished.
+	 */
+	public Scan startScan(String source) {
+		return new Scan(source);
+	}
+
+	/**
+	 * Records exact counts of some node types (e.g. from going over all the vertices of
+	 * those types).
+	 *
+	 * @param allNodeTypes true if the counts are for every node type, so they add up to the
+	 *   number of vertices
+	 */
+	public synchronized void recordNodeTypeCounts(String source, Map<String, Long> counts, boolean allNodeTypes) {
+		if( counts.isEmpty() ){
+			return;
+		}
+		long now = System.currentTimeMillis();
+		Stats s = current();
+		long vertices = 0;
+		for( Map.Entry<String, Long> entry : counts.entrySet() ){
+			s.nodeTypes.put(entry.getKey(), new Count(entry.getValue(), now, source));
+			vertices += entry.getValue();
+		}
+		if( allNodeTypes ){
+			s.totalVertices = new Count(vertices, now, source);
+		}
+		save(s);
+	}
+
+	/**
+	 * @return the number of vertices in the graph, if it was counted less than maxAgeMillis ago
+	 */
+	public synchronized Long getVertexCountEstimate(long maxAgeMillis) {
+		return recent(current().totalVertices, maxAgeMillis);
+	}
+
+	/**
+	 * @return the number of vertices with this aai-node-type, if it was counted less than
+	 *   maxAgeMillis ago
+	 */
+	public synchronized Long getNodeTypeCountEstimate(String nodeType, long maxAgeMillis) {
+		return recent(current().nodeTypes.get(nodeType), maxAgeMillis);
+	}
+
+	/**
+	 * @return the vertex count estimate if it is younger than aai.graphstats.max.age.minutes
+	 */
+	public Long getVertexCountEstimate() {
+		return getVertexCountEstimate(getMaxAgeMillis());
+	}
+
+	/**
+	 * @return the node type's count estimate if it is younger than aai.graphstats.max.age.minutes
+	 */
+	public Long getNodeTypeCountEstimate(String nodeType) {
+		return getNodeTypeCountEstimate(nodeType, getMaxAgeMillis());
+	}
+
+	/**
+	 * @return everything that is known, with the age of each count, for the REST API
+	 */
+	public synchronized Map<String, Object> toMap() {
+		Stats s = current();
+		long now = System.currentTimeMillis();
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("totalVertices", describe(s.totalVertices, now));
+		map.put("totalEdges", describe(s.totalEdges, now));
+		Map<String, Object> nodeTypes = new LinkedHashMap<>();
+		s.nodeTypes.forEach((k, v) -> nodeTypes.put(k, describe(v, now)));
+		map.put("nodeTypes", nodeTypes);
+		Map<String, Object> edgeLabels = new LinkedHashMap<>();
+		s.edgeLabels.forEach((k, v) -> edgeLabels.put(k, describe(v, now)));
+		map.put("edgeLabels", edgeLabels);
+		map.put("maxAgeMinutes", getMaxAgeMillis() / 60000);
+		return map;
+	}
+
+	private static Map<String, Object> describe(Count c, long now) {
+		if( c == null ){
+			return null;
+		}
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("count", c.count);
+		map.put("updatedTs", c.updatedTs);
+		map.put("ageMinutes", (now - c.updatedTs) / 60000);
+		map.put("source", c.source);
+		return map;
+	}
+
+	private static Long recent(Count c, long maxAgeMillis) {
+		if( c == null || System.currentTimeMillis() - c.updatedTs > maxAgeMillis ){
+			return null;
+		}
+		return c.count;
+	}
+
+	private synchronized void finishScan(Scan scan) {
+		long now = System.currentTimeMillis();
+		Stats s = current();
+		// Whatever the scan didn't see is not in the graph any more
+		s.nodeTypes.replaceAll((k, v) -> new Count(0, now, scan.source));
+		s.edgeLabels.replaceAll((k, v) -> new Count(0, now, scan.source));
+		long vertices = 0;
+		for( Map.Entry<String, LongAdder> entry : scan.nodeTypes.entrySet() ){
+			long n = entry.getValue().sum();
+			s.nodeTypes.put(entry.getKey(), new Count(n, now, scan.source));
+			vertices += n;
+		}
+		long edges = 0;
+		for( Map.Entry<String, LongAdder> entry : scan.edgeLabels.entrySet() ){
+			long n = entry.getValue().sum();
+			s.edgeLabels.put(entry.getKey(), new Count(n, now, scan.source));
+			edges += n;
+		}
+		s.totalVertices = new Count(vertices, now, scan.source);
+		s.totalEdges = new Count(edges, now, scan.source);
+		save(s);
+		LOGGER.debug("Recorded the counts of " + scan.source + ": " + vertices + " vertices, " + edges + " edges");
+	}
+
+	private synchronized Stats current() {
+		long fileTs = file.lastModified();
+		if( stats == null || fileTs != loadedFileTs ){
+			stats = load();
+			loadedFileTs = fileTs;
+		}
+		return stats;
+	}
+
+	private Stats load() {
+		if( !file.exists() ){
+			return new Stats();
+		}
+		try (Reader r = new BufferedReader(new FileReader(file))) {
+			Stats s = new GsonBuilder().create().fromJson(r, Stats.class);
+			if( s != null && s.nodeTypes != null && s.edgeLabels != null ){
+				return s;
+			}
+		} catch (Exception e) {
+			LOGGER.warn("Could not read the graph statistics in " + file + ", starting over: " + e.getMessage());
+		}
+		return new Stats();
+	}
+
+	private void save(Stats s) {
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			File dir = file.getAbsoluteFile().getParentFile();
+			if( !dir.isDirectory() && !dir.mkdirs() ){
+				LOGGER.debug("Failed to create " + dir);
+			}
+			try (Writer w = new BufferedWriter(new FileWriter(tmp))) {
+				new GsonBuilder().setPrettyPrinting().create().toJson(s, w);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			stats = s;
+			loadedFileTs = file.lastModified();
+		} catch (IOException e) {
+			// Only planning depends on these, so losing them is not worth failing a tool for
+			LOGGER.warn("Could not save the graph statistics to " + file + ": " + e.getMessage());
+		}
+	}
+
+	private static long getMaxAgeMillis() {
+		long minutes;
+		try {
+			minutes = Long.parseLong(AAIConfig.get("aai.graphstats.max.age.minutes",
+					Long.toString(GraphAdminConstants.AAI_GRAPHSTATS_DEFAULT_MAX_AGE_MINUTES)).trim());
+		} catch (Exception e) {
+			minutes = GraphAdminConstants.AAI_GRAPHSTATS_DEFAULT_MAX_AGE_MINUTES;
+		}
+		return minutes * 60 * 1000;
+	}
+
+	/**
+	 * The counts of one full scan.  Several threads can add to it at once.
+	 */
+	public class Scan {
+
+		private final String source;
+		private final Map<String, LongAdder> nodeTypes = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> edgeLabels = new ConcurrentHashMap<>();
+
+		private Scan(String source) {
+			this.source = source;
+		}
+
+		/**
+		 * @param nodeType the vertex's aai-node-type, or null if it has none
+		 */
+		public void addVertex(Object nodeType) {
+			nodeTypes.computeIfAbsent(nodeType == null ? NO_NODE_TYPE : nodeType.toString(), k -> new LongAdder()).increment();
+		}
+
+		public void addEdge(String label) {
+			edgeLabels.computeIfAbsent(label, k -> new LongAdder()).increment();
+		}
+
+		/**
+		 * Replaces the saved counts with the ones of this scan.  Only call it if the scan
+		 * went over the whole graph.
+		 */
+		public void finish() {
+			finishScan(this);
+		}
+	}
+
+}
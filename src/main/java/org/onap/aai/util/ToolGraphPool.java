@@ -0,0 +1,141 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.onap.aai.dbmap.AAIGraphConfig;
+import org.onap.aai.exceptions.AAIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The realtime graphs the admin tools open for themselves (as opposed to the shared
+ * AAIGraph).  Opening one means a new CQL session and loading the schema, which takes
+ * tens of seconds, so when the tools run inside graphadmin each graph is opened the first
+ * time it is asked for and then kept open for the jobs that come after.  It is closed
+ * when graphadmin shuts down.
+ *
+ * A tool run from the shell gets a graph of its own, which release() closes, the same as
+ * before.
+ *
+ * JanusGraph transactions belong to a thread, so several jobs can use one graph at once.
+ */
+public class ToolGraphPool {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ToolGraphPool.class);
+
+	private final Map<String, JanusGraph> openGraphs = new ConcurrentHashMap<>();
+
+	private static class Helper {
+		private static final ToolGraphPool INSTANCE = new ToolGraphPool();
+	}
+
+	public static ToolGraphPool getInstance() {
+		return Helper.INSTANCE;
+	}
+
+	ToolGraphPool() {
+	}
+
+	/**
+	 * @param serviceName the tool, which names the connection
+	 * @param graphType the graph type for AAIGraphConfig (tools that need more than one
+	 *   graph at a time use a different type for each)
+	 * @return an open graph, to be handed back with release() rather than closed
+	 */
+	public JanusGraph open(String serviceName, String graphType) throws AAIException {
+		if( !isPooling() ){
+			return openGraph(serviceName, graphType);
+		}
+		String key = serviceName + "/" + graphType;
+		JanusGraph graph = openGraphs.get(key);
+		if( graph != null && graph.isOpen() ){
+			return graph;
+		}
+		synchronized (this) {
+			graph = openGraphs.get(key);
+			if( graph == null || !graph.isOpen() ){
+				long startMillis = System.currentTimeMillis();
+				graph = openGraph(serviceName, graphType);
+				openGraphs.put(key, graph);
+				LOGGER.debug("Opened the " + key + " graph in " + (System.currentTimeMillis() - startMillis)
+						+ " ms, it will be kept open for the next jobs");
+			}
+			return graph;
+		}
+	}
+
+	/**
+	 * Hands back a graph from open().  A pooled graph stays open, only this thread's
+	 * transaction is rolled back.
+	 */
+	public void release(JanusGraph graph) {
+		if( graph == null || !graph.isOpen() ){
+			return;
+		}
+		if( openGraphs.containsValue(graph) ){
+			if( graph.tx().isOpen() ){
+				graph.tx().rollback();
+			}
+			return;
+		}
+		graph.tx().close();
+		graph.close();
+	}
+
+	/**
+	 * Closes all the pooled graphs.
+	 */
+	public synchronized void shutdown() {
+		List<String> keys = new ArrayList<>(openGraphs.keySet());
+		for( String key : keys ){
+			JanusGraph graph = openGraphs.remove(key);
+			try {
+				if( graph.isOpen() ){
+					graph.tx().close();
+					graph.close();
+				}
+			} catch (Exception e) {
+				// JanusGraph sometimes just says that the graph is already closed
+				LOGGER.warn("WARNING closing the " + key + " graph", e);
+			}
+		}
+	}
+
+	boolean isPooling() {
+		return "true".equals(System.getProperty("org.onap.aai.graphadmin.started"));
+	}
+
+	JanusGraph openGraph(String serviceName, String graphType) throws AAIException {
+		try {
+			return JanusGraphFactory.open(new AAIGraphConfig.Builder(AAIConstants.REALTIME_DB_CONFIG)
+					.forService(serviceName).withGraphType(graphType).buildConfiguration());
+		} catch (Exception e) {
+			throw new AAIException("AAI_5102", e, "Unable to open the " + graphType + " graph for " + serviceName);
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides which of the admin tools (dataSnapshot, dataGrooming, dataExport, ...) may start
+ * inside this JVM, whether they were kicked off by a cron task or a REST call.
+ *
+ * Only one job per tool runs at a time, and the jobs that run together have to fit in a
+ * thread and heap budget.  Each job says how many threads and how much heap (in MB) it
+ * needs with the aai.tooljobs.[tool].threads and aai.tooljobs.[tool].heap.mb properties,
+ * and the totals are aai.tooljobs.max.threads and aai.tooljobs.max.heap.mb (which defaults
+ * to three quarters of the max heap).  A job that doesn't fit is not started, the same as
+ * when the tool was found to be running already.
+ *
+ * This only knows about this JVM -- a tool run from the shell is a separate process.
+ */
+public class ToolJobGuard {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ToolJobGuard.class);
+
+	private final int maxThreads;
+	private final long maxHeapMb;
+
+	private final Map<String, Job> runningJobs = new HashMap<>();
+	private int threadsInUse = 0;
+	private long heapMbInUse = 0;
+
+	private static class Helper {
+		private static final ToolJobGuard INSTANCE = new ToolJobGuard(
+				getConfigInt("aai.tooljobs.max.threads", GraphAdminConstants.AAI_TOOLJOBS_DEFAULT_MAX_THREADS),
+				getConfigLong("aai.tooljobs.max.heap.mb", Runtime.getRuntime().maxMemory() / (1024 * 1024) * 3 / 4));
+	}
+
+	public static ToolJobGuard getInstance() {
+		return Helper.INSTANCE;
+	}
+
+	ToolJobGuard(int maxThreads, long maxHeapMb) {
+		this.maxThreads = maxThreads;
+		this.maxHeapMb = maxHeapMb;
+	}
+
+	/**
+	 * Starts a job for the tool with the threads and heap configured for it.
+	 *
+	 * @return the job, which must be closed when the tool is done, or null if the tool is
+	 *   already running or the job doesn't fit in what is left of the budget
+	 */
+	public Job tryStart(String tool) {
+		return tryStart(tool, getConfigInt("aai.tooljobs." + tool + ".threads", 1),
+				getConfigLong("aai.tooljobs." + tool + ".heap.mb", 0));
+	}
+
+	synchronized Job tryStart(String tool, int threads, long heapMb) {
+		Job running = runningJobs.get(tool);
+		if( running != null ){
+			LOGGER.debug(tool + " is already running in this JVM, it was started "
+					+ (System.currentTimeMillis() - running.startMillis) + " ms ago");
+			return null;
+		}
+		// A job bigger than the whole budget may still run, but only by itself
+		if( !runningJobs.isEmpty()
+				&& (threadsInUse + threads > maxThreads || heapMbInUse + heapMb > maxHeapMb) ){
+			LOGGER.debug(tool + " needs " + threads + " threads and " + heapMb + " MB of heap, but "
+					+ runningJobs.keySet() + " already use " + threadsInUse + " of " + maxThreads + " threads and "
+					+ heapMbInUse + " of " + maxHeapMb + " MB, so it will not be started");
+			return null;
+		}
+		Job job = new Job(tool, threads, heapMb);
+		runningJobs.put(tool, job);
+		threadsInUse += threads;
+		heapMbInUse += heapMb;
+		return job;
+	}
+
+	public synchronized boolean isRunning(String tool) {
+		return runningJobs.containsKey(tool);
+	}
+
+	private synchronized void finish(Job job) {
+		if( runningJobs.get(job.tool) == job ){
+			runningJobs.remove(job.tool);
+			threadsInUse -= job.threads;
+			heapMbInUse -= job.heapMb;
+			LOGGER.debug(job.tool + " finished after " + (System.currentTimeMillis() - job.startMillis) + " ms");
+		}
+	}
+
+	private static int getConfigInt(String key, int defaultValue) {
+		return (int) getConfigLong(key, defaultValue);
+	}
+
+	private static long getConfigLong(String key, long defaultValue) {
+		try {
+			return Long.parseLong(AAIConfig.get(key, Long.toString(defaultValue)).trim());
+		} catch (Exception e) {
+			LOGGER.debug("Using " + defaultValue + " for " + key + ": " + e.getMessage());
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * A running job.  Closing it (more than once is fine) lets the tool run again.
+	 */
+	public class Job implements AutoCloseable {
+
+		private final String tool;
+		private final int threads;
+		private final long heapMb;
+		private final long startMillis = System.currentTimeMillis();
+
+		private Job(String tool, int threads, long heapMb) {
+			this.tool = tool;
+			this.threads = threads;
+			this.heapMb = heapMb;
+		}
+
+		public String getTool() {
+			return tool;
+		}
+
+		@Override
+		public void close() {
+			finish(this);
+		}
+	}
+
+}
@@ -26,6 +26,11 @@
 #       copy our database to different environments).
 #       Ie. createDbSchema.sh GEN_DB_WITH_NO_SCHEMA
 #
+# NOTE: the option GEN_GROOMING_WINDOW_INDEX only creates the mixed index on aai-last-mod-ts
+#       (in the aai.grooming.window.index.backend index backend) that time-window dataGrooming
+#       runs use, and indexes the vertices already in the db.  Run it again if it did not finish.
+#       Ie. createDbSchema.sh GEN_GROOMING_WINDOW_INDEX
+#
 #
 #
 #
@@ -0,0 +1,114 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datacleanup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.onap.aai.datasnapshot.BlockCompressedOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FileArchiverTest {
+
+    @TempDir
+    File dataDir;
+
+    @Test
+    public void testZipSeveralFiles() throws Exception {
+        File archiveDir = new File(dataDir, "ARCHIVE");
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            files.add(writeFile("dataGrooming.20181201123" + i + ".out", 2000 + i));
+        }
+        String expected = content(2003);
+
+        FileArchiver archiver = new FileArchiver(FileArchiver.Codec.ZIP, 1, 3, 8192, true);
+        assertThat(archiver.archiveAll(files, archiveDir), is(5));
+
+        assertThat(files.get(3).exists(), is(false));
+        try (ZipInputStream zis = new ZipInputStream(
+                new FileInputStream(new File(archiveDir, "dataGrooming.201812011233.out.zip")))) {
+            assertThat(zis.getNextEntry().getName(), is("dataGrooming.201812011233.out"));
+            assertThat(readAll(zis), is(expected));
+        }
+        assertThat(archiveDir.list().length, is(5));
+    }
+
+    @Test
+    public void testGzipAndBlockCompressed() throws Exception {
+        File archiveDir = new File(dataDir, "ARCHIVE");
+        File plain = writeFile("dataSnapshot.graphSON.201812011234", 300);
+        File compressed = new File(dataDir, "dataSnapshot.graphSON.201812011234.P0");
+        try (OutputStream os = BlockCompressedOutputStream.open(compressed.getPath(), 4096)) {
+            os.write(content(300).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] compressedBytes = Files.readAllBytes(compressed.toPath());
+
+        FileArchiver archiver = new FileArchiver(FileArchiver.Codec.GZIP, 6, 2, 8192, true);
+        assertThat(archiver.archiveAll(Arrays.asList(plain, compressed), archiveDir), is(2));
+
+        try (InputStream is = new GZIPInputStream(
+                new FileInputStream(new File(archiveDir, "dataSnapshot.graphSON.201812011234.gz")))) {
+            assertThat(readAll(is), is(content(300)));
+        }
+        File moved = new File(archiveDir, "dataSnapshot.graphSON.201812011234.P0");
+        assertThat(Arrays.equals(Files.readAllBytes(moved.toPath()), compressedBytes), is(true));
+    }
+
+    private File writeFile(String name, int lines) throws IOException {
+        File f = new File(dataDir, name);
+        Files.write(f.toPath(), content(lines).getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private String content(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("{\"id\":").append(i).append(",\"label\":\"vertex\",\"properties\":{}}\n");
+        }
+        return sb.toString();
+    }
+
+    private String readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = is.read(buf)) > 0) {
+            bos.write(buf, 0, n);
+        }
+        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -206,6 +206,22 @@ public class DataGroomingTest extends AAISetup {
 		assertThat(dataGrooming.getOneArmedEdgeHashCount(), is(4));
 	}
 
+	@Test
+	public void testGroomingNonAutoFixOnSeveralThreads() throws AAIException {
+		String[] args = {
+				 "-skipHostCheck ",  "-dontFixOrphans ", "-threads", "4", "-sliceSize", "2"
+		};
+
+		dataGrooming.execute(args);
+		assertThat(dataGrooming.getGhostNodeCount(), is(0));
+		assertThat(dataGrooming.getBadIndexNodeCount(), is(5));
+		assertThat(dataGrooming.getBadUriNodeCount(), is(0));
+		assertThat(dataGrooming.getOrphanNodeCount(), is(5));
+		assertThat(dataGrooming.getMissingAaiNtNodeCount(), is(1));
+		assertThat(dataGrooming.getOneArmedEdgeHashCount(), is(4));
+		assertThat(dataGrooming.getDupeGroups().size(), is(2));
+	}
+
 
 	@Test
 	public void testGroomingWithAutoFix() throws AAIException {
@@ -0,0 +1,80 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datagrooming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class GroomingCheckpointTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @TempDir
+    File dataDir;
+
+    @Test
+    public void testResumeAfterLastSavedPage() {
+        File file = new File(dataDir, "dataGrooming.FULL.resume");
+        GroomingCheckpoint checkpoint = GroomingCheckpoint.open(file, "edgesOnly=false", DAY);
+        assertThat(checkpoint.isResumed(), is(false));
+
+        checkpoint.nodeTypeDone("complex");
+        checkpoint.pageDone("pserver", 42L);
+        checkpoint.getState().nodeResults.put(GroomingCheckpoint.ORPHAN, Arrays.asList("7", "9"));
+        checkpoint.getState().nodeCount = 12;
+        checkpoint.save();
+
+        GroomingCheckpoint resumed = GroomingCheckpoint.open(file, "edgesOnly=false", DAY);
+        assertThat(resumed.isResumed(), is(true));
+        assertThat(resumed.isNodeTypeDone("complex"), is(true));
+        assertThat(resumed.isNodeTypeDone("pserver"), is(false));
+        assertThat(resumed.getLastId("pserver"), is(42L));
+        assertThat(resumed.getLastId("tenant"), is(-1L));
+        assertThat(resumed.getState().nodeResults.get(GroomingCheckpoint.ORPHAN).size(), is(2));
+        assertThat(resumed.getState().nodeCount, is(12));
+
+        // A run with other options, or one that is too late, starts over
+        assertThat(GroomingCheckpoint.open(file, "edgesOnly=true", DAY).isResumed(), is(false));
+        assertThat(GroomingCheckpoint.open(file, "edgesOnly=false", -1).isResumed(), is(false));
+
+        resumed.delete();
+        assertThat(file.exists(), is(false));
+    }
+
+    @Test
+    public void testVertexIdPages() {
+        VertexIdList ids = VertexIdList.of(Arrays.<Object>asList(30L, "10", 20, 50L, 20L).iterator(), 0);
+        assertThat(ids.size(), is(4));
+        assertThat(ids.get(0), is(10L));
+        assertThat(ids.page(1, 3).length, is(2));
+        assertThat(ids.page(1, 3)[0], is((Object) 20L));
+        assertThat(ids.indexAfter(20L), is(2));
+        assertThat(ids.indexAfter(40L), is(3));
+        assertThat(ids.indexAfter(5L), is(0));
+        assertThat(ids.indexAfter(50L), is(4));
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datagrooming;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class VertexIdSetTest {
+
+    @Test
+    public void testVertexAndEdgeIds() {
+        VertexIdSet ids = new VertexIdSet(Arrays.asList("40964200", "0", "4096", "2bu-3ao-2dx-1kw", "007"));
+        assertThat(ids.add("4096"), is(false));
+        assertThat(ids.add("2bu-3ao-2dx-1kw"), is(false));
+        for (long vid = 1; vid <= 1000; vid++) {
+            ids.add(Long.toString(vid * 4096));
+        }
+        assertThat(ids.size(), is(1004));
+        assertThat(ids.contains("0"), is(true));
+        assertThat(ids.contains(8192L), is(true));
+        assertThat(ids.contains("007"), is(true));
+        assertThat(ids.contains("7"), is(false));
+        assertThat(ids.contains("2bu-3ao-2dx-1kw"), is(true));
+
+        // Vertex ids come back sorted, the other ids after them
+        List<String> all = new ArrayList<>(ids);
+        assertThat(all.get(0), is("0"));
+        assertThat(all.get(1), is("4096"));
+        assertThat(all.get(1000), is("4096000"));
+        assertThat(all.get(1001), is("40964200"));
+        assertThat(all.get(1002), is("2bu-3ao-2dx-1kw"));
+        assertThat(all.get(1003), is("007"));
+    }
+}
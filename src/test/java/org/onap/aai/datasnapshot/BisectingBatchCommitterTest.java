@@ -0,0 +1,173 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.janusgraph.core.JanusGraph;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BisectingBatchCommitterTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BisectingBatchCommitterTest.class);
+
+    private final StubGraph stub = new StubGraph();
+    private final List<List<Integer>> committedBatches = new ArrayList<>();
+    private final List<Integer> failedItems = new ArrayList<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final ReloadRateController rateController =
+            new ReloadRateController(1000, 1, 1000000, 60000, 0.5, clock::get, LOGGER);
+
+    @Test
+    public void testBadItemIsIsolated() throws Exception {
+        stub.badOnCommit.add(5);
+        BisectingBatchCommitter<Integer> committer = newCommitter();
+
+        committer.commit(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8));
+
+        // 1-8 fails, 1-4 goes in, 5-8 fails, 5-6 fails, 5 fails by itself, 6 goes in, 7-8 goes in
+        assertThat(failedItems, is(Arrays.asList(5)));
+        assertThat(committedBatches, is(Arrays.asList(Arrays.asList(1, 2, 3, 4), Arrays.asList(6),
+                Arrays.asList(7, 8))));
+        assertThat(stub.committed, is(Arrays.asList(1, 2, 3, 4, 6, 7, 8)));
+        assertThat(committer.getCommitCount(), is(3L));
+        assertThat(committer.getBisectCount(), is(3L));
+        assertThat(stub.rollbacks, is(4));
+    }
+
+    @Test
+    public void testGoodBatchIsOneCommit() throws Exception {
+        BisectingBatchCommitter<Integer> committer = newCommitter();
+
+        committer.commit(Arrays.asList(1, 2, 3));
+        committer.commit(new ArrayList<>());
+
+        assertThat(committedBatches, is(Arrays.asList(Arrays.asList(1, 2, 3))));
+        assertThat(failedItems.isEmpty(), is(true));
+        assertThat(committer.getCommitCount(), is(1L));
+        assertThat(committer.getBisectCount(), is(0L));
+    }
+
+    @Test
+    public void testBadDataDoesNotSlowTheLoadDown() throws Exception {
+        // The first report after this starts a new window for the rate controller
+        clock.addAndGet(ReloadRateController.ADJUST_INTERVAL_NANOS);
+        BisectingBatchCommitter<Integer> committer = newCommitter(item -> {
+            if (item == 3) {
+                throw new Exception(" ERROR - could not find VID translation for original VID = 3");
+            }
+            stub.pending.add(item);
+        });
+
+        committer.commit(Arrays.asList(1, 2, 3, 4));
+
+        assertThat(failedItems, is(Arrays.asList(3)));
+        assertThat(rateController.getRate() > 1000.0, is(true));
+    }
+
+    @Test
+    public void testCommitRefusedForBadDataDoesNotSlowTheLoadDown() throws Exception {
+        clock.addAndGet(ReloadRateController.ADJUST_INTERVAL_NANOS);
+        stub.badOnCommit.add(3);
+        BisectingBatchCommitter<Integer> committer = newCommitter();
+
+        committer.commit(Arrays.asList(1, 2, 3, 4));
+
+        assertThat(failedItems, is(Arrays.asList(3)));
+        assertThat(rateController.getRate() > 1000.0, is(true));
+    }
+
+    @Test
+    public void testBackendFailureOnCommitSlowsTheLoadDown() throws Exception {
+        clock.addAndGet(ReloadRateController.ADJUST_INTERVAL_NANOS);
+        stub.timesOutOnCommit.add(3);
+        BisectingBatchCommitter<Integer> committer = newCommitter();
+
+        committer.commit(Arrays.asList(1, 2, 3, 4));
+
+        assertThat(failedItems, is(Arrays.asList(3)));
+        assertThat(rateController.getRate(), is(500.0));
+    }
+
+    private BisectingBatchCommitter<Integer> newCommitter() {
+        return newCommitter(stub.pending::add);
+    }
+
+    private BisectingBatchCommitter<Integer> newCommitter(BisectingBatchCommitter.ItemWriter<Integer> itemWriter) {
+        return new BisectingBatchCommitter<>(stub.graph, itemWriter,
+                items -> committedBatches.add(new ArrayList<>(items)),
+                (item, e) -> failedItems.add(item), rateController, LOGGER);
+    }
+
+    /**
+     * Just enough of a JanusGraph for the committer: a transaction that refuses to commit
+     * (or times out) while it holds one of the bad items.
+     */
+    static class StubGraph {
+        final Set<Integer> badOnCommit = new HashSet<>();
+        final Set<Integer> timesOutOnCommit = new HashSet<>();
+        final List<Integer> pending = new ArrayList<>();
+        final List<Integer> committed = new ArrayList<>();
+        int rollbacks = 0;
+
+        final Transaction tx = (Transaction) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Transaction.class}, (proxy, method, args) -> {
+                    if ("commit".equals(method.getName())) {
+                        for (Integer item : pending) {
+                            if (badOnCommit.contains(item)) {
+                                throw new IllegalStateException("Could not commit item " + item);
+                            }
+                            if (timesOutOnCommit.contains(item)) {
+                                throw new IllegalStateException("Could not commit item " + item,
+                                        new TimeoutException("storage backend timed out"));
+                            }
+                        }
+                        committed.addAll(pending);
+                        pending.clear();
+                    } else if ("rollback".equals(method.getName())) {
+                        rollbacks++;
+                        pending.clear();
+                    }
+                    return null;
+                });
+
+        final JanusGraph graph = (JanusGraph) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {JanusGraph.class}, (proxy, method, args) -> {
+                    if ("tx".equals(method.getName())) {
+                        return tx;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BlockCompressedStreamTest {
+
+    @TempDir
+    File snapshotDir;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File f = new File(snapshotDir, "dataSnapshot.graphSON.test.P0");
+        String expected = writeLines(f, 500);
+        assertThat(BlockCompressedInputStream.isBlockCompressed(f.getPath()), is(true));
+        assertThat(f.length() < expected.length(), is(true));
+
+        assertThat(readAll(BlockCompressedInputStream.openSnapshotFile(f.getPath())), is(expected));
+    }
+
+    @Test
+    public void testConcatenatedAndPlainFiles() throws IOException {
+        File f = new File(snapshotDir, "dataSnapshot.graphSON.test.P1");
+        String expected = writeLines(f, 100);
+        InputStream both = new SequenceInputStream(new FileInputStream(f), new FileInputStream(f));
+        assertThat(readAll(BlockCompressedInputStream.decompressIfNeeded(both)), is(expected + expected));
+
+        File plain = new File(snapshotDir, "dataSnapshot.graphSON.test.P2");
+        Files.write(plain.toPath(), Arrays.asList("{\"id\":1,\"label\":\"vertex\"}"));
+        assertThat(BlockCompressedInputStream.isBlockCompressed(plain.getPath()), is(false));
+        assertThat(readAll(BlockCompressedInputStream.openSnapshotFile(plain.getPath())),
+                is("{\"id\":1,\"label\":\"vertex\"}\n"));
+    }
+
+    @Test
+    public void testCorruptBlockIsDetected() throws IOException {
+        File f = new File(snapshotDir, "dataSnapshot.graphSON.test.P3");
+        writeLines(f, 100);
+        byte[] bytes = Files.readAllBytes(f.toPath());
+        bytes[40] ^= 0x55;
+        Files.write(f.toPath(), bytes);
+        assertThrows(IOException.class, () -> readAll(BlockCompressedInputStream.openSnapshotFile(f.getPath())));
+    }
+
+    private String writeLines(File f, int count) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (OutputStream os = BlockCompressedOutputStream.open(f.getPath(), 1000)) {
+            for (int i = 0; i < count; i++) {
+                String line = "{\"id\":" + i + ",\"label\":\"vertex\",\"hostname\":\"pserver-" + i + "\"}\n";
+                os.write(line.getBytes(StandardCharsets.UTF_8));
+                BlockCompressedOutputStream.endRecord(os);
+                sb.append(line);
+            }
+        }
+        return sb.toString();
+    }
+
+    private String readAll(InputStream is) throws IOException {
+        try (InputStream in = is) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            for (int n; (n = in.read(buf)) > 0; ) {
+                bos.write(buf, 0, n);
+            }
+            return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
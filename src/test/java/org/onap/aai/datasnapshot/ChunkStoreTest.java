@@ -0,0 +1,117 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ChunkStoreTest {
+
+    @TempDir
+    File snapshotDir;
+
+    @Test
+    public void testDedupeAndRestore() throws IOException {
+        File archiveDir = new File(snapshotDir, "ARCHIVE");
+        archiveDir.mkdirs();
+        ChunkStore store = new ChunkStore(archiveDir, Deflater.BEST_SPEED);
+
+        String day1 = lines(0, 20000, "");
+        // A day later: a few vertices changed, one was added near the start
+        String day2 = lines(0, 50, "") + "{\"id\":999999,\"label\":\"vertex\",\"properties\":{}}\n"
+                + lines(50, 12000, "") + lines(12000, 12010, "changed") + lines(12010, 20000, "");
+        File f1 = write("dataSnapshot.graphSON.201812011234.P0", day1);
+        File f2 = write("dataSnapshot.graphSON.201812021234.P0", day2);
+
+        File m1 = new File(archiveDir, f1.getName());
+        File m2 = new File(archiveDir, f2.getName());
+        ChunkStore.Result r1 = store.store(f1, m1);
+        ChunkStore.Result r2 = store.store(f2, m2);
+        assertThat(r1.newChunks, is(r1.chunks));
+        assertThat(r1.rawBytes, is((long) day1.length()));
+        assertThat(r2.chunks, greaterThan(10));
+        assertThat(r2.newRawBytes, lessThan(r2.rawBytes / 4));
+
+        assertThat(ChunkStore.isManifest(m2.getPath()), is(true));
+        assertThat(ChunkStore.isManifest(f2.getPath()), is(false));
+        assertThat(readAll(BlockCompressedInputStream.openSnapshotFile(m1.getPath())), is(day1));
+        assertThat(readAll(BlockCompressedInputStream.openSnapshotFile(m2.getPath())), is(day2));
+
+        // Once day 1 is gone only the chunks day 2 doesn't share with it go
+        Files.delete(m1.toPath());
+        assertThat(ChunkStore.removeUnreferencedChunks(archiveDir), is(r1.chunks - (r2.chunks - r2.newChunks)));
+        assertThat(readAll(BlockCompressedInputStream.openSnapshotFile(m2.getPath())), is(day2));
+    }
+
+    @Test
+    public void testBlockCompressedStoredDecompressed() throws IOException {
+        File archiveDir = new File(snapshotDir, "ARCHIVE");
+        String content = lines(0, 3000, "");
+        File f = new File(snapshotDir, "dataSnapshot.graphSON.201812011234.P1");
+        try (OutputStream os = BlockCompressedOutputStream.open(f.getPath(), 16 * 1024)) {
+            os.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        File m = new File(archiveDir, f.getName());
+        new ChunkStore(archiveDir, Deflater.DEFAULT_COMPRESSION).store(f, m);
+        assertThat(readAll(BlockCompressedInputStream.openSnapshotFile(m.getPath())), is(content));
+    }
+
+    private File write(String name, String content) throws IOException {
+        File f = new File(snapshotDir, name);
+        Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private String lines(int from, int to, String value) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sb.append("{\"id\":").append(i * 4096L).append(",\"label\":\"vertex\",\"properties\":{\"aai-node-type\":[{\"id\":")
+                    .append(i * 7).append(",\"value\":\"pserver").append(value).append("\"}]}}\n");
+        }
+        return sb.toString();
+    }
+
+    private String readAll(InputStream is) throws IOException {
+        try (InputStream in = is) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                bos.write(buf, 0, n);
+            }
+            return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CompactSnapshotTest {
+
+    @TempDir
+    File snapshotDir;
+
+    @Test
+    public void testRecordsRoundTrip() throws IOException {
+        File f = new File(snapshotDir, "dataSnapshot.graphSON.test.P0");
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(f))) {
+            CompactSnapshotWriter writer = new CompactSnapshotWriter(os);
+            writer.writeRecord(pserver(4104L, "pserver-1", 1571234567890L));
+            writer.writeRecord(pserver(Long.MAX_VALUE / 3, "pserver-é", -5L));
+        }
+        assertThat(CompactSnapshot.isCompactFile(f.getPath()), is(true));
+
+        try (CompactSnapshotReader reader = new CompactSnapshotReader(f.getPath())) {
+            CompactSnapshot.VertexRecord rec = reader.next();
+            assertThat(rec.id, is(4104L));
+            assertThat(rec.label, is("vertex"));
+            assertThat(rec.propKeys, is(Arrays.asList("aai-node-type", "hostname", "aai-last-mod-ts",
+                    "number-of-cpus", "in-maint", "ptnii-equip-name", "ptnii-equip-name")));
+            assertThat(rec.getFirstValue("aai-node-type"), is("pserver"));
+            assertThat(rec.getFirstValue("hostname"), is("pserver-1"));
+            assertThat(rec.getFirstValue("aai-last-mod-ts"), is(1571234567890L));
+            assertThat(rec.getFirstValue("number-of-cpus"), is(-16));
+            assertThat(rec.getFirstValue("in-maint"), is(true));
+            assertThat(rec.propValues.get(6), is(2.5d));
+            assertThat(rec.outE.size(), is(1));
+            assertThat(rec.outE.get(0).label, is("tosca.relationships.network.LinksTo"));
+            assertThat(rec.outE.get(0).otherVid, is(8200L));
+            assertThat(rec.outE.get(0).propKeys, is(Arrays.asList("contains-other-v", "private")));
+            assertThat(rec.outE.get(0).propValues, is(Arrays.<Object>asList("NONE", false)));
+            assertThat(rec.inE.size(), is(1));
+            assertThat(rec.inE.get(0).otherVid, is(12296L));
+
+            rec = reader.next();
+            assertThat(rec.id, is(Long.MAX_VALUE / 3));
+            assertThat(rec.getFirstValue("hostname"), is("pserver-é"));
+            assertThat(rec.getFirstValue("aai-last-mod-ts"), is(-5L));
+            assertThat(reader.next(), nullValue());
+        }
+    }
+
+    @Test
+    public void testGraphsonFileIsNotCompact() throws IOException {
+        File f = new File(snapshotDir, "dataSnapshot.graphSON.test.P1");
+        Files.write(f.toPath(), Arrays.asList("{\"id\":1,\"label\":\"vertex\"}"));
+        assertThat(CompactSnapshot.isCompactFile(f.getPath()), is(false));
+        assertThrows(IOException.class, () -> new CompactSnapshotReader(f.getPath()));
+    }
+
+    private CompactSnapshot.VertexRecord pserver(long id, String hostname, long lastModTs) {
+        CompactSnapshot.VertexRecord rec = new CompactSnapshot.VertexRecord();
+        rec.id = id;
+        rec.label = "vertex";
+        rec.addProperty("aai-node-type", "pserver");
+        rec.addProperty("hostname", hostname);
+        rec.addProperty("aai-last-mod-ts", lastModTs);
+        rec.addProperty("number-of-cpus", -16);
+        rec.addProperty("in-maint", true);
+        rec.addProperty("ptnii-equip-name", "x");
+        rec.addProperty("ptnii-equip-name", 2.5d);
+        CompactSnapshot.EdgeRecord out = new CompactSnapshot.EdgeRecord("tosca.relationships.network.LinksTo", 8200L);
+        out.addProperty("contains-other-v", "NONE");
+        out.addProperty("private", false);
+        rec.outE.add(out);
+        rec.inE.add(new CompactSnapshot.EdgeRecord("tosca.relationships.network.BelongsTo", 12296L));
+        return rec;
+    }
+}
@@ -206,6 +206,28 @@ public class DataSnapshotTest extends AAISetup {
         // would need to add more data to the janusgraph
     }
 
+    @Test
+    public void testTakeStreamingSnapshotAndItShouldWriteEveryVertexToTheWriterFiles() throws IOException {
+
+        String logsFolder     = System.getProperty("AJSC_HOME") + "/logs/data/dataSnapshots/";
+        String snapshotPrefix = logsFolder + "streamingSnapshotTest.graphSON";
+        Files.deleteIfExists(Path.of(snapshotPrefix + ".P0"));
+        Files.deleteIfExists(Path.of(snapshotPrefix + ".P1"));
+
+        String [] args = {"-c","STREAMING_SNAPSHOT", "-threadCount","2", "-streamBatchSize","1",
+            "-fileName", snapshotPrefix};
+
+        DataSnapshot.main(args);
+
+        // Each writer owns its own file, and every vertex should land in exactly one of them
+        List<String> fileContents = new ArrayList<>();
+        fileContents.addAll(Files.readAllLines(Path.of(snapshotPrefix + ".P0")));
+        fileContents.addAll(Files.readAllLines(Path.of(snapshotPrefix + ".P1")));
+        assertTrue(fileContents.size() >= 3);
+        assertTrue(fileContents.stream().anyMatch(line -> line.contains("somerandomhostname2")));
+        assertTrue(fileContents.stream().anyMatch(line -> line.contains("p-interface-name")));
+    }
+
     @Test
     public void testFigureOutFileCount() throws IOException {
 
@@ -0,0 +1,58 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class NodeKeyNameTableTest {
+
+    @Test
+    public void testSotPropNames() {
+        HashMap<String, ArrayList<String>> keyNames = new HashMap<>();
+        keyNames.put("pserver", new ArrayList<>(Arrays.asList("hostname")));
+        keyNames.put("cloud-region", new ArrayList<>(Arrays.asList("cloud-owner", "cloud-region-id")));
+        NodeKeyNameTable table = new NodeKeyNameTable(keyNames);
+
+        Set<String> pserverProps = table.getSotPropNames("pserver");
+        assertThat(pserverProps.size(), is(4));
+        assertThat(pserverProps.contains("hostname"), is(true));
+        assertThat(pserverProps.contains("aai-uri"), is(true));
+        assertThat(pserverProps.contains("number-of-cpus"), is(false));
+        assertThat(table.getSotPropNames("cloud-region").contains("cloud-region-id"), is(true));
+
+        // A node type the schema doesn't know still gets the common ones
+        assertThat(table.getSotPropNames("no-such-type").size(), is(3));
+        assertThat(table.getSotPropNames("no-such-type").contains("source-of-truth"), is(true));
+
+        // Looking them up doesn't grow the sets, or touch the key names they came from
+        table.getSotPropNames("pserver");
+        assertThat(table.getSotPropNames("pserver").size(), is(4));
+        assertThat(keyNames.get("pserver").size(), is(1));
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.onap.aai.edges.enums.AAIDirection;
+import org.onap.aai.edges.enums.EdgeProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class NodeTypeVertexIteratorTest {
+
+    private Graph graph;
+
+    @BeforeEach
+    public void setup() {
+        graph = TinkerGraph.open();
+        Vertex ps1 = addVertex("pserver", "ps1");
+        addVertex("pserver", "ps2");
+        Vertex pi1 = addVertex("p-interface", "pi1");
+        Vertex li1 = addVertex("l-interface", "li1");
+        Vertex complex = addVertex("complex", "c1");
+        Vertex vnf = addVertex("generic-vnf", "vnf1");
+        Vertex vfm = addVertex("vf-module", "vfm1");
+
+        // The child is on the OUT side of these, the parent contains the IN side
+        addEdge(pi1, ps1, AAIDirection.IN);
+        addEdge(li1, pi1, AAIDirection.IN);
+        // and on the IN side of this one
+        addEdge(vnf, vfm, AAIDirection.OUT);
+        // A cousin, not a child
+        addEdge(ps1, complex, AAIDirection.NONE);
+    }
+
+    @Test
+    public void testNodeTypesOnly() {
+        assertThat(walk(0, "pserver"), is(Arrays.asList("ps1", "ps2")));
+    }
+
+    @Test
+    public void testDirectChildren() {
+        assertThat(walk(1, "pserver", "generic-vnf"), is(Arrays.asList("ps1", "pi1", "ps2", "vnf1", "vfm1")));
+    }
+
+    @Test
+    public void testVertexOnlyWrittenOnce() {
+        // pi1 is both a p-interface and a child of ps1
+        assertThat(walk(2, "pserver", "p-interface"), is(Arrays.asList("ps1", "pi1", "li1", "ps2")));
+    }
+
+    private List<String> walk(int childDepth, String... nodeTypes) {
+        List<String> names = new ArrayList<>();
+        NodeTypeVertexIterator itr = new NodeTypeVertexIterator(graph.traversal(), Arrays.asList(nodeTypes), childDepth);
+        while (itr.hasNext()) {
+            names.add(itr.next().value("name"));
+        }
+        return names;
+    }
+
+    private Vertex addVertex(String nodeType, String name) {
+        return graph.addVertex(T.label, "vertex", "aai-node-type", nodeType, "name", name);
+    }
+
+    private void addEdge(Vertex out, Vertex in, AAIDirection contains) {
+        out.addEdge("org.onap.relationships.inventory.BelongsTo", in,
+                EdgeProperty.CONTAINS.toString(), contains.toString());
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ReloadCheckpointTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReloadCheckpointTest.class);
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testResumeAfterCrash() throws IOException {
+        File snapFile = writeSnapshotFile();
+        File ckptDir = new File(tempDir, "checkpoints");
+        try (ReloadCheckpoint ckpt = open(ckptDir, snapFile)) {
+            ckpt.resume(null);
+            ckpt.commit(2, new long[] {1, 101, 2, 102}, 2, Collections.emptyList(), Collections.emptyList());
+            ckpt.commit(4, new long[] {4, 104}, 1, Arrays.asList(3L), Collections.emptyList());
+            ckpt.commit(6, new long[] {5, 105, 6, 106}, 2, Collections.emptyList(), Collections.emptyList());
+        }
+        // The last record was only partly written when the process died
+        File ckptFile = ReloadCheckpoint.checkpointFile(ckptDir, snapFile.getPath(), ReloadCheckpoint.VERTEX_PHASE);
+        try (RandomAccessFile raf = new RandomAccessFile(ckptFile, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        VertexIdMap vidMap = new VertexIdMap();
+        try (ReloadCheckpoint ckpt = open(ckptDir, snapFile)) {
+            ckpt.resume(vidMap);
+            assertThat(ckpt.getLinesDone(), is(4L));
+            assertThat(ckpt.getMappingCount(), is(3L));
+            assertThat(ckpt.isFailedLine(3), is(true));
+            assertThat(ckpt.isDone(), is(false));
+            assertThat(vidMap.get(4), is(104L));
+            assertThat(vidMap.containsKey(5), is(false));
+
+            // A retry got line 3 in, then the rest of the file was loaded
+            ckpt.commit(4, new long[] {3, 103}, 1, Collections.emptyList(), Arrays.asList(3L));
+            ckpt.commit(6, new long[] {5, 105, 6, 106}, 2, Collections.emptyList(), Collections.emptyList());
+            ckpt.finish();
+        }
+
+        try (ReloadCheckpoint ckpt = open(ckptDir, snapFile)) {
+            ckpt.resume(null);
+            assertThat(ckpt.getLinesDone(), is(6L));
+            assertThat(ckpt.getMappingCount(), is(6L));
+            assertThat(ckpt.isFailedLine(3), is(false));
+            assertThat(ckpt.isDone(), is(true));
+        }
+        assertThat(ReloadCheckpoint.isDone(ckptDir, snapFile.getPath(), ReloadCheckpoint.VERTEX_PHASE, LOGGER), is(true));
+        assertThat(ReloadCheckpoint.isDone(ckptDir, snapFile.getPath(), ReloadCheckpoint.EDGE_PHASE, LOGGER), is(false));
+    }
+
+    @Test
+    public void testCheckpointForOtherSnapshotIsDropped() throws IOException {
+        File snapFile = writeSnapshotFile();
+        File ckptDir = new File(tempDir, "checkpoints");
+        try (ReloadCheckpoint ckpt = open(ckptDir, snapFile)) {
+            ckpt.resume(null);
+            ckpt.commit(2, new long[] {1, 101, 2, 102}, 2, Collections.emptyList(), Collections.emptyList());
+        }
+
+        // A new snapshot with the same file name
+        Files.write(snapFile.toPath(), Arrays.asList("{\"id\":7,\"label\":\"vertex\"}"));
+        VertexIdMap vidMap = new VertexIdMap();
+        try (ReloadCheckpoint ckpt = open(ckptDir, snapFile)) {
+            ckpt.resume(vidMap);
+            assertThat(ckpt.getLinesDone(), is(0L));
+            assertThat(vidMap.size(), is(0L));
+        }
+
+        ReloadCheckpoint.remove(ckptDir, snapFile.getPath());
+        assertThat(ReloadCheckpoint.checkpointFile(ckptDir, snapFile.getPath(),
+                ReloadCheckpoint.VERTEX_PHASE).exists(), is(false));
+    }
+
+    @Test
+    public void testResumedEdgeBatchIsNotLoadedTwice() throws Exception {
+        JanusGraph graph = JanusGraphFactory.build().set("storage.backend", "inmemory").open();
+        try {
+            // The vertex phase is done
+            Vertex pserver = graph.addVertex("aai-node-type", "pserver");
+            Vertex pinterface1 = graph.addVertex("aai-node-type", "p-interface");
+            Vertex pinterface2 = graph.addVertex("aai-node-type", "p-interface");
+            graph.tx().commit();
+            VertexIdMap vidMap = new VertexIdMap();
+            vidMap.put(1, (Long) pserver.id());
+            vidMap.put(2, (Long) pinterface1.id());
+            vidMap.put(3, (Long) pinterface2.id());
+
+            File snapFile = new File(tempDir, "dataSnapshot.graphSON.test.P0");
+            Files.write(snapFile.toPath(), Arrays.asList(
+                    "{\"id\":1,\"label\":\"vertex\",\"outE\":{\"tosca.relationships.HostedOn\":["
+                            + "{\"id\":\"e1\",\"inV\":2,\"properties\":{\"contains-other-v\":\"OUT\"}},"
+                            + "{\"id\":\"e2\",\"inV\":3,\"properties\":{\"contains-other-v\":\"OUT\"}}]},"
+                            + "\"properties\":{\"hostname\":[{\"id\":\"p1\",\"value\":\"host-1\"}]}}",
+                    "{\"id\":2,\"label\":\"vertex\",\"properties\":{\"interface-name\":[{\"id\":\"p2\",\"value\":\"eth0\"}]}}",
+                    "{\"id\":3,\"label\":\"vertex\",\"properties\":{\"interface-name\":[{\"id\":\"p3\",\"value\":\"eth1\"}]}}"));
+
+            // An earlier run committed the first edge of the batch, then died before it
+            // checkpointed the batch
+            File ckptDir = new File(tempDir, "checkpoints");
+            try (ReloadCheckpoint ckpt = new ReloadCheckpoint(ckptDir, snapFile.getPath(),
+                    ReloadCheckpoint.EDGE_PHASE, LOGGER)) {
+                ckpt.resume(null);
+            }
+            pserver.addEdge("tosca.relationships.HostedOn", pinterface1, "contains-other-v", "OUT");
+            graph.tx().commit();
+
+            ReloadRateController rateController = new ReloadRateController(1000, 1, 1000000, 60000, 0.5, LOGGER);
+            List<String> failures = new PartialPropAndEdgeLoader(graph, snapFile.getPath(), rateController,
+                    vidMap, 5, 10, ckptDir, LOGGER).call();
+
+            assertThat(failures.isEmpty(), is(true));
+            // One edge to each p-interface, not two to the first one
+            List<Long> inVids = new ArrayList<>();
+            Iterator<Edge> edges = graph.vertices(pserver.id()).next().edges(Direction.OUT);
+            while (edges.hasNext()) {
+                inVids.add((Long) edges.next().inVertex().id());
+            }
+            Collections.sort(inVids);
+            List<Long> expected = new ArrayList<>(Arrays.asList((Long) pinterface1.id(), (Long) pinterface2.id()));
+            Collections.sort(expected);
+            assertThat(inVids, is(expected));
+            assertThat(ReloadCheckpoint.isDone(ckptDir, snapFile.getPath(), ReloadCheckpoint.EDGE_PHASE, LOGGER),
+                    is(true));
+        } finally {
+            graph.close();
+        }
+    }
+
+    private ReloadCheckpoint open(File ckptDir, File snapFile) {
+        return new ReloadCheckpoint(ckptDir, snapFile.getPath(), ReloadCheckpoint.VERTEX_PHASE, LOGGER);
+    }
+
+    private File writeSnapshotFile() throws IOException {
+        File f = new File(tempDir, "dataSnapshot.graphSON.test.P0");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 6; i++) {
+            sb.append("{\"id\":").append(i).append(",\"label\":\"vertex\"}\n");
+        }
+        Files.write(f.toPath(), sb.toString().getBytes());
+        return f;
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ReloadPipelineTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReloadPipelineTest.class);
+
+    private final BisectingBatchCommitterTest.StubGraph stub = new BisectingBatchCommitterTest.StubGraph();
+    private final VertexIdMap vidMap = new VertexIdMap();
+    private final ReloadRateController rateController =
+            new ReloadRateController(1000000, 1, 1000000, 60000, 0.5, LOGGER);
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    // file -> the old ids of its vertices, and the old ids its edges point to
+    private final Map<String, long[]> fileVertices = new HashMap<>();
+    private final Map<String, long[]> fileEdgeTargets = new HashMap<>();
+    private final CountDownLatch fileADone = new CountDownLatch(1);
+
+    @AfterEach
+    public void cleanup() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testEdgesWaitForTheirTargets() throws InterruptedException {
+        addFile("A", new long[] {1, 2}, new long[] {20});
+        addFile("B", new long[] {20}, new long[] {1});
+        // Points at a vertex that no file has, so it only goes once all the vertices are in
+        addFile("C", new long[] {30}, new long[] {999});
+
+        ReloadPipeline pipeline = newPipeline();
+        pipeline.run(Arrays.asList("A", "B", "C"), 0);
+
+        assertThat(events.size(), is(6));
+        assertThat(events.indexOf("edges A") > events.indexOf("vertices B"), is(true));
+        assertThat(events.indexOf("edges B") > events.indexOf("vertices B"), is(true));
+        assertThat(events.indexOf("edges C") > events.indexOf("vertices A"), is(true));
+        assertThat(events.indexOf("edges C") > events.indexOf("vertices B"), is(true));
+        assertThat(pipeline.getVertexFailCount(), is(0));
+        assertThat(pipeline.getEdgeFailCount(), is(0));
+        assertThat(vidMap.get(20), is(120L));
+    }
+
+    @Test
+    public void testNoEdgesAfterVertexLoadFails() throws InterruptedException {
+        // A's edges can only go once all the vertex loads are done, and by then B has failed
+        addFile("A", new long[] {1}, new long[] {999});
+
+        ReloadPipeline pipeline = new ReloadPipeline(stub.graph, executor, vidMap,
+                fileName -> fileName.equals("A") ? newVertexLoader(fileName) : failingVertexLoader(fileName),
+                this::newEdgeLoader, LOGGER);
+        pipeline.run(Arrays.asList("B", "A"), 0);
+
+        assertThat(pipeline.getVertexFailCount(), is(1));
+        assertThat(events.contains("edges A"), is(false));
+    }
+
+    private ReloadPipeline newPipeline() {
+        return new ReloadPipeline(stub.graph, executor, vidMap, this::newVertexLoader, this::newEdgeLoader, LOGGER);
+    }
+
+    private void addFile(String fileName, long[] oldVids, long[] edgeTargets) {
+        fileVertices.put(fileName, oldVids);
+        fileEdgeTargets.put(fileName, edgeTargets);
+    }
+
+    private PartialVertexLoader newVertexLoader(String fileName) {
+        return new PartialVertexLoader(stub.graph, fileName, rateController, 0, 1, vidMap, LOGGER) {
+            @Override
+            public Long call() throws Exception {
+                if (!fileName.equals("A")) {
+                    // Let A get all the way through first, so its edges have to wait for B
+                    fileADone.await();
+                }
+                for (long oldVid : fileVertices.get(fileName)) {
+                    vidMap.put(oldVid, oldVid + 100);
+                }
+                events.add("vertices " + fileName);
+                if (fileName.equals("A")) {
+                    fileADone.countDown();
+                }
+                return (long) fileVertices.get(fileName).length;
+            }
+
+            @Override
+            public long[] getUnresolvedEdgeTargets() {
+                return fileEdgeTargets.get(fileName).clone();
+            }
+        };
+    }
+
+    private PartialVertexLoader failingVertexLoader(String fileName) {
+        return new PartialVertexLoader(stub.graph, fileName, rateController, 0, 1, vidMap, LOGGER) {
+            @Override
+            public Long call() throws Exception {
+                throw new Exception("Could not load " + fileName);
+            }
+        };
+    }
+
+    private Callable<?> newEdgeLoader(String fileName) {
+        return () -> events.add("edges " + fileName);
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ReloadRateControllerTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReloadRateControllerTest.class);
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testRateGoesUpWhileCommitsAreFast() {
+        ReloadRateController rc = newController(1000);
+        rc.commitSucceeded(FAST);
+        nextWindow();
+        rc.commitSucceeded(FAST);
+        assertThat(rc.getRate(), is(1100.0));
+
+        // but not past the maximum
+        for (int i = 0; i < 20; i++) {
+            nextWindow();
+            rc.commitSucceeded(FAST);
+        }
+        assertThat(rc.getRate(), is(2000.0));
+    }
+
+    @Test
+    public void testRateIsHalvedForSlowOrFailedCommits() {
+        ReloadRateController rc = newController(1000);
+        rc.commitSucceeded(FAST);
+        rc.commitFailed();
+        nextWindow();
+        rc.commitFailed();
+        assertThat(rc.getRate(), is(500.0));
+
+        nextWindow();
+        rc.commitSucceeded(SLOW);
+        assertThat(rc.getRate(), is(250.0));
+
+        // but not under the minimum
+        for (int i = 0; i < 10; i++) {
+            nextWindow();
+            rc.commitFailed();
+        }
+        assertThat(rc.getRate(), is(10.0));
+    }
+
+    @Test
+    public void testRateOnlyChangesOncePerWindow() {
+        ReloadRateController rc = newController(1000);
+        nextWindow();
+        for (int i = 0; i < 5; i++) {
+            rc.commitFailed();
+        }
+        assertThat(rc.getRate(), is(500.0));
+    }
+
+    @Test
+    public void testBackendFailures() {
+        assertThat(ReloadRateController.isBackendFailure(
+                new RuntimeException("Could not commit", new TimeoutException())), is(true));
+        assertThat(ReloadRateController.isBackendFailure(
+                new Exception(" ERROR - could not find VID translation for original VID = 42")), is(false));
+    }
+
+    private ReloadRateController newController(double initialRate) {
+        return new ReloadRateController(initialRate, 10, 2000, 100, 0.1, clock::get, LOGGER);
+    }
+
+    private void nextWindow() {
+        clock.addAndGet(ReloadRateController.ADJUST_INTERVAL_NANOS);
+    }
+}
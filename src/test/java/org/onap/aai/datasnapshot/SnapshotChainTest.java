@@ -0,0 +1,160 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+public class SnapshotChainTest {
+
+    @TempDir
+    File snapshotDir;
+
+    @Test
+    public void testVertexIdsRoundTrip() throws IOException {
+        long[] ids = {0L, 4104L, 8200L, 40964208L, Long.MAX_VALUE / 2};
+        File f = new File(snapshotDir, "ids" + SnapshotChain.VERTEX_ID_SUFFIX);
+        SnapshotChain.writeVertexIds(f, ids, ids.length);
+        assertThat(Arrays.equals(SnapshotChain.readVertexIds(f), ids), is(true));
+    }
+
+    @Test
+    public void testDeltaVertexIdsAndTombstones() throws IOException {
+        File previous = new File(snapshotDir, "previous" + SnapshotChain.VERTEX_ID_SUFFIX);
+        SnapshotChain.writeVertexIds(previous, new long[] {0L, 4104L, 8200L, 40964208L, Long.MAX_VALUE / 2}, 5);
+        // 0, 8200 and 40964208 were deleted, 9999 is new and 4104 changed
+        try (VertexIdMap current = new VertexIdMap()) {
+            for (long id : new long[] {4104L, 9999L, 12000L, Long.MAX_VALUE / 2}) {
+                current.put(id, id);
+            }
+            File ids = new File(snapshotDir, "delta" + SnapshotChain.VERTEX_ID_SUFFIX);
+            File tombstones = new File(snapshotDir, "delta" + SnapshotChain.TOMBSTONE_SUFFIX);
+            long removed = SnapshotChain.writeDeltaVertexIds(previous, current, new long[] {4104L, 9999L}, 2,
+                    ids, tombstones);
+            assertThat(removed, is(3L));
+            assertThat(Arrays.equals(SnapshotChain.readVertexIds(tombstones), new long[] {0L, 8200L, 40964208L}), is(true));
+            // 12000 has no aai-last-mod-ts, so it is not in the delta and not in the chain yet
+            assertThat(Arrays.equals(SnapshotChain.readVertexIds(ids), new long[] {4104L, 9999L, Long.MAX_VALUE / 2}),
+                    is(true));
+        }
+    }
+
+    @Test
+    public void testHoldsOnlyTheFilesOfItsSnapshots() {
+        SnapshotChain chain = SnapshotChain.newChain(link("dataSnapshot.graphSON.202601010000", 100L));
+        chain.addDelta(link("dataSnapshot.delta.graphSON.202601020000", 200L));
+        assertThat(chain.holds(SnapshotChain.MANIFEST_FILE_NAME), is(true));
+        assertThat(chain.holds("dataSnapshot.graphSON.202601010000.P3"), is(true));
+        assertThat(chain.holds("dataSnapshot.graphSON.202601010000" + SnapshotChain.VERTEX_ID_SUFFIX), is(true));
+        assertThat(chain.holds("dataSnapshot.delta.graphSON.202601020000" + SnapshotChain.TOMBSTONE_SUFFIX), is(true));
+        assertThat(chain.holds("dataSnapshot.graphSON.202512310000.P0"), is(false));
+        assertThat(chain.holds("dataSnapshot.delta.graphSON.2026010200001.P0"), is(false));
+    }
+
+    @Test
+    public void testMergeKeepsLatestVersionsAndDropsDeletedVerticesAndEdges() throws IOException {
+        write("dataSnapshot.graphSON.base.P0",
+                "{\"id\":1,\"label\":\"vertex\",\"outE\":{\"x\":[{\"id\":\"e1\",\"inV\":2}]}}",
+                "{\"id\":2,\"label\":\"vertex\",\"inE\":{\"x\":[{\"id\":\"e1\",\"outV\":1},{\"id\":\"e2\",\"outV\":3}]}}");
+        write("dataSnapshot.graphSON.base.P1",
+                "{\"id\":3,\"label\":\"vertex\",\"outE\":{\"x\":[{\"id\":\"e2\",\"inV\":2}]}}",
+                "{\"id\":4,\"label\":\"vertex\",\"outE\":{\"x\":[{\"id\":\"e3\",\"inV\":1}]}}");
+        // Vertex 1 was deleted (and edge e2 from 3 to 2 with it), vertex 2 changed and 5 is new
+        write("dataSnapshot.delta.graphSON.d1.P0",
+                "{\"id\":2,\"label\":\"vertex\",\"properties\":{\"p\":[{\"id\":\"q\",\"value\":\"new\"}]}}",
+                "{\"id\":5,\"label\":\"vertex\"}");
+        SnapshotChain.writeVertexIds(new File(snapshotDir, "dataSnapshot.delta.graphSON.d1"
+                + SnapshotChain.TOMBSTONE_SUFFIX), new long[] {1L}, 1);
+
+        SnapshotChain chain = SnapshotChain.newChain(link("dataSnapshot.graphSON.base", 100L));
+        chain.addDelta(link("dataSnapshot.delta.graphSON.d1", 200L));
+        chain.save(snapshotDir);
+        SnapshotChain loaded = SnapshotChain.load(snapshotDir);
+        assertThat(loaded.getDeltas().size(), is(1));
+        assertThat(loaded.getLast().highWaterMark, is(200L));
+
+        File outDir = new File(snapshotDir, "restore");
+        long written = loaded.merge(snapshotDir, outDir, "restored", LoggerFactory.getLogger(SnapshotChainTest.class));
+        assertThat(written, is(4L));
+
+        List<String> lines = new ArrayList<>();
+        for (File f : SnapshotChain.snapshotFiles(outDir, "restored")) {
+            lines.addAll(Files.readAllLines(f.toPath()));
+        }
+        String all = String.join("\n", lines);
+        assertThat(lines.size(), is(4));
+        assertThat(all, containsString("\"value\":\"new\""));
+        assertThat(all, not(containsString("\"id\":1,")));
+        assertThat(all, not(containsString("\"e2\"")));
+        assertThat(all, not(containsString("\"e3\"")));
+    }
+
+    @Test
+    public void testMergeKeepsNewEdgeFromUnchangedVertex() throws IOException {
+        write("dataSnapshot.graphSON.base.P0",
+                "{\"id\":10,\"label\":\"vertex\",\"properties\":{\"aai-node-type\":[{\"id\":\"a\",\"value\":\"pserver\"}]}}",
+                "{\"id\":11,\"label\":\"vertex\"}");
+        // A new parent -> child edge, only the child's aai-last-mod-ts moved
+        write("dataSnapshot.delta.graphSON.d1.P0",
+                "{\"id\":11,\"label\":\"vertex\",\"inE\":{\"tosca.relationships.network.BindsTo\":"
+                        + "[{\"id\":\"e9\",\"outV\":10,\"properties\":{\"contains-other-v\":\"IN\"}}]}}");
+
+        SnapshotChain chain = SnapshotChain.newChain(link("dataSnapshot.graphSON.base", 100L));
+        chain.addDelta(link("dataSnapshot.delta.graphSON.d1", 200L));
+
+        File outDir = new File(snapshotDir, "restore");
+        long written = chain.merge(snapshotDir, outDir, "restored", LoggerFactory.getLogger(SnapshotChainTest.class));
+        assertThat(written, is(2L));
+
+        List<String> lines = new ArrayList<>();
+        for (File f : SnapshotChain.snapshotFiles(outDir, "restored")) {
+            lines.addAll(Files.readAllLines(f.toPath()));
+        }
+        String parent = lines.stream().filter(l -> l.startsWith("{\"id\":10,")).findFirst().get();
+        assertThat(parent, containsString("\"outE\":{\"tosca.relationships.network.BindsTo\":[{\"id\":\"e9\","));
+        assertThat(parent, containsString("\"inV\":11"));
+        assertThat(parent, containsString("\"contains-other-v\":\"IN\""));
+    }
+
+    private SnapshotChain.Link link(String name, long highWaterMark) {
+        SnapshotChain.Link link = new SnapshotChain.Link();
+        link.snapshotName = name;
+        link.highWaterMark = highWaterMark;
+        return link;
+    }
+
+    private void write(String fileName, String... lines) throws IOException {
+        Files.write(new File(snapshotDir, fileName).toPath(), Arrays.asList(lines));
+    }
+}
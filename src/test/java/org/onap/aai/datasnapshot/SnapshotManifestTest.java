@@ -0,0 +1,95 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SnapshotManifestTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotManifestTest.class);
+
+    private static final String SNAPSHOT_NAME = "dataSnapshot.graphSON.test";
+
+    @TempDir
+    File snapshotDir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testManifestMatchesSnapshot() throws IOException {
+        writeSnapshotFile(0, 10);
+        writeSnapshotFile(1, 5);
+        SnapshotManifest.build(snapshotDir, SNAPSHOT_NAME, "graphson", executor).save(snapshotDir);
+
+        SnapshotManifest manifest = SnapshotManifest.load(snapshotDir, SNAPSHOT_NAME);
+        assertThat(manifest.getFiles().size(), is(2));
+        assertThat(manifest.getVertexCount(), is(15L));
+        assertThat(manifest.getEdgeCount(), is(15L));
+        assertThat(manifest.getFiles().get(1).minVertexId, is(1000L));
+        assertThat(manifest.getFiles().get(1).maxVertexId, is(1004L));
+        assertThat(manifest.verify(snapshotDir, executor, LOGGER).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testBadSnapshotIsReported() throws IOException {
+        writeSnapshotFile(0, 10);
+        writeSnapshotFile(1, 5);
+        SnapshotManifest manifest = SnapshotManifest.build(snapshotDir, SNAPSHOT_NAME, "graphson", executor);
+
+        // One file cut short, one missing and one that doesn't belong
+        writeSnapshotFile(0, 9);
+        Files.delete(new File(snapshotDir, SNAPSHOT_NAME + ".P1").toPath());
+        writeSnapshotFile(2, 1);
+
+        List<String> problems = manifest.verify(snapshotDir, executor, LOGGER);
+        assertThat(problems.size(), is(5));
+    }
+
+    private void writeSnapshotFile(int fileNo, int vertexCount) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < vertexCount; i++) {
+            long id = fileNo * 1000L + i;
+            lines.add("{\"id\":" + id + ",\"label\":\"vertex\",\"outE\":{\"tosca.relationships.network.BelongsTo\":"
+                    + "[{\"id\":\"" + id + "-e\",\"inV\":8}]},\"properties\":{}}");
+        }
+        Files.write(new File(snapshotDir, SNAPSHOT_NAME + ".P" + fileNo).toPath(), lines);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SnapshotMetricsTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Metrics.removeRegistry(registry);
+        registry.close();
+    }
+
+    @Test
+    public void testPartTag() {
+        assertThat(SnapshotMetrics.part("/opt/app/snapshots/dataSnapshot.graphSON.201812011234.P12"), is("P12"));
+        assertThat(SnapshotMetrics.part("/opt/app/snapshots/dataSnapshot.graphSON.201812011234"), is("all"));
+    }
+
+    @Test
+    public void testBytesCounted() throws IOException {
+        String fileName = "dataSnapshot.graphSON.test.P7";
+        try (OutputStream os = SnapshotMetrics.countBytesWritten(new ByteArrayOutputStream(), fileName)) {
+            os.write(new byte[100]);
+            os.write(1);
+        }
+        byte[] buf = new byte[64];
+        try (InputStream is = SnapshotMetrics.countBytesRead(new ByteArrayInputStream(new byte[150]), fileName)) {
+            while (is.read(buf) >= 0) {
+            }
+        }
+
+        assertThat(registry.get(SnapshotMetrics.BYTES_WRITTEN).tag("part", "P7").counter().count(), is(101.0));
+        assertThat(registry.get(SnapshotMetrics.BYTES_READ).tag("part", "P7").counter().count(), is(150.0));
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SnapshotParsePipelineTest {
+
+    private static final String LINE = "{\"id\":4104,\"label\":\"vertex\","
+            + "\"inE\":{\"tosca.relationships.network.BelongsTo\":[{\"id\":\"1ol-360-9x1-6ts\",\"outV\":9000}]},"
+            + "\"outE\":{\"org.onap.relationships.inventory.LocatedIn\":[{\"id\":\"2dz-360-4r9h-34w\",\"inV\":4200,"
+            + "\"properties\":{\"contains-other-v\":\"NONE\",\"private\":false}}]},"
+            + "\"properties\":{\"aai-node-type\":[{\"id\":\"16p-360-3bp\",\"value\":\"pserver\"}],"
+            + "\"hostname\":[{\"id\":\"1l0-360-1l1\",\"value\":\"host-1\"}],"
+            + "\"number-of-cpus\":[{\"id\":\"22f-360-5j9\",\"value\":8}],"
+            + "\"resource-version\":[{\"id\":\"3yx-360-6c5\",\"value\":1536178340128}],"
+            + "\"ram-in-megabytes\":[{\"id\":\"4ko-360-7x1\",\"value\":2.5}]}}";
+
+    @TempDir
+    File snapshotDir;
+
+    @Test
+    public void testParseLine() throws IOException {
+        CompactSnapshot.VertexRecord rec = GraphSONLineParser.parse(LINE, true);
+        assertThat(rec.id, is(4104L));
+        assertThat(rec.label, is("vertex"));
+        assertThat(rec.getFirstValue("hostname"), is("host-1"));
+        assertThat(rec.getFirstValue("number-of-cpus"), is(8));
+        assertThat(rec.getFirstValue("resource-version"), is(1536178340128L));
+        assertThat(rec.getFirstValue("ram-in-megabytes"), is(2.5));
+        assertThat(rec.outE.size(), is(1));
+        assertThat(rec.outE.get(0).otherVid, is(4200L));
+        assertThat(rec.outE.get(0).propValues.get(1), is(false));
+        assertThat(rec.inE.isEmpty(), is(true));
+
+        CompactSnapshot.VertexRecord bare = GraphSONLineParser.parse(LINE, false);
+        assertThat(bare.propKeys.isEmpty(), is(true));
+        assertThat(bare.outE.get(0).otherVid, is(4200L));
+        assertThat(bare.outE.get(0).propKeys.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRecordsComeOutInOrder() throws IOException {
+        File f = new File(snapshotDir, "dataSnapshot.graphSON.test.P0");
+        List<String> lines = new ArrayList<>();
+        int count = SnapshotParsePipeline.CHUNK_SIZE * 3 + 7;
+        for (int i = 0; i < count; i++) {
+            lines.add(i == 300 ? "{\"id\":300,\"label\":" : LINE.replace("4104", Integer.toString(i)));
+        }
+        Files.write(f.toPath(), lines);
+
+        int read = 0;
+        try (SnapshotItemSource src = SnapshotParsePipeline.open(f.getPath(), true)) {
+            for (Object item; (item = src.next()) != null; read++) {
+                if (read == 300) {
+                    // A line that can't be parsed is handed on as it is
+                    assertThat(item, is(lines.get(300)));
+                } else {
+                    assertThat(((CompactSnapshot.VertexRecord) item).id, is((long) read));
+                }
+            }
+        }
+        assertThat(read, is(count));
+
+        // Stopping part way through must not leave the reader or parser stuck
+        try (SnapshotItemSource src = SnapshotParsePipeline.open(f.getPath(), false)) {
+            assertThat(((CompactSnapshot.VertexRecord) src.next()).id, is(0L));
+        }
+    }
+}
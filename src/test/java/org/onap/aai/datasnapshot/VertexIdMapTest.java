@@ -0,0 +1,100 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.datasnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class VertexIdMapTest {
+
+    @TempDir
+    File spillDir;
+
+    @Test
+    public void testHeapMapGrowsAndKeepsAllEntries() {
+        try (VertexIdMap map = new VertexIdMap()) {
+            checkPutAndGet(map, 200000);
+        }
+    }
+
+    @Test
+    public void testSpilledMapGrowsAndKeepsAllEntries() {
+        try (VertexIdMap map = new VertexIdMap(spillDir)) {
+            assertThat(map.isSpilled(), is(true));
+            checkPutAndGet(map, 200000);
+        }
+    }
+
+    @Test
+    public void testZeroKeyAndOverwrite() {
+        try (VertexIdMap map = new VertexIdMap()) {
+            assertThat(map.get(0L), is(VertexIdMap.NO_ID));
+            map.put(0L, 11L);
+            map.put(4096L, 12L);
+            map.put(4096L, 13L);
+            assertThat(map.get(0L), is(11L));
+            assertThat(map.get(4096L), is(13L));
+            assertThat(map.size(), is(2L));
+        }
+    }
+
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        try (VertexIdMap map = new VertexIdMap()) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final long base = t * 1000000L;
+                Thread thr = new Thread(() -> {
+                    for (long i = 1; i <= 50000; i++) {
+                        map.put(base + i, -(base + i));
+                    }
+                });
+                threads.add(thr);
+                thr.start();
+            }
+            for (Thread thr : threads) {
+                thr.join();
+            }
+            assertThat(map.size(), is(200000L));
+            assertThat(map.get(3000001L), is(-3000001L));
+        }
+    }
+
+    private void checkPutAndGet(VertexIdMap map, int count) {
+        // JanusGraph style ids - large and spaced out
+        for (long i = 1; i <= count; i++) {
+            map.put(i * 4096L + 2048L, i);
+        }
+        assertThat(map.size(), is((long) count));
+        for (long i = 1; i <= count; i++) {
+            assertThat(map.get(i * 4096L + 2048L), is(i));
+        }
+        assertThat(map.containsKey(4096L), is(false));
+        assertThat(map.get(4096L), is(VertexIdMap.NO_ID));
+    }
+}
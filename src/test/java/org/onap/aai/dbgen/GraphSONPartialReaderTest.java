@@ -0,0 +1,107 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.dbgen;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class GraphSONPartialReaderTest {
+
+    @TempDir
+    File snapshotDir;
+
+    @Test
+    public void testReadGraphFromFiles() throws IOException {
+        // Every vertex in a file has an edge to a vertex in the next file
+        List<File> files = new ArrayList<>();
+        for (int fileNo = 0; fileNo < 3; fileNo++) {
+            files.add(writeSnapshotFile(fileNo));
+        }
+        Graph graph = TinkerGraph.open();
+        List<GraphSONPartialReader.FileLoadStats> loadStats =
+                GraphSONPartialReader.build().create().readGraph(files, graph, 3);
+
+        assertThat(IteratorUtils.count(graph.vertices()), is(30L));
+        assertThat(IteratorUtils.count(graph.edges()), is(30L));
+        Vertex v = graph.vertices(105L).next();
+        assertThat(v.value("hostname"), is("host-105"));
+        assertThat(v.edges(Direction.OUT).next().inVertex().id(), is(205L));
+
+        assertThat(loadStats.size(), is(3));
+        for (int fileNo = 0; fileNo < 3; fileNo++) {
+            GraphSONPartialReader.FileLoadStats fs = loadStats.get(fileNo);
+            assertThat(fs.getFile(), is(files.get(fileNo)));
+            assertThat(fs.getLines(), is(10L));
+            assertThat(fs.getVertices(), is(10L));
+            assertThat(fs.getEdges(), is(10L));
+            assertThat(fs.getErrors(), is(0L));
+        }
+    }
+
+    @Test
+    public void testReadGraphFromStream() throws IOException {
+        File f = writeSnapshotFile(0);
+        Files.write(new File(snapshotDir, "ends.P0").toPath(), Arrays.asList(
+                "{\"id\":100,\"label\":\"vertex\",\"properties\":{\"hostname\":[{\"id\":\"1\",\"value\":\"host-100\"}]}}"));
+        Graph graph = TinkerGraph.open();
+        try (InputStream is = new SequenceInputStream(new FileInputStream(f),
+                new FileInputStream(new File(snapshotDir, "ends.P0")))) {
+            GraphSONPartialReader.build().create().readGraph(is, graph);
+        }
+
+        // Only vertex 100 of file 1 is there, so the other edges have nowhere to go
+        assertThat(IteratorUtils.count(graph.vertices()), is(11L));
+        assertThat(IteratorUtils.count(graph.edges()), is(1L));
+    }
+
+    private File writeSnapshotFile(int fileNo) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            long id = fileNo * 100L + i;
+            long target = ((fileNo + 1) % 3) * 100L + i;
+            lines.add("{\"id\":" + id + ",\"label\":\"vertex\",\"outE\":{\"tosca.relationships.network.BelongsTo\":"
+                    + "[{\"id\":\"e" + id + "\",\"inV\":" + target + ",\"properties\":{\"private\":false}}]},"
+                    + "\"properties\":{\"aai-node-type\":[{\"id\":\"n" + id + "\",\"value\":\"pserver\"}],"
+                    + "\"hostname\":[{\"id\":\"h" + id + "\",\"value\":\"host-" + id + "\"}]}}");
+        }
+        File f = new File(snapshotDir, "dataSnapshot.graphSON.test.P" + fileNo);
+        Files.write(f.toPath(), lines);
+        return f;
+    }
+}
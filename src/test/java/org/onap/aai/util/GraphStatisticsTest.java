@@ -0,0 +1,72 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class GraphStatisticsTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @TempDir
+    File dataDir;
+
+    @Test
+    public void testScanReplacesCounts() {
+        File file = new File(dataDir, "graphStatistics.json");
+        GraphStatistics stats = new GraphStatistics(file);
+        assertThat(stats.getVertexCountEstimate(HOUR), is(nullValue()));
+
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("complex", 3L);
+        counts.put("tenant", 100L);
+        stats.recordNodeTypeCounts("dataGrooming", counts, false);
+        assertThat(stats.getNodeTypeCountEstimate("tenant", HOUR), is(100L));
+        assertThat(stats.getVertexCountEstimate(HOUR), is(nullValue()));
+
+        GraphStatistics.Scan scan = stats.startScan("dataSnapshot");
+        for (int i = 0; i < 5; i++) {
+            scan.addVertex("pserver");
+            scan.addEdge("tosca.relationships.HostedOn");
+        }
+        scan.addVertex("complex");
+        scan.addVertex(null);
+        scan.finish();
+
+        // A new instance (e.g. another JVM) reads the same file
+        GraphStatistics other = new GraphStatistics(file);
+        assertThat(other.getVertexCountEstimate(HOUR), is(7L));
+        assertThat(other.getNodeTypeCountEstimate("pserver", HOUR), is(5L));
+        assertThat(other.getNodeTypeCountEstimate("complex", HOUR), is(1L));
+        assertThat(other.getNodeTypeCountEstimate("tenant", HOUR), is(0L));
+        assertThat(other.getNodeTypeCountEstimate(GraphStatistics.NO_NODE_TYPE, HOUR), is(1L));
+        assertThat(other.getVertexCountEstimate(-1), is(nullValue()));
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.aai.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ToolJobGuardTest {
+
+    @Test
+    public void testOneJobPerTool() {
+        ToolJobGuard guard = new ToolJobGuard(32, 1024);
+        ToolJobGuard.Job job = guard.tryStart("dataSnapshot", 4, 0);
+        assertThat(job, is(notNullValue()));
+        assertThat(guard.isRunning("dataSnapshot"), is(true));
+        assertThat(guard.tryStart("dataSnapshot", 4, 0), is(nullValue()));
+        assertThat(guard.tryStart("dataGrooming", 4, 0), is(notNullValue()));
+
+        job.close();
+        job.close();
+        assertThat(guard.isRunning("dataSnapshot"), is(false));
+        assertThat(guard.tryStart("dataSnapshot", 4, 0), is(notNullValue()));
+    }
+
+    @Test
+    public void testJobsMustFitTheBudget() {
+        ToolJobGuard guard = new ToolJobGuard(16, 1024);
+        ToolJobGuard.Job snapshot = guard.tryStart("dataSnapshot", 12, 512);
+        assertThat(guard.tryStart("dataGrooming", 5, 0), is(nullValue()));
+        assertThat(guard.tryStart("dataExport", 4, 600), is(nullValue()));
+        ToolJobGuard.Job export = guard.tryStart("dataExport", 4, 512);
+        assertThat(export, is(notNullValue()));
+
+        snapshot.close();
+        export.close();
+        // Too big for the budget, but nothing else is running
+        assertThat(guard.tryStart("dataGrooming", 20, 0), is(notNullValue()));
+    }
+}